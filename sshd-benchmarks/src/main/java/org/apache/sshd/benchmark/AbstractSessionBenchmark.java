@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.benchmark;
+
+import org.apache.sshd.ClientSession;
+import org.apache.sshd.SshClient;
+import org.apache.sshd.SshServer;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Base class for benchmarks that use an authenticated client session
+ * to an in-process server for the whole trial
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public abstract class AbstractSessionBenchmark {
+    protected SshServer sshd;
+    protected SshClient client;
+    protected ClientSession session;
+
+    protected AbstractSessionBenchmark() {
+        super();
+    }
+
+    @Setup(Level.Trial)
+    public void setUpSession() throws Exception {
+        sshd = BenchmarkUtils.setUpServer();
+        configure(sshd);
+        sshd.start();
+
+        client = SshClient.setUpDefaultClient();
+        configure(client);
+        client.start();
+        session = BenchmarkUtils.connect(client, sshd.getPort());
+        setUp();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownSession() throws Exception {
+        try {
+            tearDown();
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void closeAll() throws Exception {
+        if (session != null) {
+            session.close(false).await(BenchmarkUtils.TIMEOUT);
+        }
+        if (client != null) {
+            client.stop();
+        }
+        if (sshd != null) {
+            sshd.stop(true);
+        }
+    }
+
+    /**
+     * Invoked once the session is authenticated - sub-classes should use it
+     * rather than their own trial {@code @Setup} so that the order is well defined
+     *
+     * @throws Exception If failed to set up
+     */
+    protected void setUp() throws Exception {
+        // nothing by default
+    }
+
+    /**
+     * Invoked before the session is closed
+     *
+     * @throws Exception If failed to tear down
+     */
+    protected void tearDown() throws Exception {
+        // nothing by default
+    }
+
+    /**
+     * Invoked before the server is started
+     *
+     * @param server The {@link SshServer} to configure
+     * @throws Exception If failed to configure it
+     */
+    protected void configure(SshServer server) throws Exception {
+        // nothing by default
+    }
+
+    /**
+     * Invoked before the client is started
+     *
+     * @param sshClient The {@link SshClient} to configure
+     * @throws Exception If failed to configure it
+     */
+    protected void configure(SshClient sshClient) throws Exception {
+        // nothing by default
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.ClientSession;
+import org.apache.sshd.SshClient;
+import org.apache.sshd.SshServer;
+import org.apache.sshd.client.future.ConnectFuture;
+import org.apache.sshd.common.config.keys.KeyUtils;
+import org.apache.sshd.common.keyprovider.KeyPairProvider;
+import org.apache.sshd.common.keyprovider.MappedKeyPairProvider;
+import org.apache.sshd.common.util.ValidateUtils;
+import org.apache.sshd.server.Command;
+import org.apache.sshd.server.Environment;
+import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.PasswordAuthenticator;
+import org.apache.sshd.server.session.ServerSession;
+
+/**
+ * Helpers shared by the benchmarks that run against an in-process server
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public final class BenchmarkUtils {
+    public static final String USERNAME = "benchmark";
+    public static final String PASSWORD = USERNAME;
+    public static final long TIMEOUT = TimeUnit.SECONDS.toMillis(30L);
+
+    private BenchmarkUtils() {
+        throw new UnsupportedOperationException("No instance");
+    }
+
+    /**
+     * @return A default server - not started - listening on an ephemeral port,
+     * with an {@code ssh-ed25519} host key (so no key file is involved)
+     * and accepting {@link #USERNAME}/{@link #PASSWORD}
+     * @throws GeneralSecurityException If failed to generate the host key
+     */
+    public static SshServer setUpServer() throws GeneralSecurityException {
+        SshServer sshd = SshServer.setUpDefaultServer();
+        sshd.setKeyPairProvider(createHostKeyProvider());
+        sshd.setPasswordAuthenticator(new PasswordAuthenticator() {
+            @Override
+            public boolean authenticate(String username, String password, ServerSession session) {
+                return USERNAME.equals(username) && PASSWORD.equals(password);
+            }
+        });
+        return sshd;
+    }
+
+    public static KeyPairProvider createHostKeyProvider() throws GeneralSecurityException {
+        KeyPair kp = KeyUtils.generateEd25519KeyPair(new SecureRandom());
+        return new MappedKeyPairProvider(Collections.singletonMap(KeyPairProvider.SSH_ED25519, kp));
+    }
+
+    /**
+     * Connects and authenticates a session to the given port on the local host
+     *
+     * @param client The {@link SshClient} to use
+     * @param port The server port
+     * @return The authenticated {@link ClientSession}
+     * @throws Exception If failed to connect or authenticate in time
+     */
+    public static ClientSession connect(SshClient client, int port) throws Exception {
+        ConnectFuture future = client.connect(USERNAME, "localhost", port);
+        ValidateUtils.checkTrue(future.await(TIMEOUT), "Connection to port=%d timed out", Integer.valueOf(port));
+
+        ClientSession session = ValidateUtils.checkNotNull(future.getSession(), "No session on port=%d", Integer.valueOf(port));
+        session.addPasswordIdentity(PASSWORD);
+        session.auth().verify(TIMEOUT);
+        return session;
+    }
+
+    /**
+     * A {@link Command} that consumes its input until EOF and exits
+     */
+    public static class SinkCommand implements Command, Runnable {
+        private InputStream in;
+        private ExitCallback callback;
+        private Thread thread;
+
+        public SinkCommand() {
+            super();
+        }
+
+        @Override
+        public void setInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public void setOutputStream(OutputStream out) {
+            // ignored
+        }
+
+        @Override
+        public void setErrorStream(OutputStream err) {
+            // ignored
+        }
+
+        @Override
+        public void setExitCallback(ExitCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void start(Environment env) throws IOException {
+            thread = new Thread(this, getClass().getSimpleName());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            int exitValue = 0;
+            try {
+                byte[] buf = new byte[32 * 1024];
+                while (in.read(buf) >= 0) {
+                    continue;
+                }
+            } catch (IOException e) {
+                exitValue = 1;
+            } finally {
+                callback.onExit(exitValue);
+            }
+        }
+
+        @Override
+        public void destroy() {
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+}
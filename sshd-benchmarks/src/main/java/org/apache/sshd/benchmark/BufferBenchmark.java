@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.benchmark;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the {@link Buffer} primitives used when building and parsing packets.
+ * Each benchmark writes a value and reads it back from a re-used buffer.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class BufferBenchmark {
+    /**
+     * Size of the byte arrays, strings and multi-precision integers
+     */
+    @Param({ "16", "256", "4096" })
+    public int size;
+
+    private Buffer buffer;
+    private byte[] bytes;
+    private String string;
+    private BigInteger mpint;
+
+    public BufferBenchmark() {
+        super();
+    }
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(size);
+        bytes = new byte[size];
+        rnd.nextBytes(bytes);
+
+        StringBuilder sb = new StringBuilder(size);
+        for (int index = 0; index < size; index++) {
+            sb.append((char) ('a' + rnd.nextInt(26)));
+        }
+        string = sb.toString();
+        mpint = new BigInteger(1, bytes);
+        // large enough for all the benchmarks so that no growth occurs while measuring
+        buffer = new ByteArrayBuffer(2 * size + Long.SIZE);
+    }
+
+    @Benchmark
+    public long putGetInt() {
+        buffer.clear();
+        buffer.putInt(size);
+        return buffer.getUInt();
+    }
+
+    @Benchmark
+    public long putGetLong() {
+        buffer.clear();
+        buffer.putLong(size);
+        return buffer.getLong();
+    }
+
+    @Benchmark
+    public void putGetBytes(Blackhole bh) {
+        buffer.clear();
+        buffer.putBytes(bytes);
+        bh.consume(buffer.getBytes());
+    }
+
+    @Benchmark
+    public void putGetRawBytes(Blackhole bh) {
+        buffer.clear();
+        buffer.putRawBytes(bytes);
+        buffer.getRawBytes(bytes);
+        bh.consume(bytes);
+    }
+
+    @Benchmark
+    public String putGetString() {
+        buffer.clear();
+        buffer.putString(string);
+        return buffer.getString();
+    }
+
+    @Benchmark
+    public BigInteger putGetMPInt() {
+        buffer.clear();
+        buffer.putMPInt(mpint);
+        return buffer.getMPInt();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.benchmark;
+
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.ClientChannel;
+import org.apache.sshd.SshServer;
+import org.apache.sshd.common.channel.ChannelOutputStream;
+import org.apache.sshd.server.Command;
+import org.apache.sshd.server.CommandFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of a client {@link ChannelOutputStream} writing
+ * to a command that discards its input - i.e., including the channel
+ * window handling, the encoding and the transport to the (local) server.
+ * The number of bytes per second is the score multiplied by the chunk size.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ChannelOutputStreamBenchmark extends AbstractSessionBenchmark {
+    /**
+     * Number of bytes written (and flushed) by each operation
+     */
+    @Param({ "1024", "32768" })
+    public int chunkSize;
+
+    private ClientChannel channel;
+    private OutputStream out;
+    private byte[] chunk;
+
+    public ChannelOutputStreamBenchmark() {
+        super();
+    }
+
+    @Override
+    protected void configure(SshServer server) throws Exception {
+        server.setCommandFactory(new CommandFactory() {
+            @Override
+            public Command createCommand(String command) {
+                return new BenchmarkUtils.SinkCommand();
+            }
+        });
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        chunk = new byte[chunkSize];
+        new Random(chunkSize).nextBytes(chunk);
+
+        channel = session.createExecChannel(getClass().getSimpleName());
+        channel.open().verify(BenchmarkUtils.TIMEOUT);
+        out = channel.getInvertedIn();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (out != null) {
+            out.close();
+        }
+        if (channel != null) {
+            channel.waitFor(ClientChannel.CLOSED, BenchmarkUtils.TIMEOUT);
+            channel.close(false);
+        }
+    }
+
+    @Benchmark
+    public void writeAndFlush() throws Exception {
+        out.write(chunk);
+        out.flush();
+    }
+}
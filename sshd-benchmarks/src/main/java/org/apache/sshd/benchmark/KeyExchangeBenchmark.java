@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.ClientSession;
+import org.apache.sshd.SshBuilder.ClientBuilder;
+import org.apache.sshd.SshBuilder.ServerBuilder;
+import org.apache.sshd.SshClient;
+import org.apache.sshd.SshServer;
+import org.apache.sshd.common.kex.BuiltinDHFactories;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the rate of complete handshakes - connection, key exchange and
+ * (password) authentication - to an in-process server for each
+ * {@link BuiltinDHFactories} entry. The server uses an {@code ssh-ed25519}
+ * host key so that the signature cost is about the same for all of them.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class KeyExchangeBenchmark {
+    @Param
+    public BuiltinDHFactories kex;
+
+    private SshServer sshd;
+    private SshClient client;
+
+    public KeyExchangeBenchmark() {
+        super();
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        if (!kex.isSupported()) {
+            throw new IllegalStateException("Key exchange not supported: " + kex);
+        }
+
+        sshd = BenchmarkUtils.setUpServer();
+        sshd.setKeyExchangeFactories(Collections.singletonList(ServerBuilder.DH2KEX.transform(kex)));
+        sshd.start();
+
+        client = SshClient.setUpDefaultClient();
+        client.setKeyExchangeFactories(Collections.singletonList(ClientBuilder.DH2KEX.transform(kex)));
+        client.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (client != null) {
+            client.stop();
+        }
+        if (sshd != null) {
+            sshd.stop(true);
+        }
+    }
+
+    @Benchmark
+    public boolean handshake() throws Exception {
+        ClientSession session = BenchmarkUtils.connect(client, sshd.getPort());
+        return session.close(false).await(BenchmarkUtils.TIMEOUT);
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.benchmark;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.SshServer;
+import org.apache.sshd.common.Cipher;
+import org.apache.sshd.common.FactoryManager;
+import org.apache.sshd.common.Mac;
+import org.apache.sshd.common.SshConstants;
+import org.apache.sshd.common.cipher.AuthenticatedCipher;
+import org.apache.sshd.common.channel.ChannelAsyncOutputStream.IoWriteFutureImpl;
+import org.apache.sshd.common.cipher.BuiltinCiphers;
+import org.apache.sshd.common.future.CloseFuture;
+import org.apache.sshd.common.future.DefaultCloseFuture;
+import org.apache.sshd.common.io.IoService;
+import org.apache.sshd.common.io.IoSession;
+import org.apache.sshd.common.io.IoWriteFuture;
+import org.apache.sshd.common.mac.BuiltinMacs;
+import org.apache.sshd.common.session.AbstractSession;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link AbstractSession} packet encoding (padding, MAC and encryption)
+ * and decoding for every valid {@link BuiltinCiphers} / {@link BuiltinMacs} pair.
+ * The {@code aes*gcm} ciphers require Java 8 - use {@code -p algorithms=...} to
+ * select the measured pairs.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PacketCodecBenchmark {
+    /**
+     * The {@link BuiltinCiphers} and {@link BuiltinMacs} names separated by a {@code '/'} -
+     * AEAD ciphers have no MAC since they provide their own integrity protection
+     */
+    @Param({
+        "aes128cbc/hmacmd5", "aes128cbc/hmacmd596", "aes128cbc/hmacsha1", "aes128cbc/hmacsha1etm", "aes128cbc/hmacsha196", "aes128cbc/hmacsha256", "aes128cbc/hmacsha256etm", "aes128cbc/hmacsha512", "aes128cbc/hmacsha512etm",
+        "aes128ctr/hmacmd5", "aes128ctr/hmacmd596", "aes128ctr/hmacsha1", "aes128ctr/hmacsha1etm", "aes128ctr/hmacsha196", "aes128ctr/hmacsha256", "aes128ctr/hmacsha256etm", "aes128ctr/hmacsha512", "aes128ctr/hmacsha512etm",
+        "aes192cbc/hmacmd5", "aes192cbc/hmacmd596", "aes192cbc/hmacsha1", "aes192cbc/hmacsha1etm", "aes192cbc/hmacsha196", "aes192cbc/hmacsha256", "aes192cbc/hmacsha256etm", "aes192cbc/hmacsha512", "aes192cbc/hmacsha512etm",
+        "aes192ctr/hmacmd5", "aes192ctr/hmacmd596", "aes192ctr/hmacsha1", "aes192ctr/hmacsha1etm", "aes192ctr/hmacsha196", "aes192ctr/hmacsha256", "aes192ctr/hmacsha256etm", "aes192ctr/hmacsha512", "aes192ctr/hmacsha512etm",
+        "aes256cbc/hmacmd5", "aes256cbc/hmacmd596", "aes256cbc/hmacsha1", "aes256cbc/hmacsha1etm", "aes256cbc/hmacsha196", "aes256cbc/hmacsha256", "aes256cbc/hmacsha256etm", "aes256cbc/hmacsha512", "aes256cbc/hmacsha512etm",
+        "aes256ctr/hmacmd5", "aes256ctr/hmacmd596", "aes256ctr/hmacsha1", "aes256ctr/hmacsha1etm", "aes256ctr/hmacsha196", "aes256ctr/hmacsha256", "aes256ctr/hmacsha256etm", "aes256ctr/hmacsha512", "aes256ctr/hmacsha512etm",
+        "arcfour128/hmacmd5", "arcfour128/hmacmd596", "arcfour128/hmacsha1", "arcfour128/hmacsha1etm", "arcfour128/hmacsha196", "arcfour128/hmacsha256", "arcfour128/hmacsha256etm", "arcfour128/hmacsha512", "arcfour128/hmacsha512etm",
+        "arcfour256/hmacmd5", "arcfour256/hmacmd596", "arcfour256/hmacsha1", "arcfour256/hmacsha1etm", "arcfour256/hmacsha196", "arcfour256/hmacsha256", "arcfour256/hmacsha256etm", "arcfour256/hmacsha512", "arcfour256/hmacsha512etm",
+        "blowfishcbc/hmacmd5", "blowfishcbc/hmacmd596", "blowfishcbc/hmacsha1", "blowfishcbc/hmacsha1etm", "blowfishcbc/hmacsha196", "blowfishcbc/hmacsha256", "blowfishcbc/hmacsha256etm", "blowfishcbc/hmacsha512", "blowfishcbc/hmacsha512etm",
+        "tripledescbc/hmacmd5", "tripledescbc/hmacmd596", "tripledescbc/hmacsha1", "tripledescbc/hmacsha1etm", "tripledescbc/hmacsha196", "tripledescbc/hmacsha256", "tripledescbc/hmacsha256etm", "tripledescbc/hmacsha512", "tripledescbc/hmacsha512etm",
+        "aes128gcm", "aes256gcm", "chacha20poly1305"
+    })
+    public String algorithms;
+
+    /**
+     * Size of the packet payload
+     */
+    @Param({ "64", "1024", "32768" })
+    public int size;
+
+    private CodecSession encoder;
+    private CodecSession decoder;
+    private byte[] payload;
+
+    public PacketCodecBenchmark() {
+        super();
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        int pos = algorithms.indexOf('/');
+        BuiltinCiphers cipher = BuiltinCiphers.valueOf((pos < 0) ? algorithms : algorithms.substring(0, pos));
+        BuiltinMacs mac = (pos < 0) ? null : BuiltinMacs.valueOf(algorithms.substring(pos + 1));
+        if (!cipher.isSupported()) {
+            throw new IllegalStateException("Cipher not supported: " + cipher);
+        }
+        if ((mac != null) && (!mac.isSupported())) {
+            throw new IllegalStateException("MAC not supported: " + mac);
+        }
+
+        Random rnd = new Random(size);
+        byte[] key = new byte[64];
+        rnd.nextBytes(key);
+        byte[] iv = new byte[64];
+        rnd.nextBytes(iv);
+        byte[] macKey = new byte[64];
+        rnd.nextBytes(macKey);
+        payload = new byte[size];
+        rnd.nextBytes(payload);
+
+        FactoryManager manager = SshServer.setUpDefaultServer();
+        encoder = new CodecSession(manager);
+        decoder = new CodecSession(manager);
+
+        Cipher outCipher = cipher.create();
+        outCipher.init(Cipher.Mode.Encrypt, key, iv);
+        Cipher inCipher = cipher.create();
+        inCipher.init(Cipher.Mode.Decrypt, key, iv);
+
+        Mac outMac = null;
+        Mac inMac = null;
+        if (outCipher instanceof AuthenticatedCipher) {
+            if (mac != null) {
+                throw new IllegalStateException("No MAC expected for AEAD cipher: " + algorithms);
+            }
+        } else if (mac == null) {
+            throw new IllegalStateException("No MAC specified for cipher: " + algorithms);
+        } else {
+            outMac = mac.create();
+            outMac.init(macKey);
+            inMac = mac.create();
+            inMac.init(macKey);
+        }
+
+        encoder.setOutgoing(outCipher, outMac);
+        decoder.setIncoming(inCipher, inMac);
+    }
+
+    @Benchmark
+    public Buffer encode() throws IOException {
+        return encoder.encodePacket(payload);
+    }
+
+    @Benchmark
+    public long encodeDecode() throws Exception {
+        Buffer buffer = encoder.encodePacket(payload);
+        decoder.decodePackets(buffer);
+        return decoder.getReceivedBytes();
+    }
+
+    /**
+     * Exposes the encoding and decoding of an {@link AbstractSession} with
+     * the given algorithms, without any I/O or key exchange involved
+     */
+    public static class CodecSession extends AbstractSession {
+        private long receivedBytes;
+
+        public CodecSession(FactoryManager manager) {
+            super(true, manager, new DiscardIoSession());
+        }
+
+        public void setOutgoing(Cipher cipher, Mac mac) {
+            outCipher = cipher;
+            outCipherSize = cipher.getIVSize();
+            outMac = mac;
+        }
+
+        public void setIncoming(Cipher cipher, Mac mac) {
+            inCipher = cipher;
+            inCipherSize = cipher.getIVSize();
+            inMac = mac;
+            inMacResult = (mac == null) ? null : new byte[mac.getBlockSize()];
+        }
+
+        public Buffer encodePacket(byte[] data) throws IOException {
+            Buffer buffer = createBuffer(SshConstants.SSH_MSG_CHANNEL_DATA, data.length);
+            buffer.putRawBytes(data);
+            // the packet is encoded in place - the I/O session discards it
+            doWritePacket(buffer);
+            return buffer;
+        }
+
+        public void decodePackets(Buffer buffer) throws Exception {
+            decode(buffer);
+        }
+
+        public long getReceivedBytes() {
+            return receivedBytes;
+        }
+
+        @Override
+        protected void handleMessage(Buffer buffer) throws Exception {
+            receivedBytes += buffer.available();
+        }
+
+        @Override
+        protected boolean readIdentification(Buffer buffer) {
+            return false;
+        }
+
+        @Override
+        protected void sendKexInit() throws IOException {
+            // ignored
+        }
+
+        @Override
+        protected void checkKeys() {
+            // ignored
+        }
+
+        @Override
+        protected void receiveKexInit(Buffer buffer) throws IOException {
+            // ignored
+        }
+
+        @Override
+        public void startService(String name) throws Exception {
+            // ignored
+        }
+
+        @Override
+        public void resetIdleTimeout() {
+            // ignored
+        }
+    }
+
+    /**
+     * An {@link IoSession} that discards the written packets
+     */
+    public static class DiscardIoSession implements IoSession {
+        private final IoWriteFutureImpl written = new IoWriteFutureImpl(null);
+        private final CloseFuture closed = new DefaultCloseFuture(null);
+
+        public DiscardIoSession() {
+            written.setValue(Boolean.TRUE);
+            closed.setClosed();
+        }
+
+        @Override
+        public long getId() {
+            return 0L;
+        }
+
+        @Override
+        public Object getAttribute(Object key) {
+            return null;
+        }
+
+        @Override
+        public Object setAttribute(Object key, Object value) {
+            return null;
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public SocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public IoWriteFuture write(Buffer buffer) {
+            return written;
+        }
+
+        @Override
+        public CloseFuture close(boolean immediately) {
+            return closed;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+
+        @Override
+        public boolean isClosing() {
+            return false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+            // ignored
+        }
+
+        @Override
+        public IoService getService() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.benchmark;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.SshServer;
+import org.apache.sshd.client.sftp.SftpClient;
+import org.apache.sshd.client.sftp.SftpClient.CloseableHandle;
+import org.apache.sshd.client.sftp.SftpClient.DirEntry;
+import org.apache.sshd.client.sftp.SftpClient.OpenMode;
+import org.apache.sshd.common.NamedFactory;
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.server.Command;
+import org.apache.sshd.server.sftp.SftpSubsystem;
+import org.apache.sshd.server.sftp.SftpSubsystemFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link SftpSubsystem} read, write and read-directory requests
+ * as issued (synchronously) by an {@link SftpClient}. The files are kept in
+ * a temporary folder that is deleted when the trial ends.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class SftpBenchmark extends AbstractSessionBenchmark {
+    public static final String DATA_FILE = "data.bin";
+    public static final String DATA_DIR = "dir";
+    public static final int FILE_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Number of bytes read or written by each request
+     */
+    @Param({ "4096", "32768" })
+    public int chunkSize;
+
+    /**
+     * Number of entries in the listed directory
+     */
+    @Param({ "100" })
+    public int dirSize;
+
+    private Path rootDir;
+    private SftpClient sftp;
+    private CloseableHandle readHandle;
+    private CloseableHandle writeHandle;
+    private byte[] readBuffer;
+    private byte[] writeBuffer;
+    private long readOffset;
+    private long writeOffset;
+
+    public SftpBenchmark() {
+        super();
+    }
+
+    @Override
+    protected void configure(SshServer server) throws Exception {
+        rootDir = Files.createTempDirectory(getClass().getSimpleName());
+
+        byte[] data = new byte[FILE_SIZE];
+        new Random(FILE_SIZE).nextBytes(data);
+        Files.write(rootDir.resolve(DATA_FILE), data);
+
+        Path dir = Files.createDirectory(rootDir.resolve(DATA_DIR));
+        for (int index = 0; index < dirSize; index++) {
+            Files.write(dir.resolve("file-" + index + ".txt"), Arrays.copyOf(data, index));
+        }
+
+        server.setFileSystemFactory(new VirtualFileSystemFactory(rootDir.toString()));
+        server.setSubsystemFactories(Arrays.<NamedFactory<Command>>asList(new SftpSubsystemFactory()));
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        readBuffer = new byte[chunkSize];
+        writeBuffer = new byte[chunkSize];
+        new Random(chunkSize).nextBytes(writeBuffer);
+
+        sftp = session.createSftpClient();
+        readHandle = sftp.open(DATA_FILE, OpenMode.Read);
+        writeHandle = sftp.open(DATA_FILE + ".out", OpenMode.Write, OpenMode.Create, OpenMode.Truncate);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            if (readHandle != null) {
+                readHandle.close();
+            }
+            if (writeHandle != null) {
+                writeHandle.close();
+            }
+            if (sftp != null) {
+                sftp.close();
+            }
+        } finally {
+            if (rootDir != null) {
+                deleteRecursive(rootDir);
+            }
+        }
+    }
+
+    @Benchmark
+    public int read() throws IOException {
+        int len = sftp.read(readHandle, readOffset, readBuffer);
+        readOffset += chunkSize;
+        if (readOffset >= FILE_SIZE) {
+            readOffset = 0L;
+        }
+        return len;
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        sftp.write(writeHandle, writeOffset, writeBuffer);
+        writeOffset += chunkSize;
+        if (writeOffset >= FILE_SIZE) {
+            writeOffset = 0L;
+        }
+    }
+
+    @Benchmark
+    public int readDir() throws IOException {
+        int count = 0;
+        try (CloseableHandle handle = sftp.openDir(DATA_DIR)) {
+            for (DirEntry[] entries = sftp.readDir(handle); entries != null; entries = sftp.readDir(handle)) {
+                count += entries.length;
+            }
+        }
+        return count;
+    }
+
+    private static void deleteRecursive(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(path)) {
+                for (Path child : ds) {
+                    deleteRecursive(child);
+                }
+            }
+        }
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.benchmark;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.sshd.common.cipher.AuthenticatedCipher;
+import org.apache.sshd.common.cipher.BuiltinCiphers;
+import org.apache.sshd.common.mac.BuiltinMacs;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Makes sure the hard-coded benchmark parameters follow the built-in algorithms
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class PacketCodecBenchmarkTest extends Assert {
+    public PacketCodecBenchmarkTest() {
+        super();
+    }
+
+    @Test
+    public void testAlgorithmsCoverAllBuiltinPairs() throws Exception {
+        Set<String> expected = new TreeSet<String>();
+        for (BuiltinCiphers cipher : BuiltinCiphers.values()) {
+            if (cipher == BuiltinCiphers.none) {
+                continue;
+            }
+            if (cipher.create() instanceof AuthenticatedCipher) {
+                expected.add(cipher.name());    // AEAD ciphers have no MAC
+                continue;
+            }
+            for (BuiltinMacs mac : BuiltinMacs.values()) {
+                expected.add(cipher.name() + "/" + mac.name());
+            }
+        }
+
+        Param param = PacketCodecBenchmark.class.getField("algorithms").getAnnotation(Param.class);
+        assertNotNull("No algorithms parameter", param);
+        String[] actual = param.value();
+        assertEquals("Mismatched algorithms", expected, new TreeSet<String>(Arrays.asList(actual)));
+        assertEquals("Duplicate algorithms", expected.size(), actual.length);
+    }
+}
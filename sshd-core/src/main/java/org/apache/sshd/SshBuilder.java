@@ -51,7 +51,7 @@ import org.apache.sshd.common.kex.DHFactory;
 import org.apache.sshd.common.mac.BuiltinMacs;
 import org.apache.sshd.common.random.BouncyCastleRandom;
 import org.apache.sshd.common.random.JceRandom;
-import org.apache.sshd.common.random.SingletonRandomFactory;
+import org.apache.sshd.common.random.ThreadLocalRandomFactory;
 import org.apache.sshd.common.session.ConnectionService;
 import org.apache.sshd.common.signature.BuiltinSignatures;
 import org.apache.sshd.common.util.ObjectBuilder;
@@ -103,10 +103,11 @@ public class SshBuilder {
             }
 
             if (randomFactory == null) {
+                // one instance per thread - avoids contending on a shared generator when encoding packets
                 if (SecurityUtils.isBouncyCastleRegistered()) {
-                    randomFactory = new SingletonRandomFactory(BouncyCastleRandom.BouncyCastleRandomFactory.INSTANCE);
+                    randomFactory = new ThreadLocalRandomFactory(BouncyCastleRandom.BouncyCastleRandomFactory.INSTANCE, ThreadLocalRandomFactory.DEFAULT_POOL_SIZE);
                 } else {
-                    randomFactory = new SingletonRandomFactory(JceRandom.JceRandomFactory.INSTANCE);
+                    randomFactory = new ThreadLocalRandomFactory(JceRandom.JceRandomFactory.INSTANCE, ThreadLocalRandomFactory.DEFAULT_POOL_SIZE);
                 }
             }
 
@@ -234,9 +235,12 @@ public class SshBuilder {
         public static final List<BuiltinCiphers> DEFAULT_CIPHERS_PREFERENCE =
                 Collections.unmodifiableList(
                         Arrays.asList(
+                                BuiltinCiphers.chacha20poly1305,
                                 BuiltinCiphers.aes128ctr,
                                 BuiltinCiphers.aes192ctr,
                                 BuiltinCiphers.aes256ctr,
+                                BuiltinCiphers.aes128gcm,
+                                BuiltinCiphers.aes256gcm,
                                 BuiltinCiphers.arcfour256,
                                 BuiltinCiphers.arcfour128,
                                 BuiltinCiphers.aes128cbc,
@@ -272,6 +276,8 @@ public class SshBuilder {
         public static final List<BuiltinDHFactories> DEFAULT_KEX_PREFERENCE=
                 Collections.unmodifiableList(
                         Arrays.asList(
+                                BuiltinDHFactories.curve25519,
+                                BuiltinDHFactories.curve25519libssh,
                                 BuiltinDHFactories.ecdhp521,
                                 BuiltinDHFactories.ecdhp384,
                                 BuiltinDHFactories.ecdhp256,
@@ -291,6 +297,9 @@ public class SshBuilder {
         public static final List<BuiltinMacs>   DEFAULT_MAC_PREFERENCE=
                 Collections.unmodifiableList(
                         Arrays.asList(
+                                BuiltinMacs.hmacsha256etm,
+                                BuiltinMacs.hmacsha512etm,
+                                BuiltinMacs.hmacsha1etm,
                                 BuiltinMacs.hmacmd5,
                                 BuiltinMacs.hmacsha1,
                                 BuiltinMacs.hmacsha256,
@@ -324,6 +333,7 @@ public class SshBuilder {
                                 BuiltinSignatures.nistp256,
                                 BuiltinSignatures.nistp384,
                                 BuiltinSignatures.nistp521,
+                                BuiltinSignatures.ed25519,
                                 BuiltinSignatures.rsa,
                                 BuiltinSignatures.dsa
                         ));
@@ -57,9 +57,11 @@ import org.apache.sshd.server.auth.UserAuthPassword;
 import org.apache.sshd.server.auth.UserAuthPublicKey;
 import org.apache.sshd.server.auth.gss.GSSAuthenticator;
 import org.apache.sshd.server.auth.gss.UserAuthGSS;
+import org.apache.sshd.server.command.CommandExecutionService;
 import org.apache.sshd.server.command.ScpCommandFactory;
 import org.apache.sshd.server.keyprovider.PEMGeneratorHostKeyProvider;
 import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.server.session.ConcurrentSessionCounter;
 import org.apache.sshd.server.session.ServerConnectionService;
 import org.apache.sshd.server.session.ServerSession;
 import org.apache.sshd.server.session.ServerUserAuthService;
@@ -110,6 +112,9 @@ public class SshServer extends AbstractFactoryManager implements ServerFactoryMa
     protected PasswordAuthenticator passwordAuthenticator;
     protected PublickeyAuthenticator publickeyAuthenticator;
     protected GSSAuthenticator gssAuthenticator;
+    protected ConcurrentSessionCounter sessionCounter;
+    protected CommandExecutionService commandExecutionService;
+    private boolean shutdownCommandExecutionService;
 
     public SshServer() {
     }
@@ -153,6 +158,34 @@ public class SshServer extends AbstractFactoryManager implements ServerFactoryMa
         this.shellFactory = shellFactory;
     }
 
+    /**
+     * @return The {@link ConcurrentSessionCounter} tracking the live sessions per
+     * user and per remote address - {@code null} if the server is not started
+     */
+    public ConcurrentSessionCounter getSessionCounter() {
+        return sessionCounter;
+    }
+
+    /**
+     * @return The {@link CommandExecutionService} shared by the commands of all the
+     * sessions - {@code null} if the server is not started
+     */
+    public CommandExecutionService getCommandExecutionService() {
+        return commandExecutionService;
+    }
+
+    /**
+     * @param service The {@link CommandExecutionService} shared by the commands of
+     *                all the sessions. If {@code null} when the server is started then
+     *                a default one is created according to the {@link #MAX_CONCURRENT_COMMANDS},
+     *                {@link #MAX_CONCURRENT_COMMANDS_PER_SESSION} and {@link #MAX_CONCURRENT_COMMANDS_PER_USER}
+     *                properties and shut down when the server is stopped. A service set here
+     *                is never shut down by the server
+     */
+    public void setCommandExecutionService(CommandExecutionService service) {
+        this.commandExecutionService = service;
+    }
+
     public SessionFactory getSessionFactory() {
         return sessionFactory;
     }
@@ -260,6 +293,8 @@ public class SshServer extends AbstractFactoryManager implements ServerFactoryMa
         acceptor = createAcceptor();
 
         setupSessionTimeout(sessionFactory);
+        setupSessionCounter(sessionFactory);
+        setupCommandExecutionService();
 
         String  hostsList=getHost();
         if (!GenericUtils.isEmpty(hostsList)) {
@@ -314,6 +349,7 @@ public class SshServer extends AbstractFactoryManager implements ServerFactoryMa
                     @Override
                     public void run() {
                         removeSessionTimeout(sessionFactory);
+                        removeSessionCounter(sessionFactory);
                     }
                 })
                 .sequential(acceptor, ioServiceFactory)
@@ -323,6 +359,7 @@ public class SshServer extends AbstractFactoryManager implements ServerFactoryMa
                     public void run() {
                         acceptor = null;
                         ioServiceFactory = null;
+                        removeCommandExecutionService();
                         if (shutdownExecutor && (executor != null) && (!executor.isShutdown())) {
                             try {
                                 executor.shutdownNow();
@@ -357,6 +394,43 @@ public class SshServer extends AbstractFactoryManager implements ServerFactoryMa
         return new SessionFactory();
     }
 
+    protected void setupSessionCounter(SessionFactory sessionFactory) {
+        sessionCounter = createSessionCounter();
+        sessionFactory.addListener(sessionCounter);
+    }
+
+    protected ConcurrentSessionCounter createSessionCounter() {
+        return new ConcurrentSessionCounter();
+    }
+
+    protected void removeSessionCounter(SessionFactory sessionFactory) {
+        // a new counter is created should the server be restarted
+        if (sessionFactory != null && sessionCounter != null) {
+            sessionFactory.removeListener(sessionCounter);
+        }
+        sessionCounter = null;
+    }
+
+    protected void setupCommandExecutionService() {
+        if (commandExecutionService == null) {
+            commandExecutionService = createCommandExecutionService();
+            shutdownCommandExecutionService = true;
+        }
+    }
+
+    protected CommandExecutionService createCommandExecutionService() {
+        return CommandExecutionService.create(this);
+    }
+
+    protected void removeCommandExecutionService() {
+        // a new default service is created should the server be restarted
+        if (shutdownCommandExecutionService && (commandExecutionService != null)) {
+            commandExecutionService.shutdown();
+            commandExecutionService = null;
+        }
+        shutdownCommandExecutionService = false;
+    }
+
     @Override
     public String toString() {
         return "SshServer[" + Integer.toHexString(hashCode()) + "]";
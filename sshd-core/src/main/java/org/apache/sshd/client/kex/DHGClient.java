@@ -78,7 +78,7 @@ public class DHGClient extends AbstractDHClientKeyExchange {
 
         log.debug("Send SSH_MSG_KEXDH_INIT");
         Buffer buffer = s.createBuffer(SshConstants.SSH_MSG_KEXDH_INIT);
-        buffer.putMPInt(e);
+        dh.putE(buffer, e);
         session.writePacket(buffer);
     }
 
@@ -115,8 +115,8 @@ public class DHGClient extends AbstractDHClientKeyExchange {
         buffer.putBytes(I_C);
         buffer.putBytes(I_S);
         buffer.putBytes(K_S);
-        buffer.putMPInt(e);
-        buffer.putMPInt(f);
+        dh.putE(buffer, e);
+        dh.putE(buffer, f);
         buffer.putMPInt(K);
         hash.update(buffer.array(), 0, buffer.available());
         H = hash.digest();
@@ -121,4 +121,90 @@ public abstract class AbstractSftpClient extends AbstractLoggingBean implements
     public void symLink(String linkPath, String targetPath) throws IOException {
         link(linkPath, targetPath, true);
     }
+
+    /**
+     * Copies a remote file to the given stream, keeping several read requests
+     * in flight instead of waiting for each reply before sending the next one
+     *
+     * @param path The remote file path
+     * @param out The target {@link OutputStream} - not closed
+     * @return Number of copied bytes
+     * @throws IOException If failed to read the remote file or write the data
+     * @see #download(Handle, long, long, OutputStream)
+     */
+    public long download(String path, OutputStream out) throws IOException {
+        try(CloseableHandle handle = open(path, EnumSet.of(OpenMode.Read))) {
+            return download(handle, 0L, -1L, out);
+        }
+    }
+
+    /**
+     * Copies data from an open remote file to the given stream. The default
+     * implementation waits for each reply before sending the next read request -
+     * sub-classes are expected to override it and keep several requests in flight
+     *
+     * @param handle The remote file {@link Handle}
+     * @param fileOffset Offset in the remote file where to start reading
+     * @param count Maximum number of bytes to copy - negative means until end of file
+     * @param out The target {@link OutputStream} - not closed
+     * @return Number of copied bytes
+     * @throws IOException If failed to read the remote file or write the data
+     */
+    public long download(Handle handle, long fileOffset, long count, OutputStream out) throws IOException {
+        byte[] data = new byte[DEFAULT_READ_BUFFER_SIZE];
+        long total = 0L;
+        while ((count < 0L) || (total < count)) {
+            int len = read(handle, fileOffset + total, data, 0, (count < 0L) ? data.length : (int) Math.min(data.length, count - total));
+            if (len < 0) {
+                break;
+            }
+            out.write(data, 0, len);
+            total += len;
+        }
+        return total;
+    }
+
+    /**
+     * Copies the data of the given stream to a remote file (which is created
+     * or truncated), keeping several write requests in flight instead of waiting
+     * for each status before sending the next one
+     *
+     * @param path The remote file path
+     * @param in The source {@link InputStream} - read until EOF but not closed
+     * @return Number of copied bytes
+     * @throws IOException If failed to read the data or write the remote file
+     * @see #upload(Handle, long, long, InputStream)
+     */
+    public long upload(String path, InputStream in) throws IOException {
+        try(CloseableHandle handle = open(path, EnumSet.of(OpenMode.Write, OpenMode.Create, OpenMode.Truncate))) {
+            return upload(handle, 0L, -1L, in);
+        }
+    }
+
+    /**
+     * Copies the data of the given stream to an open remote file. The default
+     * implementation waits for each status before sending the next write request -
+     * sub-classes are expected to override it and keep several requests in flight
+     *
+     * @param handle The remote file {@link Handle}
+     * @param fileOffset Offset in the remote file where to start writing
+     * @param count Maximum number of bytes to copy - negative means until EOF
+     * of the source stream
+     * @param in The source {@link InputStream} - not closed
+     * @return Number of copied bytes
+     * @throws IOException If failed to read the data or write the remote file
+     */
+    public long upload(Handle handle, long fileOffset, long count, InputStream in) throws IOException {
+        byte[] data = new byte[DEFAULT_WRITE_BUFFER_SIZE];
+        long total = 0L;
+        while ((count < 0L) || (total < count)) {
+            int len = in.read(data, 0, (count < 0L) ? data.length : (int) Math.min(data.length, count - total));
+            if (len < 0) {
+                break;
+            }
+            write(handle, fileOffset + total, data, 0, len);
+            total += len;
+        }
+        return total;
+    }
 }
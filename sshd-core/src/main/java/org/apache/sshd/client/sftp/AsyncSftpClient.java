@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.client.sftp;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * An {@link SftpClient} that can also issue requests without waiting for their
+ * replies. The returned futures are completed by the thread that receives the
+ * reply, so any attached {@link org.apache.sshd.common.future.SshFutureListener}
+ * should not block. The methods throw {@link IOException} only if the request
+ * could not be sent - any other failure is reported via the future.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public interface AsyncSftpClient extends SftpClient {
+
+    SftpFuture<CloseableHandle> openAsync(String path, Collection<OpenMode> options) throws IOException;
+
+    SftpFuture<Void> closeAsync(Handle handle) throws IOException;
+
+    SftpFuture<Void> removeAsync(String path) throws IOException;
+
+    /**
+     * @return A future for the number of read bytes - or -1 if end of file
+     * has been reached
+     */
+    SftpFuture<Integer> readAsync(Handle handle, long fileOffset, byte[] dst, int dstoff, int len) throws IOException;
+
+    /**
+     * The data is copied before this method returns, so the buffer can be re-used
+     * without waiting for the returned future
+     */
+    SftpFuture<Void> writeAsync(Handle handle, long fileOffset, byte[] src, int srcoff, int len) throws IOException;
+
+    SftpFuture<Attributes> statAsync(String path) throws IOException;
+
+    SftpFuture<Attributes> lstatAsync(String path) throws IOException;
+
+    SftpFuture<Attributes> statAsync(Handle handle) throws IOException;
+
+    SftpFuture<String> canonicalPathAsync(String canonical) throws IOException;
+
+}
@@ -23,6 +23,7 @@ import static org.apache.sshd.common.sftp.SftpConstants.ACE4_READ_ATTRIBUTES;
 import static org.apache.sshd.common.sftp.SftpConstants.ACE4_READ_DATA;
 import static org.apache.sshd.common.sftp.SftpConstants.ACE4_WRITE_ATTRIBUTES;
 import static org.apache.sshd.common.sftp.SftpConstants.ACE4_WRITE_DATA;
+import static org.apache.sshd.common.sftp.SftpConstants.EXT_LIMITS;
 import static org.apache.sshd.common.sftp.SftpConstants.SFTP_V3;
 import static org.apache.sshd.common.sftp.SftpConstants.SFTP_V4;
 import static org.apache.sshd.common.sftp.SftpConstants.SFTP_V5;
@@ -55,6 +56,8 @@ import static org.apache.sshd.common.sftp.SftpConstants.SSH_FXP_ATTRS;
 import static org.apache.sshd.common.sftp.SftpConstants.SSH_FXP_BLOCK;
 import static org.apache.sshd.common.sftp.SftpConstants.SSH_FXP_CLOSE;
 import static org.apache.sshd.common.sftp.SftpConstants.SSH_FXP_DATA;
+import static org.apache.sshd.common.sftp.SftpConstants.SSH_FXP_EXTENDED;
+import static org.apache.sshd.common.sftp.SftpConstants.SSH_FXP_EXTENDED_REPLY;
 import static org.apache.sshd.common.sftp.SftpConstants.SSH_FXP_FSETSTAT;
 import static org.apache.sshd.common.sftp.SftpConstants.SSH_FXP_FSTAT;
 import static org.apache.sshd.common.sftp.SftpConstants.SSH_FXP_HANDLE;
@@ -100,13 +103,16 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.sshd.ClientSession;
 import org.apache.sshd.client.SftpException;
 import org.apache.sshd.client.channel.ChannelSubsystem;
+import org.apache.sshd.common.FactoryManagerUtils;
 import org.apache.sshd.common.SshException;
+import org.apache.sshd.common.future.SshFutureListener;
 import org.apache.sshd.common.sftp.SftpConstants;
 import org.apache.sshd.common.util.GenericUtils;
 import org.apache.sshd.common.util.ValidateUtils;
@@ -120,20 +126,69 @@ import org.apache.sshd.common.util.io.OutputStreamWithChannel;
 /**
  * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
  */
-public class DefaultSftpClient extends AbstractSftpClient {
+public class DefaultSftpClient extends AbstractSftpClient implements AsyncSftpClient {
+    /**
+     * Maximum number of read/write requests kept in flight by the streams
+     * and the bulk transfer methods - 1 restores a request/reply behavior
+     */
+    public static final String MAX_IN_FLIGHT_REQUESTS = "sftp-max-in-flight-requests";
+    public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 16;
+
+    /**
+     * Number of bytes requested by each read/write of the bulk transfer methods -
+     * automatically reduced to the limits announced by the server (if any)
+     */
+    public static final String TRANSFER_CHUNK_SIZE = "sftp-transfer-chunk-size";
+    public static final int DEFAULT_TRANSFER_CHUNK_SIZE = IO_BUFFER_SIZE;
+
     private final ClientSession clientSession;
     private final ChannelSubsystem channel;
-    private final Map<Integer, Buffer> messages;
+    /**
+     * Outstanding requests - each waiter blocks on its own future so a reply
+     * wakes up only the thread that waits for it
+     */
+    private final Map<Integer, DefaultSftpFuture<Buffer>> pending = new ConcurrentHashMap<>();
+    private final DefaultSftpFuture<Buffer> versionFuture = new DefaultSftpFuture<>(0);
     private final AtomicInteger cmdId = new AtomicInteger(100);
     private final Buffer receiveBuffer = new ByteArrayBuffer();
-    private boolean closing;
+    private volatile boolean closing;
     private int version;
+    private long maxReadLength;     // 0 means unknown
+    private long maxWriteLength;    // 0 means unknown
     private final Map<String, byte[]> extensions = new HashMap<>();
+    private final ReplyDecoder<Void> statusDecoder = new ReplyDecoder<Void>() {
+        @SuppressWarnings("synthetic-access")
+        @Override
+        public Void decode(Buffer reply) throws IOException {
+            checkStatus(reply);
+            return null;
+        }
+    };
+    private final ReplyDecoder<Attributes> attributesDecoder = new ReplyDecoder<Attributes>() {
+        @SuppressWarnings("synthetic-access")
+        @Override
+        public Attributes decode(Buffer reply) throws IOException {
+            return checkAttributes(reply);
+        }
+    };
+    private final ReplyDecoder<String> oneNameDecoder = new ReplyDecoder<String>() {
+        @SuppressWarnings("synthetic-access")
+        @Override
+        public String decode(Buffer reply) throws IOException {
+            return checkOneName(reply);
+        }
+    };
+
+    /**
+     * Extracts the result of a request from its reply
+     */
+    protected interface ReplyDecoder<V> {
+        V decode(Buffer reply) throws IOException;
+    }
 
     public DefaultSftpClient(ClientSession clientSession) throws IOException {
         this.clientSession = clientSession;
         this.channel = clientSession.createSubsystemChannel(SftpConstants.SFTP_SUBSYSTEM_NAME);
-        this.messages = new HashMap<>();
         try {
             this.channel.setOut(new OutputStream() {
                 @Override
@@ -154,9 +209,11 @@ public class DefaultSftpClient extends AbstractSftpClient {
             @SuppressWarnings("synthetic-access")
             @Override
             public void run() {
-                synchronized (messages) {
-                    closing = true;
-                    messages.notifyAll();
+                closing = true;
+                SshException err = new SshException("Channel has been closed");
+                versionFuture.setException(err);
+                for (DefaultSftpFuture<Buffer> future : pending.values()) {
+                    future.setException(err);
                 }
             }
         });
@@ -173,6 +230,38 @@ public class DefaultSftpClient extends AbstractSftpClient {
         return closing;
     }
 
+    public int getMaxInFlightRequests() {
+        return FactoryManagerUtils.getIntProperty(clientSession, MAX_IN_FLIGHT_REQUESTS, DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+    }
+
+    /**
+     * @return The maximum data length of a single read reported by the
+     * server - 0 if unknown
+     */
+    public long getMaxReadLength() {
+        return maxReadLength;
+    }
+
+    /**
+     * @return The maximum data length of a single write reported by the
+     * server - 0 if unknown
+     */
+    public long getMaxWriteLength() {
+        return maxWriteLength;
+    }
+
+    public int getTransferChunkSize() {
+        return FactoryManagerUtils.getIntProperty(clientSession, TRANSFER_CHUNK_SIZE, DEFAULT_TRANSFER_CHUNK_SIZE);
+    }
+
+    protected int getReadChunkSize(int size) {
+        return (maxReadLength > 0L) ? (int) Math.min(size, maxReadLength) : size;
+    }
+
+    protected int getWriteChunkSize(int size) {
+        return (maxWriteLength > 0L) ? (int) Math.min(size, maxWriteLength) : size;
+    }
+
     @Override
     public void close() throws IOException {
         if (this.channel.isOpen()) {
@@ -233,46 +322,113 @@ public class DefaultSftpClient extends AbstractSftpClient {
     protected void process(Buffer incoming) throws IOException {
         Buffer buffer = new ByteArrayBuffer();
         buffer.putBuffer(incoming);
-        buffer.rpos(5);
+        buffer.rpos(4);
+        int type = buffer.getByte() & 0xFF;
         int id = buffer.getInt();
         buffer.rpos(0);
-        synchronized (messages) {
-            messages.put(Integer.valueOf(id), buffer);
-            messages.notifyAll();
+        // the first packet is the reply to SSH_FXP_INIT regardless of its id
+        if (!versionFuture.isDone()) {
+            versionFuture.setResult(buffer);
+            return;
         }
+
+        DefaultSftpFuture<Buffer> future = pending.get(Integer.valueOf(id));
+        if (future == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("process(type={}) ignore reply for unknown id={}", Integer.valueOf(type), Integer.valueOf(id));
+            }
+            return;
+        }
+        future.setResult(buffer);
     }
 
-    protected int send(int cmd, Buffer buffer) throws IOException {
+    /**
+     * Sends a request and registers the future to be completed by its reply.
+     * The future remains registered until {@link #receive(int)} is called for
+     * its id or until it is explicitly removed via {@link #unregister(int)}
+     *
+     * @param cmd The SFTP command
+     * @param buffer The request payload
+     * @return The {@link DefaultSftpFuture} of the reply
+     * @throws IOException If failed to send the request
+     */
+    protected DefaultSftpFuture<Buffer> request(int cmd, Buffer buffer) throws IOException {
         int id = cmdId.incrementAndGet();
-        
+        Integer key = Integer.valueOf(id);
+        DefaultSftpFuture<Buffer> future = new DefaultSftpFuture<>(id);
+        pending.put(key, future);
+        // the close notification may have already swept the pending requests
+        if (closing) {
+            pending.remove(key);
+            throw new SshException("Channel has been closed");
+        }
+
         try(DataOutputStream dos = new DataOutputStream(new NoCloseOutputStream(channel.getInvertedIn()))) {
             dos.writeInt(5 + buffer.available());
             dos.writeByte(cmd);
             dos.writeInt(id);
             dos.write(buffer.array(), buffer.rpos(), buffer.available());
             dos.flush();
+        } catch (IOException | RuntimeException e) {
+            pending.remove(key);
+            throw e;
         }
 
-        return id;
+        return future;
+    }
+
+    protected int send(int cmd, Buffer buffer) throws IOException {
+        return request(cmd, buffer).getId();
     }
 
     protected Buffer receive(int id) throws IOException {
-        synchronized (messages) {
-            while (true) {
-                if (closing) {
-                    throw new SshException("Channel has been closed");
-                }
-                Buffer buffer = messages.remove(Integer.valueOf(id));
-                if (buffer != null) {
-                    return buffer;
-                }
+        Integer key = Integer.valueOf(id);
+        DefaultSftpFuture<Buffer> future = pending.get(key);
+        if (future == null) {
+            throw new SshException("No pending SFTP request for id=" + id);
+        }
+
+        try {
+            return future.verify();
+        } finally {
+            pending.remove(key);
+        }
+    }
+
+    /**
+     * @param id The request id
+     * @return The removed future - {@code null} if no such request is pending
+     */
+    protected DefaultSftpFuture<Buffer> unregister(int id) {
+        return pending.remove(Integer.valueOf(id));
+    }
+
+    /**
+     * Sends a request whose reply is decoded into the returned future without
+     * any thread waiting for it
+     *
+     * @param cmd The SFTP command
+     * @param buffer The request payload
+     * @param decoder The {@link ReplyDecoder} used to extract the result from the reply
+     * @return The {@link SftpFuture} of the decoded result
+     * @throws IOException If failed to send the request
+     */
+    protected <V> SftpFuture<V> requestAsync(int cmd, Buffer buffer, final ReplyDecoder<V> decoder) throws IOException {
+        DefaultSftpFuture<Buffer> reply = request(cmd, buffer);
+        final DefaultSftpFuture<V> result = new DefaultSftpFuture<>(reply.getId());
+        reply.addListener(new SshFutureListener<SftpFuture<Buffer>>() {
+            @SuppressWarnings("synthetic-access")
+            @Override
+            public void operationComplete(SftpFuture<Buffer> future) {
+                unregister(future.getId());
                 try {
-                    messages.wait();
-                } catch (InterruptedException e) {
-                    throw (IOException) new InterruptedIOException("Interrupted while waiting for messages").initCause(e);
+                    result.setResult(decoder.decode(future.verify()));
+                } catch (Throwable t) {
+                    result.setException(t);
                 }
             }
-        }
+        });
+        return result;
     }
 
     protected Buffer read() throws IOException {
@@ -306,20 +462,9 @@ public class DefaultSftpClient extends AbstractSftpClient {
             dos.flush();
         }
 
-        Buffer buffer;
-        synchronized (messages) {
-            while (messages.isEmpty()) {
-                try {
-                    messages.wait();
-                } catch (InterruptedException e) {
-                    throw (IOException) new InterruptedIOException("Interruppted init()").initCause(e);
-                }
-            }
-            buffer = messages.remove(messages.keySet().iterator().next());
-
-        }
+        Buffer buffer = versionFuture.verify();
         int length = buffer.getInt();
-        int type = buffer.getByte();
+        int type = buffer.getByte() & 0xFF;
         int id = buffer.getInt();
         if (type == SSH_FXP_VERSION) {
             if (id < SFTP_V3) {
@@ -331,6 +476,10 @@ public class DefaultSftpClient extends AbstractSftpClient {
                 byte[] data = buffer.getBytes();
                 extensions.put(name, data);
             }
+
+            if (extensions.containsKey(EXT_LIMITS)) {
+                queryLimits();
+            }
         } else if (type == SSH_FXP_STATUS) {
             int substatus = buffer.getInt();
             String msg = buffer.getString();
@@ -345,9 +494,36 @@ public class DefaultSftpClient extends AbstractSftpClient {
         }
     }
 
+    /**
+     * Retrieves the server limits via the {@value SftpConstants#EXT_LIMITS} extension.
+     * An unexpected reply is ignored since the limits are only used to tune the transfers
+     */
+    protected void queryLimits() throws IOException {
+        Buffer buffer = new ByteArrayBuffer(EXT_LIMITS.length() + Long.SIZE);
+        buffer.putString(EXT_LIMITS);
+        buffer = receive(send(SSH_FXP_EXTENDED, buffer));
+
+        int length = buffer.getInt();
+        int type = buffer.getByte() & 0xFF;
+        int id = buffer.getInt();
+        if (type != SSH_FXP_EXTENDED_REPLY) {
+            log.debug("queryLimits(id={}) unexpected reply type={}, length={}",
+                      new Object[] { Integer.valueOf(id), Integer.valueOf(type), Integer.valueOf(length) });
+            return;
+        }
+
+        buffer.getLong();   // max-packet-length
+        maxReadLength = buffer.getLong();
+        maxWriteLength = buffer.getLong();
+        if (log.isDebugEnabled()) {
+            log.debug("queryLimits(id={}) max-read={}, max-write={}",
+                      new Object[] { Integer.valueOf(id), Long.valueOf(maxReadLength), Long.valueOf(maxWriteLength) });
+        }
+    }
+
     protected void checkStatus(Buffer buffer) throws IOException {
         int length = buffer.getInt();
-        int type = buffer.getByte();
+        int type = buffer.getByte() & 0xFF;
         int id = buffer.getInt();
         if (type == SSH_FXP_STATUS) {
             int substatus = buffer.getInt();
@@ -367,7 +543,7 @@ public class DefaultSftpClient extends AbstractSftpClient {
 
     protected String checkHandle(Buffer buffer) throws IOException {
         int length = buffer.getInt();
-        int type = buffer.getByte();
+        int type = buffer.getByte() & 0xFF;
         int id = buffer.getInt();
         if (type == SSH_FXP_STATUS) {
             int substatus = buffer.getInt();
@@ -387,7 +563,7 @@ public class DefaultSftpClient extends AbstractSftpClient {
 
     protected Attributes checkAttributes(Buffer buffer) throws IOException {
         int length = buffer.getInt();
-        int type = buffer.getByte();
+        int type = buffer.getByte() & 0xFF;
         int id = buffer.getInt();
         if (type == SSH_FXP_STATUS) {
             int substatus = buffer.getInt();
@@ -406,7 +582,7 @@ public class DefaultSftpClient extends AbstractSftpClient {
 
     protected String checkOneName(Buffer buffer) throws IOException {
         int length = buffer.getInt();
-        int type = buffer.getByte();
+        int type = buffer.getByte() & 0xFF;
         int id = buffer.getInt();
         if (type == SSH_FXP_STATUS) {
             int substatus = buffer.getInt();
@@ -625,6 +801,11 @@ public class DefaultSftpClient extends AbstractSftpClient {
 
     @Override
     public CloseableHandle open(String path, Collection<OpenMode> options) throws IOException {
+        return openAsync(path, options).verify();
+    }
+
+    @Override
+    public SftpFuture<CloseableHandle> openAsync(String path, Collection<OpenMode> options) throws IOException {
         Buffer buffer = new ByteArrayBuffer(path.length() + Long.SIZE /* some extra fields */);
         buffer.putString(path);
         if (version == SFTP_V3) {
@@ -682,21 +863,37 @@ public class DefaultSftpClient extends AbstractSftpClient {
             buffer.putInt(mode);
         }
         writeAttributes(buffer, new Attributes());
-        return new DefaultCloseableHandle(this, checkHandle(receive(send(SSH_FXP_OPEN, buffer))));
+        return requestAsync(SSH_FXP_OPEN, buffer, new ReplyDecoder<CloseableHandle>() {
+            @SuppressWarnings("synthetic-access")
+            @Override
+            public CloseableHandle decode(Buffer reply) throws IOException {
+                return new DefaultCloseableHandle(DefaultSftpClient.this, checkHandle(reply));
+            }
+        });
     }
 
     @Override
     public void close(Handle handle) throws IOException {
+        closeAsync(handle).verify();
+    }
+
+    @Override
+    public SftpFuture<Void> closeAsync(Handle handle) throws IOException {
         Buffer buffer = new ByteArrayBuffer(handle.id.length() + Long.SIZE /* some extra fields */);
         buffer.putString(handle.id);
-        checkStatus(receive(send(SSH_FXP_CLOSE, buffer)));
+        return requestAsync(SSH_FXP_CLOSE, buffer, statusDecoder);
     }
 
     @Override
     public void remove(String path) throws IOException {
+        removeAsync(path).verify();
+    }
+
+    @Override
+    public SftpFuture<Void> removeAsync(String path) throws IOException {
         Buffer buffer = new ByteArrayBuffer(path.length() + Long.SIZE /* some extra fields */);
         buffer.putString(path);
-        checkStatus(receive(send(SSH_FXP_REMOVE, buffer)));
+        return requestAsync(SSH_FXP_REMOVE, buffer, statusDecoder);
     }
 
     @Override
@@ -731,16 +928,40 @@ public class DefaultSftpClient extends AbstractSftpClient {
 
     @Override
     public int read(Handle handle, long fileOffset, byte[] dst, int dstoff, int len) throws IOException {
+        return checkData(receive(sendRead(handle, fileOffset, len)), dstoff, dst);
+    }
+
+    /**
+     * Sends an {@code SSH_FXP_READ} request without waiting for the reply
+     *
+     * @return The request id - to be used with {@link #receive(int)}
+     */
+    protected int sendRead(Handle handle, long fileOffset, int len) throws IOException {
+        return send(SSH_FXP_READ, createReadRequest(handle, fileOffset, len));
+    }
+
+    @Override
+    public SftpFuture<Integer> readAsync(Handle handle, long fileOffset, final byte[] dst, final int dstoff, int len) throws IOException {
+        return requestAsync(SSH_FXP_READ, createReadRequest(handle, fileOffset, len), new ReplyDecoder<Integer>() {
+            @SuppressWarnings("synthetic-access")
+            @Override
+            public Integer decode(Buffer reply) throws IOException {
+                return Integer.valueOf(checkData(reply, dstoff, dst));
+            }
+        });
+    }
+
+    protected Buffer createReadRequest(Handle handle, long fileOffset, int len) {
         Buffer buffer = new ByteArrayBuffer(handle.id.length() + Long.SIZE /* some extra fields */);
         buffer.putString(handle.id);
         buffer.putLong(fileOffset);
         buffer.putInt(len);
-        return checkData(receive(send(SSH_FXP_READ, buffer)), dstoff, dst);
+        return buffer;
     }
 
     protected int checkData(Buffer buffer, int dstoff, byte[] dst) throws IOException {
         int length = buffer.getInt();
-        int type = buffer.getByte();
+        int type = buffer.getByte() & 0xFF;
         int id = buffer.getInt();
         if (type == SSH_FXP_STATUS) {
             int substatus = buffer.getInt();
@@ -766,6 +987,24 @@ public class DefaultSftpClient extends AbstractSftpClient {
 
     @Override
     public void write(Handle handle, long fileOffset, byte[] src, int srcoff, int len) throws IOException {
+        checkStatus(receive(sendWrite(handle, fileOffset, src, srcoff, len)));
+    }
+
+    /**
+     * Sends an {@code SSH_FXP_WRITE} request without waiting for the status
+     *
+     * @return The request id - to be used with {@link #receive(int)}
+     */
+    protected int sendWrite(Handle handle, long fileOffset, byte[] src, int srcoff, int len) throws IOException {
+        return send(SSH_FXP_WRITE, createWriteRequest(handle, fileOffset, src, srcoff, len));
+    }
+
+    @Override
+    public SftpFuture<Void> writeAsync(Handle handle, long fileOffset, byte[] src, int srcoff, int len) throws IOException {
+        return requestAsync(SSH_FXP_WRITE, createWriteRequest(handle, fileOffset, src, srcoff, len), statusDecoder);
+    }
+
+    protected Buffer createWriteRequest(Handle handle, long fileOffset, byte[] src, int srcoff, int len) {
         // do some bounds checking first
         if ((fileOffset < 0) || (srcoff < 0) || (len < 0)) {
             throw new IllegalArgumentException("write(" + handle + ") please ensure all parameters "
@@ -782,7 +1021,48 @@ public class DefaultSftpClient extends AbstractSftpClient {
         buffer.putString(handle.id);
         buffer.putLong(fileOffset);
         buffer.putBytes(src, srcoff, len);
-        checkStatus(receive(send(SSH_FXP_WRITE, buffer)));
+        return buffer;
+    }
+
+    @Override
+    public long download(Handle handle, long fileOffset, long count, OutputStream out) throws IOException {
+        byte[] data = new byte[getReadChunkSize(getTransferChunkSize())];
+        long total = 0L;
+        try(SftpPipelinedReader reader = new SftpPipelinedReader(this, handle, fileOffset, count, data.length, getMaxInFlightRequests())) {
+            for (int len = reader.read(data, 0); len >= 0; len = reader.read(data, 0)) {
+                out.write(data, 0, len);
+                total += len;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long upload(Handle handle, long fileOffset, long count, InputStream in) throws IOException {
+        byte[] data = new byte[getTransferChunkSize()];
+        SftpPipelinedWriter writer = new SftpPipelinedWriter(this, handle, fileOffset, getWriteChunkSize(data.length), getMaxInFlightRequests());
+        long total = 0L;
+        try {
+            while ((count < 0L) || (total < count)) {
+                int len = in.read(data, 0, (count < 0L) ? data.length : (int) Math.min(data.length, count - total));
+                if (len < 0) {
+                    break;
+                }
+                writer.write(data, 0, len);
+                total += len;
+            }
+        } catch (IOException | RuntimeException e) {
+            // make sure no status is left behind, but report the original failure
+            try {
+                writer.flush();
+            } catch (IOException | RuntimeException t) {
+                e.addSuppressed(t);
+            }
+            throw e;
+        }
+
+        writer.flush();
+        return total;
     }
 
     @Override
@@ -819,7 +1099,7 @@ public class DefaultSftpClient extends AbstractSftpClient {
 
     protected DirEntry[] checkDir(Buffer buffer) throws IOException {
         int length = buffer.getInt();
-        int type = buffer.getByte();
+        int type = buffer.getByte() & 0xFF;
         int id = buffer.getInt();
         if (type == SSH_FXP_STATUS) {
             int substatus = buffer.getInt();
@@ -853,39 +1133,59 @@ public class DefaultSftpClient extends AbstractSftpClient {
 
     @Override
     public String canonicalPath(String path) throws IOException {
+        return canonicalPathAsync(path).verify();
+    }
+
+    @Override
+    public SftpFuture<String> canonicalPathAsync(String path) throws IOException {
         Buffer buffer = new ByteArrayBuffer();
         buffer.putString(path);
-        return checkOneName(receive(send(SSH_FXP_REALPATH, buffer)));
+        return requestAsync(SSH_FXP_REALPATH, buffer, oneNameDecoder);
     }
 
     @Override
     public Attributes stat(String path) throws IOException {
+        return statAsync(path).verify();
+    }
+
+    @Override
+    public SftpFuture<Attributes> statAsync(String path) throws IOException {
         Buffer buffer = new ByteArrayBuffer();
         buffer.putString(path);
         if (version >= SFTP_V4) {
             buffer.putInt(SSH_FILEXFER_ATTR_ALL);
         }
-        return checkAttributes(receive(send(SSH_FXP_STAT, buffer)));
+        return requestAsync(SSH_FXP_STAT, buffer, attributesDecoder);
     }
 
     @Override
     public Attributes lstat(String path) throws IOException {
+        return lstatAsync(path).verify();
+    }
+
+    @Override
+    public SftpFuture<Attributes> lstatAsync(String path) throws IOException {
         Buffer buffer = new ByteArrayBuffer();
         buffer.putString(path);
         if (version >= SFTP_V4) {
             buffer.putInt(SSH_FILEXFER_ATTR_ALL);
         }
-        return checkAttributes(receive(send(SSH_FXP_LSTAT, buffer)));
+        return requestAsync(SSH_FXP_LSTAT, buffer, attributesDecoder);
     }
 
     @Override
     public Attributes stat(Handle handle) throws IOException {
+        return statAsync(handle).verify();
+    }
+
+    @Override
+    public SftpFuture<Attributes> statAsync(Handle handle) throws IOException {
         Buffer buffer = new ByteArrayBuffer();
         buffer.putString(handle.id);
         if (version >= SFTP_V4) {
             buffer.putInt(SSH_FILEXFER_ATTR_ALL);
         }
-        return checkAttributes(receive(send(SSH_FXP_FSTAT, buffer)));
+        return requestAsync(SSH_FXP_FSTAT, buffer, attributesDecoder);
     }
 
     @Override
@@ -1030,13 +1330,15 @@ public class DefaultSftpClient extends AbstractSftpClient {
             throw new IllegalArgumentException("Insufficient read buffer size: " + bufferSize + ", min.=" + MIN_READ_BUFFER_SIZE);
         }
 
+        final CloseableHandle fileHandle = open(path, mode);
         return new InputStreamWithChannel() {
             private byte[] bb = new byte[1];
             private byte[] buffer = new byte[bufferSize];
             private int index;
             private int available;
-            private CloseableHandle handle = DefaultSftpClient.this.open(path, mode);
-            private long offset;
+            private CloseableHandle handle = fileHandle;
+            private final SftpPipelinedReader reader =
+                    new SftpPipelinedReader(DefaultSftpClient.this, fileHandle, 0L, -1L, getReadChunkSize(bufferSize), getMaxInFlightRequests());
 
             @Override
             public boolean isOpen() {
@@ -1062,7 +1364,7 @@ public class DefaultSftpClient extends AbstractSftpClient {
                 int idx = off;
                 while (len > 0) {
                     if (index >= available) {
-                        available = DefaultSftpClient.this.read(handle, offset, buffer, 0, buffer.length);
+                        available = reader.read(buffer, 0);
                         if (available < 0) {
                             if (idx == off) {
                                 return -1;
@@ -1070,7 +1372,6 @@ public class DefaultSftpClient extends AbstractSftpClient {
                                 break;
                             }
                         }
-                        offset += available;
                         index = 0;
                     }
                     if (index >= available) {
@@ -1089,9 +1390,13 @@ public class DefaultSftpClient extends AbstractSftpClient {
             public void close() throws IOException {
                 if (isOpen()) {
                     try {
-                        handle.close();
+                        reader.close();
                     } finally {
-                        handle = null;
+                        try {
+                            handle.close();
+                        } finally {
+                            handle = null;
+                        }
                     }
                 }
             }
@@ -1104,12 +1409,14 @@ public class DefaultSftpClient extends AbstractSftpClient {
             throw new IllegalArgumentException("Insufficient write buffer size: " + bufferSize + ", min.=" + MIN_WRITE_BUFFER_SIZE);
         }
 
+        final CloseableHandle fileHandle = open(path, mode);
         return new OutputStreamWithChannel() {
             private byte[] bb = new byte[1];
             private byte[] buffer = new byte[bufferSize];
             private int index;
-            private CloseableHandle handle = DefaultSftpClient.this.open(path, mode);
-            private long offset;
+            private CloseableHandle handle = fileHandle;
+            private final SftpPipelinedWriter writer =
+                    new SftpPipelinedWriter(DefaultSftpClient.this, fileHandle, 0L, getWriteChunkSize(bufferSize), getMaxInFlightRequests());
 
             @Override
             public boolean isOpen() {
@@ -1133,7 +1440,9 @@ public class DefaultSftpClient extends AbstractSftpClient {
                     System.arraycopy(b, off, buffer, index, nb);
                     index += nb;
                     if (index == buffer.length) {
-                        flush();
+                        // no need to wait for the status - the data is copied by the writer
+                        writer.write(buffer, 0, index);
+                        index = 0;
                     }
                     off += nb;
                     len -= nb;
@@ -1146,9 +1455,11 @@ public class DefaultSftpClient extends AbstractSftpClient {
                     throw new IOException("flush(" + path + ") stream is closed");
                 }
 
-                DefaultSftpClient.this.write(handle, offset, buffer, 0, index);
-                offset += index;
-                index = 0;
+                if (index > 0) {
+                    writer.write(buffer, 0, index);
+                    index = 0;
+                }
+                writer.flush();
             }
 
             @Override
@@ -1156,9 +1467,7 @@ public class DefaultSftpClient extends AbstractSftpClient {
                 if (isOpen()) {
                     try {
                         try {
-                            if (index > 0) {
-                                flush();
-                            }
+                            flush();
                         } finally {
                             handle.close();
                         }
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.client.sftp;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.common.SshException;
+import org.apache.sshd.common.future.DefaultSshFuture;
+
+/**
+ * A default implementation of {@link SftpFuture}. Each instance is its own
+ * lock, so completing a request wakes up only the threads waiting for it.
+ *
+ * @param <V> Type of result of the request
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class DefaultSftpFuture<V> extends DefaultSshFuture<SftpFuture<V>> implements SftpFuture<V> {
+    private final int id;
+
+    public DefaultSftpFuture(int id) {
+        super(null);
+        this.id = id;
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override   // TODO for JDK-8 make this a default method
+    public V verify() throws IOException {
+        return verify(Long.MAX_VALUE);
+    }
+
+    @Override   // TODO for JDK-8 make this a default method
+    public V verify(long timeout, TimeUnit unit) throws IOException {
+        return verify(unit.toMillis(timeout));
+    }
+
+    @Override
+    public V verify(long timeoutMillis) throws IOException {
+        try {
+            if (!await(timeoutMillis)) {
+                throw new SshException("SFTP request id=" + id + " timed out after " + timeoutMillis);
+            }
+        } catch (InterruptedException e) {
+            throw (IOException) new InterruptedIOException("Interrupted while waiting for SFTP request id=" + id).initCause(e);
+        }
+
+        if (isCanceled()) {
+            throw new SshException("SFTP request id=" + id + " canceled");
+        }
+
+        Object v = getValue();
+        if (v instanceof IOException) {
+            throw (IOException) v;
+        } else if (v instanceof Throwable) {
+            throw new SshException("SFTP request id=" + id + " failed", (Throwable) v);
+        }
+
+        @SuppressWarnings("unchecked")
+        V result = (V) v;
+        return result;
+    }
+
+    @Override
+    public Throwable getException() {
+        Object v = getValue();
+        if (v instanceof Throwable) {
+            return (Throwable) v;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Sets the result of the request and notifies all threads waiting for
+     * this future. This method is invoked by SSHD internally.
+     */
+    public void setResult(V result) {
+        setValue(result);
+    }
+
+    /**
+     * Sets the exception that caused the request to fail and notifies all
+     * threads waiting for this future. This method is invoked by SSHD internally.
+     */
+    public void setException(Throwable exception) {
+        if (exception == null) {
+            throw new NullPointerException("exception");
+        }
+        setValue(exception);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[id=" + id + "]";
+    }
+}
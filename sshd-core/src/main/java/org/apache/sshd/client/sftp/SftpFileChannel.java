@@ -24,11 +24,14 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channel;
+import java.nio.channels.Channels;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
 import java.util.Collection;
@@ -47,7 +50,7 @@ public class SftpFileChannel extends FileChannel {
 
     private final SftpPath p;
     private final Collection<SftpClient.OpenMode> modes;
-    private final SftpClient sftp;
+    private final AbstractSftpClient sftp;
     private final SftpClient.CloseableHandle handle;
     private final Object lock = new Object();
     private volatile long pos;
@@ -58,7 +61,7 @@ public class SftpFileChannel extends FileChannel {
         this.modes = ValidateUtils.checkNotNull(modes, "No channel modes specified", GenericUtils.EMPTY_OBJECT_ARRAY);
         
         SftpFileSystem  fs=p.getFileSystem();
-        sftp = fs.getClient();
+        sftp = (AbstractSftpClient) fs.getClient();    // always a wrapper - see SftpFileSystem#getClient
         handle = sftp.open(p.toString(), modes);
     }
 
@@ -229,29 +232,17 @@ public class SftpFileChannel extends FileChannel {
         ensureOpen(READ_MODES);
         synchronized (lock) {
             boolean completed = false;
-            boolean eof = false;
-            long curPos = position;
             try {
                 beginBlocking();
 
-                int bufSize = (int) Math.min(count, 32768);
-                byte[] buffer = new byte[bufSize];
-                long totalRead = 0L;
-                while (totalRead < count) {
-                    int read = sftp.read(handle, curPos, buffer, 0, buffer.length);
-                    if (read > 0) {
-                        ByteBuffer wrap = ByteBuffer.wrap(buffer);
-                        while (wrap.remaining() > 0) {
-                            target.write(wrap);
-                        }
-                        curPos += read;
-                        totalRead += read;
-                    } else {
-                        eof = read == -1;
-                    }
+                long totalRead;
+                if (isNonBlocking(target)) {
+                    totalRead = transferToNonBlocking(position, count, target);
+                } else {
+                    totalRead = sftp.download(handle, position, count, Channels.newOutputStream(target));
                 }
                 completed = true;
-                return totalRead > 0 ? totalRead : eof ? -1 : 0;
+                return totalRead;
             } finally {
                 endBlocking(completed);
             }
@@ -269,20 +260,13 @@ public class SftpFileChannel extends FileChannel {
             boolean completed = false;
             long curPos = position >= 0 ? position : pos;
             try {
-                long totalRead = 0;
                 beginBlocking();
 
-                byte[] buffer = new byte[32768];
-                while (totalRead < count) {
-                    ByteBuffer wrap = ByteBuffer.wrap(buffer, 0, (int) Math.min(buffer.length, count - totalRead));
-                    int read = src.read(wrap);
-                    if (read > 0) {
-                        sftp.write(handle, curPos, buffer, 0, read);
-                        curPos += read;
-                        totalRead += read;
-                    } else {
-                        break;
-                    }
+                long totalRead;
+                if (isNonBlocking(src)) {
+                    totalRead = transferFromNonBlocking(src, curPos, count);
+                } else {
+                    totalRead = sftp.upload(handle, curPos, count, Channels.newInputStream(src));
                 }
                 completed = true;
                 return totalRead;
@@ -292,6 +276,53 @@ public class SftpFileChannel extends FileChannel {
         }
     }
 
+    /**
+     * Copies data to a non-blocking channel - which the stream adapters reject - one
+     * chunk at a time, stopping as soon as the target does not accept all of it
+     */
+    protected long transferToNonBlocking(long position, long count, WritableByteChannel target) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(SftpClient.IO_BUFFER_SIZE, count));
+        long total = 0L;
+        while (total < count) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), count - total));
+            int read = sftp.read(handle, position + total, buffer.array(), buffer.arrayOffset(), buffer.limit());
+            if (read <= 0) {
+                break;
+            }
+            buffer.limit(read);
+            total += target.write(buffer);
+            if (buffer.hasRemaining()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Copies data from a non-blocking channel - which the stream adapters reject - one
+     * chunk at a time, stopping as soon as the source has no more data available
+     */
+    protected long transferFromNonBlocking(ReadableByteChannel src, long position, long count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(SftpClient.IO_BUFFER_SIZE, count));
+        long total = 0L;
+        while (total < count) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), count - total));
+            int read = src.read(buffer);
+            if (read <= 0) {
+                break;
+            }
+            sftp.write(handle, position + total, buffer.array(), buffer.arrayOffset(), read);
+            total += read;
+        }
+        return total;
+    }
+
+    private static boolean isNonBlocking(Channel channel) {
+        return (channel instanceof SelectableChannel) && (!((SelectableChannel) channel).isBlocking());
+    }
+
     @Override
     public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
         throw new UnsupportedOperationException("map(" + p + ")[" + mode + "," + position + "," + size + "] N/A");
@@ -309,6 +309,22 @@ public class SftpFileSystem extends BaseFileSystem<SftpPath> {
             return delegate.write(path, bufferSize, mode);
         }
 
+        @Override
+        public long download(Handle handle, long fileOffset, long count, OutputStream out) throws IOException {
+            if (delegate instanceof AbstractSftpClient) {
+                return ((AbstractSftpClient) delegate).download(handle, fileOffset, count, out);
+            }
+            return super.download(handle, fileOffset, count, out);
+        }
+
+        @Override
+        public long upload(Handle handle, long fileOffset, long count, InputStream in) throws IOException {
+            if (delegate instanceof AbstractSftpClient) {
+                return ((AbstractSftpClient) delegate).upload(handle, fileOffset, count, in);
+            }
+            return super.upload(handle, fileOffset, count, in);
+        }
+
         @Override
         public void link(String linkPath, String targetPath, boolean symbolic) throws IOException {
             delegate.link(linkPath, targetPath, symbolic);
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.client.sftp;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.common.future.SshFuture;
+
+/**
+ * An {@link SshFuture} for the outcome of an SFTP request
+ *
+ * @param <V> Type of result of the request
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public interface SftpFuture<V> extends SshFuture<SftpFuture<V>> {
+
+    /**
+     * @return The id of the SFTP request
+     */
+    int getId();
+
+    /**
+     * Wait and return the result of the request
+     * @throws IOException if the request failed for any reason
+     */
+    V verify() throws IOException;
+
+    /**
+     * Wait and return the result of the request within the specified timeout
+     * @throws IOException if the request failed or timed out
+     */
+    V verify(long timeout, TimeUnit unit) throws IOException;
+
+    /**
+     * Wait and return the result of the request within the specified timeout
+     * @throws IOException if the request failed or timed out
+     */
+    V verify(long timeoutMillis) throws IOException;
+
+    /**
+     * Returns the cause of the request failure.
+     *
+     * @return <tt>null</tt> if the request is not finished yet,
+     *         or if it was successful.
+     */
+    Throwable getException();
+
+}
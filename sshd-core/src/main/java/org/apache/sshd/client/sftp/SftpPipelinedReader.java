@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.client.sftp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Deque;
+import java.util.LinkedList;
+
+import org.apache.sshd.client.sftp.SftpClient.Handle;
+import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.ValidateUtils;
+
+/**
+ * Reads a remote file sequentially while keeping up to a configured number of
+ * {@code SSH_FXP_READ} requests in flight. The replies are consumed in file
+ * offset order regardless of the order in which they arrive. If the server
+ * returns less data than requested (without reaching EOF), the missing range
+ * is requested again before any other pending reply is consumed.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class SftpPipelinedReader implements Closeable {
+
+    private final DefaultSftpClient client;
+    private final Handle handle;
+    private final int chunkSize;
+    private final int maxInFlight;
+    private final long endOffset;
+    private final Deque<ReadRequest> pending = new LinkedList<ReadRequest>();
+    private long requestOffset;
+    private long offset;
+    private boolean eof;
+
+    /**
+     * @param client The {@link DefaultSftpClient} used to send the requests
+     * @param handle The remote file {@link Handle}
+     * @param fileOffset Offset of the first byte to read
+     * @param count Maximum number of bytes to read - negative means until end of file
+     * @param chunkSize Number of bytes requested by each read
+     * @param maxInFlight Maximum number of outstanding read requests
+     */
+    public SftpPipelinedReader(DefaultSftpClient client, Handle handle, long fileOffset, long count, int chunkSize, int maxInFlight) {
+        this.client = ValidateUtils.checkNotNull(client, "No client", GenericUtils.EMPTY_OBJECT_ARRAY);
+        this.handle = ValidateUtils.checkNotNull(handle, "No handle", GenericUtils.EMPTY_OBJECT_ARRAY);
+        ValidateUtils.checkTrue(fileOffset >= 0L, "Bad file offset: %d", Long.valueOf(fileOffset));
+        ValidateUtils.checkTrue(chunkSize > 0, "Bad chunk size: %d", Integer.valueOf(chunkSize));
+        this.chunkSize = chunkSize;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.endOffset = (count < 0L) ? Long.MAX_VALUE : fileOffset + count;
+        this.requestOffset = fileOffset;
+        this.offset = fileOffset;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return Offset in the remote file of the next byte returned by {@link #read(byte[], int)}
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Reads the next chunk of data
+     *
+     * @param dst The destination buffer - must have room for at least
+     * {@link #getChunkSize()} bytes after the offset
+     * @param dstoff Offset in the destination buffer
+     * @return Number of bytes read - or -1 if end of file (or of the requested
+     * range) has been reached
+     * @throws IOException If failed to read the data
+     */
+    public int read(byte[] dst, int dstoff) throws IOException {
+        if ((dstoff < 0) || ((dst.length - dstoff) < chunkSize)) {
+            throw new IllegalArgumentException("read(" + handle + ") insufficient room for "
+                                             + chunkSize + " bytes at offset=" + dstoff + " in " + dst.length);
+        }
+
+        while (!eof) {
+            fill();
+
+            ReadRequest req = pending.poll();
+            if (req == null) {
+                eof = true;
+                break;
+            }
+
+            int len;
+            try {
+                len = client.checkData(client.receive(req.id), dstoff, dst);
+            } catch (IOException | RuntimeException e) {
+                eof = true;
+                drain();
+                throw e;
+            }
+
+            if (len < 0) {
+                // anything requested beyond this offset is also past the end of the file
+                eof = true;
+                drain();
+                break;
+            }
+
+            if (len < req.length) {
+                // short read - ask for the missing range before consuming anything else
+                long missingOffset = req.offset + len;
+                int missingLength = req.length - len;
+                pending.addFirst(new ReadRequest(client.sendRead(handle, missingOffset, missingLength), missingOffset, missingLength));
+            }
+
+            if (len > 0) {
+                offset += len;
+                return len;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Waits for (and discards) the replies of all outstanding requests
+     */
+    @Override
+    public void close() throws IOException {
+        eof = true;
+        drain();
+    }
+
+    protected void fill() throws IOException {
+        while ((pending.size() < maxInFlight) && (requestOffset < endOffset)) {
+            int len = (int) Math.min(chunkSize, endOffset - requestOffset);
+            pending.add(new ReadRequest(client.sendRead(handle, requestOffset, len), requestOffset, len));
+            requestOffset += len;
+        }
+    }
+
+    protected void drain() {
+        for (ReadRequest req = pending.poll(); req != null; req = pending.poll()) {
+            try {
+                client.receive(req.id);
+            } catch (IOException e) {
+                // the channel is gone - there is nothing left to wait for
+                for (ReadRequest r = pending.poll(); r != null; r = pending.poll()) {
+                    client.unregister(r.id);
+                }
+                break;
+            }
+        }
+    }
+
+    private static class ReadRequest {
+        private final int id;
+        private final long offset;
+        private final int length;
+
+        ReadRequest(int id, long offset, int length) {
+            this.id = id;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
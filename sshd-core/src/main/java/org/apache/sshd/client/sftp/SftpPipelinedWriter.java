@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.client.sftp;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Deque;
+import java.util.LinkedList;
+
+import org.apache.sshd.client.sftp.SftpClient.Handle;
+import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.ValidateUtils;
+
+/**
+ * Writes a remote file sequentially while keeping up to a configured number of
+ * {@code SSH_FXP_WRITE} requests in flight. A new request waits only for the
+ * status of the oldest outstanding one once the limit is reached. Since the
+ * statuses are checked asynchronously, a failure may be reported by a later
+ * call than the one that issued the failed request - {@link #flush()} must be
+ * called to make sure all the data has been successfully written.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class SftpPipelinedWriter implements Flushable {
+
+    private final DefaultSftpClient client;
+    private final Handle handle;
+    private final int chunkSize;
+    private final int maxInFlight;
+    private final Deque<Integer> pending = new LinkedList<Integer>();
+    private long offset;
+
+    /**
+     * @param client The {@link DefaultSftpClient} used to send the requests
+     * @param handle The remote file {@link Handle}
+     * @param fileOffset Offset where to write the first byte
+     * @param chunkSize Maximum number of bytes sent by each write request
+     * @param maxInFlight Maximum number of outstanding write requests
+     */
+    public SftpPipelinedWriter(DefaultSftpClient client, Handle handle, long fileOffset, int chunkSize, int maxInFlight) {
+        this.client = ValidateUtils.checkNotNull(client, "No client", GenericUtils.EMPTY_OBJECT_ARRAY);
+        this.handle = ValidateUtils.checkNotNull(handle, "No handle", GenericUtils.EMPTY_OBJECT_ARRAY);
+        ValidateUtils.checkTrue(fileOffset >= 0L, "Bad file offset: %d", Long.valueOf(fileOffset));
+        ValidateUtils.checkTrue(chunkSize > 0, "Bad chunk size: %d", Integer.valueOf(chunkSize));
+        this.chunkSize = chunkSize;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.offset = fileOffset;
+    }
+
+    /**
+     * @return Offset in the remote file where the next byte will be written
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Sends the data at the current offset - the data is copied, so the
+     * buffer can be re-used as soon as this method returns
+     *
+     * @param src The source buffer
+     * @param srcoff Offset of the data in the buffer
+     * @param len Number of bytes to write
+     * @throws IOException If failed to send the data or a previous request failed
+     */
+    public void write(byte[] src, int srcoff, int len) throws IOException {
+        while (len > 0) {
+            if (pending.size() >= maxInFlight) {
+                checkNext();
+            }
+
+            int nb = Math.min(len, chunkSize);
+            pending.add(Integer.valueOf(client.sendWrite(handle, offset, src, srcoff, nb)));
+            offset += nb;
+            srcoff += nb;
+            len -= nb;
+        }
+    }
+
+    /**
+     * Waits for the status of all outstanding requests
+     *
+     * @throws IOException If any of them failed - in which case the statuses
+     * of the other ones are consumed but ignored
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!pending.isEmpty()) {
+            checkNext();
+        }
+    }
+
+    protected void checkNext() throws IOException {
+        Integer id = pending.poll();
+        try {
+            client.checkStatus(client.receive(id.intValue()));
+        } catch (IOException | RuntimeException e) {
+            drain();
+            throw e;
+        }
+    }
+
+    protected void drain() {
+        for (Integer id = pending.poll(); id != null; id = pending.poll()) {
+            try {
+                client.receive(id.intValue());
+            } catch (IOException e) {
+                // the channel is gone - there is nothing left to wait for
+                for (Integer i = pending.poll(); i != null; i = pending.poll()) {
+                    client.unregister(i.intValue());
+                }
+                break;
+            }
+        }
+    }
+}
@@ -36,11 +36,19 @@ public abstract class AbstractSessionIoHandler implements IoHandler {
     public void sessionCreated(IoSession ioSession) throws Exception {
         AbstractSession session = createSession(ioSession);
         AbstractSession.attachSession(ioSession, session);
+        // a write issued while creating the session (e.g., the identification or
+        // KEXINIT) may have failed and closed the socket before the attachment
+        if (ioSession.isClosing() || ioSession.isClosed()) {
+            session.close(true);
+        }
     }
 
     @Override
     public void sessionClosed(IoSession ioSession) throws Exception {
-        AbstractSession.getSession(ioSession).close(true);
+        AbstractSession session = AbstractSession.getSession(ioSession, true);
+        if (session != null) {
+            session.close(true);
+        }
     }
 
     @Override
@@ -49,7 +57,8 @@ public abstract class AbstractSessionIoHandler implements IoHandler {
         if (session != null) {
             session.exceptionCaught(cause);
         } else {
-            throw new IllegalStateException("No session available", cause);
+            // not attached yet - the session is closed once it is
+            ioSession.close(true);
         }
     }
 
@@ -18,6 +18,8 @@
  */
 package org.apache.sshd.common;
 
+import org.apache.sshd.common.cipher.AuthenticatedCipher;
+
 /**
  * Wrapper for a cryptographic cipher, used either for encryption
  * or decryption.
@@ -30,6 +32,25 @@ public interface Cipher  {
         Encrypt, Decrypt
     }
 
+    /**
+     * Utility class to help using Ciphers
+     */
+    public static final class Utils {
+        /**
+         * @param cipher The {@link Cipher}
+         * @return The size (in bytes) of the key material the cipher must be
+         * initialized with - which is the block size unless the cipher is an
+         * {@link AuthenticatedCipher} that reports otherwise
+         */
+        public static int getKeySize(Cipher cipher) {
+            if (cipher instanceof AuthenticatedCipher) {
+                return ((AuthenticatedCipher) cipher).getKeySize();
+            } else {
+                return cipher.getBlockSize();
+            }
+        }
+    }
+
     /**
      * Retrieves the size of the initialization vector
      *
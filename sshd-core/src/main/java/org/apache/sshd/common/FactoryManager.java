@@ -143,6 +143,41 @@ public interface FactoryManager {
      */
     public static final String NIO2_READ_BUFFER_SIZE = "nio2-read-buf-size";
 
+    /**
+     * Maximum number of idle direct buffers (per size class) kept by a NIO2
+     * service for encoded outgoing packets - 0 disables the pooling.
+     * See {@link org.apache.sshd.common.util.buffer.DirectBufferPool}
+     */
+    public static final String NIO2_WRITE_BUFFER_POOL_SIZE = "nio2-write-buf-pool-size";
+
+    /**
+     * Largest outgoing packet (in bytes) that is copied into a pooled direct
+     * buffer by a NIO2 session - larger ones are written from the heap.
+     * See {@link org.apache.sshd.common.util.buffer.DirectBufferPool}
+     */
+    public static final String NIO2_WRITE_BUFFER_MAX_SIZE = "nio2-write-buf-max-size";
+
+    /**
+     * Maximum number of queued packets sent by a single gathering write of a
+     * NIO2 session - 1 writes the packets one at a time.
+     * See {@link org.apache.sshd.common.io.nio2.Nio2Session}
+     */
+    public static final String NIO2_WRITE_BATCH_MAX_BUFFERS = "nio2-write-batch-max-buffers";
+
+    /**
+     * Maximum number of bytes sent by a single gathering write of a NIO2
+     * session - the oldest queued packet is always sent, regardless of its size.
+     * See {@link org.apache.sshd.common.io.nio2.Nio2Session}
+     */
+    public static final String NIO2_WRITE_BATCH_MAX_SIZE = "nio2-write-batch-max-size";
+
+    /**
+     * Level (0-9) used by zlib based outgoing compression - if not set,
+     * the compression's own default is used.
+     * See {@link org.apache.sshd.common.compression.CompressionZlib}
+     */
+    public static final String COMPRESSION_LEVEL = "compression-level";
+
     /**
      * <P>A map of properties that can be used to configure the SSH server
      * or client.  This map will never be changed by either the server or
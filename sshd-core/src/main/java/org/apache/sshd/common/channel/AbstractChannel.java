@@ -65,8 +65,8 @@ public abstract class AbstractChannel
 
     private ExecutorService executor;
     private boolean shutdownExecutor;
-    protected final Window localWindow = new Window(this, null, getClass().getName().contains(".client."), true);
-    protected final Window remoteWindow = new Window(this, null, getClass().getName().contains(".client."), false);
+    protected final Window localWindow = new Window(this, getClass().getName().contains(".client."), true);
+    protected final Window remoteWindow = new Window(this, getClass().getName().contains(".client."), false);
     protected ConnectionService service;
     protected Session session;
     protected int id;
@@ -38,6 +38,8 @@ public class ChannelAsyncOutputStream extends CloseableUtils.AbstractCloseable i
     private final Channel channel;
     private final byte cmd;
     private final AtomicReference<IoWriteFutureImpl> pendingWrite = new AtomicReference<IoWriteFutureImpl>();
+    private boolean writing;
+    private boolean waitingForSpace;
 
     public ChannelAsyncOutputStream(Channel channel, byte cmd) {
         this.channel = channel;
@@ -69,50 +71,99 @@ public class ChannelAsyncOutputStream extends CloseableUtils.AbstractCloseable i
 
     protected synchronized void doWriteIfPossible(boolean resume) {
         final IoWriteFutureImpl future = pendingWrite.get();
-        if (future != null) {
-            final Buffer buffer = future.buffer;
-            final int total = buffer.available();
-            if (total > 0) {
-                final int length = Math.min(Math.min(channel.getRemoteWindow().getSize(), total), channel.getRemoteWindow().getPacketSize());
-                if (length > 0) {
-                    if (resume) {
-                        log.debug("Resuming write due to more space available in the remote window");
-                    }
-                    Buffer buf = channel.getSession().createBuffer(cmd, length + 12);
-                    buf.putInt(channel.getRecipient());
-                    if (cmd == SshConstants.SSH_MSG_CHANNEL_EXTENDED_DATA) {
-                        buf.putInt(1);
-                    }
-                    buf.putInt(length);
-                    buf.putRawBytes(buffer.array(), buffer.rpos(), length);
-                    buffer.rpos(buffer.rpos() + length);
-                    channel.getRemoteWindow().consume(length);
-                    try {
-                        channel.getSession().writePacket(buf).addListener(new SshFutureListener<org.apache.sshd.common.io.IoWriteFuture>() {
-                            @SuppressWarnings("synthetic-access")
-                            @Override
-                            public void operationComplete(org.apache.sshd.common.io.IoWriteFuture f) {
-                                if (total > length) {
-                                    doWriteIfPossible(false);
-                                } else {
-                                    pendingWrite.compareAndSet(future, null);
-                                    future.setValue(Boolean.TRUE);
-                                }
-                            }
-                        });
-                    } catch (IOException e) {
-                        future.setValue(e);
-                    }
-                } else if (!resume) {
-                    log.debug("Delaying write until space is available in the remote window");
-                }
-            } else {
-                pendingWrite.compareAndSet(future, null);
-                future.setValue(Boolean.TRUE);
+        if (future == null || writing) {
+            // an in-flight packet write resumes the pending write when it completes
+            return;
+        }
+
+        final Buffer buffer = future.buffer;
+        final int total = buffer.available();
+        if (total <= 0) {
+            pendingWrite.compareAndSet(future, null);
+            future.setValue(Boolean.TRUE);
+            return;
+        }
+
+        final Window remoteWindow = channel.getRemoteWindow();
+        final int length;
+        try {
+            length = remoteWindow.consumeUpTo(Math.min(total, remoteWindow.getPacketSize()));
+        } catch (WindowClosedException e) {
+            pendingWrite.compareAndSet(future, null);
+            future.setValue(e);
+            return;
+        }
+
+        if (length <= 0) {
+            if (!resume) {
+                log.debug("Delaying write until space is available in the remote window");
             }
+            waitForSpace(remoteWindow);
+            return;
+        }
+
+        if (resume) {
+            log.debug("Resuming write due to more space available in the remote window");
+        }
+        Buffer buf = channel.getSession().createBuffer(cmd, length + 12);
+        buf.putInt(channel.getRecipient());
+        if (cmd == SshConstants.SSH_MSG_CHANNEL_EXTENDED_DATA) {
+            buf.putInt(1);
+        }
+        buf.putInt(length);
+        buf.putRawBytes(buffer.array(), buffer.rpos(), length);
+        buffer.rpos(buffer.rpos() + length);
+        writing = true;
+        try {
+            channel.getSession().writePacket(buf).addListener(new SshFutureListener<IoWriteFuture>() {
+                @Override
+                public void operationComplete(IoWriteFuture f) {
+                    onPacketWritten(future, f, total > length);
+                }
+            });
+        } catch (IOException e) {
+            writing = false;
+            pendingWrite.compareAndSet(future, null);
+            future.setValue(e);
         }
     }
 
+    protected synchronized void onPacketWritten(IoWriteFutureImpl future, IoWriteFuture f, boolean more) {
+        writing = false;
+        if (!f.isWritten()) {
+            pendingWrite.compareAndSet(future, null);
+            future.setValue(f.getException());
+        } else if (more) {
+            doWriteIfPossible(false);
+        } else {
+            pendingWrite.compareAndSet(future, null);
+            future.setValue(Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Registers (once) for a notification from the remote window so that the
+     * pending write is resumed as soon as the peer adjusts the window, without
+     * depending on the owning channel to call {@link #onWindowExpanded()}
+     */
+    protected synchronized void waitForSpace(Window remoteWindow) {
+        if (waitingForSpace) {
+            return;
+        }
+        waitingForSpace = true;
+        remoteWindow.whenSpaceAvailable(1).addListener(new SshFutureListener<WindowSpaceFuture>() {
+            @Override
+            public void operationComplete(WindowSpaceFuture f) {
+                onSpaceAvailable();
+            }
+        });
+    }
+
+    protected synchronized void onSpaceAvailable() {
+        waitingForSpace = false;
+        doWriteIfPossible(true);
+    }
+
     @Override
     public String toString() {
         return "ChannelAsyncOutputStream[" + channel + "]";
@@ -19,7 +19,6 @@
 package org.apache.sshd.common.channel;
 
 import java.io.IOException;
-import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.channels.Channel;
 
@@ -93,12 +92,10 @@ public class ChannelOutputStream extends OutputStream implements Channel {
                     flush();
                 } else {
                     try {
-                        remoteWindow.waitForSpace();
+                        remoteWindow.whenSpaceAvailable(1).verify();
                     } catch (WindowClosedException e) {
                         closed = true;
                         throw e;
-                    } catch (InterruptedException e) {
-                        throw (IOException)new InterruptedIOException("Interrupted while waiting for remote space").initCause(e);
                     }
                 }
                 continue;
@@ -123,7 +120,13 @@ public class ChannelOutputStream extends OutputStream implements Channel {
             while (bufferLength > 0) {
                 Buffer buf = buffer;
                 int total = bufferLength;
-                int length = Math.min(Math.min(remoteWindow.waitForSpace(), total), remoteWindow.getPacketSize());
+                // reserve the space up-front so that concurrent writers sharing
+                // the same remote window (e.g. stdout and stderr) cannot steal it
+                int length = remoteWindow.consumeUpTo(Math.min(total, remoteWindow.getPacketSize()));
+                if (length <= 0) {
+                    remoteWindow.whenSpaceAvailable(1).verify();
+                    continue;
+                }
                 int pos = buf.wpos();
                 buf.wpos((cmd == SshConstants.SSH_MSG_CHANNEL_EXTENDED_DATA) ? 14 : 10);
                 buf.putInt(length);
@@ -137,7 +140,6 @@ public class ChannelOutputStream extends OutputStream implements Channel {
                     bufferLength = leftover;
                 }
                 lastSize = length;
-                remoteWindow.waitAndConsume(length);
                 if (log.isDebugEnabled()) {
                     log.debug("Send {} on channel {}",
                               (cmd == SshConstants.SSH_MSG_CHANNEL_DATA) ? "SSH_MSG_CHANNEL_DATA" : "SSH_MSG_CHANNEL_EXTENDED_DATA",
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.channel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import org.apache.sshd.common.future.DefaultSshFuture;
+
+/**
+ * A default implementation of {@link WindowSpaceFuture}.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class DefaultWindowSpaceFuture extends DefaultSshFuture<WindowSpaceFuture> implements WindowSpaceFuture {
+    private final Window window;
+    private final int space;
+
+    public DefaultWindowSpaceFuture(Window window, int space) {
+        super(null);
+        this.window = window;
+        this.space = space;
+    }
+
+    @Override
+    public Window getWindow() {
+        return window;
+    }
+
+    @Override
+    public int getRequestedSpace() {
+        return space;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return getValue() instanceof Boolean;
+    }
+
+    public void setAvailable() {
+        setValue(Boolean.TRUE);
+    }
+
+    @Override
+    public Throwable getException() {
+        Object v = getValue();
+        if (v instanceof Throwable) {
+            return (Throwable) v;
+        } else {
+            return null;
+        }
+    }
+
+    public void setException(Throwable exception) {
+        if (exception == null) {
+            throw new NullPointerException("exception");
+        }
+        setValue(exception);
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        window.removeWaiter(this);
+    }
+
+    @Override
+    public void verify() throws IOException {
+        try {
+            await();
+        } catch (InterruptedException e) {
+            window.removeWaiter(this);
+            throw (IOException) new InterruptedIOException("Interrupted while waiting for space on " + window).initCause(e);
+        }
+
+        Throwable t = getException();
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t != null) {
+            throw new WindowClosedException(String.valueOf(window));
+        }
+    }
+}
@@ -20,7 +20,11 @@ package org.apache.sshd.common.channel;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.sshd.common.FactoryManager;
 import org.apache.sshd.common.FactoryManagerUtils;
@@ -33,26 +37,48 @@ import org.apache.sshd.common.util.ValidateUtils;
  * A Window for a given channel.
  * Windows are used to not overflow the client or server when sending datas.
  * Both clients and servers have a local and remote window and won't send
- * anymore data until the window has been expanded.  When the local window
- * is 
+ * anymore data until the window has been expanded.
+ * <P>
+ * The window size is kept in an atomic counter, so consuming and expanding
+ * never takes a lock. Callers that cannot block can use {@link #tryConsume(int)}
+ * or {@link #consumeUpTo(int)} and register for a {@link WindowSpaceFuture}
+ * through {@link #whenSpaceAvailable(int)} when the window is exhausted. The
+ * blocking {@link #waitForSpace()} and {@link #waitAndConsume(int)} methods
+ * are built on top of these futures.
+ * </P>
  *
  * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
  */
 public class Window extends AbstractLoggingBean {
     private final AbstractChannel channel;
-    private final Object lock;
     private final String name;
+    private final AtomicInteger size = new AtomicInteger(0);
+    private final Queue<DefaultWindowSpaceFuture> waiters = new ConcurrentLinkedQueue<DefaultWindowSpaceFuture>();
 
-    private int size;
-    private int maxSize;
-    private int packetSize;
-    private boolean waiting;
-    private boolean closed;
-    private Map<String,?> props = Collections.<String,Object>emptyMap();
+    private volatile int maxSize;
+    private volatile int packetSize;
+    private volatile boolean closed;
+    private volatile Map<String,?> props = Collections.<String,Object>emptyMap();
 
+    /**
+     * @param channel The {@link AbstractChannel} owning the window
+     * @param lock Ignored since the window no longer synchronizes on a monitor
+     * @param client Whether this is a client side window
+     * @param local Whether this is a local or remote window
+     * @deprecated Use {@link #Window(AbstractChannel, boolean, boolean)}
+     */
+    @Deprecated
     public Window(AbstractChannel channel, Object lock, boolean client, boolean local) {
+        this(channel, client, local);
+    }
+
+    /**
+     * @param channel The {@link AbstractChannel} owning the window
+     * @param client Whether this is a client side window
+     * @param local Whether this is a local or remote window
+     */
+    public Window(AbstractChannel channel, boolean client, boolean local) {
         this.channel = ValidateUtils.checkNotNull(channel, "No channel provided", GenericUtils.EMPTY_OBJECT_ARRAY);
-        this.lock = (lock != null) ? lock : this;
         this.name = String.valueOf(channel) + ": " + (client ? "client" : "server") + " " + (local ? "local " : "remote") + " window";
     }
 
@@ -61,9 +87,7 @@ public class Window extends AbstractLoggingBean {
     }
 
     public int getSize() {
-        synchronized (lock) {
-            return size;
-        }
+        return size.get();
     }
 
     public int getMaxSize() {
@@ -74,6 +98,10 @@ public class Window extends AbstractLoggingBean {
         return packetSize;
     }
 
+    public boolean isClosed() {
+        return closed;
+    }
+
     public void init(Session session) {
         init(session.getFactoryManager());
     }
@@ -89,112 +117,205 @@ public class Window extends AbstractLoggingBean {
     }
 
     public void init(int size, int packetSize, Map<String,?> props) {
-        synchronized (lock) {
-            this.size = size;
-            this.maxSize = size;
-            this.packetSize = packetSize;
-            this.props = props;
-            lock.notifyAll();
-        }
+        this.maxSize = size;
+        this.packetSize = packetSize;
+        this.props = props;
+        this.size.set(size);
+        signalWaiters();
     }
 
     public void expand(int window) {
-        synchronized (lock) {
-            size += window;
-            if (log.isDebugEnabled()) {
-                log.debug("Increase " + name + " by " + window + " up to " + size);
-            }
-            lock.notifyAll();
+        int newSize = size.addAndGet(window);
+        if (log.isDebugEnabled()) {
+            log.debug("Increase " + name + " by " + window + " up to " + newSize);
         }
+        signalWaiters();
     }
 
     public void consume(int len) {
-        synchronized (lock) {
-            //assert size > len;
-            size -= len;
-            if (log.isTraceEnabled()) {
-                log.trace("Consume " + name + " by " + len + " down to " + size);
-            }
+        //assert size > len;
+        int newSize = size.addAndGet(-len);
+        if (log.isTraceEnabled()) {
+            log.trace("Consume " + name + " by " + len + " down to " + newSize);
         }
     }
 
     public void consumeAndCheck(int len) throws IOException {
-        synchronized (lock) {
-            //assert size > len;
-            size -= len;
-            if (log.isTraceEnabled()) {
-                log.trace("Consume " + name + " by " + len + " down to " + size);
-            }
-            check(maxSize);
-        }
+        consume(len);
+        check(maxSize);
     }
 
     public void check(int maxFree) throws IOException {
-        synchronized (lock) {
-            if (size < maxFree / 2) {
+        for (;;) {
+            int cur = size.get();
+            if (cur >= maxFree / 2) {
+                return;
+            }
+            if (size.compareAndSet(cur, maxFree)) {
                 if (log.isDebugEnabled()) {
-                    log.debug("Increase " + name + " by " + (maxFree - size) + " up to " + maxFree);
+                    log.debug("Increase " + name + " by " + (maxFree - cur) + " up to " + maxFree);
                 }
-                channel.sendWindowAdjust(maxFree - size);
-                size = maxFree;
+                channel.sendWindowAdjust(maxFree - cur);
+                return;
             }
         }
     }
 
-    public void waitAndConsume(int len) throws InterruptedException, WindowClosedException {
-        synchronized (lock) {
-            while (size < len && !closed) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Waiting for {} bytes on {}", Integer.valueOf(len), name);
-                }
-                waiting = true;
-                lock.wait();
+    /**
+     * Atomically consumes the given length if the window currently has
+     * enough space for it
+     *
+     * @param len The length to consume
+     * @return <tt>true</tt> if the space was consumed, <tt>false</tt> if
+     * not enough space was available (in which case nothing is consumed)
+     * @throws WindowClosedException if the window has been closed
+     */
+    public boolean tryConsume(int len) throws WindowClosedException {
+        for (;;) {
+            if (closed) {
+                throw new WindowClosedException(name);
+            }
+            int cur = size.get();
+            if (cur < len) {
+                return false;
             }
-            if (waiting) {
-                if (closed) {
-                    log.debug("Window {} has been closed", name);
-                } else {
-                    log.debug("Space available for {}", name);
+            if (size.compareAndSet(cur, cur - len)) {
+                if (log.isTraceEnabled()) {
+                    log.trace("Consume " + name + " by " + len + " down to " + (cur - len));
                 }
-                waiting = false;
+                return true;
             }
+        }
+    }
+
+    /**
+     * Atomically consumes as much of the available space as possible
+     * without exceeding the given maximum
+     *
+     * @param maxLen The maximum length to consume
+     * @return The consumed length - zero if the window is exhausted
+     * @throws WindowClosedException if the window has been closed
+     */
+    public int consumeUpTo(int maxLen) throws WindowClosedException {
+        for (;;) {
             if (closed) {
                 throw new WindowClosedException(name);
             }
-            size -= len;
-            if (log.isTraceEnabled()) {
-                log.trace("Consume " + name + " by " + len + " down to " + size);
+            int cur = size.get();
+            int len = Math.min(cur, maxLen);
+            if (len <= 0) {
+                return 0;
+            }
+            if (size.compareAndSet(cur, cur - len)) {
+                if (log.isTraceEnabled()) {
+                    log.trace("Consume " + name + " by " + len + " down to " + (cur - len));
+                }
+                return len;
             }
         }
     }
 
-    public int waitForSpace() throws InterruptedException, WindowClosedException {
-        synchronized (lock) {
-            while (size == 0 && !closed) {
-                log.debug("Waiting for some space on {}", name);
-                waiting = true;
-                lock.wait();
+    /**
+     * Registers interest in the window having at least the given amount of
+     * space. The returned future is signalled without consuming anything,
+     * so a caller competing with other consumers should use
+     * {@link #tryConsume(int)} or {@link #consumeUpTo(int)} once notified
+     * and register again if it lost the race.
+     *
+     * @param len The minimum amount of space required
+     * @return A {@link WindowSpaceFuture} that is signalled once the space
+     * is available or the window is closed
+     */
+    public WindowSpaceFuture whenSpaceAvailable(int len) {
+        DefaultWindowSpaceFuture future = new DefaultWindowSpaceFuture(this, len);
+        if (closed) {
+            future.setException(new WindowClosedException(name));
+        } else if (size.get() >= len) {
+            future.setAvailable();
+        } else {
+            if (log.isDebugEnabled()) {
+                log.debug("Waiting for {} bytes on {}", Integer.valueOf(len), name);
             }
-            if (waiting) {
-                if (closed) {
-                    log.debug("Window {} has been closed", name);
-                } else {
-                    log.debug("Space available for {}", name);
-                }
-                waiting = false;
+            waiters.add(future);
+            // re-check in case the window changed before we got registered - only our own
+            // future is signalled so that no foreign listeners run on the caller's thread
+            if (closed) {
+                waiters.remove(future);
+                future.setException(new WindowClosedException(name));
+            } else if (size.get() >= len) {
+                waiters.remove(future);
+                future.setAvailable();
             }
+        }
+        return future;
+    }
+
+    public void waitAndConsume(int len) throws InterruptedException, WindowClosedException {
+        while (!tryConsume(len)) {
+            await(whenSpaceAvailable(len));
+        }
+    }
+
+    public int waitForSpace() throws InterruptedException, WindowClosedException {
+        for (;;) {
             if (closed) {
                 throw new WindowClosedException(name);
             }
-            return size;
+            int cur = size.get();
+            if (cur > 0) {
+                return cur;
+            }
+            await(whenSpaceAvailable(1));
         }
     }
 
     public void notifyClosed() {
-        synchronized (lock) {
-            closed = true;
-            if (waiting) {
-                lock.notifyAll();
+        closed = true;
+        signalWaiters();
+    }
+
+    protected void await(WindowSpaceFuture future) throws InterruptedException, WindowClosedException {
+        try {
+            future.await();
+        } catch (InterruptedException e) {
+            removeWaiter(future);
+            throw e;
+        }
+        if (!future.isAvailable()) {
+            log.debug("Window {} has been closed", name);
+            throw new WindowClosedException(name);
+        }
+        log.debug("Space available for {}", name);
+    }
+
+    /**
+     * Stops signalling the given future - e.g., when its waiter has been
+     * interrupted or has cancelled it
+     *
+     * @param future The {@link WindowSpaceFuture} obtained via {@link #whenSpaceAvailable(int)}
+     * @return <tt>true</tt> if the future was still waiting for space
+     */
+    public boolean removeWaiter(WindowSpaceFuture future) {
+        return waiters.remove(future);
+    }
+
+    int getWaitersCount() {
+        return waiters.size();
+    }
+
+    protected void signalWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+
+        for (Iterator<DefaultWindowSpaceFuture> it = waiters.iterator(); it.hasNext(); ) {
+            DefaultWindowSpaceFuture future = it.next();
+            if (closed) {
+                it.remove();
+                future.setException(new WindowClosedException(name));
+            } else if (size.get() >= future.getRequestedSpace()) {
+                it.remove();
+                future.setAvailable();
             }
         }
     }
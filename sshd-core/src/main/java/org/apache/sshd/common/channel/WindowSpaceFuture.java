@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.channel;
+
+import java.io.IOException;
+
+import org.apache.sshd.common.future.SshFuture;
+
+/**
+ * An {@link SshFuture} signalled when enough space is available in a
+ * {@link Window} or when the window has been closed.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public interface WindowSpaceFuture extends SshFuture<WindowSpaceFuture> {
+
+    /**
+     * @return The {@link Window} this future is waiting on
+     */
+    Window getWindow();
+
+    /**
+     * @return The minimum amount of space that was requested
+     */
+    int getRequestedSpace();
+
+    /**
+     * @return <tt>true</tt> if the requested space became available,
+     * <tt>false</tt> if the future is not done yet or the window was closed
+     */
+    boolean isAvailable();
+
+    /**
+     * @return The {@link WindowClosedException} if the window was closed
+     * before the space became available, <tt>null</tt> otherwise
+     */
+    Throwable getException();
+
+    /**
+     * Cancels the wait for space and notifies all threads waiting for this
+     * future - the window no longer signals it
+     */
+    void cancel();
+
+    /**
+     * Wait for the space to become available
+     * @throws IOException if the window was closed or the wait interrupted
+     */
+    void verify() throws IOException;
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.cipher;
+
+import org.apache.sshd.common.Cipher;
+
+/**
+ * An AEAD (authenticated encryption with associated data) {@link Cipher}
+ * that provides the packet integrity protection on its own, so that no
+ * separate {@link org.apache.sshd.common.Mac} is used once it has been
+ * negotiated. Such ciphers work on whole SSH packets, where the 4 bytes
+ * packet length are the associated data and the authentication tag is
+ * appended right after the packet.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public interface AuthenticatedCipher extends Cipher {
+
+    /**
+     * @return The size (in bytes) of the key material expected by
+     * {@link #init(Mode, byte[], byte[])} - which may differ from the block size
+     * @see Cipher.Utils#getKeySize(Cipher)
+     */
+    int getKeySize();
+
+    /**
+     * @return The size (in bytes) of the authentication tag that follows each packet
+     */
+    int getAuthenticationTagSize();
+
+    /**
+     * Extracts the length of an incoming packet <U>without</U> modifying
+     * the data - the original bytes are still needed to verify the tag
+     *
+     * @param input The data buffer
+     * @param offset Offset of the 4 bytes packet length in the buffer
+     * @param seqNum The packet sequence number
+     * @return The decoded packet length
+     * @throws Exception If failed to decode the length
+     */
+    int getPacketLength(byte[] input, int offset, long seqNum) throws Exception;
+
+    /**
+     * Performs in-place encryption or decryption (according to the mode
+     * used to initialize the cipher) of a whole packet. When encrypting,
+     * the tag is written right after the packet data. When decrypting, the
+     * tag found after the packet data is verified <U>before</U> the data is
+     * decrypted.
+     *
+     * @param input The data buffer
+     * @param offset Offset of the 4 bytes packet length in the buffer
+     * @param packetLength The packet length - excluding the 4 bytes length
+     * itself and the authentication tag
+     * @param seqNum The packet sequence number
+     * @throws Exception If failed to process the data - in particular, an
+     * {@link org.apache.sshd.common.SshException} with a
+     * {@link org.apache.sshd.common.SshConstants#SSH2_DISCONNECT_MAC_ERROR}
+     * code is thrown if the authentication tag does not match
+     */
+    void updatePacket(byte[] input, int offset, int packetLength, long seqNum) throws Exception;
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.cipher;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.sshd.common.SshConstants;
+import org.apache.sshd.common.SshException;
+import org.apache.sshd.common.util.SecurityUtils;
+import org.apache.sshd.common.util.buffer.BufferUtils;
+
+/**
+ * AES-GCM cipher as used by OpenSSH ({@code aesXXX-gcm@openssh.com}) - see
+ * <A HREF="https://tools.ietf.org/html/rfc5647">RFC 5647</A>. The 12 bytes
+ * nonce is made of a fixed 4 bytes field followed by a 64-bit invocation
+ * counter that is incremented for each packet.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class BaseGCMCipher extends BaseCipher implements AuthenticatedCipher {
+
+    public static final int NONCE_SIZE = 12;
+    public static final int TAG_SIZE = 16;
+
+    protected Mode mode;
+    protected SecretKeySpec secretKey;
+    protected byte[] nonce;
+
+    public BaseGCMCipher(int ivsize, int bsize, String algorithm, String transformation) {
+        super(ivsize, bsize, algorithm, transformation);
+    }
+
+    @Override
+    public int getKeySize() {
+        return getBlockSize();
+    }
+
+    @Override
+    public int getAuthenticationTagSize() {
+        return TAG_SIZE;
+    }
+
+    @Override
+    public void init(Mode mode, byte[] key, byte[] iv) throws Exception {
+        try {
+            this.mode = mode;
+            this.secretKey = new SecretKeySpec(resize(key, bsize), algorithm);
+            this.nonce = resize(iv, NONCE_SIZE).clone();
+            this.cipher = SecurityUtils.getCipher(transformation);
+        } catch (Exception e) {
+            cipher = null;
+            throw new SshException("Unable to initialize cipher " + this, e);
+        }
+    }
+
+    @Override
+    public void update(byte[] input, int inputOffset, int inputLen) throws Exception {
+        throw new UnsupportedOperationException("Packets must be processed via updatePacket for " + this);
+    }
+
+    @Override
+    public int getPacketLength(byte[] input, int offset, long seqNum) throws Exception {
+        // the packet length is sent in the clear as the associated data
+        return BufferUtils.getInt(input, offset);
+    }
+
+    @Override
+    public void updatePacket(byte[] input, int offset, int packetLength, long seqNum) throws Exception {
+        cipher.init(mode == Mode.Encrypt ? javax.crypto.Cipher.ENCRYPT_MODE : javax.crypto.Cipher.DECRYPT_MODE,
+                    secretKey, new GCMParameterSpec(TAG_SIZE * Byte.SIZE, nonce));
+        cipher.updateAAD(input, offset, 4);
+        try {
+            if (mode == Mode.Encrypt) {
+                cipher.doFinal(input, offset + 4, packetLength, input, offset + 4);
+            } else {
+                cipher.doFinal(input, offset + 4, packetLength + TAG_SIZE, input, offset + 4);
+            }
+        } catch (AEADBadTagException e) {
+            throw new SshException(SshConstants.SSH2_DISCONNECT_MAC_ERROR, "MAC Error", e);
+        } finally {
+            incrementCounter();
+        }
+    }
+
+    /**
+     * Increments the 64-bit invocation counter in the last 8 bytes of the nonce
+     */
+    protected void incrementCounter() {
+        for (int i = NONCE_SIZE - 1; i >= NONCE_SIZE - 8; i--) {
+            if (++nonce[i] != 0) {
+                break;
+            }
+        }
+    }
+}
@@ -35,6 +35,7 @@ import org.apache.sshd.common.NamedFactory;
 import org.apache.sshd.common.NamedResource;
 import org.apache.sshd.common.config.NamedFactoriesListParseResult;
 import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.SecurityUtils;
 import org.apache.sshd.common.util.ValidateUtils;
 
 /**
@@ -51,10 +52,32 @@ public enum BuiltinCiphers implements CipherFactory {
     },
     aes128cbc(Constants.AES128_CBC, 16, 16, "AES", "AES/CBC/NoPadding"),
     aes128ctr(Constants.AES128_CTR, 16, 16, "AES", "AES/CTR/NoPadding"),
+    aes128gcm(Constants.AES128_GCM, 16, 16, "AES", "AES/GCM/NoPadding") {
+        @Override
+        public Cipher create() {
+            return new BaseGCMCipher(getIVSize(), getBlockSize(), getAlgorithm(), getTransformation());
+        }
+
+        @Override
+        public boolean isSupported() {
+            return isTransformationSupported(getTransformation(), getAlgorithm(), getBlockSize());
+        }
+    },
     aes192cbc(Constants.AES192_CBC, 16, 24, "AES", "AES/CBC/NoPadding"),
     aes192ctr(Constants.AES192_CTR, 16, 24, "AES", "AES/CTR/NoPadding"),
     aes256cbc(Constants.AES256_CBC, 16, 32, "AES", "AES/CBC/NoPadding"),
     aes256ctr(Constants.AES256_CTR, 16, 32, "AES", "AES/CTR/NoPadding"),
+    aes256gcm(Constants.AES256_GCM, 16, 32, "AES", "AES/GCM/NoPadding") {
+        @Override
+        public Cipher create() {
+            return new BaseGCMCipher(getIVSize(), getBlockSize(), getAlgorithm(), getTransformation());
+        }
+
+        @Override
+        public boolean isSupported() {
+            return isTransformationSupported(getTransformation(), getAlgorithm(), getBlockSize());
+        }
+    },
     arcfour128(Constants.ARCFOUR128, 8, 16, "ARCFOUR", "RC4") {
         @Override
         public Cipher create() {
@@ -68,6 +91,20 @@ public enum BuiltinCiphers implements CipherFactory {
         }
     },
     blowfishcbc(Constants.BLOWFISH_CBC, 8, 16, "Blowfish", "Blowfish/CBC/NoPadding"),
+    chacha20poly1305(Constants.CHACHA20_POLY1305, ChaCha20Cipher.BLOCK_SIZE, ChaCha20Cipher.KEY_SIZE, "ChaCha20", "ChaCha20-Poly1305") {
+        @Override
+        public Cipher create() {
+            return new ChaCha20Cipher();
+        }
+
+        /**
+         * @return Always {@code true} since the implementation does not rely on the JCE
+         */
+        @Override
+        public boolean isSupported() {
+            return true;
+        }
+    },
     tripledescbc(Constants.TRIPLE_DES_CBC, 8, 24, "DESede", "DESede/CBC/NoPadding");
 
     private final String factoryName;
@@ -110,6 +147,22 @@ public enum BuiltinCiphers implements CipherFactory {
         }
     }
 
+    /**
+     * @param transformation The JCE cipher transformation
+     * @param algorithm The JCE key algorithm
+     * @param keySize The key size (in bytes)
+     * @return {@code true} if the transformation is available and the
+     * key size is allowed by the current JCE policy
+     */
+    protected static boolean isTransformationSupported(String transformation, String algorithm, int keySize) {
+        try {
+            SecurityUtils.getCipher(transformation);
+            return javax.crypto.Cipher.getMaxAllowedKeyLength(algorithm) >= (keySize * Byte.SIZE);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
     /**
      * Retrieves the size of the initialization vector
      *
@@ -330,6 +383,9 @@ public enum BuiltinCiphers implements CipherFactory {
         public static final String AES192_CTR = "aes192-ctr";
         public static final String AES256_CBC = "aes256-cbc";
         public static final String AES256_CTR = "aes256-ctr";
+        public static final String AES128_GCM = "aes128-gcm@openssh.com";
+        public static final String AES256_GCM = "aes256-gcm@openssh.com";
+        public static final String CHACHA20_POLY1305 = "chacha20-poly1305@openssh.com";
         public static final String ARCFOUR128 = "arcfour128";
         public static final String ARCFOUR256 = "arcfour256";
         public static final String BLOWFISH_CBC = "blowfish-cbc";
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.cipher;
+
+import java.security.InvalidKeyException;
+
+import org.apache.sshd.common.SshConstants;
+import org.apache.sshd.common.SshException;
+import org.apache.sshd.common.mac.Poly1305Mac;
+import org.apache.sshd.common.util.buffer.BufferUtils;
+
+/**
+ * The {@code chacha20-poly1305@openssh.com} cipher as described in
+ * <A HREF="http://cvsweb.openbsd.org/cgi-bin/cvsweb/src/usr.bin/ssh/PROTOCOL.chacha20poly1305">PROTOCOL.chacha20poly1305</A>.
+ * The 64 bytes key is split into a main key (first 32 bytes) used for the
+ * packet payload and the Poly1305 key derivation, and a header key (last 32
+ * bytes) used only to encrypt the packet length. The packet sequence number
+ * serves as the nonce for both.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class ChaCha20Cipher implements AuthenticatedCipher {
+
+    public static final int KEY_SIZE = 64;
+    public static final int BLOCK_SIZE = 8;
+    public static final int TAG_SIZE = 16;
+
+    protected final ChaChaEngine headerEngine = new ChaChaEngine();
+    protected final ChaChaEngine mainEngine = new ChaChaEngine();
+    protected final Poly1305Mac mac = new Poly1305Mac();
+    protected final byte[] polyKey = new byte[ChaChaEngine.BLOCK_SIZE];
+    protected final byte[] lengthBytes = new byte[4];
+    protected final byte[] tag = new byte[TAG_SIZE];
+    protected Mode mode;
+
+    public ChaCha20Cipher() {
+        super();
+    }
+
+    @Override
+    public int getIVSize() {
+        return BLOCK_SIZE;
+    }
+
+    @Override
+    public int getBlockSize() {
+        return BLOCK_SIZE;
+    }
+
+    @Override
+    public int getKeySize() {
+        return KEY_SIZE;
+    }
+
+    @Override
+    public int getAuthenticationTagSize() {
+        return TAG_SIZE;
+    }
+
+    @Override
+    public void init(Mode mode, byte[] key, byte[] iv) throws Exception {
+        if ((key == null) || (key.length < KEY_SIZE)) {
+            throw new InvalidKeyException("Key must be at least " + KEY_SIZE + " bytes long");
+        }
+        this.mode = mode;
+        mainEngine.setKey(key, 0);
+        headerEngine.setKey(key, KEY_SIZE / 2);
+    }
+
+    @Override
+    public void update(byte[] input, int inputOffset, int inputLen) throws Exception {
+        throw new UnsupportedOperationException("Packets must be processed via updatePacket for " + this);
+    }
+
+    @Override
+    public int getPacketLength(byte[] input, int offset, long seqNum) throws Exception {
+        System.arraycopy(input, offset, lengthBytes, 0, lengthBytes.length);
+        headerEngine.setNonce(seqNum, 0L);
+        headerEngine.crypt(lengthBytes, 0, lengthBytes.length);
+        return BufferUtils.getInt(lengthBytes, 0);
+    }
+
+    @Override
+    public void updatePacket(byte[] input, int offset, int packetLength, long seqNum) throws Exception {
+        // the Poly1305 key is the first 32 bytes of the main key stream block #0
+        mainEngine.setNonce(seqNum, 0L);
+        for (int i = 0; i < polyKey.length; i++) {
+            polyKey[i] = 0;
+        }
+        mainEngine.crypt(polyKey, 0, polyKey.length);
+        mac.init(polyKey);
+
+        int tagOffset = offset + 4 + packetLength;
+        if (mode == Mode.Encrypt) {
+            headerEngine.setNonce(seqNum, 0L);
+            headerEngine.crypt(input, offset, 4);
+            mainEngine.setNonce(seqNum, 1L);
+            mainEngine.crypt(input, offset + 4, packetLength);
+            mac.update(input, offset, 4 + packetLength);
+            mac.doFinal(input, tagOffset);
+        } else {
+            mac.update(input, offset, 4 + packetLength);
+            mac.doFinal(tag, 0);
+            if (!BufferUtils.equals(tag, 0, input, tagOffset, TAG_SIZE)) {
+                throw new SshException(SshConstants.SSH2_DISCONNECT_MAC_ERROR, "MAC Error");
+            }
+            headerEngine.setNonce(seqNum, 0L);
+            headerEngine.crypt(input, offset, 4);
+            mainEngine.setNonce(seqNum, 1L);
+            mainEngine.crypt(input, offset + 4, packetLength);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + mode + "]";
+    }
+
+    /**
+     * The original (64-bit nonce, 64-bit counter) ChaCha20 stream cipher
+     * as defined by D. J. Bernstein - which is the variant used by OpenSSH
+     */
+    public static class ChaChaEngine {
+        public static final int BLOCK_SIZE = 64;
+
+        // "expand 32-byte k"
+        private static final int[] SIGMA = { 0x61707865, 0x3320646e, 0x79622d32, 0x6b206574 };
+
+        private final int[] state = new int[16];
+        private final int[] x = new int[16];
+        private final byte[] keyStream = new byte[BLOCK_SIZE];
+
+        public ChaChaEngine() {
+            System.arraycopy(SIGMA, 0, state, 0, SIGMA.length);
+        }
+
+        /**
+         * @param key The key data
+         * @param offset Offset of the 32 bytes key in the data
+         */
+        public void setKey(byte[] key, int offset) {
+            for (int i = 0; i < 8; i++) {
+                state[4 + i] = unpackIntLE(key, offset + 4 * i);
+            }
+        }
+
+        /**
+         * @param nonce The 64-bit nonce - encoded as a <U>big-endian</U> value
+         * (which is how OpenSSH encodes the packet sequence number)
+         * @param counter The initial block counter
+         */
+        public void setNonce(long nonce, long counter) {
+            state[12] = (int) counter;
+            state[13] = (int) (counter >>> 32);
+            state[14] = Integer.reverseBytes((int) (nonce >>> 32));
+            state[15] = Integer.reverseBytes((int) nonce);
+        }
+
+        /**
+         * XOR-s the data in-place with the key stream, starting at the current
+         * block counter - which is incremented for each consumed block
+         *
+         * @param data The data buffer
+         * @param offset Offset of the data to process
+         * @param length Number of bytes to process
+         */
+        public void crypt(byte[] data, int offset, int length) {
+            while (length > 0) {
+                generateKeyStream();
+                int n = Math.min(length, BLOCK_SIZE);
+                for (int i = 0; i < n; i++) {
+                    data[offset + i] ^= keyStream[i];
+                }
+                offset += n;
+                length -= n;
+                if (++state[12] == 0) {
+                    state[13]++;
+                }
+            }
+        }
+
+        private void generateKeyStream() {
+            System.arraycopy(state, 0, x, 0, state.length);
+            for (int i = 0; i < 10; i++) {
+                quarterRound(x, 0, 4, 8, 12);
+                quarterRound(x, 1, 5, 9, 13);
+                quarterRound(x, 2, 6, 10, 14);
+                quarterRound(x, 3, 7, 11, 15);
+                quarterRound(x, 0, 5, 10, 15);
+                quarterRound(x, 1, 6, 11, 12);
+                quarterRound(x, 2, 7, 8, 13);
+                quarterRound(x, 3, 4, 9, 14);
+            }
+            for (int i = 0; i < x.length; i++) {
+                int v = x[i] + state[i];
+                keyStream[4 * i] = (byte) v;
+                keyStream[4 * i + 1] = (byte) (v >>> 8);
+                keyStream[4 * i + 2] = (byte) (v >>> 16);
+                keyStream[4 * i + 3] = (byte) (v >>> 24);
+            }
+        }
+
+        private static void quarterRound(int[] x, int a, int b, int c, int d) {
+            x[a] += x[b];
+            x[d] = Integer.rotateLeft(x[d] ^ x[a], 16);
+            x[c] += x[d];
+            x[b] = Integer.rotateLeft(x[b] ^ x[c], 12);
+            x[a] += x[b];
+            x[d] = Integer.rotateLeft(x[d] ^ x[a], 8);
+            x[c] += x[d];
+            x[b] = Integer.rotateLeft(x[b] ^ x[c], 7);
+        }
+
+        private static int unpackIntLE(byte[] buf, int off) {
+            return (buf[off] & 0xff)
+                 | ((buf[off + 1] & 0xff) << 8)
+                 | ((buf[off + 2] & 0xff) << 16)
+                 | ((buf[off + 3] & 0xff) << 24);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.cipher;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic in the prime field GF(2<sup>255</sup>-19) shared by the
+ * {@link X25519} key agreement and the {@link Ed25519} signature scheme.
+ * Elements are held as 10 {@code long} limbs of alternating 26 and 25 bits
+ * (radix 2<sup>25.5</sup>). Every operation leaves its result carried so that
+ * each limb is non-negative and (almost) within its bit width - which keeps
+ * all the intermediate products well inside 64 bits. The operations do not
+ * branch on the element values, and {@link #freeze(long[])} reduces to the
+ * canonical representation in constant time.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public final class Curve25519Field {
+    public static final int LIMBS = 10;
+    public static final int ENCODED_SIZE = 32;
+
+    public static final BigInteger P = BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19L));
+
+    private static final int[] BITS = { 26, 25, 26, 25, 26, 25, 26, 25, 26, 25 };
+    private static final int[] OFFSETS = { 0, 26, 51, 77, 102, 128, 153, 179, 204, 230 };
+    private static final long MASK26 = (1L << 26) - 1L;
+    private static final long MASK25 = (1L << 25) - 1L;
+    // 2 * P in limb form - added before subtracting so that no limb goes negative
+    private static final long[] TWO_P = {
+        2L * (MASK26 - 18L), 2L * MASK25, 2L * MASK26, 2L * MASK25, 2L * MASK26,
+        2L * MASK25, 2L * MASK26, 2L * MASK25, 2L * MASK26, 2L * MASK25
+    };
+
+    private Curve25519Field() {
+        throw new UnsupportedOperationException("No instance");
+    }
+
+    public static long[] create() {
+        return new long[LIMBS];
+    }
+
+    public static long[] create(long value) {
+        long[] h = create();
+        h[0] = value;
+        carry(h);
+        return h;
+    }
+
+    public static long[] copy(long[] f) {
+        return f.clone();
+    }
+
+    public static void copy(long[] h, long[] f) {
+        System.arraycopy(f, 0, h, 0, LIMBS);
+    }
+
+    /**
+     * @param s The little-endian encoded value - the most significant bit
+     * of the 32nd byte is ignored
+     * @return The matching field element
+     */
+    public static long[] decode(byte[] s) {
+        return decode(s, 0);
+    }
+
+    public static long[] decode(byte[] s, int offset) {
+        long[] h = create();
+        for (int i = 0; i < LIMBS; i++) {
+            int bitOffset = OFFSETS[i];
+            int byteOffset = offset + (bitOffset >> 3);
+            long v = 0L;
+            // each limb spans at most 5 bytes
+            for (int j = 0, n = Math.min(5, offset + ENCODED_SIZE - byteOffset); j < n; j++) {
+                v |= (s[byteOffset + j] & 0xFFL) << (j << 3);
+            }
+            h[i] = (v >>> (bitOffset & 0x07)) & ((1L << BITS[i]) - 1L);
+        }
+        return h;
+    }
+
+    public static long[] fromBigInteger(BigInteger v) {
+        byte[] be = v.mod(P).toByteArray();
+        byte[] le = new byte[ENCODED_SIZE];
+        for (int i = 0, j = be.length - 1; (i < ENCODED_SIZE) && (j >= 0); i++, j--) {
+            le[i] = be[j];
+        }
+        return decode(le);
+    }
+
+    /**
+     * @param f The field element
+     * @return The canonical 32 bytes little-endian encoding of the element
+     */
+    public static byte[] encode(long[] f) {
+        byte[] s = new byte[ENCODED_SIZE];
+        encode(f, s, 0);
+        return s;
+    }
+
+    public static void encode(long[] f, byte[] s, int offset) {
+        long[] h = copy(f);
+        freeze(h);
+        for (int i = 0; i < ENCODED_SIZE; i++) {
+            s[offset + i] = 0;
+        }
+
+        for (int i = 0; i < LIMBS; i++) {
+            int bitOffset = OFFSETS[i];
+            int byteOffset = bitOffset >> 3;
+            long v = h[i] << (bitOffset & 0x07);
+            for (int j = 0; (j < 5) && (byteOffset + j < ENCODED_SIZE); j++) {
+                s[offset + byteOffset + j] |= (byte) (v >>> (j << 3));
+            }
+        }
+    }
+
+    /**
+     * Reduces the element to its unique representative in [0, P)
+     *
+     * @param h The element - replaced by its canonical form
+     */
+    public static void freeze(long[] h) {
+        carry(h);
+        carry(h);
+        carry(h);
+
+        // h is now below 2^255 - subtract P if h + 19 overflows 2^255
+        long[] t = copy(h);
+        t[0] += 19L;
+        for (int i = 0; i < LIMBS - 1; i++) {
+            long c = t[i] >> BITS[i];
+            t[i] -= c << BITS[i];
+            t[i + 1] += c;
+        }
+        long c = t[LIMBS - 1] >> 25;
+        t[LIMBS - 1] &= MASK25;
+        cmov(h, t, (int) c);
+    }
+
+    public static void carry(long[] h) {
+        for (int i = 0; i < LIMBS - 1; i++) {
+            long c = h[i] >> BITS[i];
+            h[i] -= c << BITS[i];
+            h[i + 1] += c;
+        }
+
+        long c = h[LIMBS - 1] >> 25;
+        h[LIMBS - 1] -= c << 25;
+        h[0] += 19L * c;
+
+        c = h[0] >> 26;
+        h[0] -= c << 26;
+        h[1] += c;
+    }
+
+    public static void add(long[] h, long[] f, long[] g) {
+        for (int i = 0; i < LIMBS; i++) {
+            h[i] = f[i] + g[i];
+        }
+        carry(h);
+    }
+
+    public static void sub(long[] h, long[] f, long[] g) {
+        for (int i = 0; i < LIMBS; i++) {
+            h[i] = f[i] + TWO_P[i] - g[i];
+        }
+        carry(h);
+    }
+
+    public static void neg(long[] h, long[] f) {
+        for (int i = 0; i < LIMBS; i++) {
+            h[i] = TWO_P[i] - f[i];
+        }
+        carry(h);
+    }
+
+    public static void mul(long[] h, long[] f, long[] g) {
+        long f0 = f[0], f1 = f[1], f2 = f[2], f3 = f[3], f4 = f[4], f5 = f[5], f6 = f[6], f7 = f[7], f8 = f[8], f9 = f[9];
+        long g0 = g[0], g1 = g[1], g2 = g[2], g3 = g[3], g4 = g[4], g5 = g[5], g6 = g[6], g7 = g[7], g8 = g[8], g9 = g[9];
+        // odd limbs are "short" (25 bits) - the product of two of them needs an extra bit
+        long f1x2 = 2L * f1, f3x2 = 2L * f3, f5x2 = 2L * f5, f7x2 = 2L * f7, f9x2 = 2L * f9;
+        // 2^255 = 19 (mod P) for the terms that wrap around
+        long g1x19 = 19L * g1, g2x19 = 19L * g2, g3x19 = 19L * g3, g4x19 = 19L * g4, g5x19 = 19L * g5,
+             g6x19 = 19L * g6, g7x19 = 19L * g7, g8x19 = 19L * g8, g9x19 = 19L * g9;
+
+        h[0] = f0 * g0 + f1x2 * g9x19 + f2 * g8x19 + f3x2 * g7x19 + f4 * g6x19 + f5x2 * g5x19 + f6 * g4x19 +
+               f7x2 * g3x19 + f8 * g2x19 + f9x2 * g1x19;
+        h[1] = f0 * g1 + f1 * g0 + f2 * g9x19 + f3 * g8x19 + f4 * g7x19 + f5 * g6x19 + f6 * g5x19 + f7 * g4x19 +
+               f8 * g3x19 + f9 * g2x19;
+        h[2] = f0 * g2 + f1x2 * g1 + f2 * g0 + f3x2 * g9x19 + f4 * g8x19 + f5x2 * g7x19 + f6 * g6x19 + f7x2 * g5x19 +
+               f8 * g4x19 + f9x2 * g3x19;
+        h[3] = f0 * g3 + f1 * g2 + f2 * g1 + f3 * g0 + f4 * g9x19 + f5 * g8x19 + f6 * g7x19 + f7 * g6x19 + f8 * g5x19 +
+               f9 * g4x19;
+        h[4] = f0 * g4 + f1x2 * g3 + f2 * g2 + f3x2 * g1 + f4 * g0 + f5x2 * g9x19 + f6 * g8x19 + f7x2 * g7x19 +
+               f8 * g6x19 + f9x2 * g5x19;
+        h[5] = f0 * g5 + f1 * g4 + f2 * g3 + f3 * g2 + f4 * g1 + f5 * g0 + f6 * g9x19 + f7 * g8x19 + f8 * g7x19 +
+               f9 * g6x19;
+        h[6] = f0 * g6 + f1x2 * g5 + f2 * g4 + f3x2 * g3 + f4 * g2 + f5x2 * g1 + f6 * g0 + f7x2 * g9x19 + f8 * g8x19 +
+               f9x2 * g7x19;
+        h[7] = f0 * g7 + f1 * g6 + f2 * g5 + f3 * g4 + f4 * g3 + f5 * g2 + f6 * g1 + f7 * g0 + f8 * g9x19 + f9 * g8x19;
+        h[8] = f0 * g8 + f1x2 * g7 + f2 * g6 + f3x2 * g5 + f4 * g4 + f5x2 * g3 + f6 * g2 + f7x2 * g1 + f8 * g0 +
+               f9x2 * g9x19;
+        h[9] = f0 * g9 + f1 * g8 + f2 * g7 + f3 * g6 + f4 * g5 + f5 * g4 + f6 * g3 + f7 * g2 + f8 * g1 + f9 * g0;
+        carry(h);
+    }
+
+    public static void mul(long[] h, long[] f, int n) {
+        for (int i = 0; i < LIMBS; i++) {
+            h[i] = f[i] * n;
+        }
+        carry(h);
+    }
+
+    public static void square(long[] h, long[] f) {
+        mul(h, f, f);
+    }
+
+    public static void square(long[] h, long[] f, int times) {
+        square(h, f);
+        for (int i = 1; i < times; i++) {
+            square(h, h);
+        }
+    }
+
+    /**
+     * @param out The element to receive z<sup>-1</sup> = z<sup>P-2</sup>
+     * @param z The element to invert - zero is mapped to zero
+     */
+    public static void invert(long[] out, long[] z) {
+        long[] t0 = create();
+        long[] t1 = create();
+        long[] z11 = create();
+
+        pow2250(t0, z11, z);
+        square(t1, t0, 5);
+        mul(out, t1, z11);   // 2^255 - 21
+    }
+
+    /**
+     * @param out The element to receive z<sup>(P-5)/8</sup> - used for square roots
+     * @param z The input element
+     */
+    public static void pow22523(long[] out, long[] z) {
+        long[] t0 = create();
+        long[] t1 = create();
+        long[] z11 = create();
+
+        pow2250(t0, z11, z);
+        square(t1, t0, 2);
+        mul(out, t1, z);    // 2^252 - 3
+    }
+
+    // out = z^(2^250 - 1), z11 = z^11
+    private static void pow2250(long[] out, long[] z11, long[] z) {
+        long[] t0 = create();
+        long[] t1 = create();
+        long[] t2 = create();
+        long[] t3 = create();
+
+        square(t0, z);          // 2
+        square(t1, t0, 2);      // 8
+        mul(t1, z, t1);         // 9
+        mul(z11, t0, t1);       // 11
+        square(t2, z11);        // 22
+        mul(t1, t1, t2);        // 2^5 - 1
+        square(t2, t1, 5);
+        mul(t1, t2, t1);        // 2^10 - 1
+        square(t2, t1, 10);
+        mul(t2, t2, t1);        // 2^20 - 1
+        square(t3, t2, 20);
+        mul(t2, t3, t2);        // 2^40 - 1
+        square(t2, t2, 10);
+        mul(t1, t2, t1);        // 2^50 - 1
+        square(t2, t1, 50);
+        mul(t2, t2, t1);        // 2^100 - 1
+        square(t3, t2, 100);
+        mul(t2, t3, t2);        // 2^200 - 1
+        square(t2, t2, 50);
+        mul(out, t2, t1);       // 2^250 - 1
+    }
+
+    /**
+     * Replaces {@code h} with {@code f} if {@code b} is 1 and leaves it
+     * unchanged if it is 0 - without branching on the value of {@code b}
+     *
+     * @param h The element to be (conditionally) replaced
+     * @param f The replacement
+     * @param b The selector - must be 0 or 1
+     */
+    public static void cmov(long[] h, long[] f, int b) {
+        long mask = -b;
+        for (int i = 0; i < LIMBS; i++) {
+            h[i] ^= (h[i] ^ f[i]) & mask;
+        }
+    }
+
+    /**
+     * Exchanges the values of {@code f} and {@code g} if {@code b} is 1 -
+     * without branching on the value of {@code b}
+     *
+     * @param f First element
+     * @param g Second element
+     * @param b The selector - must be 0 or 1
+     */
+    public static void cswap(long[] f, long[] g, int b) {
+        long mask = -b;
+        for (int i = 0; i < LIMBS; i++) {
+            long x = (f[i] ^ g[i]) & mask;
+            f[i] ^= x;
+            g[i] ^= x;
+        }
+    }
+
+    public static boolean isZero(long[] f) {
+        byte[] s = encode(f);
+        int acc = 0;
+        for (byte b : s) {
+            acc |= b;
+        }
+        return acc == 0;
+    }
+
+    /**
+     * @param f The element
+     * @return {@code true} if the canonical encoding is odd
+     */
+    public static boolean isNegative(long[] f) {
+        return (encode(f)[0] & 0x01) != 0;
+    }
+}
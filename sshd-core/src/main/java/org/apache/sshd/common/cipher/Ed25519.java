@@ -0,0 +1,561 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.cipher;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.SignatureException;
+import java.util.Arrays;
+
+import org.apache.sshd.common.util.SecurityUtils;
+
+/**
+ * The Ed25519 signature scheme (PureEdDSA over edwards25519) as specified in
+ * <A HREF="https://tools.ietf.org/html/rfc8032">RFC 8032</A>. Points are
+ * kept in extended homogeneous coordinates. Multiplications of the base point
+ * by a secret scalar use a pre-computed table of its radix-16 multiples which
+ * is scanned in constant time - the table is built on first use.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public final class Ed25519 {
+    public static final int KEY_SIZE = Curve25519Field.ENCODED_SIZE;
+    public static final int SIGNATURE_SIZE = 2 * KEY_SIZE;
+    public static final String DIGEST_ALGORITHM = "SHA-512";
+
+    /**
+     * The order of the base point subgroup
+     */
+    public static final BigInteger L =
+            BigInteger.ONE.shiftLeft(252).add(new BigInteger("27742317777372353535851937790883648493"));
+
+    private static final long[] D;
+    private static final long[] D2;
+    private static final long[] SQRT_M1;
+    private static final Point BASE;
+
+    static {
+        BigInteger p = Curve25519Field.P;
+        BigInteger d = BigInteger.valueOf(-121665L).multiply(BigInteger.valueOf(121666L).modInverse(p)).mod(p);
+        D = Curve25519Field.fromBigInteger(d);
+        D2 = Curve25519Field.fromBigInteger(d.shiftLeft(1));
+        SQRT_M1 = Curve25519Field.fromBigInteger(BigInteger.valueOf(2L).modPow(p.subtract(BigInteger.ONE).shiftRight(2), p));
+
+        // y = 4/5, x is the even root
+        BigInteger y = BigInteger.valueOf(4L).multiply(BigInteger.valueOf(5L).modInverse(p)).mod(p);
+        byte[] encoded = Curve25519Field.encode(Curve25519Field.fromBigInteger(y));
+        BASE = decodePoint(encoded);
+    }
+
+    private Ed25519() {
+        throw new UnsupportedOperationException("No instance");
+    }
+
+    /**
+     * @param seed The 32 bytes private key seed
+     * @return The 32 bytes encoded public key
+     * @throws GeneralSecurityException If bad seed or no SHA-512 digest available
+     */
+    public static byte[] publicKey(byte[] seed) throws GeneralSecurityException {
+        byte[] h = expandSeed(seed);
+        return encodePoint(scalarMultBase(clampScalar(h)));
+    }
+
+    /**
+     * @param seed The 32 bytes private key seed
+     * @param publicKey The matching 32 bytes encoded public key
+     * @param msg The message buffer
+     * @param off Offset of the message data in the buffer
+     * @param len Length of the message data
+     * @return The 64 bytes signature
+     * @throws GeneralSecurityException If bad key(s) or no SHA-512 digest available
+     */
+    public static byte[] sign(byte[] seed, byte[] publicKey, byte[] msg, int off, int len) throws GeneralSecurityException {
+        if ((publicKey == null) || (publicKey.length != KEY_SIZE)) {
+            throw new InvalidKeyException("Bad public key size - expected " + KEY_SIZE);
+        }
+
+        // the secret scalar and nonce are only handled by the constant time scalar operations
+        byte[] h = expandSeed(seed);
+        byte[] a = clampScalar(h);
+
+        MessageDigest md = SecurityUtils.getMessageDigest(DIGEST_ALGORITHM);
+        md.update(h, KEY_SIZE, KEY_SIZE);
+        md.update(msg, off, len);
+        byte[] r = reduceScalar(md.digest());
+        byte[] encR = encodePoint(scalarMultBase(r));
+
+        md.update(encR);
+        md.update(publicKey);
+        md.update(msg, off, len);
+        byte[] k = reduceScalar(md.digest());
+        byte[] s = mulAddScalar(k, a, r);
+
+        byte[] sig = new byte[SIGNATURE_SIZE];
+        System.arraycopy(encR, 0, sig, 0, KEY_SIZE);
+        System.arraycopy(s, 0, sig, KEY_SIZE, KEY_SIZE);
+        return sig;
+    }
+
+    /**
+     * @param publicKey The 32 bytes encoded public key
+     * @param msg The message buffer
+     * @param off Offset of the message data in the buffer
+     * @param len Length of the message data
+     * @param sig The 64 bytes signature
+     * @return {@code true} if the signature is valid
+     * @throws GeneralSecurityException If bad signature format or no SHA-512 digest available
+     */
+    public static boolean verify(byte[] publicKey, byte[] msg, int off, int len, byte[] sig) throws GeneralSecurityException {
+        if ((sig == null) || (sig.length != SIGNATURE_SIZE)) {
+            throw new SignatureException("Bad signature size - expected " + SIGNATURE_SIZE);
+        }
+        if ((publicKey == null) || (publicKey.length != KEY_SIZE)) {
+            return false;
+        }
+
+        Point a = decodePoint(publicKey);
+        if (a == null) {
+            return false;
+        }
+
+        byte[] encS = Arrays.copyOfRange(sig, KEY_SIZE, SIGNATURE_SIZE);
+        BigInteger s = toBigInteger(encS);
+        if (s.compareTo(L) >= 0) {
+            return false;   // reject malleable signatures
+        }
+
+        MessageDigest md = SecurityUtils.getMessageDigest(DIGEST_ALGORITHM);
+        md.update(sig, 0, KEY_SIZE);
+        md.update(publicKey);
+        md.update(msg, off, len);
+        BigInteger k = toBigInteger(md.digest()).mod(L);
+
+        // check [S]B - [k]A == R
+        Point negA = new Point();
+        Curve25519Field.neg(negA.x, a.x);
+        Curve25519Field.copy(negA.y, a.y);
+        Curve25519Field.copy(negA.z, a.z);
+        Curve25519Field.neg(negA.t, a.t);
+
+        Point r = scalarMultBase(encS);
+        add(r, r, scalarMult(negA, toBytes(k)));
+
+        byte[] encR = encodePoint(r);
+        int diff = 0;
+        for (int i = 0; i < KEY_SIZE; i++) {
+            diff |= encR[i] ^ sig[i];
+        }
+        return diff == 0;
+    }
+
+    private static byte[] expandSeed(byte[] seed) throws GeneralSecurityException {
+        if ((seed == null) || (seed.length != KEY_SIZE)) {
+            throw new InvalidKeyException("Bad seed size - expected " + KEY_SIZE);
+        }
+
+        MessageDigest md = SecurityUtils.getMessageDigest(DIGEST_ALGORITHM);
+        return md.digest(seed);
+    }
+
+    private static byte[] clampScalar(byte[] h) {
+        byte[] a = Arrays.copyOf(h, KEY_SIZE);
+        a[0] &= (byte) 0xF8;
+        a[31] &= (byte) 0x7F;
+        a[31] |= (byte) 0x40;
+        return a;
+    }
+
+    /*
+     * Scalars modulo L are handled as signed 21-bit limbs in the style of the
+     * "ref10" sc_reduce / sc_muladd - fixed-width arithmetic whose sequence of
+     * operations does not depend on the values, unlike BigInteger
+     */
+    private static final int SCALAR_LIMB_BITS = 21;
+    private static final long SCALAR_LIMB_MASK = (1L << SCALAR_LIMB_BITS) - 1L;
+    private static final int SCALAR_LIMBS = 12;
+    // 2^252 - L = 27742317777372353535851937790883648493 in 21-bit limbs, negated
+    private static final long[] SCALAR_FOLD = { 666643L, 470296L, 654183L, -997805L, 136657L, -683901L };
+
+    /**
+     * @param s A 64 bytes little-endian value
+     * @return The 32 bytes little-endian value of {@code s mod L}
+     */
+    static byte[] reduceScalar(byte[] s) {
+        long[] v = loadScalarLimbs(s, 2 * SCALAR_LIMBS);
+        foldScalarLimbs(v, 23, 18);
+        carryScalarLimbs(v, 6, 16);
+        carryScalarLimbs(v, 7, 15);
+        foldScalarLimbs(v, 17, 12);
+        return finishScalar(v);
+    }
+
+    /**
+     * @param a A 32 bytes little-endian value
+     * @param b A 32 bytes little-endian value
+     * @param c A 32 bytes little-endian value
+     * @return The 32 bytes little-endian value of {@code (a * b + c) mod L}
+     */
+    static byte[] mulAddScalar(byte[] a, byte[] b, byte[] c) {
+        long[] al = loadScalarLimbs(a, SCALAR_LIMBS);
+        long[] bl = loadScalarLimbs(b, SCALAR_LIMBS);
+        long[] cl = loadScalarLimbs(c, SCALAR_LIMBS);
+        long[] v = new long[2 * SCALAR_LIMBS];
+        System.arraycopy(cl, 0, v, 0, SCALAR_LIMBS);
+        for (int i = 0; i < SCALAR_LIMBS; i++) {
+            for (int j = 0; j < SCALAR_LIMBS; j++) {
+                v[i + j] += al[i] * bl[j];
+            }
+        }
+
+        carryScalarLimbs(v, 0, 22);
+        carryScalarLimbs(v, 1, 21);
+        foldScalarLimbs(v, 23, 18);
+        carryScalarLimbs(v, 6, 16);
+        carryScalarLimbs(v, 7, 15);
+        foldScalarLimbs(v, 17, 12);
+        return finishScalar(v);
+    }
+
+    // the common tail of the reduction once only 18 limbs remain
+    private static byte[] finishScalar(long[] v) {
+        carryScalarLimbs(v, 0, 10);
+        carryScalarLimbs(v, 1, 11);
+        foldScalarLimbs(v, 12, 12);
+        propagateScalarLimbs(v, 11);
+        foldScalarLimbs(v, 12, 12);
+        propagateScalarLimbs(v, 10);
+        return storeScalarLimbs(v);
+    }
+
+    // little-endian value into 21-bit limbs - the last limb takes all the remaining bits
+    private static long[] loadScalarLimbs(byte[] data, int numLimbs) {
+        long[] v = new long[numLimbs];
+        long acc = 0L;
+        int bits = 0;
+        int pos = 0;
+        for (int i = 0; i < numLimbs; i++) {
+            int required = (i < (numLimbs - 1)) ? SCALAR_LIMB_BITS : Integer.MAX_VALUE;
+            while ((bits < required) && (pos < data.length)) {
+                acc |= (data[pos++] & 0xFFL) << bits;
+                bits += Byte.SIZE;
+            }
+
+            if (i < (numLimbs - 1)) {
+                v[i] = acc & SCALAR_LIMB_MASK;
+                acc >>>= SCALAR_LIMB_BITS;
+                bits -= SCALAR_LIMB_BITS;
+            } else {
+                v[i] = acc;
+            }
+        }
+        return v;
+    }
+
+    // replaces limbs from..to (descending) by their value times 2^252 mod L
+    private static void foldScalarLimbs(long[] v, int from, int to) {
+        for (int i = from; i >= to; i--) {
+            for (int j = 0; j < SCALAR_FOLD.length; j++) {
+                v[i - 12 + j] += v[i] * SCALAR_FOLD[j];
+            }
+            v[i] = 0L;
+        }
+    }
+
+    // rounded carry of every other limb in from..to into its successor
+    private static void carryScalarLimbs(long[] v, int from, int to) {
+        for (int i = from; i <= to; i += 2) {
+            long carry = (v[i] + (1L << (SCALAR_LIMB_BITS - 1))) >> SCALAR_LIMB_BITS;
+            v[i + 1] += carry;
+            v[i] -= carry << SCALAR_LIMB_BITS;
+        }
+    }
+
+    // floor carry of limbs 0..to into their successor
+    private static void propagateScalarLimbs(long[] v, int to) {
+        for (int i = 0; i <= to; i++) {
+            long carry = v[i] >> SCALAR_LIMB_BITS;
+            v[i + 1] += carry;
+            v[i] -= carry << SCALAR_LIMB_BITS;
+        }
+    }
+
+    // the 12 low limbs - all within [0, 2^21) - as 32 little-endian bytes
+    private static byte[] storeScalarLimbs(long[] v) {
+        byte[] out = new byte[KEY_SIZE];
+        long acc = 0L;
+        int bits = 0;
+        int pos = 0;
+        for (int i = 0; i < SCALAR_LIMBS; i++) {
+            acc |= v[i] << bits;
+            bits += SCALAR_LIMB_BITS;
+            while (bits >= Byte.SIZE) {
+                out[pos++] = (byte) acc;
+                acc >>>= Byte.SIZE;
+                bits -= Byte.SIZE;
+            }
+        }
+        out[pos] = (byte) acc;
+        return out;
+    }
+
+    // little-endian unsigned
+    private static BigInteger toBigInteger(byte[] le) {
+        byte[] be = new byte[le.length];
+        for (int i = 0; i < le.length; i++) {
+            be[i] = le[le.length - 1 - i];
+        }
+        return new BigInteger(1, be);
+    }
+
+    // little-endian 32 bytes - value assumed to be below 2^256
+    private static byte[] toBytes(BigInteger v) {
+        byte[] be = v.toByteArray();
+        byte[] le = new byte[KEY_SIZE];
+        for (int i = 0, j = be.length - 1; (i < KEY_SIZE) && (j >= 0); i++, j--) {
+            le[i] = be[j];
+        }
+        return le;
+    }
+
+    /**
+     * A point in extended homogeneous coordinates - (X:Y:Z:T) with
+     * x = X/Z, y = Y/Z and x * y = T/Z
+     */
+    private static final class Point {
+        final long[] x = Curve25519Field.create();
+        final long[] y = Curve25519Field.create(1L);
+        final long[] z = Curve25519Field.create(1L);
+        final long[] t = Curve25519Field.create();
+
+        // creates the neutral element
+        Point() {
+            super();
+        }
+
+        Point(Point p) {
+            set(p);
+        }
+
+        void set(Point p) {
+            Curve25519Field.copy(x, p.x);
+            Curve25519Field.copy(y, p.y);
+            Curve25519Field.copy(z, p.z);
+            Curve25519Field.copy(t, p.t);
+        }
+
+        void cmov(Point p, int b) {
+            Curve25519Field.cmov(x, p.x, b);
+            Curve25519Field.cmov(y, p.y, b);
+            Curve25519Field.cmov(z, p.z, b);
+            Curve25519Field.cmov(t, p.t, b);
+        }
+    }
+
+    // r = p + q - r may be the same instance as p and/or q
+    private static void add(Point r, Point p, Point q) {
+        long[] a = Curve25519Field.create();
+        long[] b = Curve25519Field.create();
+        long[] c = Curve25519Field.create();
+        long[] d = Curve25519Field.create();
+        long[] e = Curve25519Field.create();
+
+        Curve25519Field.sub(a, p.y, p.x);
+        Curve25519Field.sub(e, q.y, q.x);
+        Curve25519Field.mul(a, a, e);
+        Curve25519Field.add(b, p.y, p.x);
+        Curve25519Field.add(e, q.y, q.x);
+        Curve25519Field.mul(b, b, e);
+        Curve25519Field.mul(c, p.t, D2);
+        Curve25519Field.mul(c, c, q.t);
+        Curve25519Field.mul(d, p.z, q.z);
+        Curve25519Field.add(d, d, d);
+
+        long[] f = Curve25519Field.create();
+        long[] g = Curve25519Field.create();
+        long[] h = Curve25519Field.create();
+        Curve25519Field.sub(e, b, a);
+        Curve25519Field.sub(f, d, c);
+        Curve25519Field.add(g, d, c);
+        Curve25519Field.add(h, b, a);
+
+        Curve25519Field.mul(r.x, e, f);
+        Curve25519Field.mul(r.y, g, h);
+        Curve25519Field.mul(r.t, e, h);
+        Curve25519Field.mul(r.z, f, g);
+    }
+
+    // r = 2 * p - r may be the same instance as p
+    private static void dbl(Point r, Point p) {
+        long[] a = Curve25519Field.create();
+        long[] b = Curve25519Field.create();
+        long[] c = Curve25519Field.create();
+        long[] e = Curve25519Field.create();
+        long[] f = Curve25519Field.create();
+        long[] g = Curve25519Field.create();
+        long[] h = Curve25519Field.create();
+
+        Curve25519Field.square(a, p.x);
+        Curve25519Field.square(b, p.y);
+        Curve25519Field.square(c, p.z);
+        Curve25519Field.add(c, c, c);
+        Curve25519Field.add(h, a, b);
+        Curve25519Field.add(e, p.x, p.y);
+        Curve25519Field.square(e, e);
+        Curve25519Field.sub(e, h, e);
+        Curve25519Field.sub(g, a, b);
+        Curve25519Field.add(f, c, g);
+
+        Curve25519Field.mul(r.x, e, f);
+        Curve25519Field.mul(r.y, g, h);
+        Curve25519Field.mul(r.t, e, h);
+        Curve25519Field.mul(r.z, f, g);
+    }
+
+    // variable time - used only with public values
+    private static Point scalarMult(Point p, byte[] k) {
+        Point q = new Point();
+        for (int i = (8 * k.length) - 1; i >= 0; i--) {
+            dbl(q, q);
+            if (((k[i >>> 3] >>> (i & 0x07)) & 0x01) != 0) {
+                add(q, q, p);
+            }
+        }
+        return q;
+    }
+
+    // constant time - k is a 32 bytes little-endian scalar
+    private static Point scalarMultBase(byte[] k) {
+        Point[][] table = BaseTableHolder.TABLE;
+        Point q = new Point();
+        Point s = new Point();
+        Point neutral = new Point();
+        for (int i = 0; i < table.length; i++) {
+            int nibble = (k[i >>> 1] >>> ((i & 0x01) << 2)) & 0x0F;
+            s.set(neutral);
+            Point[] row = table[i];
+            for (int j = 1; j < row.length; j++) {
+                s.cmov(row[j], (((j ^ nibble) - 1) >>> 31));
+            }
+            add(q, q, s);
+        }
+        return q;
+    }
+
+    private static byte[] encodePoint(Point p) {
+        long[] zi = Curve25519Field.create();
+        long[] x = Curve25519Field.create();
+        long[] y = Curve25519Field.create();
+        Curve25519Field.invert(zi, p.z);
+        Curve25519Field.mul(x, p.x, zi);
+        Curve25519Field.mul(y, p.y, zi);
+
+        byte[] s = Curve25519Field.encode(y);
+        if (Curve25519Field.isNegative(x)) {
+            s[KEY_SIZE - 1] |= (byte) 0x80;
+        }
+        return s;
+    }
+
+    // returns null if not a valid point encoding
+    private static Point decodePoint(byte[] s) {
+        int sign = (s[KEY_SIZE - 1] >>> 7) & 0x01;
+        long[] y = Curve25519Field.decode(s);
+        byte[] canonical = Curve25519Field.encode(y);
+        canonical[KEY_SIZE - 1] |= (byte) (sign << 7);
+        if (!Arrays.equals(canonical, s)) {
+            return null;    // y >= P
+        }
+
+        long[] one = Curve25519Field.create(1L);
+        long[] u = Curve25519Field.create();
+        long[] v = Curve25519Field.create();
+        Curve25519Field.square(u, y);
+        Curve25519Field.mul(v, u, D);
+        Curve25519Field.sub(u, u, one);     // u = y^2 - 1
+        Curve25519Field.add(v, v, one);     // v = d * y^2 + 1
+
+        // x = u * v^3 * (u * v^7)^((P - 5) / 8)
+        long[] v3 = Curve25519Field.create();
+        long[] x = Curve25519Field.create();
+        Curve25519Field.square(v3, v);
+        Curve25519Field.mul(v3, v3, v);
+        Curve25519Field.square(x, v3);
+        Curve25519Field.mul(x, x, v);
+        Curve25519Field.mul(x, x, u);
+        Curve25519Field.pow22523(x, x);
+        Curve25519Field.mul(x, x, v3);
+        Curve25519Field.mul(x, x, u);
+
+        long[] vx2 = Curve25519Field.create();
+        long[] check = Curve25519Field.create();
+        Curve25519Field.square(vx2, x);
+        Curve25519Field.mul(vx2, vx2, v);
+        Curve25519Field.sub(check, vx2, u);
+        if (!Curve25519Field.isZero(check)) {
+            Curve25519Field.add(check, vx2, u);
+            if (!Curve25519Field.isZero(check)) {
+                return null;    // no square root
+            }
+            Curve25519Field.mul(x, x, SQRT_M1);
+        }
+
+        boolean negative = Curve25519Field.isNegative(x);
+        if ((sign != 0) && Curve25519Field.isZero(x)) {
+            return null;
+        }
+        if (negative != (sign != 0)) {
+            Curve25519Field.neg(x, x);
+        }
+
+        Point p = new Point();
+        Curve25519Field.copy(p.x, x);
+        Curve25519Field.copy(p.y, y);
+        Curve25519Field.mul(p.t, x, y);
+        return p;
+    }
+
+    /**
+     * Lazily built table of j * 16<sup>i</sup> * B for i in [0, 64) and j in [0, 16)
+     */
+    private static final class BaseTableHolder {
+        static final Point[][] TABLE = buildTable();
+
+        private static Point[][] buildTable() {
+            Point[][] table = new Point[2 * KEY_SIZE][16];
+            Point pi = new Point(BASE);
+            for (int i = 0; i < table.length; i++) {
+                Point[] row = table[i];
+                row[0] = new Point();
+                for (int j = 1; j < row.length; j++) {
+                    Point p = new Point();
+                    add(p, row[j - 1], pi);
+                    row[j] = p;
+                }
+
+                for (int j = 0; j < 4; j++) {
+                    dbl(pi, pi);
+                }
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.cipher;
+
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+
+/**
+ * The X25519 Diffie-Hellman function over Curve25519 as specified in
+ * <A HREF="https://tools.ietf.org/html/rfc7748">RFC 7748</A>. The scalar
+ * multiplication uses the constant-time Montgomery ladder.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public final class X25519 {
+    public static final int KEY_SIZE = Curve25519Field.ENCODED_SIZE;
+
+    /**
+     * The u-coordinate of the base point
+     */
+    private static final byte[] BASE_POINT = new byte[KEY_SIZE];
+    // (A - 2) / 4 for Curve25519 (A = 486662)
+    private static final int A24 = 121665;
+
+    static {
+        BASE_POINT[0] = 9;
+    }
+
+    private X25519() {
+        throw new UnsupportedOperationException("No instance");
+    }
+
+    /**
+     * @param random The {@link SecureRandom} to use
+     * @return A new random private key
+     */
+    public static byte[] generatePrivateKey(SecureRandom random) {
+        byte[] k = new byte[KEY_SIZE];
+        random.nextBytes(k);
+        return k;
+    }
+
+    /**
+     * @param privateKey The 32 bytes private key
+     * @return The matching 32 bytes public value
+     * @throws InvalidKeyException If bad key size
+     */
+    public static byte[] publicKey(byte[] privateKey) throws InvalidKeyException {
+        return scalarMult(privateKey, BASE_POINT);
+    }
+
+    /**
+     * @param privateKey The 32 bytes local private key
+     * @param peerPublicKey The 32 bytes public value received from the peer
+     * @return The 32 bytes shared secret
+     * @throws InvalidKeyException If bad key sizes or the peer's value is of
+     * low order - i.e., the result is all zeroes
+     */
+    public static byte[] computeSharedSecret(byte[] privateKey, byte[] peerPublicKey) throws InvalidKeyException {
+        byte[] secret = scalarMult(privateKey, peerPublicKey);
+        int acc = 0;
+        for (byte b : secret) {
+            acc |= b;
+        }
+
+        if (acc == 0) {
+            throw new InvalidKeyException("Peer public value yields an all-zero shared secret");
+        }
+
+        return secret;
+    }
+
+    public static byte[] scalarMult(byte[] scalar, byte[] u) throws InvalidKeyException {
+        if ((scalar == null) || (scalar.length != KEY_SIZE)) {
+            throw new InvalidKeyException("Bad scalar size - expected " + KEY_SIZE);
+        }
+        if ((u == null) || (u.length != KEY_SIZE)) {
+            throw new InvalidKeyException("Bad u-coordinate size - expected " + KEY_SIZE);
+        }
+
+        byte[] k = scalar.clone();
+        k[0] &= (byte) 0xF8;
+        k[31] &= (byte) 0x7F;
+        k[31] |= (byte) 0x40;
+
+        long[] x1 = Curve25519Field.decode(u);
+        long[] x2 = Curve25519Field.create(1L);
+        long[] z2 = Curve25519Field.create();
+        long[] x3 = Curve25519Field.copy(x1);
+        long[] z3 = Curve25519Field.create(1L);
+        long[] a = Curve25519Field.create();
+        long[] aa = Curve25519Field.create();
+        long[] b = Curve25519Field.create();
+        long[] bb = Curve25519Field.create();
+        long[] e = Curve25519Field.create();
+        long[] c = Curve25519Field.create();
+        long[] d = Curve25519Field.create();
+        long[] da = Curve25519Field.create();
+        long[] cb = Curve25519Field.create();
+
+        int swap = 0;
+        for (int t = 254; t >= 0; t--) {
+            int kt = (k[t >>> 3] >>> (t & 0x07)) & 0x01;
+            swap ^= kt;
+            Curve25519Field.cswap(x2, x3, swap);
+            Curve25519Field.cswap(z2, z3, swap);
+            swap = kt;
+
+            Curve25519Field.add(a, x2, z2);
+            Curve25519Field.square(aa, a);
+            Curve25519Field.sub(b, x2, z2);
+            Curve25519Field.square(bb, b);
+            Curve25519Field.sub(e, aa, bb);
+            Curve25519Field.add(c, x3, z3);
+            Curve25519Field.sub(d, x3, z3);
+            Curve25519Field.mul(da, d, a);
+            Curve25519Field.mul(cb, c, b);
+
+            Curve25519Field.add(x3, da, cb);
+            Curve25519Field.square(x3, x3);
+            Curve25519Field.sub(z3, da, cb);
+            Curve25519Field.square(z3, z3);
+            Curve25519Field.mul(z3, z3, x1);
+            Curve25519Field.mul(x2, aa, bb);
+            Curve25519Field.mul(z2, e, A24);
+            Curve25519Field.add(z2, z2, aa);
+            Curve25519Field.mul(z2, z2, e);
+        }
+        Curve25519Field.cswap(x2, x3, swap);
+        Curve25519Field.cswap(z2, z3, swap);
+
+        Curve25519Field.invert(z2, z2);
+        Curve25519Field.mul(x2, x2, z2);
+        return Curve25519Field.encode(x2);
+    }
+}
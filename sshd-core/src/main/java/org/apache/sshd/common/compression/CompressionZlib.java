@@ -27,20 +27,69 @@ import org.apache.sshd.common.util.buffer.Buffer;
 
 /**
  * ZLib based Compression.
+ * <P>Data is deflated straight into the packet buffer (past its current
+ * end) and then moved down over the original payload, and inflated straight
+ * into the target buffer, so no intermediate chunk buffer is involved.</P>
+ *
+ * <P>When adaptive mode is enabled, payloads that compress poorly (e.g.,
+ * already compressed or encrypted data) switch the deflater to stored
+ * blocks for a while, so that the CPU is not wasted on them - the
+ * zlib stream remains valid, so the peer is not affected.</P>
  *
  * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
  */
 public class CompressionZlib implements Compression {
-    static private final int BUF_SIZE = 4096;
+    /**
+     * Payloads smaller than this are not used to assess the compression ratio
+     * since the fixed flush overhead dominates their output size
+     */
+    public static final int ADAPTIVE_MIN_SAMPLE_SIZE = 256;
+    /**
+     * A payload whose compressed size exceeds this percentage of the original
+     * size is considered to compress poorly
+     */
+    public static final int ADAPTIVE_POOR_RATIO_PERCENT = 90;
+    /**
+     * Number of packets sent as stored blocks after a poorly compressed payload,
+     * before compression is attempted again
+     */
+    public static final int ADAPTIVE_SKIP_PACKETS = 32;
 
-    private byte[] tmpbuf = new byte[BUF_SIZE];
+    private static final byte[] EMPTY_INPUT = new byte[0];
+    private static final int MIN_INFLATE_SPACE = 256;
+
+    private final int defaultLevel;
+    private final int strategy;
+    private final boolean adaptive;
     private Deflater compresser;
     private Inflater decompresser;
+    private int level;
+    private int currentLevel;
+    private int skipPackets;
 
     /**
      * Create a new instance of a ZLib base compression
      */
     public CompressionZlib() {
+        this(Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY, true);
+    }
+
+    /**
+     * @param level The compression level used if none is provided when the
+     * instance is {@link #init(Type, int)}-ialized - {@link Deflater#DEFAULT_COMPRESSION}
+     * for the zlib default
+     * @param strategy The deflater strategy - e.g., {@link Deflater#FILTERED} or
+     * {@link Deflater#HUFFMAN_ONLY} for a faster but less effective compression
+     * @param adaptive If {@code true} then payloads that compress poorly cause
+     * the following packets to be sent uncompressed (as stored blocks) for a while
+     * @see #ADAPTIVE_MIN_SAMPLE_SIZE
+     * @see #ADAPTIVE_POOR_RATIO_PERCENT
+     * @see #ADAPTIVE_SKIP_PACKETS
+     */
+    public CompressionZlib(int level, int strategy, boolean adaptive) {
+        this.defaultLevel = level;
+        this.strategy = strategy;
+        this.adaptive = adaptive;
     }
 
     @Override
@@ -48,32 +97,111 @@ public class CompressionZlib implements Compression {
         return false;
     }
 
+    public int getStrategy() {
+        return strategy;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * @return The effective compression level - valid only after
+     * {@link #init(Type, int)} has been called
+     */
+    public int getLevel() {
+        return level;
+    }
+
     @Override
     public void init(Type type, int level) {
-        compresser = new Deflater(level);
-        decompresser = new Inflater();
+        this.level = (level == Deflater.DEFAULT_COMPRESSION) ? defaultLevel : level;
+        if (Type.Deflater.equals(type)) {
+            compresser = new Deflater(this.level);
+            compresser.setStrategy(strategy);
+            currentLevel = this.level;
+            skipPackets = 0;
+        } else {
+            decompresser = new Inflater();
+        }
     }
 
     @Override
     public void compress(Buffer buffer) throws IOException {
-        compresser.setInput(buffer.array(), buffer.rpos(), buffer.available());
-        buffer.wpos(buffer.rpos());
-        int len;
-        while ((len = compresser.deflate(tmpbuf, 0, tmpbuf.length, Deflater.SYNC_FLUSH)) > 0) {
-            buffer.putRawBytes(tmpbuf, 0, len);
+        int start = buffer.rpos();
+        int len = buffer.available();
+        int end = buffer.wpos();
+        int space = len + (len >> 8) + 64;
+        int wpos = end;
+        boolean sample = false;
+        if (adaptive) {
+            int requiredLevel = updateLevel();
+            if (requiredLevel != currentLevel) {
+                // switch with no pending input so that the new parameters apply
+                // exactly from this payload onwards - nothing is expected to be
+                // generated since the previous payload has been fully flushed
+                compresser.setLevel(requiredLevel);
+                compresser.setInput(EMPTY_INPUT, 0, 0);
+                buffer.wpos(wpos + space);
+                wpos += compresser.deflate(buffer.array(), wpos, space, Deflater.NO_FLUSH);
+                currentLevel = requiredLevel;
+            }
+            sample = (currentLevel != Deflater.NO_COMPRESSION) && (len >= ADAPTIVE_MIN_SAMPLE_SIZE);
+        }
+
+        // the input is not modified below - even if the buffer is re-allocated while
+        // growing, the deflater keeps reading from the original array
+        compresser.setInput(buffer.array(), start, len);
+        for (;;) {
+            buffer.wpos(wpos + space);  // makes sure there is enough room
+            int n = compresser.deflate(buffer.array(), wpos, space, Deflater.SYNC_FLUSH);
+            wpos += n;
+            if (n < space) {
+                break;
+            }
+        }
+
+        int clen = wpos - end;
+        System.arraycopy(buffer.array(), end, buffer.array(), start, clen);
+        buffer.wpos(start + clen);
+
+        if (sample && ((long) clen * 100L > (long) len * ADAPTIVE_POOR_RATIO_PERCENT)) {
+            skipPackets = ADAPTIVE_SKIP_PACKETS;
+        }
+    }
+
+    /**
+     * Advances the adaptive heuristic by one packet
+     *
+     * @return The compression level to be used for the next payload
+     */
+    protected int updateLevel() {
+        if (skipPackets > 0) {
+            skipPackets--;
+            return Deflater.NO_COMPRESSION;
         }
+        return level;
     }
 
     @Override
     public void uncompress(Buffer from, Buffer to) throws IOException {
         decompresser.setInput(from.array(), from.rpos(), from.available());
-        int len;
+        int space = Math.max(from.available() << 1, MIN_INFLATE_SPACE);
+        int wpos = to.wpos();
         try {
-            while ((len = decompresser.inflate(tmpbuf)) > 0) {
-                to.putRawBytes(tmpbuf, 0, len);
+            for (;;) {
+                to.wpos(wpos + space);  // makes sure there is enough room
+                int n = decompresser.inflate(to.array(), wpos, space);
+                wpos += n;
+                if (n < space) {
+                    break;
+                }
+                space <<= 1;
             }
         } catch (DataFormatException e) {
             throw new IOException("Error decompressing data", e);
+        } finally {
+            to.wpos(wpos);
         }
     }
 
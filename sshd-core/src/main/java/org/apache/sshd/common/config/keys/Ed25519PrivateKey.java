@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.config.keys;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.util.Arrays;
+
+import org.apache.sshd.common.cipher.Ed25519;
+import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.ValidateUtils;
+
+/**
+ * An {@code ssh-ed25519} private key - i.e., the 32 bytes seed from which
+ * the signing scalar is derived. The matching public point is computed once
+ * on construction since it is part of every signature.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class Ed25519PrivateKey implements PrivateKey {
+    // PKCS#8 v1 PrivateKeyInfo prefix for id-Ed25519 (1.3.101.112) - see RFC 8410
+    private static final byte[] PKCS8_PREFIX = {
+        0x30, 0x2e, 0x02, 0x01, 0x00, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x04, 0x22, 0x04, 0x20
+    };
+
+    private static final long serialVersionUID = -3467289510452648723L;
+
+    private final byte[] seed;
+    private final byte[] publicKeyBytes;
+
+    public Ed25519PrivateKey(byte[] seed) throws GeneralSecurityException {
+        ValidateUtils.checkNotNull(seed, "No seed data", GenericUtils.EMPTY_OBJECT_ARRAY);
+        ValidateUtils.checkTrue(seed.length == Ed25519.KEY_SIZE, "Bad seed data size: %d", seed.length);
+        this.seed = seed.clone();
+        this.publicKeyBytes = Ed25519.publicKey(this.seed);
+    }
+
+    /**
+     * @return A <U>copy</U> of the 32 bytes private seed
+     */
+    public byte[] getSeed() {
+        return seed.clone();
+    }
+
+    /**
+     * @return A <U>copy</U> of the 32 bytes encoded public point
+     */
+    public byte[] getPublicKeyBytes() {
+        return publicKeyBytes.clone();
+    }
+
+    public Ed25519PublicKey getPublicKey() {
+        return new Ed25519PublicKey(publicKeyBytes);
+    }
+
+    /**
+     * @param msg The message buffer
+     * @param off Offset of the data in the buffer
+     * @param len Length of the data
+     * @return The 64 bytes signature
+     * @throws GeneralSecurityException If failed to sign
+     */
+    public byte[] sign(byte[] msg, int off, int len) throws GeneralSecurityException {
+        return Ed25519.sign(seed, publicKeyBytes, msg, off, len);
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return Ed25519PublicKey.ALGORITHM;
+    }
+
+    @Override
+    public String getFormat() {
+        return "PKCS#8";
+    }
+
+    @Override
+    public byte[] getEncoded() {
+        byte[] encoded = Arrays.copyOf(PKCS8_PREFIX, PKCS8_PREFIX.length + seed.length);
+        System.arraycopy(seed, 0, encoded, PKCS8_PREFIX.length, seed.length);
+        return encoded;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(publicKeyBytes);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (this == obj) {
+            return true;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+
+        return Arrays.equals(seed, ((Ed25519PrivateKey) obj).seed);
+    }
+
+    @Override
+    public String toString() {
+        // never expose the seed
+        return getAlgorithm() + "[" + KeyUtils.getFingerPrint(getPublicKey()) + "]";
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.config.keys;
+
+import java.security.PublicKey;
+import java.util.Arrays;
+
+import org.apache.sshd.common.cipher.Ed25519;
+import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.ValidateUtils;
+
+/**
+ * An {@code ssh-ed25519} public key - i.e., the 32 bytes encoded curve point
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class Ed25519PublicKey implements PublicKey {
+    public static final String ALGORITHM = "Ed25519";
+
+    // SubjectPublicKeyInfo prefix for id-Ed25519 (1.3.101.112) - see RFC 8410
+    private static final byte[] X509_PREFIX = {
+        0x30, 0x2a, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x03, 0x21, 0x00
+    };
+
+    private static final long serialVersionUID = 5164939823563148297L;
+
+    private final byte[] keyBytes;
+
+    public Ed25519PublicKey(byte[] keyBytes) {
+        ValidateUtils.checkNotNull(keyBytes, "No key data", GenericUtils.EMPTY_OBJECT_ARRAY);
+        ValidateUtils.checkTrue(keyBytes.length == Ed25519.KEY_SIZE, "Bad key data size: %d", keyBytes.length);
+        this.keyBytes = keyBytes.clone();
+    }
+
+    /**
+     * @return A <U>copy</U> of the 32 bytes encoded public point
+     */
+    public byte[] getKeyBytes() {
+        return keyBytes.clone();
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return ALGORITHM;
+    }
+
+    @Override
+    public String getFormat() {
+        return "X.509";
+    }
+
+    @Override
+    public byte[] getEncoded() {
+        byte[] encoded = Arrays.copyOf(X509_PREFIX, X509_PREFIX.length + keyBytes.length);
+        System.arraycopy(keyBytes, 0, encoded, X509_PREFIX.length, keyBytes.length);
+        return encoded;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(keyBytes);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (this == obj) {
+            return true;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+
+        return Arrays.equals(keyBytes, ((Ed25519PublicKey) obj).keyBytes);
+    }
+
+    @Override
+    public String toString() {
+        return getAlgorithm() + "[" + KeyUtils.getFingerPrint(this) + "]";
+    }
+}
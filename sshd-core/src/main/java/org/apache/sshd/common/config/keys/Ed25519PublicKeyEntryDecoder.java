@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.config.keys;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Collections;
+
+import org.apache.sshd.common.cipher.Ed25519;
+import org.apache.sshd.common.keyprovider.KeyPairProvider;
+
+/**
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class Ed25519PublicKeyEntryDecoder extends AbstractPublicKeyEntryDecoder<Ed25519PublicKey> {
+    public static final Ed25519PublicKeyEntryDecoder INSTANCE = new Ed25519PublicKeyEntryDecoder();
+
+    public Ed25519PublicKeyEntryDecoder() {
+        super(Ed25519PublicKey.class, Collections.unmodifiableList(Collections.singletonList(KeyPairProvider.SSH_ED25519)));
+    }
+
+    @Override
+    public Ed25519PublicKey decodePublicKey(String keyType, InputStream keyData) throws IOException, GeneralSecurityException {
+        if (!KeyPairProvider.SSH_ED25519.equals(keyType)) { // just in case we were invoked directly
+            throw new InvalidKeySpecException("Unexpected key type: " + keyType);
+        }
+
+        byte[] keyBytes = readRLEBytes(keyData);
+        if (keyBytes.length != Ed25519.KEY_SIZE) {
+            throw new InvalidKeySpecException("Bad " + keyType + " key data size: " + keyBytes.length);
+        }
+
+        return new Ed25519PublicKey(keyBytes);
+    }
+
+    /**
+     * @throws NoSuchAlgorithmException Always - the keys are created directly
+     * since there is no JCE provider for them
+     */
+    @Override
+    public KeyFactory getKeyFactoryInstance() throws GeneralSecurityException {
+        throw new NoSuchAlgorithmException("No " + Ed25519PublicKey.ALGORITHM + " key factory");
+    }
+}
@@ -18,9 +18,11 @@
  */
 package org.apache.sshd.common.config.keys;
 
+import java.security.GeneralSecurityException;
 import java.security.Key;
 import java.security.KeyPair;
 import java.security.PublicKey;
+import java.security.SecureRandom;
 import java.security.interfaces.DSAKey;
 import java.security.interfaces.DSAParams;
 import java.security.interfaces.DSAPublicKey;
@@ -38,6 +40,7 @@ import java.util.TreeMap;
 
 import org.apache.sshd.common.Digest;
 import org.apache.sshd.common.cipher.ECCurves;
+import org.apache.sshd.common.cipher.Ed25519;
 import org.apache.sshd.common.digest.BuiltinDigests;
 import org.apache.sshd.common.keyprovider.KeyPairProvider;
 import org.apache.sshd.common.util.GenericUtils;
@@ -61,6 +64,7 @@ public class KeyUtils {
         registerPublicKeyEntryDecoder(RSAPublicKeyDecoder.INSTANCE);
         registerPublicKeyEntryDecoder(DSSPublicKeyEntryDecoder.INSTANCE);
         registerPublicKeyEntryDecoder(ECDSAPublicKeyEntryDecoder.INSTANCE);
+        registerPublicKeyEntryDecoder(Ed25519PublicKeyEntryDecoder.INSTANCE);
     }
 
     private KeyUtils() {
@@ -192,10 +196,25 @@ public class KeyUtils {
             ECKey ecKey = (ECKey) key;
             ECParameterSpec ecSpec = ecKey.getParams();
             return ECCurves.ECDSA_SHA2_PREFIX + ECCurves.getCurveName(ecSpec);
+        } else if ((key instanceof Ed25519PublicKey) || (key instanceof Ed25519PrivateKey)) {
+            return KeyPairProvider.SSH_ED25519;
         }
         return null;
     }
 
+    /**
+     * @param random The {@link SecureRandom} used to generate the private seed
+     * @return A new {@code ssh-ed25519} {@link KeyPair} - there is no JCE
+     * provider for it, so it is generated directly
+     * @throws GeneralSecurityException If failed to derive the public key
+     */
+    public static KeyPair generateEd25519KeyPair(SecureRandom random) throws GeneralSecurityException {
+        byte[] seed = new byte[Ed25519.KEY_SIZE];
+        random.nextBytes(seed);
+        Ed25519PrivateKey prvKey = new Ed25519PrivateKey(seed);
+        return new KeyPair(prvKey.getPublicKey(), prvKey);
+    }
+
     /**
      * @param key The {@link PublicKey} to be checked - ignored if {@code null}
      * @param keySet The keys to be searched - ignored if {@code null}/empty
@@ -239,6 +258,8 @@ public class KeyUtils {
             return compareDSAKeys(DSAPublicKey.class.cast(k1), DSAPublicKey.class.cast(k2));
         } else if ((k1 instanceof ECPublicKey) && (k2 instanceof ECPublicKey)) {
             return compareECKeys(ECPublicKey.class.cast(k1), ECPublicKey.class.cast(k2));
+        } else if ((k1 instanceof Ed25519PublicKey) && (k2 instanceof Ed25519PublicKey)) {
+            return compareEd25519Keys(Ed25519PublicKey.class.cast(k1), Ed25519PublicKey.class.cast(k2));
         } else {
             return false;   // either key is null or not of same class
         }
@@ -297,6 +318,16 @@ public class KeyUtils {
         }
     }
 
+    public static boolean compareEd25519Keys(Ed25519PublicKey k1, Ed25519PublicKey k2) {
+        if (Objects.equals(k1, k2)) {
+            return true;
+        } else if ((k1 == null) || (k2 == null)) {
+            return false;   // both null is covered by Objects#equals
+        } else {
+            return Arrays.equals(k1.getKeyBytes(), k2.getKeyBytes());
+        }
+    }
+
     public static boolean compareECParams(ECParameterSpec s1, ECParameterSpec s2) {
         if (Objects.equals(s1, s2)) {
             return true;
@@ -26,7 +26,6 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.sshd.ClientChannel;
 import org.apache.sshd.client.future.OpenFuture;
 import org.apache.sshd.common.Closeable;
 import org.apache.sshd.common.ForwardingFilter;
@@ -43,7 +42,6 @@ import org.apache.sshd.common.session.ConnectionService;
 import org.apache.sshd.common.util.CloseableUtils;
 import org.apache.sshd.common.util.Readable;
 import org.apache.sshd.common.util.buffer.Buffer;
-import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
 
 /**
  * TODO Add javadoc
@@ -142,7 +140,7 @@ public class DefaultTcpipForwarder extends CloseableUtils.AbstractInnerCloseable
             throw new IllegalStateException("TcpipForwarder is closing");
         }
         SocksProxy socksProxy = new SocksProxy(service);
-        SshdSocketAddress bound = doBind(local, new SocksProxy(service));
+        SshdSocketAddress bound = doBind(local, socksProxy);
         dynamicLocal.put(Integer.valueOf(bound.getPort()), socksProxy);
         return bound;
     }
@@ -268,11 +266,8 @@ public class DefaultTcpipForwarder extends CloseableUtils.AbstractInnerCloseable
         @Override
         public void messageReceived(IoSession session, Readable message) throws Exception {
             TcpipClientChannel channel = (TcpipClientChannel) session.getAttribute(TcpipClientChannel.class);
-            Buffer buffer = new ByteArrayBuffer();
-            buffer.putBuffer(message);
-            channel.waitFor(ClientChannel.OPENED | ClientChannel.CLOSED, Long.MAX_VALUE);
-            channel.getInvertedIn().write(buffer.array(), buffer.rpos(), buffer.available());
-            channel.getInvertedIn().flush();
+            // never blocks - reading is suspended until the channel can take more data
+            channel.forwardData(message);
         }
 
         @Override
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.forward;
+
+import org.apache.sshd.common.future.CloseFuture;
+import org.apache.sshd.common.future.DefaultCloseFuture;
+import org.apache.sshd.common.future.SshFutureListener;
+import org.apache.sshd.common.io.IoOutputStream;
+import org.apache.sshd.common.io.IoSession;
+import org.apache.sshd.common.io.IoWriteFuture;
+import org.apache.sshd.common.io.SuspendableIoSession;
+import org.apache.sshd.common.util.CloseableUtils;
+import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.Readable;
+import org.apache.sshd.common.util.ValidateUtils;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+
+/**
+ * Pumps the data read from a forwarded socket into a channel through an
+ * asynchronous {@link IoOutputStream}, one write at a time. Reading from the
+ * socket is suspended while a write is in progress, so the I/O threads never
+ * block on the remote window, and the read data can be handed over without
+ * copying it whenever the {@link IoSession} exposes it as a {@link Buffer}
+ * - since the session does not re-use it until reading is resumed. If the
+ * session is not a {@link SuspendableIoSession} then the data received while
+ * a write is in progress is queued without bounds instead.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class SocketDataPump extends CloseableUtils.AbstractCloseable {
+
+    private final IoSession socket;
+    private IoOutputStream out;     // null until the channel has been opened
+    private Buffer queued;          // data received while a write is in progress or before opened
+    private boolean writing;
+    private DefaultCloseFuture drained; // set when closing gracefully with a write in progress
+
+    public SocketDataPump(IoSession socket) {
+        this.socket = ValidateUtils.checkNotNull(socket, "No socket session", GenericUtils.EMPTY_OBJECT_ARRAY);
+    }
+
+    public IoSession getSocket() {
+        return socket;
+    }
+
+    /**
+     * Sets the stream the data is written to - typically once the channel
+     * has been opened - and sends whatever has been received until then
+     *
+     * @param out The {@link IoOutputStream} to write to
+     */
+    public void setOutputStream(IoOutputStream out) {
+        Buffer buffer;
+        synchronized (this) {
+            this.out = ValidateUtils.checkNotNull(out, "No output stream", GenericUtils.EMPTY_OBJECT_ARRAY);
+            if (writing || (queued == null)) {
+                return;
+            }
+            buffer = queued;
+            queued = null;
+            writing = true;
+        }
+        write(out, buffer);
+    }
+
+    /**
+     * Forwards data read from the socket - never blocks
+     *
+     * @param message The read data - used as-is if it is a {@link Buffer}
+     * and no write is in progress, otherwise copied
+     */
+    public void forward(Readable message) {
+        IoOutputStream stream;
+        Buffer buffer;
+        synchronized (this) {
+            if (isClosing()) {
+                log.debug("Ignoring {} bytes read on closing {}", Integer.valueOf(message.available()), this);
+                return;
+            }
+            // no more reads until this data has been sent
+            suspendRead();
+            if ((out == null) || writing) {
+                if (queued == null) {
+                    queued = new ByteArrayBuffer(message.available());
+                }
+                queued.putBuffer(message);
+                return;
+            }
+            if (message instanceof Buffer) {
+                buffer = (Buffer) message;
+            } else {
+                buffer = new ByteArrayBuffer(message.available());
+                buffer.putBuffer(message);
+            }
+            writing = true;
+            stream = out;
+        }
+        write(stream, buffer);
+    }
+
+    protected void write(IoOutputStream stream, Buffer buffer) {
+        stream.write(buffer).addListener(new SshFutureListener<IoWriteFuture>() {
+            @Override
+            public void operationComplete(IoWriteFuture future) {
+                onWritten(future);
+            }
+        });
+    }
+
+    protected void onWritten(IoWriteFuture future) {
+        if (!future.isWritten()) {
+            log.debug("Failed to forward data read on {}: {}", socket, future.getException());
+            synchronized (this) {
+                writing = false;
+                queued = null;
+                signalDrained();
+            }
+            socket.close(true);
+            return;
+        }
+
+        IoOutputStream stream;
+        Buffer buffer;
+        synchronized (this) {
+            buffer = queued;
+            queued = null;
+            if (buffer == null) {
+                writing = false;
+                signalDrained();
+            }
+            stream = out;
+        }
+
+        if (buffer != null) {
+            write(stream, buffer);
+        } else {
+            // outside the lock since the next read may complete on this thread
+            resumeRead();
+        }
+    }
+
+    protected void suspendRead() {
+        if (socket instanceof SuspendableIoSession) {
+            ((SuspendableIoSession) socket).suspendRead();
+        }
+    }
+
+    protected void resumeRead() {
+        if (socket instanceof SuspendableIoSession) {
+            ((SuspendableIoSession) socket).resumeRead();
+        }
+    }
+
+    protected void signalDrained() {
+        if (drained != null) {
+            drained.setClosed();
+        }
+    }
+
+    @Override
+    protected synchronized CloseFuture doCloseGracefully() {
+        if (!writing) {
+            // nothing in progress - and nowhere to send the data if not opened yet
+            return null;
+        }
+        drained = new DefaultCloseFuture(lock);
+        return drained;
+    }
+
+    @Override
+    protected void doCloseImmediately() {
+        synchronized (this) {
+            queued = null;
+        }
+        super.doCloseImmediately();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + socket + "]";
+    }
+}
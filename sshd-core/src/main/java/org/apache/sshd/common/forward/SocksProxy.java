@@ -20,6 +20,7 @@ package org.apache.sshd.common.forward;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -65,8 +66,15 @@ public class SocksProxy extends CloseableUtils.AbstractCloseable implements IoHa
 
     @Override
     public void messageReceived(final IoSession session, org.apache.sshd.common.util.Readable message) throws Exception {
-        Buffer buffer = new ByteArrayBuffer(message.available());
-        buffer.putBuffer(message);
+        // the read buffer is not re-used before this call returns, and the
+        // forwarded data is copied by the channel only if it has to be queued
+        Buffer buffer;
+        if (message instanceof Buffer) {
+            buffer = (Buffer) message;
+        } else {
+            buffer = new ByteArrayBuffer(message.available());
+            buffer.putBuffer(message);
+        }
         Proxy proxy = proxies.get(session);
         if (proxy == null) {
             int version = buffer.getByte();
@@ -99,11 +107,34 @@ public class SocksProxy extends CloseableUtils.AbstractCloseable implements IoHa
             this.session = session;
         }
 
+        /**
+         * Forwards the data to the channel - never blocks, since the channel
+         * queues it until opened and reading is suspended until it is sent
+         *
+         * @param buffer The data read from the socket
+         * @throws IOException If failed to forward the data
+         */
         protected void onMessage(Buffer buffer) throws IOException {
-            channel.getInvertedIn().write(buffer.array(), buffer.rpos(), buffer.available());
-            channel.getInvertedIn().flush();
+            channel.forwardData(buffer);
         }
 
+        protected void openChannel(SshdSocketAddress remote, Buffer buffer) throws IOException {
+            channel = new TcpipClientChannel(TcpipClientChannel.Type.Direct, session, remote);
+            service.registerChannel(channel);
+            channel.open().addListener(new SshFutureListener<OpenFuture>() {
+                @Override
+                public void operationComplete(OpenFuture future) {
+                    onChannelOpened(future);
+                }
+            });
+            // data sent right after the request is queued until the channel is opened
+            if (buffer.available() > 0) {
+                onMessage(buffer);
+            }
+        }
+
+        protected abstract void onChannelOpened(OpenFuture future);
+
         @Override
         public void close() throws IOException {
             if (channel != null) {
@@ -147,21 +178,14 @@ public class SocksProxy extends CloseableUtils.AbstractCloseable implements IoHa
                     log.debug("Received socks4 connection request for {} to {}:{}", userId, host, Integer.valueOf(port));
                 }
 
-                SshdSocketAddress remote = new SshdSocketAddress(host, port);
-                channel = new TcpipClientChannel(TcpipClientChannel.Type.Direct, session, remote);
-                service.registerChannel(channel);
-                channel.open().addListener(new SshFutureListener<OpenFuture>() {
-                    @Override
-                    public void operationComplete(OpenFuture future) {
-                        onChannelOpened(future);
-                    }
-                });
+                openChannel(new SshdSocketAddress(host, port), buffer);
             } else {
                 super.onMessage(buffer);
             }
         }
 
         @SuppressWarnings("synthetic-access")
+        @Override
         protected void onChannelOpened(OpenFuture future) {
             Buffer buffer = new ByteArrayBuffer(8);
             buffer.putByte((byte) 0x00);
@@ -223,7 +247,7 @@ public class SocksProxy extends CloseableUtils.AbstractCloseable implements IoHa
                     log.debug("Received socks5 greeting");
                 }
             } else if (channel == null) {
-                response = buffer;
+                int start = buffer.rpos();
                 int version = getUByte(buffer);
                 if (version != 0x05) {
                     throw new IllegalStateException("Unexpected version: " + version);
@@ -258,15 +282,9 @@ public class SocksProxy extends CloseableUtils.AbstractCloseable implements IoHa
                 if (log.isDebugEnabled()) {
                     log.debug("Received socks5 connection request to {}:{}", host, Integer.valueOf(port));
                 }
-                SshdSocketAddress remote = new SshdSocketAddress(host, port);
-                channel = new TcpipClientChannel(TcpipClientChannel.Type.Direct, session, remote);
-                service.registerChannel(channel);
-                channel.open().addListener(new SshFutureListener<OpenFuture>() {
-                    @Override
-                    public void operationComplete(OpenFuture future) {
-                        onChannelOpened(future);
-                    }
-                });
+                // the reply echoes the request - copied since the read buffer is re-used
+                response = new ByteArrayBuffer(Arrays.copyOfRange(buffer.array(), start, buffer.rpos()));
+                openChannel(new SshdSocketAddress(host, port), buffer);
             } else {
                 log.debug("Received socks5 connection message");
                 super.onMessage(buffer);
@@ -274,6 +292,7 @@ public class SocksProxy extends CloseableUtils.AbstractCloseable implements IoHa
         }
 
         @SuppressWarnings("synthetic-access")
+        @Override
         protected void onChannelOpened(OpenFuture future) {
             int wpos = response.wpos();
             response.rpos(0);
@@ -20,6 +20,7 @@ package org.apache.sshd.common.forward;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.Arrays;
 
 import org.apache.sshd.client.channel.AbstractClientChannel;
 import org.apache.sshd.client.future.DefaultOpenFuture;
@@ -28,8 +29,12 @@ import org.apache.sshd.common.Closeable;
 import org.apache.sshd.common.SshConstants;
 import org.apache.sshd.common.SshException;
 import org.apache.sshd.common.SshdSocketAddress;
+import org.apache.sshd.common.channel.ChannelAsyncOutputStream;
 import org.apache.sshd.common.channel.ChannelOutputStream;
+import org.apache.sshd.common.future.SshFutureListener;
 import org.apache.sshd.common.io.IoSession;
+import org.apache.sshd.common.io.IoWriteFuture;
+import org.apache.sshd.common.util.Readable;
 import org.apache.sshd.common.util.buffer.Buffer;
 import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
 
@@ -48,12 +53,14 @@ public class TcpipClientChannel extends AbstractClientChannel {
     private final Type typeEnum;
     private final IoSession serverSession;
     private final SshdSocketAddress remote;
+    private final SocketDataPump pump;
 
     public TcpipClientChannel(Type type, IoSession serverSession, SshdSocketAddress remote) {
         super(type == Type.Direct ? "direct-tcpip" : "forwarded-tcpip");
         this.typeEnum = type;
         this.serverSession = serverSession;
         this.remote = remote;
+        this.pump = new SocketDataPump(serverSession);
     }
 
 
@@ -101,19 +108,41 @@ public class TcpipClientChannel extends AbstractClientChannel {
             throw new IllegalArgumentException("Asynchronous streaming isn't supported yet on this channel");
         }
         invertedIn = out = new ChannelOutputStream(this, remoteWindow, log, SshConstants.SSH_MSG_CHANNEL_DATA);
+        asyncIn = new ChannelAsyncOutputStream(this, SshConstants.SSH_MSG_CHANNEL_DATA);
+        pump.setOutputStream(asyncIn);
+    }
+
+    /**
+     * Forwards the data read from the socket - never blocks, since reading
+     * from the socket is suspended until the data has been sent
+     *
+     * @param message The data read from the socket
+     * @see SocketDataPump#forward(Readable)
+     */
+    public void forwardData(Readable message) {
+        pump.forward(message);
     }
 
     @Override
     protected Closeable getInnerCloseable() {
-        return builder().sequential(serverSession, super.getInnerCloseable()).build();
+        // send whatever has been read from the socket before closing the channel
+        return builder().sequential(serverSession).when(openFuture).sequential(pump, super.getInnerCloseable()).build();
     }
 
     @Override
-    protected synchronized void doWriteData(byte[] data, int off, int len) throws IOException {
+    protected void doWriteData(byte[] data, int off, final int len) throws IOException {
         // Make sure we copy the data as the incoming buffer may be reused
-        Buffer buf = new ByteArrayBuffer(data, off, len);
-        buf = new ByteArrayBuffer(buf.getCompactData());
-        localWindow.consumeAndCheck(len);
-        serverSession.write(buf);
+        Buffer buf = new ByteArrayBuffer(Arrays.copyOfRange(data, off, off + len));
+        serverSession.write(buf).addListener(new SshFutureListener<IoWriteFuture>() {
+            @SuppressWarnings("synthetic-access")
+            @Override
+            public void operationComplete(IoWriteFuture future) {
+                try {
+                    localWindow.consumeAndCheck(len);
+                } catch (IOException e) {
+                    session.exceptionCaught(e);
+                }
+            }
+        });
     }
 }
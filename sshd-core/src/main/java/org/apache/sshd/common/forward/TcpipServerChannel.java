@@ -19,19 +19,20 @@
 package org.apache.sshd.common.forward;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.ConnectException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.concurrent.ExecutorService;
 
 import org.apache.sshd.client.future.DefaultOpenFuture;
 import org.apache.sshd.client.future.OpenFuture;
 import org.apache.sshd.common.Channel;
+import org.apache.sshd.common.Closeable;
 import org.apache.sshd.common.ForwardingFilter;
 import org.apache.sshd.common.NamedFactory;
 import org.apache.sshd.common.SshConstants;
 import org.apache.sshd.common.SshdSocketAddress;
-import org.apache.sshd.common.channel.ChannelOutputStream;
+import org.apache.sshd.common.channel.ChannelAsyncOutputStream;
 import org.apache.sshd.common.future.CloseFuture;
 import org.apache.sshd.common.future.SshFutureListener;
 import org.apache.sshd.common.io.IoConnectFuture;
@@ -117,7 +118,8 @@ public class TcpipServerChannel extends AbstractServerChannel {
     private final Type type;
     private IoConnector connector;
     private IoSession ioSession;
-    private OutputStream out;
+    private ChannelAsyncOutputStream out;
+    private volatile SocketDataPump pump;
 
     public TcpipServerChannel(Type type) {
         this.type = type;
@@ -155,8 +157,7 @@ public class TcpipServerChannel extends AbstractServerChannel {
             return f;
         }
 
-        // TODO: revisit for better threading. Use async io ?
-        out = new ChannelOutputStream(this, remoteWindow, log, SshConstants.SSH_MSG_CHANNEL_DATA);
+        out = new ChannelAsyncOutputStream(this, SshConstants.SSH_MSG_CHANNEL_DATA);
         IoHandler handler = new IoHandler() {
             @SuppressWarnings("synthetic-access")
             @Override
@@ -166,15 +167,15 @@ public class TcpipServerChannel extends AbstractServerChannel {
                         log.debug("Ignoring write to channel {} in CLOSING state", Integer.valueOf(id));
                     }
                 } else {
-                    Buffer buffer = new ByteArrayBuffer();
-                    buffer.putBuffer(message);
-                    out.write(buffer.array(), buffer.rpos(), buffer.available());
-                    out.flush();
+                    // never blocks - reading is suspended until the data has been sent
+                    pump.forward(message);
                 }
             }
+            @SuppressWarnings("synthetic-access")
             @Override
             public void sessionCreated(IoSession session) throws Exception {
-                // ignored
+                pump = new SocketDataPump(session);
+                pump.setOutputStream(out);
             }
             @Override
             public void sessionClosed(IoSession session) throws Exception {
@@ -262,11 +263,16 @@ public class TcpipServerChannel extends AbstractServerChannel {
         });
     }
 
+    @Override
+    protected Closeable getInnerCloseable() {
+        // send whatever has been read from the socket before closing the channel
+        return builder().sequential(pump, out, super.getInnerCloseable()).build();
+    }
+
     @Override
     protected void doWriteData(byte[] data, int off, final int len) throws IOException {
         // Make sure we copy the data as the incoming buffer may be reused
-        Buffer buf = new ByteArrayBuffer(data, off, len);
-        buf = new ByteArrayBuffer(buf.getCompactData());
+        Buffer buf = new ByteArrayBuffer(Arrays.copyOfRange(data, off, off + len));
         ioSession.write(buf).addListener(new SshFutureListener<IoWriteFuture>() {
             @SuppressWarnings("synthetic-access")
             @Override
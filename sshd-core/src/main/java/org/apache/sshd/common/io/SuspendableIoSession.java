@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.io;
+
+/**
+ * An {@link IoSession} whose reading from the socket can be suspended - e.g.,
+ * when the data cannot be consumed as fast as it is received
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public interface SuspendableIoSession extends IoSession {
+
+    /**
+     * Stops reading from the socket until {@link #resumeRead()} is called.
+     * Data of a read that is already in progress may still be delivered.
+     */
+    void suspendRead();
+
+    /**
+     * Resumes reading from the socket after a call to {@link #suspendRead()}.
+     * Does nothing if reading is not suspended.
+     */
+    void resumeRead();
+}
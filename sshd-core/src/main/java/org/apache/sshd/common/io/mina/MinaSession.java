@@ -29,14 +29,14 @@ import org.apache.sshd.common.SshException;
 import org.apache.sshd.common.future.DefaultCloseFuture;
 import org.apache.sshd.common.future.DefaultSshFuture;
 import org.apache.sshd.common.io.IoService;
-import org.apache.sshd.common.io.IoSession;
 import org.apache.sshd.common.io.IoWriteFuture;
+import org.apache.sshd.common.io.SuspendableIoSession;
 import org.apache.sshd.common.util.CloseableUtils;
 import org.apache.sshd.common.util.buffer.Buffer;
 
 /**
  */
-public class MinaSession extends CloseableUtils.AbstractInnerCloseable implements IoSession {
+public class MinaSession extends CloseableUtils.AbstractInnerCloseable implements SuspendableIoSession {
 
     private final MinaService service;
     private final org.apache.mina.core.session.IoSession session;
@@ -169,6 +169,16 @@ public class MinaSession extends CloseableUtils.AbstractInnerCloseable implement
         return future;
     }
 
+    @Override
+    public void suspendRead() {
+        session.suspendRead();
+    }
+
+    @Override
+    public void resumeRead() {
+        session.resumeRead();
+    }
+
     @Override
     public IoService getService() {
         return service;
@@ -35,6 +35,7 @@ import org.apache.sshd.common.io.IoService;
 import org.apache.sshd.common.io.IoSession;
 import org.apache.sshd.common.util.CloseableUtils;
 import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.buffer.DirectBufferPool;
 
 /**
  */
@@ -44,6 +45,7 @@ public abstract class Nio2Service extends CloseableUtils.AbstractInnerCloseable
     protected final Map<Long, IoSession> sessions;
     protected final AtomicBoolean disposing = new AtomicBoolean();
     protected final AsynchronousChannelGroup group;
+    protected final DirectBufferPool writeBufferPool;
 
     protected Nio2Service(FactoryManager manager, IoHandler handler, AsynchronousChannelGroup group) {
         log.debug("Creating {}", getClass().getSimpleName());
@@ -51,6 +53,25 @@ public abstract class Nio2Service extends CloseableUtils.AbstractInnerCloseable
         this.handler = handler;
         this.sessions = new ConcurrentHashMap<Long, IoSession>();
         this.group = group;
+        this.writeBufferPool = createWriteBufferPool(manager);
+    }
+
+    /**
+     * @return The {@link DirectBufferPool} shared by the sessions of this
+     * service for their outgoing packets - {@code null} if pooling is disabled
+     */
+    public DirectBufferPool getWriteBufferPool() {
+        return writeBufferPool;
+    }
+
+    protected DirectBufferPool createWriteBufferPool(FactoryManager manager) {
+        int poolSize = FactoryManagerUtils.getIntProperty(manager, FactoryManager.NIO2_WRITE_BUFFER_POOL_SIZE, DirectBufferPool.DEFAULT_MAX_POOLED_BUFFERS);
+        if (poolSize <= 0) {
+            return null;
+        }
+
+        int maxSize = FactoryManagerUtils.getIntProperty(manager, FactoryManager.NIO2_WRITE_BUFFER_MAX_SIZE, DirectBufferPool.DEFAULT_MAX_BUFFER_SIZE);
+        return new DirectBufferPool(maxSize, poolSize);
     }
 
     public void dispose() {
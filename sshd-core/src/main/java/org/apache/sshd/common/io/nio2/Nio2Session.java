@@ -23,12 +23,16 @@ import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.sshd.common.FactoryManager;
 import org.apache.sshd.common.FactoryManagerUtils;
@@ -37,17 +41,22 @@ import org.apache.sshd.common.future.CloseFuture;
 import org.apache.sshd.common.future.DefaultSshFuture;
 import org.apache.sshd.common.io.IoHandler;
 import org.apache.sshd.common.io.IoService;
-import org.apache.sshd.common.io.IoSession;
 import org.apache.sshd.common.io.IoWriteFuture;
+import org.apache.sshd.common.io.SuspendableIoSession;
 import org.apache.sshd.common.util.CloseableUtils;
 import org.apache.sshd.common.util.Readable;
 import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+import org.apache.sshd.common.util.buffer.DirectBufferPool;
+import org.apache.sshd.common.util.buffer.DirectBufferPool.PooledBuffer;
 
 /**
  */
-public class Nio2Session extends CloseableUtils.AbstractCloseable implements IoSession {
+public class Nio2Session extends CloseableUtils.AbstractCloseable implements SuspendableIoSession {
 
     public static final int DEFAULT_READBUF_SIZE = 32 * 1024;
+    public static final int DEFAULT_WRITE_BATCH_MAX_BUFFERS = 64;
+    public static final long DEFAULT_WRITE_BATCH_MAX_SIZE = 256 * 1024;
 
     private static final AtomicLong sessionIdGenerator = new AtomicLong(100L);
 
@@ -60,7 +69,12 @@ public class Nio2Session extends CloseableUtils.AbstractCloseable implements IoS
     private final SocketAddress remoteAddress;
     private final FactoryManager manager;
     private final Queue<DefaultIoWriteFuture> writes = new LinkedTransferQueue<DefaultIoWriteFuture>();
-    private final AtomicReference<DefaultIoWriteFuture> currentWrite = new AtomicReference<DefaultIoWriteFuture>();
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private final Object readLock = new Object();
+    private boolean readSuspended;  // guarded by readLock
+    private Runnable pendingRead;   // guarded by readLock
+    private final int maxWriteBatchBuffers;
+    private final long maxWriteBatchSize;
 
     public Nio2Session(Nio2Service service, FactoryManager manager, IoHandler handler, AsynchronousSocketChannel socket) throws IOException {
         this.service = service;
@@ -69,6 +83,8 @@ public class Nio2Session extends CloseableUtils.AbstractCloseable implements IoS
         this.socket = socket;
         this.localAddress = socket.getLocalAddress();
         this.remoteAddress = socket.getRemoteAddress();
+        this.maxWriteBatchBuffers = Math.max(1, FactoryManagerUtils.getIntProperty(manager, FactoryManager.NIO2_WRITE_BATCH_MAX_BUFFERS, DEFAULT_WRITE_BATCH_MAX_BUFFERS));
+        this.maxWriteBatchSize = FactoryManagerUtils.getLongProperty(manager, FactoryManager.NIO2_WRITE_BATCH_MAX_SIZE, DEFAULT_WRITE_BATCH_MAX_SIZE);
         log.debug("Creating IoSession on {} from {}", localAddress, remoteAddress);
     }
 
@@ -116,11 +132,11 @@ public class Nio2Session extends CloseableUtils.AbstractCloseable implements IoS
             log.debug("Writing {} bytes", Integer.valueOf(buffer.available()));
         }
 
-        ByteBuffer buf = ByteBuffer.wrap(buffer.array(), buffer.rpos(), buffer.available());
-        final DefaultIoWriteFuture future = new DefaultIoWriteFuture(null, buf);
+        final DefaultIoWriteFuture future = createWriteFuture(buffer);
         if (isClosing()) {
             Throwable exc = new ClosedChannelException();
             future.setException(exc);
+            future.releaseBuffer();
             exceptionCaught(exc);
             return future;
         }
@@ -129,6 +145,30 @@ public class Nio2Session extends CloseableUtils.AbstractCloseable implements IoS
         return future;
     }
 
+    /**
+     * Copies the packet into a direct buffer leased from the service pool (if
+     * enabled and large enough) - which spares the hidden copy into a temporary
+     * direct buffer the JDK performs for every heap buffer write. The lease is
+     * held by the write queue and released once the request leaves it - i.e.,
+     * when the data has been written or the session is closed.
+     *
+     * @param buffer The {@link Buffer} holding the data to write
+     * @return The {@link DefaultIoWriteFuture} for the write request
+     */
+    protected DefaultIoWriteFuture createWriteFuture(Buffer buffer) {
+        int len = buffer.available();
+        DirectBufferPool pool = service.getWriteBufferPool();
+        if ((pool == null) || (len > pool.getMaxBufferSize())) {
+            return new DefaultIoWriteFuture(null, ByteBuffer.wrap(buffer.array(), buffer.rpos(), len), null);
+        }
+
+        PooledBuffer pooled = pool.acquire(len);
+        ByteBuffer buf = pooled.getBuffer();
+        buf.put(buffer.array(), buffer.rpos(), len);
+        buf.flip();
+        return new DefaultIoWriteFuture(null, buf, pooled);
+    }
+
     private void exceptionCaught(Throwable exc) {
         if (!closeFuture.isClosed()) {
             if (isClosing() || !socket.isOpen()) {
@@ -156,6 +196,7 @@ public class Nio2Session extends CloseableUtils.AbstractCloseable implements IoS
             DefaultIoWriteFuture future = writes.poll();
             if (future != null) {
                 future.setException(new ClosedChannelException());
+                future.releaseBuffer();
             } else {
                 break;
             }
@@ -197,6 +238,12 @@ public class Nio2Session extends CloseableUtils.AbstractCloseable implements IoS
     }
 
     public void startReading(final ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            // expose the read bytes as an array backed buffer so they can be decoded in place
+            doReadCycle(buffer, new ByteArrayBuffer(buffer.array(), buffer.arrayOffset(), buffer.capacity(), false));
+            return;
+        }
+
         doReadCycle(buffer, new Readable() {
                 @Override
                 public int available() {
@@ -218,11 +265,16 @@ public class Nio2Session extends CloseableUtils.AbstractCloseable implements IoS
                     if (result.intValue() >= 0) {
                         log.debug("Read {} bytes", result);
                         buffer.flip();
+                        if (bufReader instanceof Buffer) {
+                            Buffer view = (Buffer) bufReader;
+                            view.rpos(buffer.arrayOffset() + buffer.position());
+                            view.wpos(buffer.arrayOffset() + buffer.limit());
+                        }
                         handler.messageReceived(Nio2Session.this, bufReader);
                         if (!closeFuture.isClosed()) {
                             // re-use reference for next iteration since we finished processing it
                             buffer.clear();
-                            doReadCycle(buffer, this);
+                            continueReading(buffer, this);
                         } else {
                             log.debug("IoSession has been closed, stop reading");
                         }
@@ -241,63 +293,197 @@ public class Nio2Session extends CloseableUtils.AbstractCloseable implements IoS
                 exceptionCaught(exc);
             }
         };
-        doReadCycle(buffer, completion);
+        continueReading(buffer, completion);
     }
 
     protected void doReadCycle(ByteBuffer buffer, Nio2CompletionHandler<Integer, Object> completion) {
         socket.read(buffer, null, completion);
     }
 
+    /**
+     * Issues the next read - unless reading has been suspended, in which case
+     * it is issued when reading is resumed
+     *
+     * @param buffer The read buffer
+     * @param completion The read completion handler
+     * @see #suspendRead()
+     * @see #resumeRead()
+     */
+    protected void continueReading(final ByteBuffer buffer, final Nio2CompletionHandler<Integer, Object> completion) {
+        synchronized (readLock) {
+            if (readSuspended) {
+                log.debug("Reading suspended on {}", this);
+                pendingRead = new Runnable() {
+                    @Override
+                    public void run() {
+                        doReadCycle(buffer, completion);
+                    }
+                };
+                return;
+            }
+        }
+        doReadCycle(buffer, completion);
+    }
+
+    @Override
+    public void suspendRead() {
+        synchronized (readLock) {
+            readSuspended = true;
+        }
+    }
+
+    @Override
+    public void resumeRead() {
+        Runnable read;
+        synchronized (readLock) {
+            readSuspended = false;
+            read = pendingRead;
+            pendingRead = null;
+        }
+        if (read == null) {
+            return;
+        }
+        if (closeFuture.isClosed()) {
+            log.debug("IoSession has been closed, not resuming reading");
+            return;
+        }
+
+        log.debug("Resuming reading on {}", this);
+        try {
+            read.run();
+        } catch (Throwable t) {
+            exceptionCaught(t);
+        }
+    }
+
+    /**
+     * Gathers as many queued requests as allowed by the batch limits, starting
+     * with the oldest one - which is always included regardless of its size.
+     * Requests whose pooled buffer has already been released (i.e., removed by
+     * a concurrent close) are dropped from the queue.
+     *
+     * @return The requests to be written by the next gathering write - each
+     * pooled buffer in it holds an extra reference for the in-flight write
+     */
+    protected List<DefaultIoWriteFuture> nextWriteBatch() {
+        List<DefaultIoWriteFuture> batch = new ArrayList<DefaultIoWriteFuture>();
+        long batchSize = 0L;
+        for (Iterator<DefaultIoWriteFuture> it = writes.iterator(); it.hasNext() && (batch.size() < maxWriteBatchBuffers);) {
+            DefaultIoWriteFuture future = it.next();
+            int len = future.buffer.remaining();
+            if ((!batch.isEmpty()) && ((batchSize + len) > maxWriteBatchSize)) {
+                break;
+            }
+            // the in-flight write holds its own reference, since the request may be
+            // removed from the queue (on close) before the socket is done with the data
+            if ((future.pooled != null) && (!future.pooled.tryRetain())) {
+                it.remove();
+                continue;
+            }
+            batch.add(future);
+            batchSize += len;
+        }
+        return batch;
+    }
+
     @SuppressWarnings("synthetic-access")
     private void startWriting() {
-        final DefaultIoWriteFuture future = writes.peek();
-        if (future != null) {
-            if (currentWrite.compareAndSet(null, future)) {
-                try {
-                    socket.write(future.buffer, null, new Nio2CompletionHandler<Integer, Object>() {
-                        @Override
-                        protected void onCompleted(Integer result, Object attachment) {
-                            if (future.buffer.hasRemaining()) {
-                                try {
-                                    socket.write(future.buffer, null, this);
-                                } catch (Throwable t) {
-                                    log.debug("Exception caught while writing", t);
-                                    future.setWritten();
-                                    finishWrite();
-                                }
-                            } else {
-                                log.debug("Finished writing");
+        if (!writing.compareAndSet(false, true)) {
+            return;
+        }
+
+        final List<DefaultIoWriteFuture> batch = nextWriteBatch();
+        if (batch.isEmpty()) {
+            writing.set(false);
+            // a request may have been queued after the batch was collected
+            if (!writes.isEmpty()) {
+                startWriting();
+            }
+            return;
+        }
+
+        final ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        for (int index = 0; index < buffers.length; index++) {
+            buffers[index] = batch.get(index).buffer;
+        }
+
+        try {
+            socket.write(buffers, 0, buffers.length, 0L, TimeUnit.MILLISECONDS, null, new Nio2CompletionHandler<Long, Object>() {
+                // index of the first request that has not been fully written yet
+                private int pending;
+
+                @Override
+                protected void onCompleted(Long result, Object attachment) {
+                    while ((pending < buffers.length) && (!buffers[pending].hasRemaining())) {
+                        DefaultIoWriteFuture future = batch.get(pending++);
+                        future.setWritten();
+                        finishWrite(future);
+                    }
+
+                    if (pending < buffers.length) {
+                        try {
+                            socket.write(buffers, pending, buffers.length - pending, 0L, TimeUnit.MILLISECONDS, null, this);
+                        } catch (Throwable t) {
+                            log.debug("Exception caught while writing", t);
+                            while (pending < buffers.length) {
+                                DefaultIoWriteFuture future = batch.get(pending++);
                                 future.setWritten();
-                                finishWrite();
+                                finishWrite(future);
                             }
+                            finishBatch();
                         }
-
-                        @Override
-                        protected void onFailed(Throwable exc, Object attachment) {
-                            future.setException(exc);
-                            exceptionCaught(exc);
-                            finishWrite();
+                    } else {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Finished writing {} packet(s)", Integer.valueOf(buffers.length));
                         }
+                        finishBatch();
+                    }
+                }
 
-                        private void finishWrite() {
-                            writes.remove(future);
-                            currentWrite.compareAndSet(future, null);
-                            startWriting();
-                        }
-                    });
-                } catch (RuntimeException e) {
-                    future.setWritten();
-                    throw e;
+                @Override
+                protected void onFailed(Throwable exc, Object attachment) {
+                    while (pending < buffers.length) {
+                        DefaultIoWriteFuture future = batch.get(pending++);
+                        future.setException(exc);
+                        finishWrite(future);
+                    }
+                    exceptionCaught(exc);
+                    finishBatch();
                 }
+
+                private void finishWrite(DefaultIoWriteFuture future) {
+                    future.releaseBuffer();
+                    if (writes.remove(future)) {
+                        future.releaseBuffer();
+                    }
+                }
+
+                private void finishBatch() {
+                    writing.set(false);
+                    startWriting();
+                }
+            });
+        } catch (RuntimeException e) {
+            for (DefaultIoWriteFuture future : batch) {
+                future.setWritten();
+                future.releaseBuffer();
             }
+            throw e;
         }
     }
 
     static class DefaultIoWriteFuture extends DefaultSshFuture<IoWriteFuture> implements IoWriteFuture {
         private final ByteBuffer buffer;
-        DefaultIoWriteFuture(Object lock, ByteBuffer buffer) {
+        private final PooledBuffer pooled;
+        DefaultIoWriteFuture(Object lock, ByteBuffer buffer, PooledBuffer pooled) {
             super(lock);
             this.buffer = buffer;
+            this.pooled = pooled;
+        }
+        void releaseBuffer() {
+            if (pooled != null) {
+                pooled.release();
+            }
         }
         @Override
         public void verify() throws SshException {
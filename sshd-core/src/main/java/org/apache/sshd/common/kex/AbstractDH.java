@@ -21,6 +21,7 @@ package org.apache.sshd.common.kex;
 import java.math.BigInteger;
 
 import org.apache.sshd.common.Digest;
+import org.apache.sshd.common.util.buffer.Buffer;
 
 /**
  * Base class for the Diffie-Hellman key agreement.
@@ -39,6 +40,17 @@ public abstract class AbstractDH {
 
     public abstract byte[] getE() throws Exception;
 
+    /**
+     * Encodes one of the exchanged public values (e or f) - e.g., in the
+     * {@code SSH_MSG_KEXDH_INIT} message and the exchange hash
+     *
+     * @param buffer The {@link Buffer} to write into
+     * @param e The public value
+     */
+    public void putE(Buffer buffer, byte[] e) {
+        buffer.putMPInt(e);
+    }
+
     protected abstract byte[] calculateK() throws Exception;
 
     public byte[] getK() throws Exception {
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.kex;
+
+import java.security.SecureRandom;
+
+import org.apache.sshd.common.Digest;
+import org.apache.sshd.common.cipher.X25519;
+import org.apache.sshd.common.digest.BuiltinDigests;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.BufferUtils;
+
+/**
+ * Curve25519 Diffie-Hellman key agreement as described in
+ * <A HREF="https://tools.ietf.org/html/rfc8731">RFC 8731</A> - also known as
+ * {@code curve25519-sha256@libssh.org}. The exchanged public values are
+ * encoded as plain 32 bytes strings rather than {@code mpint}s.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class Curve25519DH extends AbstractDH {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private byte[] privateKey;
+    private byte[] e_array;
+    private byte[] f;
+
+    public Curve25519DH() {
+        super();
+    }
+
+    @Override
+    public byte[] getE() throws Exception {
+        if (e_array == null) {
+            privateKey = X25519.generatePrivateKey(RANDOM);
+            e_array = X25519.publicKey(privateKey);
+        }
+        return e_array;
+    }
+
+    @Override
+    public void putE(Buffer buffer, byte[] e) {
+        buffer.putBytes(e);
+    }
+
+    @Override
+    protected byte[] calculateK() throws Exception {
+        getE(); // make sure we have a private key
+        // the X25519 output is used as-is as a big-endian integer
+        return stripLeadingZeroes(X25519.computeSharedSecret(privateKey, f));
+    }
+
+    @Override
+    public void setF(byte[] f) {
+        if ((f == null) || (f.length != X25519.KEY_SIZE)) {
+            throw new IllegalArgumentException("Bad Curve25519 public value size for F=" + BufferUtils.printHex(':', f));
+        }
+        this.f = f.clone();
+    }
+
+    @Override
+    public Digest getHash() throws Exception {
+        return BuiltinDigests.sha256.create();
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.keyprovider;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.sshd.common.config.keys.KeyUtils;
+import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.SecurityUtils;
+import org.apache.sshd.common.util.ValidateUtils;
+import org.apache.sshd.common.util.io.ModifiableFileWatcher;
+import org.bouncycastle.openssl.PasswordFinder;
+
+/**
+ * A {@link FileKeyPairProvider} that parses the key files only once and keeps
+ * the resulting keys indexed by type, so that resolving the host key on each
+ * key exchange does not re-read and re-decode the files. The files are watched
+ * for changes and the keys are reloaded (and replaced atomically) whenever one
+ * of them is modified, created or deleted.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class CachingFileKeyPairProvider extends FileKeyPairProvider {
+
+    /**
+     * An immutable snapshot of the loaded keys
+     */
+    protected static class KeysHolder {
+        private final String[] files;
+        private final List<ModifiableFileWatcher> watchers;
+        private final List<KeyPair> keys;
+        private final Map<String, KeyPair> keysByType;
+
+        public KeysHolder(String[] files, List<ModifiableFileWatcher> watchers, List<KeyPair> keys) {
+            this.files = files;
+            this.watchers = watchers;
+            this.keys = Collections.unmodifiableList(keys);
+
+            Map<String, KeyPair> byType = new LinkedHashMap<String, KeyPair>();
+            for (KeyPair kp : keys) {
+                String type = KeyUtils.getKeyType(kp);
+                // the first key of a given type wins - same as AbstractKeyPairProvider#loadKey
+                if ((!GenericUtils.isEmpty(type)) && (!byType.containsKey(type))) {
+                    byType.put(type, kp);
+                }
+            }
+            this.keysByType = Collections.unmodifiableMap(byType);
+        }
+
+        public List<KeyPair> getKeys() {
+            return keys;
+        }
+
+        public Map<String, KeyPair> getKeysByType() {
+            return keysByType;
+        }
+    }
+
+    private final AtomicReference<KeysHolder> holder = new AtomicReference<KeysHolder>(null);
+    private final Object reloadLock = new Object();
+    private long reloadCheckInterval;
+    private volatile long lastReloadCheck;
+
+    public CachingFileKeyPairProvider() {
+        super();
+    }
+
+    public CachingFileKeyPairProvider(String ... files) {
+        super(files);
+    }
+
+    public CachingFileKeyPairProvider(String[] files, PasswordFinder passwordFinder) {
+        super(files, passwordFinder);
+    }
+
+    /**
+     * @return The minimum interval (msec.) between checks of the files for
+     * changes - zero means every time the keys are requested
+     */
+    public long getReloadCheckInterval() {
+        return reloadCheckInterval;
+    }
+
+    public void setReloadCheckInterval(long reloadCheckInterval) {
+        ValidateUtils.checkTrue(reloadCheckInterval >= 0L, "Negative reload check interval: %d", reloadCheckInterval);
+        this.reloadCheckInterval = reloadCheckInterval;
+    }
+
+    @Override
+    public void setFiles(String[] files) {
+        super.setFiles(files);
+        holder.set(null);   // force a reload
+    }
+
+    @Override
+    public Iterable<KeyPair> loadKeys() {
+        return resolveKeys().getKeys();
+    }
+
+    @Override
+    public KeyPair loadKey(String type) {
+        ValidateUtils.checkNotNullAndNotEmpty(type, "No key type to load", GenericUtils.EMPTY_OBJECT_ARRAY);
+        return resolveKeys().getKeysByType().get(type);
+    }
+
+    @Override
+    public List<String> getKeyTypes() {
+        return new ArrayList<String>(resolveKeys().getKeysByType().keySet());
+    }
+
+    /**
+     * Discards the cached keys so that they are reloaded on next access
+     */
+    public void invalidate() {
+        holder.set(null);
+    }
+
+    protected KeysHolder resolveKeys() {
+        KeysHolder current = holder.get();
+        if ((current != null) && (!isReloadRequired(current))) {
+            return current;
+        }
+
+        synchronized (reloadLock) {
+            // check if some other thread beat us to it
+            KeysHolder latest = holder.get();
+            if ((latest != null) && (latest != current)) {
+                return latest;
+            }
+
+            KeysHolder reloaded = reloadKeys();
+            holder.set(reloaded);
+            return reloaded;
+        }
+    }
+
+    protected boolean isReloadRequired(KeysHolder current) {
+        if (current.files != getFiles()) {
+            return true;
+        }
+
+        long interval = getReloadCheckInterval();
+        if (interval > 0L) {
+            long now = System.currentTimeMillis();
+            if ((now - lastReloadCheck) < interval) {
+                return false;
+            }
+            lastReloadCheck = now;
+        }
+
+        for (ModifiableFileWatcher watcher : current.watchers) {
+            try {
+                if (watcher.checkReloadRequired()) {
+                    log.info("isReloadRequired(" + watcher.getPath() + ") file changed - reloading keys");
+                    return true;
+                }
+            } catch (IOException e) {
+                log.warn("isReloadRequired(" + watcher.getPath() + ") failed (" + e.getClass().getSimpleName() + ") to check file: " + e.getMessage());
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    protected KeysHolder reloadKeys() {
+        if (!SecurityUtils.isBouncyCastleRegistered()) {
+            throw new IllegalStateException("BouncyCastle must be registered as a JCE provider");
+        }
+
+        String[] files = getFiles();
+        int numFiles = (files == null) ? 0 : files.length;
+        List<ModifiableFileWatcher> watchers = new ArrayList<ModifiableFileWatcher>(numFiles);
+        List<KeyPair> keys = new ArrayList<KeyPair>(numFiles);
+        for (int index = 0; index < numFiles; index++) {
+            String file = files[index];
+            ModifiableFileWatcher watcher = createFileWatcher(Paths.get(file));
+            try {
+                // record the attributes before reading so that a concurrent change triggers another reload
+                watcher.updateReloadAttributes();
+            } catch (IOException e) {
+                log.warn("reloadKeys(" + file + ") failed (" + e.getClass().getSimpleName() + ") to read attributes: " + e.getMessage());
+            }
+            watchers.add(watcher);
+
+            KeyPair kp = doLoadKey(file);
+            if (kp != null) {
+                keys.add(kp);
+            }
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("reloadKeys(" + numFiles + " files) loaded " + keys.size() + " keys");
+        }
+
+        lastReloadCheck = System.currentTimeMillis();
+        return new KeysHolder(files, watchers, keys);
+    }
+
+    protected ModifiableFileWatcher createFileWatcher(Path path) {
+        return new ModifiableFileWatcher(path);
+    }
+}
@@ -18,13 +18,18 @@
  */
 package org.apache.sshd.common.keyprovider;
 
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.security.KeyPair;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
+import org.apache.sshd.common.config.keys.OpenSSHKeyPairDecoder;
+import org.apache.sshd.common.util.GenericUtils;
 import org.apache.sshd.common.util.SecurityUtils;
 import org.bouncycastle.openssl.PEMDecryptorProvider;
 import org.bouncycastle.openssl.PEMEncryptedKeyPair;
@@ -36,6 +41,8 @@ import org.bouncycastle.openssl.jcajce.JcePEMDecryptorProviderBuilder;
 
 /**
  * This host key provider loads private keys from the specified files.
+ * Besides the PEM formats, un-encrypted {@code openssh-key-v1} files (e.g.,
+ * {@code ssh-ed25519} keys) are also supported.
  * 
  * Note that this class has a direct dependency on BouncyCastle and won't work
  * unless it has been correctly registered as a security provider.
@@ -126,7 +133,13 @@ public class FileKeyPairProvider extends AbstractKeyPairProvider {
 
     protected KeyPair doLoadKey(String file) {
         try {
-            PEMParser r = new PEMParser(new InputStreamReader(new FileInputStream(file)));
+            String data = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+            if (OpenSSHKeyPairDecoder.isOpenSSHKeyPair(data)) {
+                List<KeyPair> keys = OpenSSHKeyPairDecoder.decodeKeyPairs(data);
+                return GenericUtils.isEmpty(keys) ? null : keys.get(0);
+            }
+
+            PEMParser r = new PEMParser(new StringReader(data));
             try {
                 Object o = r.readObject();
 
@@ -56,6 +56,11 @@ public interface KeyPairProvider {
      */
     String ECDSA_SHA2_NISTP521 = ECCurves.ECDSA_SHA2_PREFIX + ECCurves.NISTP521;
 
+    /**
+     * SSH identifier for Ed25519 keys
+     */
+    String SSH_ED25519 = "ssh-ed25519";
+
     /**
      * Load available keys.
      * @return an {@link Iterable} instance of available keys, never <code>null</code>
@@ -64,7 +69,7 @@ public interface KeyPairProvider {
 
     /**
      * Load a key of the specified type which can be "ssh-rsa", "ssh-dss", or
-     * "ecdsa-sha2-nistp{256,384,521}". If there is no key of this type, return
+     * "ecdsa-sha2-nistp{256,384,521}" or "ssh-ed25519". If there is no key of this type, return
      * <code>null</code>
      *
      * @param type the type of key to load
@@ -33,13 +33,19 @@ public class BaseMac implements Mac {
     private final String algorithm;
     private final int defbsize;
     private final int bsize;
+    private final boolean etmMode;
     private final byte[] tmp;
     private javax.crypto.Mac mac;
 
     public BaseMac(String algorithm, int bsize, int defbsize) {
+        this(algorithm, bsize, defbsize, false);
+    }
+
+    public BaseMac(String algorithm, int bsize, int defbsize, boolean etmMode) {
         this.algorithm = algorithm;
         this.bsize = bsize;
         this.defbsize = defbsize;
+        this.etmMode = etmMode;
         this.tmp = new byte[defbsize];
     }
 
@@ -48,6 +54,24 @@ public class BaseMac implements Mac {
         return bsize;
     }
 
+    /**
+     * @return {@code true} if this is an encrypt-then-MAC variant - i.e., the
+     * MAC is computed over the <U>encrypted</U> packet and the packet length
+     * is sent in the clear, so that the MAC can be verified before decrypting
+     */
+    public boolean isEncryptThenMac() {
+        return etmMode;
+    }
+
+    /**
+     * @param mac The {@link Mac} instance - may be {@code null}
+     * @return {@code true} if this is an encrypt-then-MAC {@link BaseMac} - any
+     * other implementation is assumed to use the standard MAC-then-encrypt mode
+     */
+    public static boolean isEncryptThenMac(Mac mac) {
+        return (mac instanceof BaseMac) && ((BaseMac) mac).isEncryptThenMac();
+    }
+
     @Override
     public void init(byte[] key) throws Exception {
         if (key.length > defbsize) {
@@ -62,6 +62,12 @@ public enum BuiltinMacs implements MacFactory {
             return new BaseMac("HmacSHA1", 20, 20);
         }
     },
+    hmacsha1etm(Constants.ETM_HMAC_SHA1) {
+        @Override
+        public Mac create() {
+            return new BaseMac("HmacSHA1", 20, 20, true);
+        }
+    },
     hmacsha196(Constants.HMAC_SHA1_96) {
         @Override
         public Mac create() {
@@ -74,10 +80,22 @@ public enum BuiltinMacs implements MacFactory {
             return new BaseMac("HmacSHA256", 32, 32);
         }
     },
+    hmacsha256etm(Constants.ETM_HMAC_SHA2_256) {
+        @Override
+        public Mac create() {
+            return new BaseMac("HmacSHA256", 32, 32, true);
+        }
+    },
     hmacsha512(Constants.HMAC_SHA2_512) {
         @Override
         public Mac create() {
-            return new BaseMac("HmacSHA1", 64, 64);
+            return new BaseMac("HmacSHA512", 64, 64);
+        }
+    },
+    hmacsha512etm(Constants.ETM_HMAC_SHA2_512) {
+        @Override
+        public Mac create() {
+            return new BaseMac("HmacSHA512", 64, 64, true);
         }
     };
 
@@ -276,5 +294,8 @@ public enum BuiltinMacs implements MacFactory {
         public static final String HMAC_SHA1_96 = "hmac-sha1-96";
         public static final String HMAC_SHA2_256 = "hmac-sha2-256";
         public static final String HMAC_SHA2_512 = "hmac-sha2-512";
+        public static final String ETM_HMAC_SHA1 = "hmac-sha1-etm@openssh.com";
+        public static final String ETM_HMAC_SHA2_256 = "hmac-sha2-256-etm@openssh.com";
+        public static final String ETM_HMAC_SHA2_512 = "hmac-sha2-512-etm@openssh.com";
     }
 }
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.mac;
+
+import java.security.InvalidKeyException;
+
+import org.apache.sshd.common.Mac;
+
+/**
+ * Poly1305 one-time authenticator as described in
+ * <A HREF="https://tools.ietf.org/html/rfc7539#section-2.5">RFC 7539</A>,
+ * using 26-bit limbs so that all the products fit in a {@code long}.
+ * <B>Note:</B> the key must be changed for every message - i.e., {@link #init(byte[])}
+ * must be called before each new message.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class Poly1305Mac implements Mac {
+
+    public static final int KEY_SIZE = 32;
+    public static final int BLOCK_SIZE = 16;
+
+    private final byte[] currentBlock = new byte[BLOCK_SIZE];
+    private final byte[] tmp = new byte[4];
+    private int currentBlockOffset;
+
+    private int r0, r1, r2, r3, r4;
+    private int s1, s2, s3, s4;
+    private int k0, k1, k2, k3;
+    private int h0, h1, h2, h3, h4;
+
+    public Poly1305Mac() {
+        super();
+    }
+
+    @Override
+    public int getBlockSize() {
+        return BLOCK_SIZE;
+    }
+
+    @Override
+    public void init(byte[] key) throws Exception {
+        if ((key == null) || (key.length < KEY_SIZE)) {
+            throw new InvalidKeyException("Poly1305 key must be " + KEY_SIZE + " bytes long");
+        }
+
+        // clamp r as required by the specification
+        int t0 = unpackIntLE(key, 0);
+        int t1 = unpackIntLE(key, 4);
+        int t2 = unpackIntLE(key, 8);
+        int t3 = unpackIntLE(key, 12);
+
+        r0 = t0 & 0x3ffffff;
+        r1 = ((t0 >>> 26) | (t1 << 6)) & 0x3ffff03;
+        r2 = ((t1 >>> 20) | (t2 << 12)) & 0x3ffc0ff;
+        r3 = ((t2 >>> 14) | (t3 << 18)) & 0x3f03fff;
+        r4 = (t3 >>> 8) & 0x00fffff;
+
+        s1 = r1 * 5;
+        s2 = r2 * 5;
+        s3 = r3 * 5;
+        s4 = r4 * 5;
+
+        k0 = unpackIntLE(key, 16);
+        k1 = unpackIntLE(key, 20);
+        k2 = unpackIntLE(key, 24);
+        k3 = unpackIntLE(key, 28);
+
+        h0 = 0;
+        h1 = 0;
+        h2 = 0;
+        h3 = 0;
+        h4 = 0;
+        currentBlockOffset = 0;
+    }
+
+    @Override
+    public void update(byte[] in, int offset, int length) {
+        while (length > 0) {
+            if ((currentBlockOffset == 0) && (length >= BLOCK_SIZE)) {
+                processBlock(in, offset, 1 << 24);
+                offset += BLOCK_SIZE;
+                length -= BLOCK_SIZE;
+                continue;
+            }
+
+            int n = Math.min(length, BLOCK_SIZE - currentBlockOffset);
+            System.arraycopy(in, offset, currentBlock, currentBlockOffset, n);
+            currentBlockOffset += n;
+            offset += n;
+            length -= n;
+            if (currentBlockOffset == BLOCK_SIZE) {
+                processBlock(currentBlock, 0, 1 << 24);
+                currentBlockOffset = 0;
+            }
+        }
+    }
+
+    @Override
+    public void updateUInt(long i) {
+        tmp[0] = (byte) (i >>> 24);
+        tmp[1] = (byte) (i >>> 16);
+        tmp[2] = (byte) (i >>> 8);
+        tmp[3] = (byte) i;
+        update(tmp, 0, 4);
+    }
+
+    @Override
+    public void doFinal(byte[] out, int offset) throws Exception {
+        if (currentBlockOffset > 0) {
+            // pad the last (partial) block with a single 1 bit followed by zeroes
+            currentBlock[currentBlockOffset] = 1;
+            for (int i = currentBlockOffset + 1; i < BLOCK_SIZE; i++) {
+                currentBlock[i] = 0;
+            }
+            processBlock(currentBlock, 0, 0);
+            currentBlockOffset = 0;
+        }
+
+        // fully carry h
+        h2 += h1 >>> 26;
+        h1 &= 0x3ffffff;
+        h3 += h2 >>> 26;
+        h2 &= 0x3ffffff;
+        h4 += h3 >>> 26;
+        h3 &= 0x3ffffff;
+        h0 += (h4 >>> 26) * 5;
+        h4 &= 0x3ffffff;
+        h1 += h0 >>> 26;
+        h0 &= 0x3ffffff;
+
+        // compute h + -p
+        int g0 = h0 + 5;
+        int c = g0 >>> 26;
+        g0 &= 0x3ffffff;
+        int g1 = h1 + c;
+        c = g1 >>> 26;
+        g1 &= 0x3ffffff;
+        int g2 = h2 + c;
+        c = g2 >>> 26;
+        g2 &= 0x3ffffff;
+        int g3 = h3 + c;
+        c = g3 >>> 26;
+        g3 &= 0x3ffffff;
+        int g4 = h4 + c - (1 << 26);
+
+        // select h if h < p, or h + -p if h >= p
+        int mask = (g4 >>> 31) - 1;
+        int nmask = ~mask;
+        h0 = (h0 & nmask) | (g0 & mask);
+        h1 = (h1 & nmask) | (g1 & mask);
+        h2 = (h2 & nmask) | (g2 & mask);
+        h3 = (h3 & nmask) | (g3 & mask);
+        h4 = (h4 & nmask) | (g4 & mask);
+
+        // h = (h + k) % 2^128
+        long f0 = ((h0) | (h1 << 26)) & 0xffffffffL;
+        long f1 = ((h1 >>> 6) | (h2 << 20)) & 0xffffffffL;
+        long f2 = ((h2 >>> 12) | (h3 << 14)) & 0xffffffffL;
+        long f3 = ((h3 >>> 18) | (h4 << 8)) & 0xffffffffL;
+
+        f0 += k0 & 0xffffffffL;
+        f1 += (k1 & 0xffffffffL) + (f0 >>> 32);
+        f2 += (k2 & 0xffffffffL) + (f1 >>> 32);
+        f3 += (k3 & 0xffffffffL) + (f2 >>> 32);
+
+        packIntLE((int) f0, out, offset);
+        packIntLE((int) f1, out, offset + 4);
+        packIntLE((int) f2, out, offset + 8);
+        packIntLE((int) f3, out, offset + 12);
+    }
+
+    private void processBlock(byte[] m, int offset, int hibit) {
+        int t0 = unpackIntLE(m, offset);
+        int t1 = unpackIntLE(m, offset + 4);
+        int t2 = unpackIntLE(m, offset + 8);
+        int t3 = unpackIntLE(m, offset + 12);
+
+        h0 += t0 & 0x3ffffff;
+        h1 += ((t0 >>> 26) | (t1 << 6)) & 0x3ffffff;
+        h2 += ((t1 >>> 20) | (t2 << 12)) & 0x3ffffff;
+        h3 += ((t2 >>> 14) | (t3 << 18)) & 0x3ffffff;
+        h4 += (t3 >>> 8) | hibit;
+
+        long d0 = mul(h0, r0) + mul(h1, s4) + mul(h2, s3) + mul(h3, s2) + mul(h4, s1);
+        long d1 = mul(h0, r1) + mul(h1, r0) + mul(h2, s4) + mul(h3, s3) + mul(h4, s2);
+        long d2 = mul(h0, r2) + mul(h1, r1) + mul(h2, r0) + mul(h3, s4) + mul(h4, s3);
+        long d3 = mul(h0, r3) + mul(h1, r2) + mul(h2, r1) + mul(h3, r0) + mul(h4, s4);
+        long d4 = mul(h0, r4) + mul(h1, r3) + mul(h2, r2) + mul(h3, r1) + mul(h4, r0);
+
+        long c = d0 >>> 26;
+        h0 = (int) d0 & 0x3ffffff;
+        d1 += c;
+        c = d1 >>> 26;
+        h1 = (int) d1 & 0x3ffffff;
+        d2 += c;
+        c = d2 >>> 26;
+        h2 = (int) d2 & 0x3ffffff;
+        d3 += c;
+        c = d3 >>> 26;
+        h3 = (int) d3 & 0x3ffffff;
+        d4 += c;
+        c = d4 >>> 26;
+        h4 = (int) d4 & 0x3ffffff;
+        h0 += (int) (c * 5);
+        h1 += h0 >>> 26;
+        h0 &= 0x3ffffff;
+    }
+
+    private static long mul(int a, int b) {
+        return (a & 0xffffffffL) * (b & 0xffffffffL);
+    }
+
+    private static int unpackIntLE(byte[] buf, int off) {
+        return (buf[off] & 0xff)
+             | ((buf[off + 1] & 0xff) << 8)
+             | ((buf[off + 2] & 0xff) << 16)
+             | ((buf[off + 3] & 0xff) << 24);
+    }
+
+    private static void packIntLE(int value, byte[] buf, int off) {
+        buf[off] = (byte) value;
+        buf[off + 1] = (byte) (value >>> 8);
+        buf[off + 2] = (byte) (value >>> 16);
+        buf[off + 3] = (byte) (value >>> 24);
+    }
+}
@@ -64,13 +64,11 @@ public class JceRandom implements Random {
         if (start == 0 && len == foo.length) {
             random.nextBytes(foo);
         } else {
-            synchronized (this) {
-                if (len > tmp.length) {
-                      tmp = new byte[len];
-                }
-                random.nextBytes(tmp);
-                System.arraycopy(tmp, 0, foo, start, len);
+            if (len > tmp.length) {
+                tmp = new byte[len];
             }
+            random.nextBytes(tmp);
+            System.arraycopy(tmp, 0, foo, start, len);
         }
     }
 
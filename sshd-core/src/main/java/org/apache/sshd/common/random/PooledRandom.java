@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.random;
+
+import org.apache.sshd.common.Random;
+import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.ValidateUtils;
+
+/**
+ * A <code>Random</code> wrapper that generates its data in blocks of
+ * a fixed size and serves the (small) requests from them - thus reducing
+ * the number of calls to the underlying generator. Requests larger than
+ * the pool are delegated directly. Each pooled byte is handed out only once.
+ * <B>Note:</B> this class is <U>not</U> thread-safe - it is meant to be
+ * used as a per-thread instance - e.g., by {@link ThreadLocalRandomFactory}.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class PooledRandom implements Random {
+
+    private final Random random;
+    private final byte[] pool;
+    private int pos;
+
+    public PooledRandom(Random random, int poolSize) {
+        this.random = ValidateUtils.checkNotNull(random, "No random", GenericUtils.EMPTY_OBJECT_ARRAY);
+        ValidateUtils.checkTrue(poolSize > 0, "Bad pool size: %d", poolSize);
+        this.pool = new byte[poolSize];
+        this.pos = poolSize;    // generate lazily on first use
+    }
+
+    public int getPoolSize() {
+        return pool.length;
+    }
+
+    @Override
+    public void fill(byte[] bytes, int start, int len) {
+        if (len > pool.length) {
+            random.fill(bytes, start, len);
+            return;
+        }
+
+        if (len > (pool.length - pos)) {
+            random.fill(pool, 0, pool.length);
+            pos = 0;
+        }
+
+        System.arraycopy(pool, pos, bytes, start, len);
+        pos += len;
+    }
+
+    @Override
+    public int random(int n) {
+        return random.random(n);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.random;
+
+import org.apache.sshd.common.NamedFactory;
+import org.apache.sshd.common.Random;
+import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.ValidateUtils;
+
+/**
+ * A random factory wrapper that can be shared by all sessions without
+ * any contention: each thread lazily gets its own instance created by the
+ * wrapped factory, so unlike {@link SingletonRandomFactory} the underlying
+ * random does not have to be thread safe and no monitor is shared on the
+ * packet encoding path. Optionally, each per-thread instance is wrapped in
+ * a {@link PooledRandom} so that the small fills used for packet padding are
+ * served from a pre-generated pool.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class ThreadLocalRandomFactory implements Random, NamedFactory<Random> {
+
+    /**
+     * Default size of the per-thread pre-generated pool used by the builders
+     */
+    public static final int DEFAULT_POOL_SIZE = 1024;
+
+    private final NamedFactory<Random> factory;
+    private final int poolSize;
+    private final ThreadLocal<Random> randoms = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return createThreadRandom();
+        }
+    };
+
+    public ThreadLocalRandomFactory(NamedFactory<Random> factory) {
+        this(factory, 0);
+    }
+
+    /**
+     * @param factory The wrapped factory used to create the per-thread instances
+     * @param poolSize Size of the per-thread pre-generated pool - if non-positive
+     * then the instances are used directly
+     */
+    public ThreadLocalRandomFactory(NamedFactory<Random> factory, int poolSize) {
+        this.factory = ValidateUtils.checkNotNull(factory, "No random factory", GenericUtils.EMPTY_OBJECT_ARRAY);
+        this.poolSize = poolSize;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    @Override
+    public void fill(byte[] bytes, int start, int len) {
+        randoms.get().fill(bytes, start, len);
+    }
+
+    @Override
+    public int random(int max) {
+        return randoms.get().random(max);
+    }
+
+    @Override
+    public String getName() {
+        return factory.getName();
+    }
+
+    @Override
+    public Random create() {
+        return this;
+    }
+
+    protected Random createThreadRandom() {
+        Random random = factory.create();
+        if (poolSize > 0) {
+            return new PooledRandom(random, poolSize);
+        } else {
+            return random;
+        }
+    }
+}
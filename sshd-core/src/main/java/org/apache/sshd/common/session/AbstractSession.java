@@ -56,12 +56,14 @@ import org.apache.sshd.common.Session;
 import org.apache.sshd.common.SessionListener;
 import org.apache.sshd.common.SshConstants;
 import org.apache.sshd.common.SshException;
+import org.apache.sshd.common.cipher.AuthenticatedCipher;
 import org.apache.sshd.common.compression.Compression;
 import org.apache.sshd.common.future.DefaultSshFuture;
 import org.apache.sshd.common.future.SshFuture;
 import org.apache.sshd.common.future.SshFutureListener;
 import org.apache.sshd.common.io.IoSession;
 import org.apache.sshd.common.io.IoWriteFuture;
+import org.apache.sshd.common.mac.BaseMac;
 import org.apache.sshd.common.util.CloseableUtils;
 import org.apache.sshd.common.util.EventListenerUtils;
 import org.apache.sshd.common.util.Readable;
@@ -296,23 +298,38 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
      * Main input point for the MINA framework.
      *
      * This method will be called each time new data is received on
-     * the socket and will append it to the input buffer before
-     * calling the {@link #decode()} method.
+     * the socket. If no partial packet is pending and the data is held
+     * in a {@link ByteArrayBuffer} (e.g., the NIO2 read buffer) the packets
+     * are decoded - and decrypted in place - directly from it, and only the
+     * trailing partial packet (if any) is copied aside. Otherwise, the data
+     * is appended to the input buffer before calling the {@link #decode()}
+     * method.
      *
      * @param buffer the new buffer received
      * @throws Exception if an error occurs while decoding or handling the data
      */
     public void messageReceived(Readable buffer) throws Exception {
         synchronized (decodeLock) {
-            decoderBuffer.putBuffer(buffer);
             // One of those property will be set by the constructor and the other
             // one should be set by the readIdentification method
             if (clientVersion == null || serverVersion == null) {
+                decoderBuffer.putBuffer(buffer);
                 if (readIdentification(decoderBuffer)) {
                     decoderBuffer.compact();
                 } else {
                     return;
                 }
+            } else if ((decoderBuffer.available() <= 0) && (buffer instanceof ByteArrayBuffer)) {
+                Buffer input = (Buffer) buffer;
+                decode(input);
+                // keep whatever is left of the last (partial) packet for the next read
+                decoderBuffer.clear();
+                if (input.available() > 0) {
+                    decoderBuffer.putBuffer(input);
+                }
+                return;
+            } else {
+                decoderBuffer.putBuffer(buffer);
             }
             decode();
         }
@@ -637,6 +654,9 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
             if (outMac != null) {
                 len += outMac.getBlockSize();
             }
+            if (outCipher instanceof AuthenticatedCipher) {
+                len += ((AuthenticatedCipher) outCipher).getAuthenticationTagSize();
+            }
             buffer = new ByteArrayBuffer(new byte[Math.max(len, ByteArrayBuffer.DEFAULT_SIZE)], false);
         }
         buffer.rpos(5);
@@ -675,15 +695,20 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
                 outCompression.compress(buffer);
                 len = buffer.available();
             }
+            // AEAD ciphers and encrypt-then-MAC modes do not encrypt the packet length,
+            // so it is not part of the padded data
+            AuthenticatedCipher authCipher = (outCipher instanceof AuthenticatedCipher) ? (AuthenticatedCipher) outCipher : null;
+            boolean etmMode = (authCipher == null) && BaseMac.isEncryptThenMac(outMac);
+            int aadLen = ((authCipher != null) || etmMode) ? 4 : 0;
             // Compute padding length
             int bsize = outCipherSize;
             int oldLen = len;
-            len += 5;
+            len += 5 - aadLen;
             int pad = (-len) & (bsize - 1);
             if (pad < bsize) {
                 pad += bsize;
             }
-            len = len + pad - 4;
+            len = len + pad - 4 + aadLen;
             // Write 5 header bytes
             buffer.wpos(off);
             buffer.putInt(len);
@@ -692,17 +717,20 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
             buffer.wpos(off + oldLen + 5 + pad);
             random.fill(buffer.array(), buffer.wpos() - pad, pad);
             // Compute mac
-            if (outMac != null) {
-                int macSize = outMac.getBlockSize();
-                int l = buffer.wpos();
-                buffer.wpos(l + macSize);
-                outMac.updateUInt(seqo);
-                outMac.update(buffer.array(), off, l);
-                outMac.doFinal(buffer.array(), l);
+            if ((outMac != null) && (!etmMode)) {
+                appendOutgoingMac(buffer, off);
             }
             // Encrypt packet, excluding mac
-            if (outCipher != null) {
-                outCipher.update(buffer.array(), off, len + 4);
+            if (authCipher != null) {
+                // the AEAD cipher appends the authentication tag right after the packet
+                buffer.wpos(buffer.wpos() + authCipher.getAuthenticationTagSize());
+                authCipher.updatePacket(buffer.array(), off, len, seqo);
+            } else if (outCipher != null) {
+                outCipher.update(buffer.array(), off + aadLen, len + 4 - aadLen);
+            }
+            // In encrypt-then-MAC mode the mac is computed over the encrypted packet
+            if (etmMode) {
+                appendOutgoingMac(buffer, off);
             }
             // Increment packet id
             seqo = (seqo + 1) & 0xffffffffL;
@@ -718,29 +746,75 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
         }
     }
 
+    /**
+     * Computes the MAC of the outgoing packet and appends it to the buffer
+     *
+     * @param buffer The buffer containing the packet
+     * @param off Offset of the packet in the buffer
+     * @throws Exception If failed to compute the MAC
+     */
+    private void appendOutgoingMac(Buffer buffer, int off) throws Exception {
+        int macSize = outMac.getBlockSize();
+        int l = buffer.wpos();
+        buffer.wpos(l + macSize);
+        outMac.updateUInt(seqo);
+        outMac.update(buffer.array(), off, l);
+        outMac.doFinal(buffer.array(), l);
+    }
+
     /**
      * Decode the incoming buffer and handle packets as needed.
      *
      * @throws Exception
      */
     protected void decode() throws Exception {
+        decode(decoderBuffer);
+        // compact once for the whole batch rather than after each packet
+        decoderBuffer.compact();
+    }
+
+    /**
+     * Decodes and handles all the complete packets available in the given
+     * buffer. The packets are decrypted in place. On return the read position
+     * is at the start of the next (incomplete) packet - whose length may
+     * already have been decoded if {@link #decoderState} is 1.
+     *
+     * @param input The {@link Buffer} holding the received data
+     * @throws Exception If failed to decode or handle a packet
+     */
+    protected void decode(Buffer input) throws Exception {
         // Decoding loop
         for (;;) {
+            // The read position is always at the beginning of the current packet
+            int start = input.rpos();
+            byte[] data = input.array();
             // Wait for beginning of packet
             if (decoderState == 0) {
-                // The read position should always be 0 at this point because we have compacted this buffer
-                assert decoderBuffer.rpos() == 0;
                 // If we have received enough bytes, start processing those
-                if (decoderBuffer.available() > inCipherSize) {
-                    // Decrypt the first bytes
-                    if (inCipher != null) {
-                        inCipher.update(decoderBuffer.array(), 0, inCipherSize);
+                if (input.available() > inCipherSize) {
+                    if (inCipher instanceof AuthenticatedCipher) {
+                        // AEAD ciphers only decode the length - the packet is decrypted once authenticated
+                        decoderLength = ((AuthenticatedCipher) inCipher).getPacketLength(data, start, seqi);
+                    } else if (BaseMac.isEncryptThenMac(inMac)) {
+                        // The packet length is sent in the clear in encrypt-then-MAC mode
+                        decoderLength = input.getInt();
+                        // ...so reject garbage before spending any cipher work on it
+                        if ((decoderLength % inCipherSize) != 0) {
+                            throw new SshException(SshConstants.SSH2_DISCONNECT_PROTOCOL_ERROR,
+                                                   "Packet length not aligned with cipher block size: " + decoderLength);
+                        }
+                    } else {
+                        // Decrypt the first bytes
+                        if (inCipher != null) {
+                            inCipher.update(data, start, inCipherSize);
+                        }
+                        // Read packet length
+                        decoderLength = input.getInt();
                     }
-                    // Read packet length
-                    decoderLength = decoderBuffer.getInt();
+                    input.rpos(start);
                     // Check packet length validity
                     if (decoderLength < 5 || decoderLength > (256 * 1024)) {
-                        log.warn("Error decoding packet (invalid length) {}", decoderBuffer.printHex());
+                        log.warn("Error decoding packet (invalid length) {}", input.printHex());
                         throw new SshException(SshConstants.SSH2_DISCONNECT_PROTOCOL_ERROR,
                                                "Invalid packet length: " + decoderLength);
                     }
@@ -752,35 +826,37 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
                 }
             // We have received the beginning of the packet
             } else if (decoderState == 1) {
-                // The read position should always be 4 at this point
-                assert decoderBuffer.rpos() == 4;
-                int macSize = inMac != null ? inMac.getBlockSize() : 0;
+                AuthenticatedCipher authCipher = (inCipher instanceof AuthenticatedCipher) ? (AuthenticatedCipher) inCipher : null;
+                int macSize = (authCipher != null) ? authCipher.getAuthenticationTagSize() : (inMac != null ? inMac.getBlockSize() : 0);
                 // Check if the packet has been fully received
-                if (decoderBuffer.available() >= decoderLength + macSize) {
-                    byte[] data = decoderBuffer.array();
+                if (input.available() >= decoderLength + 4 + macSize) {
+                    boolean etmMode = (authCipher == null) && BaseMac.isEncryptThenMac(inMac);
+                    // In encrypt-then-MAC mode, check the mac before spending any effort on decryption
+                    if (etmMode) {
+                        validateIncomingMac(data, start, macSize);
+                    }
                     // Decrypt the remaining of the packet
-                    if (inCipher != null){
-                        inCipher.update(data, inCipherSize, decoderLength + 4 - inCipherSize);
+                    if (authCipher != null) {
+                        // verifies the authentication tag before decrypting
+                        authCipher.updatePacket(data, start, decoderLength, seqi);
+                    } else if (etmMode) {
+                        if (inCipher != null) {
+                            inCipher.update(data, start + 4, decoderLength);
+                        }
+                    } else if (inCipher != null){
+                        inCipher.update(data, start + inCipherSize, decoderLength + 4 - inCipherSize);
                     }
                     // Check the mac of the packet
-                    if (inMac != null) {
-                        // Update mac with packet id
-                        inMac.updateUInt(seqi);
-                        // Update mac with packet data
-                        inMac.update(data, 0, decoderLength + 4);
-                        // Compute mac result
-                        inMac.doFinal(inMacResult, 0);
-                        // Check the computed result with the received mac (just after the packet data)
-                        if (!BufferUtils.equals(inMacResult, 0, data, decoderLength + 4, macSize)) {
-                            throw new SshException(SshConstants.SSH2_DISCONNECT_MAC_ERROR, "MAC Error");
-                        }
+                    if ((inMac != null) && (!etmMode)) {
+                        validateIncomingMac(data, start, macSize);
                     }
                     // Increment incoming packet sequence number
                     seqi = (seqi + 1) & 0xffffffffL;
                     // Get padding
-                    byte pad = decoderBuffer.getByte();
+                    input.rpos(start + 4);
+                    byte pad = input.getByte();
                     Buffer buf;
-                    int wpos = decoderBuffer.wpos();
+                    int wpos = input.wpos();
                     // Decompress if needed
                     if (inCompression != null && (authed || !inCompression.isDelayed())) {
                         if (uncompressBuffer == null) {
@@ -788,12 +864,12 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
                         } else {
                             uncompressBuffer.clear();
                         }
-                        decoderBuffer.wpos(decoderBuffer.rpos() + decoderLength - 1 - pad);
-                        inCompression.uncompress(decoderBuffer, uncompressBuffer);
+                        input.wpos(input.rpos() + decoderLength - 1 - pad);
+                        inCompression.uncompress(input, uncompressBuffer);
                         buf = uncompressBuffer;
                     } else {
-                        decoderBuffer.wpos(decoderLength + 4 - pad);
-                        buf = decoderBuffer;
+                        input.wpos(start + decoderLength + 4 - pad);
+                        buf = input;
                     }
                     if (log.isTraceEnabled()) {
                         log.trace("Received packet #{}: {}", Long.valueOf(seqi), buf.printHex());
@@ -804,9 +880,8 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
                     // Process decoded packet
                     handleMessage(buf);
                     // Set ready to handle next packet
-                    decoderBuffer.rpos(decoderLength + 4 + macSize);
-                    decoderBuffer.wpos(wpos);
-                    decoderBuffer.compact();
+                    input.rpos(start + decoderLength + 4 + macSize);
+                    input.wpos(wpos);
                     decoderState = 0;
                 } else {
                     // need more data
@@ -816,6 +891,28 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
         }
     }
 
+    /**
+     * Checks the mac of the incoming packet currently being decoded
+     *
+     * @param data The received data
+     * @param offset Offset of the packet in the data - i.e., of its length
+     * @param macSize The mac size
+     * @throws Exception If failed to compute the mac or it does not match
+     * the one received right after the packet data
+     */
+    private void validateIncomingMac(byte[] data, int offset, int macSize) throws Exception {
+        // Update mac with packet id
+        inMac.updateUInt(seqi);
+        // Update mac with packet data
+        inMac.update(data, offset, decoderLength + 4);
+        // Compute mac result
+        inMac.doFinal(inMacResult, 0);
+        // Check the computed result with the received mac (just after the packet data)
+        if (!BufferUtils.equals(inMacResult, 0, data, offset + decoderLength + 4, macSize)) {
+            throw new SshException(SshConstants.SSH2_DISCONNECT_MAC_ERROR, "MAC Error");
+        }
+    }
+
     /**
      * Send our identification.
      *
@@ -1037,20 +1134,29 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
         MACs2c = hash.digest();
 
         s2ccipher = NamedFactory.Utils.create(factoryManager.getCipherFactories(), negotiated[SshConstants.PROPOSAL_ENC_ALGS_STOC]);
-        Es2c = resizeKey(Es2c, s2ccipher.getBlockSize(), hash, K, H);
+        Es2c = resizeKey(Es2c, Cipher.Utils.getKeySize(s2ccipher), hash, K, H);
         s2ccipher.init(isServer ? Cipher.Mode.Encrypt : Cipher.Mode.Decrypt, Es2c, IVs2c);
 
-        s2cmac = NamedFactory.Utils.create(factoryManager.getMacFactories(), negotiated[SshConstants.PROPOSAL_MAC_ALGS_STOC]);
-        MACs2c = resizeKey(MACs2c, s2cmac.getBlockSize(), hash, K, H);
-        s2cmac.init(MACs2c);
+        // AEAD ciphers provide their own integrity protection
+        if (s2ccipher instanceof AuthenticatedCipher) {
+            s2cmac = null;
+        } else {
+            s2cmac = NamedFactory.Utils.create(factoryManager.getMacFactories(), negotiated[SshConstants.PROPOSAL_MAC_ALGS_STOC]);
+            MACs2c = resizeKey(MACs2c, s2cmac.getBlockSize(), hash, K, H);
+            s2cmac.init(MACs2c);
+        }
 
         c2scipher = NamedFactory.Utils.create(factoryManager.getCipherFactories(), negotiated[SshConstants.PROPOSAL_ENC_ALGS_CTOS]);
-        Ec2s = resizeKey(Ec2s, c2scipher.getBlockSize(), hash, K, H);
+        Ec2s = resizeKey(Ec2s, Cipher.Utils.getKeySize(c2scipher), hash, K, H);
         c2scipher.init(isServer ? Cipher.Mode.Decrypt : Cipher.Mode.Encrypt, Ec2s, IVc2s);
 
-        c2smac = NamedFactory.Utils.create(factoryManager.getMacFactories(), negotiated[SshConstants.PROPOSAL_MAC_ALGS_CTOS]);
-        MACc2s = resizeKey(MACc2s, c2smac.getBlockSize(), hash, K, H);
-        c2smac.init(MACc2s);
+        if (c2scipher instanceof AuthenticatedCipher) {
+            c2smac = null;
+        } else {
+            c2smac = NamedFactory.Utils.create(factoryManager.getMacFactories(), negotiated[SshConstants.PROPOSAL_MAC_ALGS_CTOS]);
+            MACc2s = resizeKey(MACc2s, c2smac.getBlockSize(), hash, K, H);
+            c2smac.init(MACc2s);
+        }
 
         s2ccomp = NamedFactory.Utils.create(factoryManager.getCompressionFactories(), negotiated[SshConstants.PROPOSAL_COMP_ALGS_STOC]);
         c2scomp = NamedFactory.Utils.create(factoryManager.getCompressionFactories(), negotiated[SshConstants.PROPOSAL_COMP_ALGS_CTOS]);
@@ -1072,10 +1178,10 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
         }
         outCipherSize = outCipher.getIVSize();
         if (outCompression != null) {
-            outCompression.init(Compression.Type.Deflater, -1);
+            outCompression.init(Compression.Type.Deflater, getIntProperty(FactoryManager.COMPRESSION_LEVEL, -1));
         }
         inCipherSize = inCipher.getIVSize();
-        inMacResult = new byte[inMac.getBlockSize()];
+        inMacResult = (inMac == null) ? null : new byte[inMac.getBlockSize()];
         if (inCompression != null) {
             inCompression.init(Compression.Type.Inflater, -1);
         }
@@ -1177,6 +1283,11 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
                 }
             }
             
+            // no MAC is used (hence none needs to be agreed upon) if the negotiated cipher is an AEAD one
+            if ((guess[i] == null) && isAuthenticatedCipherNegotiated(guess, i)) {
+                continue;
+            }
+
             // check if reached an agreement
             if (guess[i] == null) {
             	String	message="Unable to negotiate key exchange for " + paramName
@@ -1210,6 +1321,31 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
         }
     }
 
+    /**
+     * @param guess The negotiated values so far
+     * @param index The negotiated parameter index
+     * @return {@code true} if this is a MAC parameter and the matching
+     * negotiated cipher is an {@link AuthenticatedCipher}
+     */
+    protected boolean isAuthenticatedCipherNegotiated(String[] guess, int index) {
+        int cipherIndex;
+        if (index == SshConstants.PROPOSAL_MAC_ALGS_CTOS) {
+            cipherIndex = SshConstants.PROPOSAL_ENC_ALGS_CTOS;
+        } else if (index == SshConstants.PROPOSAL_MAC_ALGS_STOC) {
+            cipherIndex = SshConstants.PROPOSAL_ENC_ALGS_STOC;
+        } else {
+            return false;
+        }
+
+        String name = guess[cipherIndex];
+        if (name == null) {
+            return false;
+        }
+
+        Cipher cipher = NamedFactory.Utils.create(factoryManager.getCipherFactories(), name);
+        return cipher instanceof AuthenticatedCipher;
+    }
+
     protected void requestSuccess(Buffer buffer) throws Exception{
         synchronized (requestResult) {
             requestResult.set(new ByteArrayBuffer(buffer.getCompactData()));
@@ -1360,6 +1496,28 @@ public abstract class AbstractSession extends CloseableUtils.AbstractInnerClosea
         }
     }
 
+    /**
+     * Computes the earliest time at which {@link #checkForTimeouts()} might
+     * disconnect the session. The idle deadline is only a lower bound since
+     * {@link #resetIdleTimeout()} keeps pushing it forward - callers are
+     * expected to re-check lazily once it has expired.
+     *
+     * @param now The current time in milliseconds
+     * @return The deadline in milliseconds - {@link Long#MAX_VALUE} if no
+     * timeout applies to this session
+     */
+    protected long getTimeoutDeadline(long now) {
+        long deadline = Long.MAX_VALUE;
+        if (!authed && authTimeoutMs > 0) {
+            deadline = authTimeoutTimestamp;
+        }
+        if (idleTimeoutMs > 0) {
+            long idleDeadline = (idleTimeoutTimestamp > 0) ? idleTimeoutTimestamp : now + idleTimeoutMs;
+            deadline = Math.min(deadline, idleDeadline);
+        }
+        return deadline;
+    }
+
     @Override
     public void resetIdleTimeout() {
         this.idleTimeoutTimestamp = System.currentTimeMillis() + idleTimeoutMs;
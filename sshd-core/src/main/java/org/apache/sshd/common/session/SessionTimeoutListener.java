@@ -18,26 +18,75 @@
  */
 package org.apache.sshd.common.session;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.sshd.common.Session;
 import org.apache.sshd.common.SessionListener;
 import org.apache.sshd.common.util.AbstractLoggingBean;
 
 /**
- * Task that iterates over all currently open {@link AbstractSession}s and checks each of them for timeouts. If
+ * Task that checks the currently open {@link AbstractSession}s for timeouts. If
  * the {@link AbstractSession} has timed out (either auth or idle timeout), the session will be disconnected.
+ * <P>
+ * Sessions are kept in a hashed timer wheel whose slots are indexed by the tick
+ * at which the session might time out, so each {@link #run()} only visits the
+ * sessions due in the elapsed ticks and creating or closing a session costs O(1).
+ * Since {@link AbstractSession#resetIdleTimeout()} only updates a timestamp, a
+ * session whose deadline has moved is simply re-inserted in a later slot when its
+ * current slot comes up.
+ * </P>
  *
  * @see org.apache.sshd.common.session.AbstractSession#checkForTimeouts()
  */
 public class SessionTimeoutListener extends AbstractLoggingBean implements SessionListener, Runnable {
-    private final Set<AbstractSession> sessions = new CopyOnWriteArraySet<AbstractSession>();
+    /**
+     * Default number of slots in the wheel
+     */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /**
+     * Default duration of a wheel tick - matches the rate at which the
+     * factory manager schedules {@link #run()}
+     */
+    public static final long DEFAULT_TICK_MILLIS = TimeUnit.SECONDS.toMillis(1L);
+
+    private final long tickMillis;
+    private final Set<AbstractSession>[] wheel;
+    private final Map<AbstractSession, Integer> slots = new ConcurrentHashMap<AbstractSession, Integer>();
+    private volatile long currentTick;
+
+    public SessionTimeoutListener() {
+        this(DEFAULT_WHEEL_SIZE, DEFAULT_TICK_MILLIS);
+    }
+
+    @SuppressWarnings("unchecked")
+    public SessionTimeoutListener(int wheelSize, long tickMillis) {
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("Bad wheel size: " + wheelSize);
+        }
+        if (tickMillis <= 0L) {
+            throw new IllegalArgumentException("Bad tick duration: " + tickMillis);
+        }
+
+        this.tickMillis = tickMillis;
+        this.wheel = new Set[wheelSize];
+        for (int index = 0; index < wheelSize; index++) {
+            wheel[index] = Collections.newSetFromMap(new ConcurrentHashMap<AbstractSession, Boolean>());
+        }
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+    }
 
     @Override
     public void sessionCreated(Session session) {
         if (session instanceof AbstractSession && (session.getAuthTimeout() > 0 || session.getIdleTimeout() > 0)) {
-            sessions.add((AbstractSession) session);
+            schedule((AbstractSession) session, System.currentTimeMillis());
         }
     }
 
@@ -48,17 +97,86 @@ public class SessionTimeoutListener extends AbstractLoggingBean implements Sessi
 
     @Override
     public void sessionClosed(Session s) {
-        sessions.remove(s);
+        Integer slot = slots.remove(s);
+        if (slot != null) {
+            wheel[slot.intValue()].remove(s);
+        }
+    }
+
+    /**
+     * @return The number of sessions currently being monitored
+     */
+    public int getMonitoredSessionsCount() {
+        return slots.size();
     }
 
     @Override
     public void run() {
-        for (AbstractSession session : sessions) {
+        checkTimeouts(System.currentTimeMillis());
+    }
+
+    /**
+     * Visits the slots of all the ticks elapsed since the previous invocation
+     *
+     * @param now The current time in milliseconds
+     */
+    protected void checkTimeouts(long now) {
+        long targetTick = now / tickMillis;
+        if (targetTick < currentTick) {
+            // the clock went backwards - resume from the current tick
+            currentTick = targetTick - 1L;
+        }
+        // catch up on delayed runs, but never go around the wheel more than once
+        for (long tick = Math.max(currentTick + 1L, targetTick - wheel.length + 1L); tick <= targetTick; tick++) {
+            currentTick = tick;
+            expire(wheel[(int) (tick % wheel.length)], now);
+        }
+    }
+
+    protected void expire(Set<AbstractSession> slot, long now) {
+        // drain the slot first since a session may be re-inserted into the same one
+        List<AbstractSession> due = new ArrayList<AbstractSession>(slot.size());
+        for (Iterator<AbstractSession> it = slot.iterator(); it.hasNext(); ) {
+            due.add(it.next());
+            it.remove();
+        }
+
+        for (AbstractSession session : due) {
+            if (session.isClosing() || session.isClosed()) {
+                slots.remove(session);
+                continue;
+            }
+
             try {
                 session.checkForTimeouts();
             } catch(Exception e) {
                 log.warn("An error occurred while checking session=" + session + " timeouts", e);
             }
+
+            if (session.isClosing() || session.isClosed()) {
+                slots.remove(session);
+            } else {
+                schedule(session, now);
+            }
+        }
+    }
+
+    protected void schedule(AbstractSession session, long now) {
+        long deadline = session.getTimeoutDeadline(now);
+        if (deadline == Long.MAX_VALUE) {
+            slots.remove(session);
+            return;
+        }
+
+        // checkForTimeouts() only fires once the deadline has been passed
+        long tick = Math.max(deadline / tickMillis + 1L, currentTick + 1L);
+        int slot = (int) (tick % wheel.length);
+        slots.put(session, Integer.valueOf(slot));
+        wheel[slot].add(session);
+
+        // the session may have been closed - and sessionClosed invoked - while being inserted
+        if (session.isClosing() || session.isClosed()) {
+            sessionClosed(session);
         }
     }
 }
@@ -24,6 +24,11 @@ package org.apache.sshd.common.sftp;
 public class SftpConstants {
     public static String SFTP_SUBSYSTEM_NAME = "sftp";
 
+    /**
+     * OpenSSH extension used to query the server's packet, read/write and handles limits
+     */
+    public static final String EXT_LIMITS = "limits@openssh.com";
+
     public static final int SSH_FXP_INIT =             1;
     public static final int SSH_FXP_VERSION =          2;
     public static final int SSH_FXP_OPEN =             3;
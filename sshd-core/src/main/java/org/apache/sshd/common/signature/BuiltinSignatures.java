@@ -91,6 +91,12 @@ public enum BuiltinSignatures implements SignatureFactory {
         public boolean isSupported() {
             return SecurityUtils.isBouncyCastleRegistered() || SecurityUtils.hasEcc();
         }
+    },
+    ed25519(KeyPairProvider.SSH_ED25519) {
+        @Override
+        public Signature create() {
+            return new SignatureEd25519();
+        }
     };
 
     private final String factoryName;
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.signature;
+
+import java.io.ByteArrayOutputStream;
+import java.security.InvalidKeyException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+import org.apache.sshd.common.cipher.Ed25519;
+import org.apache.sshd.common.config.keys.Ed25519PrivateKey;
+import org.apache.sshd.common.config.keys.Ed25519PublicKey;
+
+/**
+ * {@code ssh-ed25519} <code>Signature</code>. Since Ed25519 hashes the message
+ * twice it cannot be signed incrementally - the data is accumulated until
+ * {@link #sign()} or {@link #verify(byte[])} is invoked. In SSH the signed data
+ * is always small (an exchange hash or an authentication request).
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class SignatureEd25519 extends AbstractSignature {
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    private Ed25519PublicKey publicKey;
+    private Ed25519PrivateKey privateKey;
+
+    public SignatureEd25519() {
+        super(Ed25519PublicKey.ALGORITHM);
+    }
+
+    @Override
+    public void init(PublicKey pubkey, PrivateKey prvkey) throws Exception {
+        if ((pubkey != null) && (!(pubkey instanceof Ed25519PublicKey))) {
+            throw new InvalidKeyException("Not an " + algorithm + " public key: " + pubkey.getClass().getSimpleName());
+        }
+        if ((prvkey != null) && (!(prvkey instanceof Ed25519PrivateKey))) {
+            throw new InvalidKeyException("Not an " + algorithm + " private key: " + prvkey.getClass().getSimpleName());
+        }
+
+        publicKey = (Ed25519PublicKey) pubkey;
+        privateKey = (Ed25519PrivateKey) prvkey;
+        data.reset();
+    }
+
+    @Override
+    public void update(byte[] foo, int off, int len) throws Exception {
+        data.write(foo, off, len);
+    }
+
+    @Override
+    public byte[] sign() throws Exception {
+        if (privateKey == null) {
+            throw new InvalidKeyException("Not initialized for signing");
+        }
+
+        byte[] msg = data.toByteArray();
+        data.reset();
+        return privateKey.sign(msg, 0, msg.length);
+    }
+
+    @Override
+    public boolean verify(byte[] sig) throws Exception {
+        if (publicKey == null) {
+            throw new InvalidKeyException("Not initialized for verification");
+        }
+
+        // a raw signature may start with zeroes, so use the size to detect the encoded form
+        if (sig.length != Ed25519.SIGNATURE_SIZE) {
+            sig = extractSig(sig);
+        }
+
+        byte[] msg = data.toByteArray();
+        data.reset();
+        return Ed25519.verify(publicKey.getKeyBytes(), msg, 0, msg.length, sig);
+    }
+}
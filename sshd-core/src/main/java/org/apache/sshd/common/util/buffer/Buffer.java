@@ -43,9 +43,13 @@ import java.security.spec.ECPublicKeySpec;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.RSAPrivateCrtKeySpec;
 import java.security.spec.RSAPublicKeySpec;
+import java.util.Arrays;
 
 import org.apache.sshd.common.SshException;
 import org.apache.sshd.common.cipher.ECCurves;
+import org.apache.sshd.common.cipher.Ed25519;
+import org.apache.sshd.common.config.keys.Ed25519PrivateKey;
+import org.apache.sshd.common.config.keys.Ed25519PublicKey;
 import org.apache.sshd.common.keyprovider.KeyPairProvider;
 import org.apache.sshd.common.util.GenericUtils;
 import org.apache.sshd.common.util.Readable;
@@ -209,6 +213,8 @@ public abstract class Buffer implements Readable {
                 key = getRawECKey("nistp384", ECCurves.EllipticCurves.nistp384);
             } else if (KeyPairProvider.ECDSA_SHA2_NISTP521.equals(keyAlg)) {
                 key = getRawECKey("nistp521", ECCurves.EllipticCurves.nistp521);
+            } else if (KeyPairProvider.SSH_ED25519.equals(keyAlg)) {
+                key = getRawEd25519Key();
             } else {
                 throw new NoSuchAlgorithmException("Unsupported raw public algorithm: " + keyAlg);
             }
@@ -229,6 +235,14 @@ public abstract class Buffer implements Readable {
         return keyFactory.generatePublic(new ECPublicKeySpec(w, spec));
     }
 
+    protected Ed25519PublicKey getRawEd25519Key() throws GeneralSecurityException {
+        byte[] keyBytes = getBytes();
+        if (keyBytes.length != Ed25519.KEY_SIZE) {
+            throw new InvalidKeySpecException("Bad Ed25519 key size: " + keyBytes.length);
+        }
+        return new Ed25519PublicKey(keyBytes);
+    }
+
     public KeyPair getKeyPair() throws SshException {
         try {
             PublicKey pub;
@@ -261,6 +275,8 @@ public abstract class Buffer implements Readable {
                 return extractEC("nistp384", ECCurves.EllipticCurves.nistp384);
             } else if (KeyPairProvider.ECDSA_SHA2_NISTP521.equals(keyAlg)) {
                 return extractEC("nistp521", ECCurves.EllipticCurves.nistp521);
+            } else if (KeyPairProvider.SSH_ED25519.equals(keyAlg)) {
+                return extractEd25519();
             } else {
                 throw new NoSuchAlgorithmException("Unsupported key pair algorithm: " + keyAlg);
             }
@@ -290,6 +306,21 @@ public abstract class Buffer implements Readable {
         return new KeyPair(pubKey, privKey);
     }
 
+    // same layout as OpenSSH - the private part is the seed followed by the public key
+    protected KeyPair extractEd25519() throws GeneralSecurityException {
+        Ed25519PublicKey pubKey = getRawEd25519Key();
+        byte[] prvBytes = getBytes();
+        if (prvBytes.length != (2 * Ed25519.KEY_SIZE)) {
+            throw new InvalidKeySpecException("Bad Ed25519 private key size: " + prvBytes.length);
+        }
+
+        Ed25519PrivateKey prvKey = new Ed25519PrivateKey(Arrays.copyOf(prvBytes, Ed25519.KEY_SIZE));
+        if (!prvKey.getPublicKey().equals(pubKey)) {
+            throw new InvalidKeySpecException("Mismatched Ed25519 public and private keys");
+        }
+        return new KeyPair(pubKey, prvKey);
+    }
+
     public void ensureAvailable(int a) throws BufferException {
         if (available() < a) {
             throw new BufferException("Underflow");
@@ -434,6 +465,9 @@ public abstract class Buffer implements Readable {
             putString(ECCurves.ECDSA_SHA2_PREFIX + curveName);
             putString(curveName);
             putBytes(ECCurves.encodeECPoint(ecKey.getW(), ecParams.getCurve()));
+        } else if (key instanceof Ed25519PublicKey) {
+            putString(KeyPairProvider.SSH_ED25519);
+            putBytes(((Ed25519PublicKey) key).getKeyBytes());
         } else {
             throw new BufferException("Unsupported raw public key algorithm: " + key.getAlgorithm());
         }
@@ -474,6 +508,15 @@ public abstract class Buffer implements Readable {
             putString(curveName);
             putBytes(ECCurves.encodeECPoint(ecPub.getW(), ecParams.getCurve()));
             putMPInt(ecPriv.getS());
+        } else if (prvKey instanceof Ed25519PrivateKey) {
+            Ed25519PrivateKey   edPrv = (Ed25519PrivateKey) prvKey;
+            byte[]              pubBytes = edPrv.getPublicKeyBytes();
+            byte[]              prvBytes = Arrays.copyOf(edPrv.getSeed(), 2 * Ed25519.KEY_SIZE);
+            System.arraycopy(pubBytes, 0, prvBytes, Ed25519.KEY_SIZE, pubBytes.length);
+
+            putString(KeyPairProvider.SSH_ED25519);
+            putBytes(pubBytes);
+            putBytes(prvBytes);
         } else {
             throw new BufferException("Unsupported key pair algorithm: " + kp.getPublic().getAlgorithm());
         }
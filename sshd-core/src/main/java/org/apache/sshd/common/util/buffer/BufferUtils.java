@@ -84,6 +84,31 @@ public class BufferUtils {
         return true;
     }
 
+    /**
+     * @param buf The data buffer
+     * @param off Offset of the 4 bytes value in the buffer
+     * @return The <U>big-endian</U> 32-bit value at the specified offset
+     */
+    public static int getInt(byte[] buf, int off) {
+        return ((buf[off] & 0xFF) << 24)
+             | ((buf[off + 1] & 0xFF) << 16)
+             | ((buf[off + 2] & 0xFF) << 8)
+             | (buf[off + 3] & 0xFF);
+    }
+
+    /**
+     * @param value The 32-bit value to write
+     * @param buf The data buffer
+     * @param off Offset in the buffer where to write the 4 bytes
+     * <U>big-endian</U> encoded value
+     */
+    public static void putInt(long value, byte[] buf, int off) {
+        buf[off] = (byte) (value >>> 24);
+        buf[off + 1] = (byte) (value >>> 16);
+        buf[off + 2] = (byte) (value >>> 8);
+        buf[off + 3] = (byte) value;
+    }
+
     public static final int getNextPowerOf2(int i) {
         int j = 1;
         while (j < i) {
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.util.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread-safe pool of direct {@link ByteBuffer}s. The buffers are grouped
+ * in power of 2 size classes, each class retaining at most a configured number
+ * of idle buffers - any buffer released when its class is full is simply left
+ * to the garbage collector. Buffers are handed out as reference counted
+ * {@link PooledBuffer}s, and return to the pool once the last reference has been
+ * released.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class DirectBufferPool {
+
+    public static final int MIN_BUFFER_SIZE = 256;
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_MAX_POOLED_BUFFERS = 64;
+
+    private final int maxBufferSize;
+    private final int maxPooledBuffers;
+    private final Queue<ByteBuffer>[] pools;
+    private final AtomicInteger[] pooledCounts;
+
+    public DirectBufferPool() {
+        this(DEFAULT_MAX_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS);
+    }
+
+    /**
+     * @param maxBufferSize The largest buffer size that can be acquired - rounded
+     * up to the next power of 2
+     * @param maxPooledBuffers The maximum number of idle buffers retained for
+     * <U>each</U> size class
+     */
+    @SuppressWarnings("unchecked")
+    public DirectBufferPool(int maxBufferSize, int maxPooledBuffers) {
+        if (maxBufferSize <= 0) {
+            throw new IllegalArgumentException("Bad max. buffer size: " + maxBufferSize);
+        }
+        if (maxPooledBuffers < 0) {
+            throw new IllegalArgumentException("Bad max. pooled buffers count: " + maxPooledBuffers);
+        }
+
+        this.maxBufferSize = BufferUtils.getNextPowerOf2(Math.max(maxBufferSize, MIN_BUFFER_SIZE));
+        this.maxPooledBuffers = maxPooledBuffers;
+
+        int numClasses = getSizeClass(this.maxBufferSize) + 1;
+        this.pools = new Queue[numClasses];
+        this.pooledCounts = new AtomicInteger[numClasses];
+        for (int index = 0; index < numClasses; index++) {
+            pools[index] = new ConcurrentLinkedQueue<ByteBuffer>();
+            pooledCounts[index] = new AtomicInteger(0);
+        }
+    }
+
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    public int getMaxPooledBuffers() {
+        return maxPooledBuffers;
+    }
+
+    /**
+     * @param size The required buffer size
+     * @return A {@link PooledBuffer} holding one reference to a cleared buffer
+     * whose limit is set to the required size
+     * @throws IllegalArgumentException if the required size exceeds {@link #getMaxBufferSize()}
+     */
+    public PooledBuffer acquire(int size) {
+        if ((size < 0) || (size > maxBufferSize)) {
+            throw new IllegalArgumentException("Bad buffer size (" + size + ") - max.=" + maxBufferSize);
+        }
+
+        int index = getSizeClass(size);
+        ByteBuffer buf = pools[index].poll();
+        if (buf == null) {
+            buf = ByteBuffer.allocateDirect(MIN_BUFFER_SIZE << index);
+        } else {
+            pooledCounts[index].decrementAndGet();
+        }
+
+        buf.clear();
+        buf.limit(size);
+        return new PooledBuffer(this, index, buf);
+    }
+
+    /**
+     * @return Number of idle buffers currently held by the pool
+     */
+    public int getPooledCount() {
+        int count = 0;
+        for (AtomicInteger c : pooledCounts) {
+            count += c.get();
+        }
+        return count;
+    }
+
+    protected void recycle(int index, ByteBuffer buf) {
+        if (pooledCounts[index].incrementAndGet() > maxPooledBuffers) {
+            pooledCounts[index].decrementAndGet();
+            return; // let the GC have it
+        }
+        pools[index].offer(buf);
+    }
+
+    protected static int getSizeClass(int size) {
+        int index = 0;
+        for (int classSize = MIN_BUFFER_SIZE; classSize < size; classSize <<= 1) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * A reference counted lease on a pooled {@link ByteBuffer}. The lease is
+     * created with a single reference and the buffer goes back to the pool when
+     * the reference count drops to zero - after which it must not be accessed
+     */
+    public static class PooledBuffer {
+        private final DirectBufferPool pool;
+        private final int index;
+        private final ByteBuffer buffer;
+        private final AtomicInteger refCount = new AtomicInteger(1);
+
+        PooledBuffer(DirectBufferPool pool, int index, ByteBuffer buffer) {
+            this.pool = pool;
+            this.index = index;
+            this.buffer = buffer;
+        }
+
+        public ByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        public int getReferenceCount() {
+            return refCount.get();
+        }
+
+        /**
+         * Adds a reference to the buffer
+         *
+         * @return This lease
+         * @throws IllegalStateException if the buffer has already been released
+         */
+        public PooledBuffer retain() {
+            if (!tryRetain()) {
+                throw new IllegalStateException("Buffer already released");
+            }
+            return this;
+        }
+
+        /**
+         * Adds a reference to the buffer unless it has already been released
+         *
+         * @return {@code true} if a reference has been added
+         */
+        public boolean tryRetain() {
+            for (;;) {
+                int count = refCount.get();
+                if (count <= 0) {
+                    return false;
+                }
+                if (refCount.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Removes a reference to the buffer and returns it to the pool if
+         * this was the last one
+         *
+         * @return {@code true} if the buffer has been returned to the pool
+         * @throws IllegalStateException if the buffer has already been released
+         */
+        public boolean release() {
+            int count = refCount.decrementAndGet();
+            if (count < 0) {
+                throw new IllegalStateException("Buffer already released");
+            }
+            if (count > 0) {
+                return false;
+            }
+            pool.recycle(index, buffer);
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "[capacity=" + buffer.capacity() + ", refs=" + refCount.get() + "]";
+        }
+    }
+}
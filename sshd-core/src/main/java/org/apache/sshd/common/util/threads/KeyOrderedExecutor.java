@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.util.threads;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.apache.sshd.common.util.AbstractLoggingBean;
+import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.ValidateUtils;
+
+/**
+ * Runs tasks on an {@link Executor} while preserving the submission order of
+ * tasks that share the same key. A <U>shared</U> task may run concurrently with
+ * other shared tasks of the same key, but an <U>exclusive</U> one runs only after
+ * all the previously submitted tasks of its key have completed and before any
+ * later one starts. Tasks without a key are not ordered at all.
+ *
+ * <p>Once accepted, a task is always run: if the executor rejects a queued task
+ * when its turn comes then it is run by the thread that completed its predecessor.</p>
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class KeyOrderedExecutor extends AbstractLoggingBean {
+    private final Executor executor;
+    private final Map<Object, Lane> lanes = new HashMap<>();
+    private int active;
+
+    public KeyOrderedExecutor(Executor executor) {
+        this.executor = ValidateUtils.checkNotNull(executor, "No executor", GenericUtils.EMPTY_OBJECT_ARRAY);
+    }
+
+    public final Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @param key The ordering key - if {@code null} then the task is not ordered
+     * relative to any other task
+     * @param shared {@code true} if the task may run concurrently with other shared
+     * tasks of the same key
+     * @param task The task to run
+     * @throws java.util.concurrent.RejectedExecutionException If the underlying
+     * executor rejected the task
+     */
+    public void execute(Object key, boolean shared, Runnable task) {
+        Task t = new Task(key, shared, task);
+        synchronized (this) {
+            active++;
+            if (key != null) {
+                Lane lane = lanes.get(key);
+                if (lane == null) {
+                    lane = new Lane();
+                    lanes.put(key, lane);
+                }
+
+                if (!lane.canStart(t)) {
+                    lane.queue.add(t);
+                    return;
+                }
+                lane.start(t);
+            }
+        }
+
+        submit(t);
+    }
+
+    /**
+     * @return Number of submitted tasks that have not completed yet
+     */
+    public synchronized int getActiveCount() {
+        return active;
+    }
+
+    /**
+     * Waits until all the submitted tasks have completed
+     *
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public synchronized void awaitIdle() throws InterruptedException {
+        while (active > 0) {
+            wait();
+        }
+    }
+
+    private void submit(Task t) {
+        try {
+            executor.execute(t);
+        } catch (RuntimeException e) {
+            completed(t);
+            throw e;
+        }
+    }
+
+    private void completed(Task t) {
+        Deque<Task> ready = null;
+        synchronized (this) {
+            active--;
+            if (t.key != null) {
+                Lane lane = lanes.get(t.key);
+                lane.running--;
+                for (Task next = lane.queue.peek(); (next != null) && lane.canRun(next); next = lane.queue.peek()) {
+                    lane.queue.poll();
+                    lane.start(next);
+                    if (ready == null) {
+                        ready = new ArrayDeque<>();
+                    }
+                    ready.add(next);
+                }
+
+                if ((lane.running == 0) && lane.queue.isEmpty()) {
+                    lanes.remove(t.key);
+                }
+            }
+
+            if (active == 0) {
+                notifyAll();
+            }
+        }
+
+        if (ready != null) {
+            for (Task next : ready) {
+                try {
+                    executor.execute(next);
+                } catch (RuntimeException e) {
+                    // the task has already been accepted, so it must not be dropped
+                    log.warn("completed(" + t.key + ") failed (" + e.getClass().getSimpleName() + ") to submit next task - running it inline: " + e.getMessage());
+                    next.run();
+                }
+            }
+        }
+    }
+
+    private static class Lane {
+        private final Deque<Task> queue = new ArrayDeque<>();
+        private int running;
+        private boolean exclusive;
+
+        Lane() {
+            super();
+        }
+
+        boolean canStart(Task t) {
+            return queue.isEmpty() && canRun(t);
+        }
+
+        boolean canRun(Task t) {
+            if (running == 0) {
+                return true;
+            }
+            return t.shared && (!exclusive);
+        }
+
+        void start(Task t) {
+            running++;
+            exclusive = !t.shared;
+        }
+    }
+
+    private class Task implements Runnable {
+        private final Object key;
+        private final boolean shared;
+        private final Runnable delegate;
+
+        Task(Object key, boolean shared, Runnable delegate) {
+            this.key = key;
+            this.shared = shared;
+            this.delegate = ValidateUtils.checkNotNull(delegate, "No task", GenericUtils.EMPTY_OBJECT_ARRAY);
+        }
+
+        @SuppressWarnings("synthetic-access")
+        @Override
+        public void run() {
+            try {
+                delegate.run();
+            } finally {
+                completed(this);
+            }
+        }
+    }
+}
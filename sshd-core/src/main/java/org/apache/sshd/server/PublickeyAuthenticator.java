@@ -19,8 +19,12 @@
 package org.apache.sshd.server;
 
 import java.security.PublicKey;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.sshd.common.config.keys.KeyUtils;
 import org.apache.sshd.common.util.AbstractLoggingBean;
@@ -80,6 +84,53 @@ public interface PublickeyAuthenticator {
             return matchFound;
         }
     }
+
+    /**
+     * Checks against a {@link Collection} of {@link PublicKey}s indexed by their
+     * {@link KeyUtils#getFingerPrint(PublicKey) fingerprint}, so that a lookup costs
+     * O(1) regardless of the number of keys. The fingerprint only selects the
+     * candidates - the actual match is still done via {@link KeyUtils#compareKeys(PublicKey, PublicKey)}
+     */
+    public static class IndexedKeySetPublickeyAuthenticator extends KeySetPublickeyAuthenticator {
+        private final Map<String, List<PublicKey>> keysIndex;
+
+        public IndexedKeySetPublickeyAuthenticator(Collection<? extends PublicKey> keySet) {
+            super(keySet);
+
+            Collection<? extends PublicKey> keys = getKeySet();
+            keysIndex = new HashMap<String, List<PublicKey>>(Math.max(16, keys.size() * 4 / 3 + 1));
+            for (PublicKey k : keys) {
+                String fingerprint = KeyUtils.getFingerPrint(k);
+                List<PublicKey> candidates = keysIndex.get(fingerprint);
+                if (candidates == null) {
+                    candidates = new ArrayList<PublicKey>(1);
+                    keysIndex.put(fingerprint, candidates);
+                }
+                candidates.add(k);
+            }
+        }
+
+        @Override
+        public boolean authenticate(String username, PublicKey key, ServerSession session) {
+            if (keysIndex.isEmpty()) {
+                if (log.isDebugEnabled()) {
+                    log.debug("authenticate(" + username + ")[" + session + "] no keys");
+                }
+
+                return false;
+            }
+
+            String fingerprint = KeyUtils.getFingerPrint(key);
+            List<PublicKey> candidates = keysIndex.get(fingerprint);
+            PublicKey matchKey = GenericUtils.isEmpty(candidates) ? null : KeyUtils.findMatchingKey(key, candidates);
+            boolean matchFound = (matchKey != null);
+            if (log.isDebugEnabled()) {
+                log.debug("authenticate(" + username + ")[" + session + "][" + fingerprint + "] match found=" + matchFound);
+            }
+            return matchFound;
+        }
+    }
+
     /**
      * Returns the same constant result {@code true/false} regardless
      */
@@ -24,6 +24,7 @@ import org.apache.sshd.common.Factory;
 import org.apache.sshd.common.FactoryManager;
 import org.apache.sshd.common.NamedFactory;
 import org.apache.sshd.server.auth.gss.GSSAuthenticator;
+import org.apache.sshd.server.command.CommandExecutionService;
 
 /**
  * The <code>ServerFactoryManager</code> enable the retrieval of additional
@@ -36,6 +37,35 @@ public interface ServerFactoryManager extends FactoryManager {
      * Key used to retrieve the value of the maximum concurrent open session count per username
      */
     public static final String MAX_CONCURRENT_SESSIONS = "max-concurrent-sessions";
+    /**
+     * Key used to retrieve the value of the maximum concurrent open session count per remote address.
+     * It is enforced as soon as a connection is accepted - before key exchange and authentication
+     */
+    public static final String MAX_CONCURRENT_SESSIONS_PER_ADDRESS = "max-concurrent-sessions-per-address";
+    /**
+     * Key used to retrieve the value of the maximum concurrently running commands
+     * of the default {@link CommandExecutionService} - which also bounds its threads - no
+     * limit if not set. Since SFTP, SCP and git commands hold a thread for their whole
+     * lifetime, this also caps the number of concurrent sessions running them
+     */
+    public static final String MAX_CONCURRENT_COMMANDS = "max-concurrent-commands";
+    /**
+     * Key used to retrieve the value of the maximum concurrently running commands per session
+     * of the default {@link CommandExecutionService} - no limit if not set
+     */
+    public static final String MAX_CONCURRENT_COMMANDS_PER_SESSION = "max-concurrent-commands-per-session";
+    /**
+     * Key used to retrieve the value of the maximum concurrently running commands per username
+     * of the default {@link CommandExecutionService} - no limit if not set
+     */
+    public static final String MAX_CONCURRENT_COMMANDS_PER_USER = "max-concurrent-commands-per-user";
+    /**
+     * Key used to configure the time (in milliseconds) a command may wait for the
+     * limits of the default {@link CommandExecutionService} before it is failed.
+     * Zero rejects such commands immediately and a negative value waits indefinitely.
+     * If not set then {@link CommandExecutionService#DEFAULT_QUEUE_TIMEOUT} is used
+     */
+    public static final String COMMAND_QUEUE_TIMEOUT = "command-queue-timeout";
     /**
      * Key used to retrieve the value of the server identification string if not default.
      */
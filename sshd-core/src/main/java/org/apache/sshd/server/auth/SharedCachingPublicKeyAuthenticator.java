@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.server.auth;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.common.util.AbstractLoggingBean;
+import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.ValidateUtils;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+import org.apache.sshd.server.PublickeyAuthenticator;
+import org.apache.sshd.server.session.ServerSession;
+
+/**
+ * Caches the accepted keys of a delegate {@link PublickeyAuthenticator} across sessions,
+ * keyed by the username and the encoded public key. Entries expire after a
+ * configurable time-to-live, and the least recently used ones are evicted once the
+ * cache is full. Rejections are cached only if a (preferably short) negative
+ * time-to-live is configured. The cache is split into segments so that concurrent
+ * lookups do not contend on a single lock - the eviction order is maintained per segment.
+ * <B>Note:</B> this is only safe for delegates whose result does not
+ * depend on the session itself (e.g., on the remote address) - see
+ * {@link CachingPublicKeyAuthenticator} for a per-session cache. Furthermore, a
+ * revoked key is still accepted until its cached result expires or {@link #clear()}
+ * is called.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class SharedCachingPublicKeyAuthenticator extends AbstractLoggingBean implements PublickeyAuthenticator {
+    /**
+     * Default maximum number of cached results
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /**
+     * Default time-to-live (msec.) of a cached result
+     */
+    public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(5L);
+
+    /**
+     * Default time-to-live (msec.) of a cached rejection - zero means rejections are not cached
+     */
+    public static final long DEFAULT_NEGATIVE_TTL = 0L;
+
+    /**
+     * Maximum number of cache segments
+     */
+    public static final int MAX_SEGMENTS = 16;
+
+    /**
+     * Minimum number of entries per cache segment - smaller caches use fewer segments
+     */
+    public static final int MIN_SEGMENT_ENTRIES = 64;
+
+    protected final PublickeyAuthenticator authenticator;
+    private final int maxEntries;
+    private final long ttl;
+    private final long negativeTtl;
+    private final List<Map<CacheKey, CacheEntry>> segments;
+
+    public SharedCachingPublicKeyAuthenticator(PublickeyAuthenticator authenticator) {
+        this(authenticator, DEFAULT_MAX_ENTRIES, DEFAULT_TTL);
+    }
+
+    public SharedCachingPublicKeyAuthenticator(PublickeyAuthenticator authenticator, int maxEntries, long ttl) {
+        this(authenticator, maxEntries, ttl, DEFAULT_NEGATIVE_TTL);
+    }
+
+    /**
+     * @param authenticator The delegate {@link PublickeyAuthenticator}
+     * @param maxEntries Maximum number of cached results
+     * @param ttl Time-to-live (msec.) of a cached acceptance
+     * @param negativeTtl Time-to-live (msec.) of a cached rejection - zero means rejections
+     * are not cached, so that a newly authorized key is accepted right away
+     */
+    public SharedCachingPublicKeyAuthenticator(PublickeyAuthenticator authenticator, int maxEntries, long ttl, long negativeTtl) {
+        this.authenticator = ValidateUtils.checkNotNull(authenticator, "No delegate authenticator", GenericUtils.EMPTY_OBJECT_ARRAY);
+        ValidateUtils.checkTrue(maxEntries > 0, "Bad max. entries: %d", maxEntries);
+        ValidateUtils.checkTrue(ttl > 0L, "Bad TTL: %d", ttl);
+        ValidateUtils.checkTrue(negativeTtl >= 0L, "Bad negative TTL: %d", negativeTtl);
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+
+        int numSegments = Math.max(1, Math.min(MAX_SEGMENTS, maxEntries / MIN_SEGMENT_ENTRIES));
+        final int segmentEntries = (maxEntries + numSegments - 1) / numSegments;
+        this.segments = new ArrayList<Map<CacheKey, CacheEntry>>(numSegments);
+        for (int index = 0; index < numSegments; index++) {
+            // access ordered so that the eldest entry is the least recently used one
+            segments.add(new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;    // we're not serializing it
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                    return size() > segmentEntries;
+                }
+            });
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getTimeToLive() {
+        return ttl;
+    }
+
+    public long getNegativeTimeToLive() {
+        return negativeTtl;
+    }
+
+    @Override
+    public boolean authenticate(String username, PublicKey key, ServerSession session) {
+        CacheKey cacheKey = createCacheKey(username, key);
+        if (cacheKey == null) {
+            // cannot encode the key - don't cache the result
+            return authenticator.authenticate(username, key, session);
+        }
+
+        Map<CacheKey, CacheEntry> segment = getSegment(cacheKey);
+        long now = System.currentTimeMillis();
+        synchronized (segment) {
+            CacheEntry entry = segment.get(cacheKey);
+            if (entry != null) {
+                if (entry.expiration > now) {
+                    return entry.result;
+                }
+                segment.remove(cacheKey);
+            }
+        }
+
+        // invoke the delegate outside the lock - concurrent misses for the same key simply both compute it
+        boolean result = authenticator.authenticate(username, key, session);
+        long entryTtl = result ? ttl : negativeTtl;
+        if (entryTtl <= 0L) {
+            return result;
+        }
+
+        synchronized (segment) {
+            segment.put(cacheKey, new CacheEntry(result, now + entryTtl));
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("authenticate(" + username + ")[" + session + "][" + key.getAlgorithm() + "] cached result=" + result);
+        }
+        return result;
+    }
+
+    /**
+     * @return Number of currently cached results - including expired ones that
+     * have not been evicted yet
+     */
+    public int size() {
+        int size = 0;
+        for (Map<CacheKey, CacheEntry> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Discards all cached results - e.g., when the authorized keys have changed
+     */
+    public void clear() {
+        for (Map<CacheKey, CacheEntry> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    protected Map<CacheKey, CacheEntry> getSegment(CacheKey cacheKey) {
+        return segments.get((cacheKey.hash & Integer.MAX_VALUE) % segments.size());
+    }
+
+    protected CacheKey createCacheKey(String username, PublicKey key) {
+        try {
+            Buffer buffer = new ByteArrayBuffer();
+            buffer.putRawPublicKey(key);
+            return new CacheKey(username, buffer.getCompactData());
+        } catch (RuntimeException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("createCacheKey(" + username + ")[" + key.getAlgorithm() + "] failed to encode key: " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    protected static final class CacheKey {
+        private final String username;
+        private final byte[] encoded;
+        private final int hash;
+
+        protected CacheKey(String username, byte[] encoded) {
+            this.username = username;
+            this.encoded = encoded;
+            this.hash = 31 * Objects.hashCode(username) + Arrays.hashCode(encoded);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+
+            CacheKey other = (CacheKey) obj;
+            return (hash == other.hash)
+                && Objects.equals(username, other.username)
+                && Arrays.equals(encoded, other.encoded);
+        }
+    }
+
+    protected static final class CacheEntry {
+        private final boolean result;
+        private final long expiration;
+
+        protected CacheEntry(boolean result, long expiration) {
+            this.result = result;
+            this.expiration = expiration;
+        }
+    }
+}
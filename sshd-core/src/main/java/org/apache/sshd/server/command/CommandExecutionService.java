@@ -0,0 +1,641 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.server.command;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.SshServer;
+import org.apache.sshd.common.FactoryManagerUtils;
+import org.apache.sshd.common.util.AbstractLoggingBean;
+import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.ValidateUtils;
+import org.apache.sshd.common.util.threads.ExecutorServiceCarrier;
+import org.apache.sshd.common.util.threads.ThreadUtils;
+import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.ServerFactoryManager;
+import org.apache.sshd.server.session.ServerSession;
+
+/**
+ * Runs the commands of all the sessions of a server on a shared {@link ExecutorService}
+ * instead of a thread per command. The number of concurrently running commands can be
+ * limited in total, per session and per authenticated username: a command that would
+ * exceed any of the limits is queued until a running command completes. The queued
+ * commands are started in submission order, skipping those whose session or user is
+ * still at its limit. A command that is still queued once the queue timeout expires
+ * is failed and its {@link ExitCallback} (if any) is invoked so that the channel is
+ * closed instead of hanging while the service is saturated.
+ *
+ * <p>No limit is enforced by default. Once a maximum of concurrently running commands
+ * is set, the default threads pool grows up to that maximum, so that the number of
+ * threads used by the commands is bounded as well.</p>
+ *
+ * <p><B>Note:</B> the service saves the cost of creating a thread per command, but it
+ * does <U>not</U> reduce the number of threads needed by long-lived commands. The SFTP
+ * subsystem, SCP and the git commands occupy a pool thread for their whole lifetime, so
+ * N such concurrent sessions still require N threads. Consequently, a maximum of
+ * concurrently running commands also caps the number of such concurrent sessions - the
+ * excess ones are queued and fail once the queue timeout expires.</p>
+ *
+ * @see ServerFactoryManager#MAX_CONCURRENT_COMMANDS
+ * @see ServerFactoryManager#MAX_CONCURRENT_COMMANDS_PER_SESSION
+ * @see ServerFactoryManager#MAX_CONCURRENT_COMMANDS_PER_USER
+ * @see ServerFactoryManager#COMMAND_QUEUE_TIMEOUT
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class CommandExecutionService extends AbstractLoggingBean implements ExecutorServiceCarrier {
+
+    /** Value used to indicate that a limit is not enforced */
+    public static final int UNLIMITED = 0;
+
+    /** Default time (msec.) a command may wait for a slot before being failed */
+    public static final long DEFAULT_QUEUE_TIMEOUT = TimeUnit.SECONDS.toMillis(30L);
+
+    private final ExecutorService executors;
+    private final boolean shutdownExecutor;
+    private final int maxCommands;
+    private final int maxPerSession;
+    private final int maxPerUser;
+    private final long queueTimeout;
+    private final ScheduledExecutorService scheduler;
+    private final Object lock = new Object();
+    private ScheduledExecutorService timer;     // lazily created if no scheduler was provided
+    private boolean closed;
+    private final Map<ServerSession, Integer> sessions = new HashMap<ServerSession, Integer>();
+    private final Map<String, Integer> users = new HashMap<String, Integer>();
+    private final LinkedList<CommandTask> queue = new LinkedList<CommandTask>();
+    private int running;
+    private long submittedCount;
+    private long queuedCount;
+    private long completedCount;
+    private long rejectedCount;
+    private long totalQueueNanos;
+    private long maxQueueNanos;
+
+    /**
+     * Creates an un-limited service backed by a cached threads pool
+     */
+    public CommandExecutionService() {
+        this(UNLIMITED, UNLIMITED, UNLIMITED);
+    }
+
+    /**
+     * Creates a service with the default queue timeout
+     *
+     * @param maxCommands   Maximum concurrently running commands
+     * @param maxPerSession Maximum concurrently running commands per session
+     * @param maxPerUser    Maximum concurrently running commands per username
+     * @see #UNLIMITED
+     * @see #DEFAULT_QUEUE_TIMEOUT
+     */
+    public CommandExecutionService(int maxCommands, int maxPerSession, int maxPerUser) {
+        this(maxCommands, maxPerSession, maxPerUser, DEFAULT_QUEUE_TIMEOUT);
+    }
+
+    /**
+     * Creates a service backed by a threads pool of up to {@code maxCommands} threads
+     * (a cached one if {@link #UNLIMITED}) that is shut down along with the service
+     *
+     * @param maxCommands   Maximum concurrently running commands
+     * @param maxPerSession Maximum concurrently running commands per session
+     * @param maxPerUser    Maximum concurrently running commands per username
+     * @param queueTimeout  Maximum time (msec.) a command may wait for a slot - zero
+     *                      rejects it immediately and a negative value waits indefinitely
+     * @see #UNLIMITED
+     */
+    public CommandExecutionService(int maxCommands, int maxPerSession, int maxPerUser, long queueTimeout) {
+        this(newCommandsThreadPool(maxCommands), true, maxCommands, maxPerSession, maxPerUser, queueTimeout);
+    }
+
+    /**
+     * Creates a service with the default queue timeout
+     *
+     * @param executors        The {@link ExecutorService} running the commands - it should
+     *                         be able to run {@code maxCommands} tasks concurrently
+     * @param shutdownExecutor If {@code true} then the executor is shut down when
+     *                         this service is {@link #shutdown()}
+     * @param maxCommands      Maximum concurrently running commands
+     * @param maxPerSession    Maximum concurrently running commands per session
+     * @param maxPerUser       Maximum concurrently running commands per username
+     * @see #UNLIMITED
+     * @see #DEFAULT_QUEUE_TIMEOUT
+     */
+    public CommandExecutionService(ExecutorService executors, boolean shutdownExecutor,
+                                   int maxCommands, int maxPerSession, int maxPerUser) {
+        this(executors, shutdownExecutor, maxCommands, maxPerSession, maxPerUser, DEFAULT_QUEUE_TIMEOUT);
+    }
+
+    /**
+     * @param executors        The {@link ExecutorService} running the commands - it should
+     *                         be able to run {@code maxCommands} tasks concurrently
+     * @param shutdownExecutor If {@code true} then the executor is shut down when
+     *                         this service is {@link #shutdown()}
+     * @param maxCommands      Maximum concurrently running commands
+     * @param maxPerSession    Maximum concurrently running commands per session
+     * @param maxPerUser       Maximum concurrently running commands per username
+     * @param queueTimeout     Maximum time (msec.) a command may wait for a slot - zero
+     *                         rejects it immediately and a negative value waits indefinitely
+     * @see #UNLIMITED
+     */
+    public CommandExecutionService(ExecutorService executors, boolean shutdownExecutor,
+                                   int maxCommands, int maxPerSession, int maxPerUser, long queueTimeout) {
+        this(executors, shutdownExecutor, null, maxCommands, maxPerSession, maxPerUser, queueTimeout);
+    }
+
+    /**
+     * @param executors        The {@link ExecutorService} running the commands - it should
+     *                         be able to run {@code maxCommands} tasks concurrently
+     * @param shutdownExecutor If {@code true} then the executor is shut down when
+     *                         this service is {@link #shutdown()}
+     * @param scheduler        The {@link ScheduledExecutorService} used to expire the queued
+     *                         commands - it is not shut down by this service. If {@code null}
+     *                         then a dedicated timer thread is created once a command is queued
+     * @param maxCommands      Maximum concurrently running commands
+     * @param maxPerSession    Maximum concurrently running commands per session
+     * @param maxPerUser       Maximum concurrently running commands per username
+     * @param queueTimeout     Maximum time (msec.) a command may wait for a slot - zero
+     *                         rejects it immediately and a negative value waits indefinitely
+     * @see #UNLIMITED
+     */
+    public CommandExecutionService(ExecutorService executors, boolean shutdownExecutor, ScheduledExecutorService scheduler,
+                                   int maxCommands, int maxPerSession, int maxPerUser, long queueTimeout) {
+        this.executors = ValidateUtils.checkNotNull(executors, "No executor service", GenericUtils.EMPTY_OBJECT_ARRAY);
+        this.shutdownExecutor = shutdownExecutor;
+        this.scheduler = scheduler;
+        this.maxCommands = maxCommands;
+        this.maxPerSession = maxPerSession;
+        this.maxPerUser = maxPerUser;
+        this.queueTimeout = queueTimeout;
+    }
+
+    @Override
+    public ExecutorService getExecutorService() {
+        return executors;
+    }
+
+    @Override
+    public boolean isShutdownOnExit() {
+        return shutdownExecutor;
+    }
+
+    public int getMaxCommands() {
+        return maxCommands;
+    }
+
+    public int getMaxCommandsPerSession() {
+        return maxPerSession;
+    }
+
+    public int getMaxCommandsPerUser() {
+        return maxPerUser;
+    }
+
+    /**
+     * @return Maximum time (msec.) a command may wait for a slot - zero if commands
+     * are rejected immediately and negative if they wait indefinitely
+     */
+    public long getQueueTimeout() {
+        return queueTimeout;
+    }
+
+    /**
+     * Runs a command once the session and its user are within their limits
+     *
+     * @param session The {@link ServerSession} the command belongs to
+     * @param command The command to run - it holds its slot until it returns
+     * @return A {@link Future} for the command
+     * @throws RejectedExecutionException If the service has been shut down or
+     *                                    the command cannot start and queueing is disabled
+     * @see #submit(ServerSession, Runnable, ExitCallback)
+     */
+    public Future<?> submit(ServerSession session, Runnable command) {
+        return submit(session, command, null);
+    }
+
+    /**
+     * Runs a command once the session and its user are within their limits
+     *
+     * @param session  The {@link ServerSession} the command belongs to
+     * @param command  The command to run - it holds its slot until it returns
+     * @param callback The {@link ExitCallback} to invoke if the command is failed before
+     *                 it started - i.e., its queue timeout expired or the service was shut
+     *                 down while it was queued - may be {@code null}
+     * @return A {@link Future} for the command - cancelling it while the command
+     * is queued removes it from the queue
+     * @throws RejectedExecutionException If the service has been shut down or
+     *                                    the command cannot start and queueing is disabled
+     */
+    public Future<?> submit(ServerSession session, Runnable command, ExitCallback callback) {
+        ValidateUtils.checkNotNull(session, "No session", GenericUtils.EMPTY_OBJECT_ARRAY);
+        ValidateUtils.checkNotNull(command, "No command", GenericUtils.EMPTY_OBJECT_ARRAY);
+        if (executors.isShutdown()) {
+            throw new RejectedExecutionException("Command execution service is shut down");
+        }
+
+        CommandTask task = new CommandTask(session, command, callback);
+        boolean start;
+        synchronized (lock) {
+            if (closed) {
+                throw new RejectedExecutionException("Command execution service is shut down");
+            }
+
+            submittedCount++;
+            start = acquire(task);
+            if (!start) {
+                if (queueTimeout == 0L) {
+                    rejectedCount++;
+                    throw new RejectedExecutionException("Too many concurrent commands for user=" + task.username);
+                }
+
+                if (queueTimeout > 0L) {
+                    task.expiry = getTimer().schedule(task.new Expiry(), queueTimeout, TimeUnit.MILLISECONDS);
+                }
+                queuedCount++;
+                queue.add(task);
+            }
+        }
+
+        if (start) {
+            dispatch(task);
+        } else if (log.isDebugEnabled()) {
+            log.debug("submit({}) queued command for user={} - queue size={}",
+                      session, task.username, Integer.valueOf(getQueuedCommandsCount()));
+        }
+        return task;
+    }
+
+    /**
+     * Shuts down the executor service - if so configured - and fails the queued commands
+     */
+    public void shutdown() {
+        LinkedList<CommandTask> pending;
+        ScheduledExecutorService expiries;
+        synchronized (lock) {
+            closed = true;
+            pending = new LinkedList<CommandTask>(queue);
+            queue.clear();
+            rejectedCount += pending.size();
+            for (CommandTask task : pending) {
+                if (task.expiry != null) {
+                    task.expiry.cancel(false);
+                    task.expiry = null;
+                }
+            }
+            expiries = timer;
+            timer = null;
+        }
+        if (expiries != null) {
+            expiries.shutdownNow();
+        }
+        for (CommandTask task : pending) {
+            task.fail("Command execution service is shut down");
+        }
+        if (shutdownExecutor && (!executors.isShutdown())) {
+            executors.shutdownNow();
+        }
+    }
+
+    /**
+     * @return The number of currently running commands
+     */
+    public int getRunningCommandsCount() {
+        synchronized (lock) {
+            return running;
+        }
+    }
+
+    /**
+     * @param session The {@link ServerSession}
+     * @return The number of currently running commands of the session
+     */
+    public int getRunningCommandsCount(ServerSession session) {
+        synchronized (lock) {
+            return count(sessions, session);
+        }
+    }
+
+    /**
+     * @param username The user name
+     * @return The number of currently running commands of the user
+     */
+    public int getRunningCommandsCountForUser(String username) {
+        synchronized (lock) {
+            return count(users, username);
+        }
+    }
+
+    /**
+     * @return The number of commands currently waiting for a slot
+     */
+    public int getQueuedCommandsCount() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * @return The total number of submitted commands
+     */
+    public long getSubmittedCommandsCount() {
+        synchronized (lock) {
+            return submittedCount;
+        }
+    }
+
+    /**
+     * @return The total number of commands that had to wait for a slot
+     */
+    public long getTotalQueuedCommandsCount() {
+        synchronized (lock) {
+            return queuedCount;
+        }
+    }
+
+    /**
+     * @return The total number of commands that ran to completion
+     */
+    public long getCompletedCommandsCount() {
+        synchronized (lock) {
+            return completedCount;
+        }
+    }
+
+    /**
+     * @return The total number of commands that were rejected or failed
+     * without being started
+     */
+    public long getRejectedCommandsCount() {
+        synchronized (lock) {
+            return rejectedCount;
+        }
+    }
+
+    /**
+     * @return The total time (msec.) spent by commands waiting for a slot
+     */
+    public long getTotalQueueTime() {
+        synchronized (lock) {
+            return TimeUnit.NANOSECONDS.toMillis(totalQueueNanos);
+        }
+    }
+
+    /**
+     * @return The longest time (msec.) a command had to wait for a slot
+     */
+    public long getMaxQueueTime() {
+        synchronized (lock) {
+            return TimeUnit.NANOSECONDS.toMillis(maxQueueNanos);
+        }
+    }
+
+    /**
+     * Creates a service according to the server's configured limits
+     *
+     * @param manager The {@link ServerFactoryManager}
+     * @return The created service
+     * @see ServerFactoryManager#MAX_CONCURRENT_COMMANDS
+     * @see ServerFactoryManager#MAX_CONCURRENT_COMMANDS_PER_SESSION
+     * @see ServerFactoryManager#MAX_CONCURRENT_COMMANDS_PER_USER
+     * @see ServerFactoryManager#COMMAND_QUEUE_TIMEOUT
+     */
+    public static CommandExecutionService create(ServerFactoryManager manager) {
+        int maxCommands = FactoryManagerUtils.getIntProperty(manager, ServerFactoryManager.MAX_CONCURRENT_COMMANDS, UNLIMITED);
+        return new CommandExecutionService(newCommandsThreadPool(maxCommands), true, manager.getScheduledExecutorService(),
+                maxCommands,
+                FactoryManagerUtils.getIntProperty(manager, ServerFactoryManager.MAX_CONCURRENT_COMMANDS_PER_SESSION, UNLIMITED),
+                FactoryManagerUtils.getIntProperty(manager, ServerFactoryManager.MAX_CONCURRENT_COMMANDS_PER_USER, UNLIMITED),
+                FactoryManagerUtils.getLongProperty(manager, ServerFactoryManager.COMMAND_QUEUE_TIMEOUT, DEFAULT_QUEUE_TIMEOUT));
+    }
+
+    /**
+     * @param session The {@link ServerSession} - may be {@code null}
+     * @return The service configured for the session's server if it is an
+     * {@link SshServer} - {@code null} if none available
+     */
+    public static CommandExecutionService resolve(ServerSession session) {
+        ServerFactoryManager manager = (session == null) ? null : session.getFactoryManager();
+        return (manager instanceof SshServer) ? ((SshServer) manager).getCommandExecutionService() : null;
+    }
+
+    private static ExecutorService newCommandsThreadPool(int maxCommands) {
+        if (maxCommands <= UNLIMITED) {
+            return ThreadUtils.newCachedThreadPool("command");
+        }
+
+        // the service never dispatches more than maxCommands tasks, so the queue is never used
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxCommands, maxCommands,
+                                                         60L, TimeUnit.SECONDS,
+                                                         new LinkedBlockingQueue<Runnable>(),
+                                                         new ThreadUtils.SshdThreadFactory("command"));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // must be called while holding the lock
+    private ScheduledExecutorService getTimer() {
+        if (scheduler != null) {
+            return scheduler;
+        }
+        if (timer == null) {
+            timer = ThreadUtils.newSingleThreadScheduledExecutor("command-queue-timeout");
+        }
+        return timer;
+    }
+
+    // must be called while holding the lock
+    private boolean acquire(CommandTask task) {
+        if (isExceeded(running, maxCommands)
+                || isExceeded(count(sessions, task.session), maxPerSession)
+                || ((task.username != null) && isExceeded(count(users, task.username), maxPerUser))) {
+            return false;
+        }
+
+        running++;
+        sessions.put(task.session, Integer.valueOf(count(sessions, task.session) + 1));
+        if (task.username != null) {
+            users.put(task.username, Integer.valueOf(count(users, task.username) + 1));
+        }
+
+        long waited = System.nanoTime() - task.submitted;
+        totalQueueNanos += waited;
+        maxQueueNanos = Math.max(maxQueueNanos, waited);
+        if (task.expiry != null) {
+            task.expiry.cancel(false);
+            task.expiry = null;
+        }
+        return true;
+    }
+
+    // must be called while holding the lock
+    private void release(CommandTask task) {
+        running--;
+        completedCount++;
+        decrement(sessions, task.session);
+        if (task.username != null) {
+            decrement(users, task.username);
+        }
+    }
+
+    private void dispatch(CommandTask task) {
+        try {
+            executors.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.setException(e);
+            task.notifyExit(e.getMessage());
+            onCompleted(task);
+        }
+    }
+
+    private void expire(CommandTask task) {
+        synchronized (lock) {
+            if (!queue.remove(task)) {
+                return; // started or removed meanwhile
+            }
+            rejectedCount++;
+        }
+
+        log.warn("expire({}) command of user={} not started within {} msec.",
+                 task.session, task.username, Long.valueOf(queueTimeout));
+        task.fail("Command not started within " + queueTimeout + " msec.");
+    }
+
+    private void onCompleted(CommandTask task) {
+        LinkedList<CommandTask> ready = new LinkedList<CommandTask>();
+        synchronized (lock) {
+            release(task);
+            for (Iterator<CommandTask> it = queue.iterator(); it.hasNext(); ) {
+                CommandTask next = it.next();
+                if (next.isCancelled()) {
+                    it.remove();
+                } else if (acquire(next)) {
+                    it.remove();
+                    ready.add(next);
+                } else if (isExceeded(running, maxCommands)) {
+                    break;
+                }
+            }
+        }
+
+        for (CommandTask next : ready) {
+            dispatch(next);
+        }
+    }
+
+    private static boolean isExceeded(int count, int max) {
+        return (max > UNLIMITED) && (count >= max);
+    }
+
+    private static <K> int count(Map<K, Integer> counts, K key) {
+        Integer value = (key == null) ? null : counts.get(key);
+        return (value == null) ? 0 : value.intValue();
+    }
+
+    private static <K> void decrement(Map<K, Integer> counts, K key) {
+        int value = count(counts, key);
+        if (value <= 1) {
+            // drop the entry so that the map does not grow with every session/user ever seen
+            counts.remove(key);
+        } else {
+            counts.put(key, Integer.valueOf(value - 1));
+        }
+    }
+
+    private class CommandTask extends FutureTask<Object> {
+        private final ServerSession session;
+        private final String username;
+        private final ExitCallback callback;
+        private final long submitted = System.nanoTime();
+        private ScheduledFuture<?> expiry;  // guarded by the service's lock
+
+        CommandTask(ServerSession session, Runnable command, ExitCallback callback) {
+            super(command, null);
+            this.session = session;
+            this.username = session.getUsername();
+            this.callback = callback;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean result = super.cancel(mayInterruptIfRunning);
+            if (result) {
+                synchronized (lock) {
+                    queue.remove(this);
+                    if (expiry != null) {
+                        expiry.cancel(false);
+                        expiry = null;
+                    }
+                }
+            }
+            return result;
+        }
+
+        // called for a task that was removed from the queue without being started
+        void fail(String message) {
+            setException(new RejectedExecutionException(message));
+            notifyExit(message);
+        }
+
+        void notifyExit(String message) {
+            if (callback == null) {
+                return;
+            }
+
+            try {
+                callback.onExit(-1, message);
+            } catch (RuntimeException e) {
+                log.warn("notifyExit({}) failed ({}) to signal command exit: {}",
+                         session, e.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            super.setException(t);  // overridden so that the service can fail a rejected command
+        }
+
+        @SuppressWarnings("synthetic-access")
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                onCompleted(this);
+            }
+        }
+
+        class Expiry implements Runnable {
+            @SuppressWarnings("synthetic-access")
+            @Override
+            public void run() {
+                expire(CommandTask.this);
+            }
+        }
+    }
+}
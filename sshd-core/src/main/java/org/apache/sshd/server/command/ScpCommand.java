@@ -35,6 +35,8 @@ import org.apache.sshd.common.util.threads.ThreadUtils;
 import org.apache.sshd.server.Command;
 import org.apache.sshd.server.Environment;
 import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.SessionAware;
+import org.apache.sshd.server.session.ServerSession;
 
 /**
  * This commands provide SCP support on both server and client side.
@@ -43,7 +45,7 @@ import org.apache.sshd.server.ExitCallback;
  *
  * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
  */
-public class ScpCommand extends AbstractLoggingBean implements Command, Runnable, FileSystemAware {
+public class ScpCommand extends AbstractLoggingBean implements Command, Runnable, FileSystemAware, SessionAware {
     protected String name;
     protected boolean optR;
     protected boolean optT;
@@ -60,6 +62,7 @@ public class ScpCommand extends AbstractLoggingBean implements Command, Runnable
     protected ExecutorService executors;
     protected boolean shutdownExecutor;
     protected Future<?> pendingFuture;
+    protected ServerSession session;
     protected int sendBufferSize;
     protected int receiveBufferSize;
     protected ScpTransferEventListener listener;
@@ -67,8 +70,9 @@ public class ScpCommand extends AbstractLoggingBean implements Command, Runnable
     /**
      * @param command         The command to be executed
      * @param executorService An {@link ExecutorService} to be used when
-     *                        {@link #start(Environment)}-ing execution. If {@code null} an ad-hoc
-     *                        single-threaded service is created and used.
+     *                        {@link #start(Environment)}-ing execution. If {@code null} then the
+     *                        server's {@link CommandExecutionService} is used - or an ad-hoc
+     *                        single-threaded service if the server has none.
      * @param shutdownOnExit  If {@code true} the {@link ExecutorService#shutdownNow()}
      *                        will be called when command terminates - unless it is the ad-hoc
      *                        service, which will be shutdown regardless
@@ -82,13 +86,8 @@ public class ScpCommand extends AbstractLoggingBean implements Command, Runnable
     public ScpCommand(String command, ExecutorService executorService, boolean shutdownOnExit, int sendSize, int receiveSize, ScpTransferEventListener eventListener) {
         name = command;
 
-        if ((executors = executorService) == null) {
-            String poolName = command.replace(' ', '_').replace('/', ':');
-            executors = ThreadUtils.newSingleThreadExecutor(poolName);
-            shutdownExecutor = true;    // we always close the ad-hoc executor service
-        } else {
-            shutdownExecutor = shutdownOnExit;
-        }
+        executors = executorService;
+        shutdownExecutor = (executorService != null) && shutdownOnExit;
 
         if ((sendBufferSize = sendSize) < ScpHelper.MIN_SEND_BUFFER_SIZE) {
             throw new IllegalArgumentException("<ScpCommmand>(" + command + ") send buffer size (" + sendSize + ") below minimum required (" + ScpHelper.MIN_SEND_BUFFER_SIZE + ")");
@@ -162,6 +161,11 @@ public class ScpCommand extends AbstractLoggingBean implements Command, Runnable
         this.callback = callback;
     }
 
+    @Override
+    public void setSession(ServerSession session) {
+        this.session = session;
+    }
+
     @Override
     public void setFileSystem(FileSystem fs) {
         this.fileSystem = fs;
@@ -174,7 +178,17 @@ public class ScpCommand extends AbstractLoggingBean implements Command, Runnable
         }
 
         try {
-            pendingFuture = executors.submit(this);
+            CommandExecutionService service = (executors == null) ? CommandExecutionService.resolve(session) : null;
+            if (service != null) {
+                pendingFuture = service.submit(session, this, callback);
+            } else {
+                if (executors == null) {
+                    String poolName = name.replace(' ', '_').replace('/', ':');
+                    executors = ThreadUtils.newSingleThreadExecutor(poolName);
+                    shutdownExecutor = true;    // we always close the ad-hoc executor service
+                }
+                pendingFuture = executors.submit(this);
+            }
         } catch (RuntimeException e) {    // e.g., RejectedExecutionException
             log.error("Failed (" + e.getClass().getSimpleName() + ") to start command=" + name + ": " + e.getMessage(), e);
             throw new IOException(e);
@@ -128,8 +128,9 @@ public class ScpCommandFactory implements CommandFactory, Cloneable, ExecutorSer
 
     /**
      * @param service An {@link ExecutorService} to be used when
-     *                starting {@link ScpCommand} execution. If {@code null} then a single-threaded
-     *                ad-hoc service is used. <B>Note:</B> the service will <U>not</U> be shutdown
+     *                starting {@link ScpCommand} execution. If {@code null} then the server's
+     *                {@link CommandExecutionService} is used - or a single-threaded ad-hoc service
+     *                if the server has none. <B>Note:</B> the service will <U>not</U> be shutdown
      *                when the command is terminated - unless it is the ad-hoc service, which will be
      *                shutdown regardless
      */
@@ -102,7 +102,7 @@ public class AuthorizedKeyEntry extends PublicKeyEntry {
         if (GenericUtils.isEmpty(keys)) {
             return PublickeyAuthenticator.RejectAllPublickeyAuthenticator.INSTANCE;
         } else {
-            return new PublickeyAuthenticator.KeySetPublickeyAuthenticator(keys);
+            return new PublickeyAuthenticator.IndexedKeySetPublickeyAuthenticator(keys);
         }
     }
     
@@ -26,6 +26,7 @@ import java.net.URL;
 import java.security.KeyPair;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NavigableMap;
 
 import org.apache.sshd.common.FactoryManagerUtils;
 import org.apache.sshd.common.KeyExchange;
@@ -215,7 +216,7 @@ public class DHGEXServer extends AbstractDHServerKeyExchange {
     }
 
     private DHG chooseDH(int min, int prf, int max) throws Exception {
-        List<Moduli.DhGroup> groups = loadModuliGroups();
+        NavigableMap<Integer, List<Moduli.DhGroup>> groups = loadModuliGroupsBySize();
 
         min = Math.max(min, 1024);
         prf = Math.max(prf, 1024);
@@ -223,20 +224,7 @@ public class DHGEXServer extends AbstractDHServerKeyExchange {
         // those if BouncyCastle is registered
         prf = Math.min(prf, SecurityUtils.isBouncyCastleRegistered() ? 8192 : 1024);
         max = Math.min(max, 8192);
-        int bestSize = 0;
-        List<Moduli.DhGroup> selected = new ArrayList<>();
-        for (Moduli.DhGroup group : groups) {
-            if (group.size < min || group.size > max) {
-                continue;
-            }
-            if ((group.size > prf && group.size < bestSize) || (group.size > bestSize && bestSize < prf)) {
-                bestSize = group.size;
-                selected.clear();
-            }
-            if (group.size == bestSize) {
-                selected.add(group);
-            }
-        }
+        List<Moduli.DhGroup> selected = ModuliCache.selectGroups(groups, min, prf, max);
         if (selected.isEmpty()) {
             log.warn("No suitable primes found, defaulting to DHG1");
             return getDH(new BigInteger(DHGroupData.getP1()), new BigInteger(DHGroupData.getG()));
@@ -248,13 +236,26 @@ public class DHGEXServer extends AbstractDHServerKeyExchange {
     }
 
     protected List<Moduli.DhGroup> loadModuliGroups() throws IOException {
-        List<Moduli.DhGroup> groups = null;
+        List<Moduli.DhGroup> groups = new ArrayList<>();
+        for (List<Moduli.DhGroup> bucket : loadModuliGroupsBySize().values()) {
+            groups.addAll(bucket);
+        }
+        return groups;
+    }
+
+    /**
+     * @return The moduli groups indexed by size - taken from the shared {@link ModuliCache}
+     * of the configured {@link ServerFactoryManager#MODULI_URL} or of the internal moduli file
+     * @throws IOException If failed to load the internal moduli file
+     */
+    protected NavigableMap<Integer, List<Moduli.DhGroup>> loadModuliGroupsBySize() throws IOException {
+        NavigableMap<Integer, List<Moduli.DhGroup>> groups = null;
         URL moduli;
         String moduliStr = FactoryManagerUtils.getString(session, ServerFactoryManager.MODULI_URL);
         if (!GenericUtils.isEmpty(moduliStr)) {
             try {
                 moduli = new URL(moduliStr);
-                groups = Moduli.parseModuli(moduli);
+                groups = ModuliCache.getInstance(moduli).getGroups();
             } catch (IOException e) {   // OK - use internal moduli
                 log.warn("Error (" + e.getClass().getSimpleName() + ") loading external moduli from " + moduliStr + ": " + e.getMessage());
             }
@@ -268,14 +269,14 @@ public class DHGEXServer extends AbstractDHServerKeyExchange {
                 }
 
                 moduliStr = moduli.toExternalForm();
-                groups = Moduli.parseModuli(moduli);
+                groups = ModuliCache.getInstance(moduli).getGroups();
             } catch (IOException e) {
                 log.warn("Error (" + e.getClass().getSimpleName() + ") loading internal moduli from " + moduliStr + ": " + e.getMessage());
                 throw e;    // this time we MUST throw the exception
             }
         }
 
-        log.debug("Loaded moduli groups from {}", moduliStr);
+        log.debug("Using moduli groups from {}", moduliStr);
         return groups;
     }
 
@@ -102,8 +102,8 @@ public class DHGServer extends AbstractDHServerKeyExchange {
         buffer.putBytes(I_C);
         buffer.putBytes(I_S);
         buffer.putBytes(K_S);
-        buffer.putMPInt(e);
-        buffer.putMPInt(f);
+        dh.putE(buffer, e);
+        dh.putE(buffer, f);
         buffer.putMPInt(K);
         hash.update(buffer.array(), 0, buffer.available());
         H = hash.digest();
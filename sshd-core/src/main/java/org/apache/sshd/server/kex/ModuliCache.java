@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.server.kex;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.sshd.common.util.AbstractLoggingBean;
+import org.apache.sshd.common.util.GenericUtils;
+import org.apache.sshd.common.util.ValidateUtils;
+import org.apache.sshd.common.util.io.ModifiableFileWatcher;
+
+/**
+ * Shared cache of the DH groups parsed from a moduli file, indexed by group size
+ * so that selecting a group for a key exchange is a lookup instead of a parse.
+ * The groups are loaded lazily on first use and - if the URL denotes a local
+ * file - re-loaded whenever the file changes.
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class ModuliCache extends AbstractLoggingBean {
+    private static final ConcurrentMap<String, ModuliCache> CACHES = new ConcurrentHashMap<String, ModuliCache>();
+
+    private final URL url;
+    private final ModifiableFileWatcher watcher;
+    private final Object reloadLock = new Object();
+    private volatile NavigableMap<Integer, List<Moduli.DhGroup>> groups;
+
+    public ModuliCache(URL url) {
+        this.url = ValidateUtils.checkNotNull(url, "No moduli URL", GenericUtils.EMPTY_OBJECT_ARRAY);
+        this.watcher = createFileWatcher(url);
+    }
+
+    /**
+     * @param url The moduli {@link URL}
+     * @return The shared {@link ModuliCache} instance for the URL
+     */
+    public static ModuliCache getInstance(URL url) {
+        String key = ValidateUtils.checkNotNull(url, "No moduli URL", GenericUtils.EMPTY_OBJECT_ARRAY).toExternalForm();
+        ModuliCache cache = CACHES.get(key);
+        if (cache == null) {
+            cache = new ModuliCache(url);
+            ModuliCache prev = CACHES.putIfAbsent(key, cache);
+            if (prev != null) { // check if somebody else beat us to it
+                cache = prev;
+            }
+        }
+        return cache;
+    }
+
+    public URL getURL() {
+        return url;
+    }
+
+    /**
+     * @return A {@link NavigableMap} of the (un-modifiable) groups lists indexed by group
+     * size - <B>Note:</B> the map is shared and must not be modified
+     * @throws IOException If failed to load the groups
+     */
+    public NavigableMap<Integer, List<Moduli.DhGroup>> getGroups() throws IOException {
+        NavigableMap<Integer, List<Moduli.DhGroup>> current = groups;
+        if ((current != null) && (!isReloadRequired())) {
+            return current;
+        }
+
+        synchronized (reloadLock) {
+            if ((groups != null) && (groups != current)) {
+                return groups;  // some other thread already reloaded them
+            }
+
+            if (watcher != null) {
+                // record the attributes before reading so that a concurrent change triggers another reload
+                watcher.updateReloadAttributes();
+            }
+
+            groups = indexGroups(Moduli.parseModuli(url));
+            if (log.isDebugEnabled()) {
+                log.debug("Loaded moduli groups sizes " + groups.keySet() + " from " + url.toExternalForm());
+            }
+            return groups;
+        }
+    }
+
+    /**
+     * Selects the groups whose size is closest to the preferred one - i.e., the smallest
+     * size at least as large as the preferred one, or the largest smaller size if no such
+     * group exists - within the specified range
+     *
+     * @param min Minimum group size
+     * @param prf Preferred group size
+     * @param max Maximum group size
+     * @return The candidate groups of the selected size - empty if none in the range
+     * @throws IOException If failed to load the groups
+     */
+    public List<Moduli.DhGroup> selectGroups(int min, int prf, int max) throws IOException {
+        return selectGroups(getGroups(), min, prf, max);
+    }
+
+    public static List<Moduli.DhGroup> selectGroups(NavigableMap<Integer, List<Moduli.DhGroup>> groups, int min, int prf, int max) {
+        if (GenericUtils.isEmpty(groups) || (min > max)) {
+            return Collections.emptyList();
+        }
+
+        NavigableMap<Integer, List<Moduli.DhGroup>> range = groups.subMap(Integer.valueOf(min), true, Integer.valueOf(max), true);
+        Map.Entry<Integer, List<Moduli.DhGroup>> entry = range.ceilingEntry(Integer.valueOf(prf));
+        if (entry == null) {
+            entry = range.floorEntry(Integer.valueOf(prf));
+        }
+
+        if (entry == null) {
+            return Collections.emptyList();
+        } else {
+            return entry.getValue();
+        }
+    }
+
+    public static NavigableMap<Integer, List<Moduli.DhGroup>> indexGroups(List<Moduli.DhGroup> groups) {
+        NavigableMap<Integer, List<Moduli.DhGroup>> index = new TreeMap<Integer, List<Moduli.DhGroup>>();
+        for (Moduli.DhGroup group : groups) {
+            Integer size = Integer.valueOf(group.size);
+            List<Moduli.DhGroup> bucket = index.get(size);
+            if (bucket == null) {
+                bucket = new ArrayList<Moduli.DhGroup>();
+                index.put(size, bucket);
+            }
+            bucket.add(group);
+        }
+
+        for (Map.Entry<Integer, List<Moduli.DhGroup>> e : index.entrySet()) {
+            e.setValue(Collections.unmodifiableList(e.getValue()));
+        }
+        return index;
+    }
+
+    protected boolean isReloadRequired() {
+        if (watcher == null) {
+            return false;   // not a local file - assumed immutable
+        }
+
+        try {
+            return watcher.checkReloadRequired();
+        } catch (IOException e) {
+            log.warn("isReloadRequired(" + url.toExternalForm() + ") failed (" + e.getClass().getSimpleName() + ") to check file: " + e.getMessage());
+            return false;   // keep using the previously loaded groups
+        }
+    }
+
+    protected ModifiableFileWatcher createFileWatcher(URL url) {
+        if (!"file".equalsIgnoreCase(url.getProtocol())) {
+            return null;
+        }
+
+        try {
+            return new ModifiableFileWatcher(Paths.get(url.toURI()));
+        } catch (URISyntaxException | RuntimeException e) {
+            log.warn("createFileWatcher(" + url.toExternalForm() + ") cannot watch (" + e.getClass().getSimpleName() + "): " + e.getMessage());
+            return null;
+        }
+    }
+}
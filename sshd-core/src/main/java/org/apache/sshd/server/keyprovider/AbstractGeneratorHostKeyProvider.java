@@ -25,9 +25,12 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
 import java.security.spec.AlgorithmParameterSpec;
 import java.util.Collections;
 
+import org.apache.sshd.common.config.keys.Ed25519PublicKey;
+import org.apache.sshd.common.config.keys.KeyUtils;
 import org.apache.sshd.common.keyprovider.AbstractKeyPairProvider;
 import org.apache.sshd.common.util.GenericUtils;
 import org.apache.sshd.common.util.SecurityUtils;
@@ -156,6 +159,12 @@ public abstract class AbstractGeneratorHostKeyProvider extends AbstractKeyPairPr
 
     private KeyPair generateKeyPair(String algorithm) {
         try {
+            if (Ed25519PublicKey.ALGORITHM.equalsIgnoreCase(algorithm)) {
+                // no JCE provider for it
+                log.info("generateKeyPair(" + algorithm + ") generating host key...");
+                return KeyUtils.generateEd25519KeyPair(new SecureRandom());
+            }
+
             KeyPairGenerator generator = SecurityUtils.getKeyPairGenerator(algorithm);
             if (keySpec != null) {
                 generator.initialize(keySpec);
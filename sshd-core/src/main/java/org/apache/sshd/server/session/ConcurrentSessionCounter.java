@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.server.session;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sshd.SshServer;
+import org.apache.sshd.common.FactoryManager;
+import org.apache.sshd.common.Session;
+import org.apache.sshd.common.SessionListener;
+import org.apache.sshd.common.io.IoSession;
+import org.apache.sshd.common.util.AbstractLoggingBean;
+
+/**
+ * Keeps track of the number of live sessions per authenticated username and
+ * per remote address, so that concurrent sessions limits can be enforced
+ * without scanning all the managed sessions. Sessions are counted per address
+ * when they are created and per username once they are authenticated, and
+ * are un-counted when they are closed.
+ *
+ * @see org.apache.sshd.server.ServerFactoryManager#MAX_CONCURRENT_SESSIONS
+ * @see org.apache.sshd.server.ServerFactoryManager#MAX_CONCURRENT_SESSIONS_PER_ADDRESS
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+public class ConcurrentSessionCounter extends AbstractLoggingBean implements SessionListener {
+    private final Session.AttributeKey<String> userKey = new Session.AttributeKey<String>();
+    private final Session.AttributeKey<String> addressKey = new Session.AttributeKey<String>();
+    private final ConcurrentMap<String, Integer> users = new ConcurrentHashMap<String, Integer>();
+    private final ConcurrentMap<String, Integer> addresses = new ConcurrentHashMap<String, Integer>();
+    private final AtomicInteger total = new AtomicInteger();
+
+    public ConcurrentSessionCounter() {
+        super();
+    }
+
+    @Override
+    public void sessionCreated(Session session) {
+        total.incrementAndGet();
+
+        String address = resolveAddress(session);
+        if (address != null) {
+            session.setAttribute(addressKey, address);
+            increment(addresses, address);
+        }
+    }
+
+    @Override
+    public void sessionEvent(Session session, Event event) {
+        if (event != Event.Authenticated) {
+            return;
+        }
+
+        String username = session.getUsername();
+        if ((username == null) || (session.getAttribute(userKey) != null)) {
+            return;
+        }
+
+        session.setAttribute(userKey, username);
+        increment(users, username);
+    }
+
+    @Override
+    public void sessionClosed(Session session) {
+        total.decrementAndGet();
+
+        String username = session.getAttribute(userKey);
+        if (username != null) {
+            decrement(users, username);
+        }
+
+        String address = session.getAttribute(addressKey);
+        if (address != null) {
+            decrement(addresses, address);
+        }
+    }
+
+    /**
+     * @return The total number of live sessions
+     */
+    public int getActiveSessionCount() {
+        return total.get();
+    }
+
+    /**
+     * @param username The user name
+     * @return The number of live authenticated sessions for the user
+     */
+    public int getActiveSessionCountForUser(String username) {
+        return count(users, username);
+    }
+
+    /**
+     * @param address The remote host address - as returned by {@link java.net.InetAddress#getHostAddress()}
+     * @return The number of live sessions from that address
+     */
+    public int getActiveSessionCountForAddress(String address) {
+        return count(addresses, address);
+    }
+
+    /**
+     * @return A snapshot of the live authenticated sessions count per username
+     */
+    public Map<String, Integer> getActiveSessionCountsPerUser() {
+        return Collections.unmodifiableMap(new HashMap<String, Integer>(users));
+    }
+
+    /**
+     * @return A snapshot of the live sessions count per remote address
+     */
+    public Map<String, Integer> getActiveSessionCountsPerAddress() {
+        return Collections.unmodifiableMap(new HashMap<String, Integer>(addresses));
+    }
+
+    /**
+     * @param manager The {@link FactoryManager} - may be {@code null}
+     * @return The counter of the live sessions if the manager is an {@link SshServer}
+     * that counts them - {@code null} otherwise
+     */
+    public static ConcurrentSessionCounter resolve(FactoryManager manager) {
+        return (manager instanceof SshServer) ? ((SshServer) manager).getSessionCounter() : null;
+    }
+
+    /**
+     * @param session The {@link Session}
+     * @return The key under which the session's remote address is counted -
+     * <code>null</code> if the address cannot be resolved
+     */
+    public static String resolveAddress(Session session) {
+        IoSession ioSession = session.getIoSession();
+        SocketAddress remote = (ioSession == null) ? null : ioSession.getRemoteAddress();
+        if (remote instanceof InetSocketAddress) {
+            InetSocketAddress inetAddress = (InetSocketAddress) remote;
+            if (inetAddress.getAddress() != null) {
+                return inetAddress.getAddress().getHostAddress();
+            } else {
+                return inetAddress.getHostString();
+            }
+        } else if (remote != null) {
+            return remote.toString();
+        } else {
+            return null;
+        }
+    }
+
+    private static int count(ConcurrentMap<String, Integer> counts, String key) {
+        Integer value = (key == null) ? null : counts.get(key);
+        return (value == null) ? 0 : value.intValue();
+    }
+
+    private static int increment(ConcurrentMap<String, Integer> counts, String key) {
+        for (;;) {
+            Integer cur = counts.get(key);
+            if (cur == null) {
+                if (counts.putIfAbsent(key, Integer.valueOf(1)) == null) {
+                    return 1;
+                }
+            } else if (counts.replace(key, cur, Integer.valueOf(cur.intValue() + 1))) {
+                return cur.intValue() + 1;
+            }
+        }
+    }
+
+    private static int decrement(ConcurrentMap<String, Integer> counts, String key) {
+        for (;;) {
+            Integer cur = counts.get(key);
+            if (cur == null) {
+                return 0;
+            } else if (cur.intValue() <= 1) {
+                // drop the entry so that the map does not grow with every user/address ever seen
+                if (counts.remove(key, cur)) {
+                    return 0;
+                }
+            } else if (counts.replace(key, cur, Integer.valueOf(cur.intValue() - 1))) {
+                return cur.intValue() - 1;
+            }
+        }
+    }
+}
@@ -186,6 +186,12 @@ public class ServerSession extends AbstractSession {
      * @return The current number of live <code>SshSession</code> objects associated with the user
      */
     protected int getActiveSessionCountForUser(String userName) {
+        ConcurrentSessionCounter counter = ConcurrentSessionCounter.resolve(getFactoryManager());
+        if (counter != null) {
+            return counter.getActiveSessionCountForUser(userName);
+        }
+
+        // sessions are not being counted - fall back to scanning them all
         int totalCount = 0;
         for (IoSession is : ioSession.getService().getManagedSessions().values()) {
             ServerSession session = (ServerSession) getSession(is, true);
@@ -198,6 +204,30 @@ public class ServerSession extends AbstractSession {
         return totalCount;
     }
 
+    /**
+     * Retrieve the current number of sessions active from a given remote address.
+     * @param address The remote host address
+     * @return The current number of live <code>SshSession</code> objects from that
+     * address - including this one
+     * @see ConcurrentSessionCounter#resolveAddress(org.apache.sshd.common.Session)
+     */
+    protected int getActiveSessionCountForAddress(String address) {
+        ConcurrentSessionCounter counter = ConcurrentSessionCounter.resolve(getFactoryManager());
+        if (counter != null) {
+            return counter.getActiveSessionCountForAddress(address);
+        }
+
+        // this session may not be managed yet while it is being created
+        int totalCount = address.equals(ConcurrentSessionCounter.resolveAddress(this)) ? 1 : 0;
+        for (IoSession is : ioSession.getService().getManagedSessions().values()) {
+            AbstractSession session = getSession(is, true);
+            if (session != null && session != this && address.equals(ConcurrentSessionCounter.resolveAddress(session))) {
+                totalCount++;
+            }
+        }
+        return totalCount;
+    }
+
 	/**
 	 * Returns the session id.
 	 * 
@@ -18,6 +18,10 @@
  */
 package org.apache.sshd.server.session;
 
+import java.io.IOException;
+
+import org.apache.sshd.common.FactoryManagerUtils;
+import org.apache.sshd.common.SshConstants;
 import org.apache.sshd.common.io.IoSession;
 import org.apache.sshd.common.session.AbstractSession;
 import org.apache.sshd.common.session.AbstractSessionFactory;
@@ -39,9 +43,44 @@ public class SessionFactory extends AbstractSessionFactory {
         this.server = server;
     }
 
+    @Override
+    public void sessionCreated(IoSession ioSession) throws Exception {
+        super.sessionCreated(ioSession);
+
+        // only now that the session is attached can a disconnect be safely closed
+        AbstractSession session = AbstractSession.getSession(ioSession);
+        if (session instanceof ServerSession) {
+            checkConcurrentSessionsPerAddress((ServerSession) session);
+        }
+    }
+
     @Override
     protected AbstractSession doCreateSession(IoSession ioSession) throws Exception {
         return new ServerSession(server, ioSession);
     }
 
+    /**
+     * Disconnects a newly created session - before any key exchange or authentication
+     * takes place - if its remote address has too many live sessions. Invoked once the
+     * session has been attached to its {@link IoSession}
+     *
+     * @param session The created {@link ServerSession} - already counted by the listeners
+     * @throws IOException If failed to send the disconnect message
+     * @see ServerFactoryManager#MAX_CONCURRENT_SESSIONS_PER_ADDRESS
+     */
+    protected void checkConcurrentSessionsPerAddress(ServerSession session) throws IOException {
+        Integer maxAddressCount = FactoryManagerUtils.getInteger(session.getFactoryManager(), ServerFactoryManager.MAX_CONCURRENT_SESSIONS_PER_ADDRESS);
+        if (maxAddressCount == null) {
+            return;
+        }
+
+        String address = ConcurrentSessionCounter.resolveAddress(session);
+        // the count already includes this session
+        int currentAddressCount = (address == null) ? 0 : session.getActiveSessionCountForAddress(address);
+        if (currentAddressCount > maxAddressCount.intValue()) {
+            session.disconnect(SshConstants.SSH2_DISCONNECT_TOO_MANY_CONNECTIONS,
+                    "Too many concurrent connections from " + address + " (" + currentAddressCount + ") - max. allowed: " + maxAddressCount);
+        }
+    }
+
 }
@@ -72,11 +72,17 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.sshd.common.FactoryManagerUtils;
 import org.apache.sshd.common.file.FileSystemAware;
@@ -86,12 +92,15 @@ import org.apache.sshd.common.util.IoUtils;
 import org.apache.sshd.common.util.OsUtils;
 import org.apache.sshd.common.util.SelectorUtils;
 import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.BufferUtils;
 import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+import org.apache.sshd.common.util.threads.KeyOrderedExecutor;
 import org.apache.sshd.common.util.threads.ThreadUtils;
 import org.apache.sshd.server.Command;
 import org.apache.sshd.server.Environment;
 import org.apache.sshd.server.ExitCallback;
 import org.apache.sshd.server.SessionAware;
+import org.apache.sshd.server.command.CommandExecutionService;
 import org.apache.sshd.server.session.ServerSession;
 
 /**
@@ -114,8 +123,71 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
     public static final int LOWER_SFTP_IMPL = SFTP_V3; // Working implementation from v3
     public static final int HIGHER_SFTP_IMPL = SFTP_V6; //  .. up to
     public static final String ALL_SFTP_IMPL;
+    /**
+     * @deprecated The {@code SSH_FXP_READDIR} reply size is configured via
+     * {@link #MAX_READDIR_PACKET_LENGTH} - whose default is this value
+     */
+    @Deprecated
     public static final int  MAX_PACKET_LENGTH = 1024 * 16;
 
+    /**
+     * Properties key for the maximum packet length advertised via the
+     * {@value #LIMITS_EXTENSION} extension
+     */
+    public static final String MAX_SFTP_PACKET_LENGTH = "sftp-max-packet-length";
+    public static final int DEFAULT_MAX_SFTP_PACKET_LENGTH = 256 * 1024;
+
+    /**
+     * Properties key for the maximum data length returned by a single
+     * {@code SSH_FXP_READ} - larger requests are answered with less data
+     */
+    public static final String MAX_READDATA_LENGTH = "sftp-max-read-data-length";
+    public static final int DEFAULT_MAX_READDATA_LENGTH = DEFAULT_MAX_SFTP_PACKET_LENGTH - 1024;
+
+    /**
+     * Properties key for the maximum data length of a single {@code SSH_FXP_WRITE}
+     * advertised via the {@value #LIMITS_EXTENSION} extension - larger requests
+     * are rejected
+     */
+    public static final String MAX_WRITEDATA_LENGTH = "sftp-max-write-data-length";
+    public static final int DEFAULT_MAX_WRITEDATA_LENGTH = DEFAULT_MAX_SFTP_PACKET_LENGTH - 1024;
+
+    /**
+     * Properties key for the size above which no more entries are added to
+     * an {@code SSH_FXP_NAME} reply to {@code SSH_FXP_READDIR}. The default
+     * keeps the replies as small as they have always been - larger values
+     * should leave room for the last entry within the advertised packet length
+     */
+    public static final String MAX_READDIR_PACKET_LENGTH = "sftp-max-readdir-packet-length";
+    public static final int DEFAULT_MAX_READDIR_PACKET_LENGTH = 1024 * 16;
+
+    /**
+     * Properties key for the maximum number of requests of a session that are handed
+     * over to the request executor service but not yet processed - once reached, no
+     * more requests are read until one completes
+     */
+    public static final String MAX_PENDING_REQUESTS = "sftp-max-pending-requests";
+    public static final int DEFAULT_MAX_PENDING_REQUESTS = 64;
+
+    /**
+     * OpenSSH extension used by clients to query the server limits
+     */
+    public static final String LIMITS_EXTENSION = EXT_LIMITS;
+
+    /**
+     * Size of the {@code SSH_FXP_DATA} reply header - packet length, type, id and data length
+     */
+    public static final int DATA_HEADER_LENGTH = 4 /* length */ + 1 /* type */ + 4 /* id */ + 4 /* data length */;
+    /**
+     * Largest read buffer retained for re-use - if the configured maximum read
+     * length requires larger buffers, they are left to the garbage collector
+     */
+    public static final int MAX_POOLED_READ_BUFFER_SIZE = 256 * 1024;
+    /**
+     * Maximum number of idle read buffers retained for re-use by each subsystem
+     */
+    public static final int MAX_POOLED_READ_BUFFERS = 2;
+
     static {
         StringBuilder sb = new StringBuilder(2 * (1 + (HIGHER_SFTP_IMPL - LOWER_SFTP_IMPL)));
         for (int v = LOWER_SFTP_IMPL; v <= HIGHER_SFTP_IMPL; v++) {
@@ -143,7 +215,17 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
 
     private int version;
     private final Map<String, byte[]> extensions = new HashMap<>();
-    private final Map<String, Handle> handles = new HashMap<>();
+    private final Map<String, Handle> handles = new ConcurrentHashMap<>();
+    private int maxPacketLength = DEFAULT_MAX_SFTP_PACKET_LENGTH;
+    private int maxReadDataLength = DEFAULT_MAX_READDATA_LENGTH;
+    private int maxWriteDataLength = DEFAULT_MAX_WRITEDATA_LENGTH;
+    private int maxReaddirPacketLength = DEFAULT_MAX_READDIR_PACKET_LENGTH;
+    private final Object sendLock = new Object();
+    private final Queue<byte[]> readBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledReadBuffers = new AtomicInteger();
+    private final KeyOrderedExecutor requestExecutor;
+    private final AtomicReference<Throwable> requestFailure = new AtomicReference<>();
+    private Semaphore pendingRequests;
 
     private final UnsupportedAttributePolicy unsupportedAttributePolicy;
 
@@ -282,14 +364,30 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
             return read(data, 0, data.length, offset);
         }
 
+        /**
+         * Reads up to the requested length - stops only at end of file
+         *
+         * @return Number of read bytes - or -1 if already at end of file
+         */
         public int read(byte[] data, int doff, int length, long offset) throws IOException {
-            if (pos != offset) {
-                channel.position(offset);
-                pos = offset;
+            // positional read - does not use the channel position, so reads may run concurrently
+            ByteBuffer bb = ByteBuffer.wrap(data, doff, length);
+            int total = 0;
+            while (bb.hasRemaining()) {
+                int read = channel.read(bb, offset + total);
+                if (read < 0) {
+                    return (total > 0) ? total : -1;
+                }
+                total += read;
             }
-            int read = channel.read(ByteBuffer.wrap(data, doff, length));
-            pos += read;
-            return read;
+            return total;
+        }
+
+        /**
+         * @return The current size of the file - zero if unknown (e.g., special files)
+         */
+        public long size() throws IOException {
+            return channel.size();
         }
 
         public void write(byte[] data, long offset) throws IOException {
@@ -321,12 +419,14 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
         public boolean unlock(long offset, long length) throws IOException {
             long size = length == 0 ? channel.size() - offset : length;
             FileLock lock = null;
-            for (Iterator<FileLock> iterator = locks.iterator(); iterator.hasNext();) {
-                FileLock l = iterator.next();
-                if (l.position() == offset && l.size() == size) {
-                    iterator.remove();
-                    lock = l;
-                    break;
+            synchronized (locks) {
+                for (Iterator<FileLock> iterator = locks.iterator(); iterator.hasNext();) {
+                    FileLock l = iterator.next();
+                    if (l.position() == offset && l.size() == size) {
+                        iterator.remove();
+                        lock = l;
+                        break;
+                    }
                 }
             }
             if (lock != null) {
@@ -340,7 +440,8 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
     /**
      * @param executorService The {@link ExecutorService} to be used by
      *                        the {@link SftpSubsystem} command when starting execution. If
-     *                        {@code null} then a single-threaded ad-hoc service is used.
+     *                        {@code null} then the server's {@link CommandExecutionService} is
+     *                        used - or a single-threaded ad-hoc service if the server has none.
      * @param shutdownOnExit  If {@code true} the {@link ExecutorService#shutdownNow()}
      *                        will be called when subsystem terminates - unless it is the ad-hoc
      *                        service, which will be shutdown regardless
@@ -349,16 +450,34 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
      * @see ThreadUtils#newSingleThreadExecutor(String)
      */
     public SftpSubsystem(ExecutorService executorService, boolean shutdownOnExit, UnsupportedAttributePolicy policy) {
-        if ((executors = executorService) == null) {
-            executors = ThreadUtils.newSingleThreadExecutor(getClass().getSimpleName());
-            shutdownExecutor = true;    // we always close the ad-hoc executor service
-        } else {
-            shutdownExecutor = shutdownOnExit;
-        }
-        
+        this(executorService, shutdownOnExit, policy, null);
+    }
+
+    /**
+     * @param executorService The {@link ExecutorService} to be used by
+     *                        the {@link SftpSubsystem} command when starting execution. If
+     *                        {@code null} then the server's {@link CommandExecutionService} is
+     *                        used - or a single-threaded ad-hoc service if the server has none.
+     * @param shutdownOnExit  If {@code true} the {@link ExecutorService#shutdownNow()}
+     *                        will be called when subsystem terminates - unless it is the ad-hoc
+     *                        service, which will be shutdown regardless
+     * @param policy The {@link UnsupportedAttributePolicy} to use if failed to access
+     * some local file attributes
+     * @param requestExecutorService If not {@code null} then the received requests are
+     * processed concurrently by this service - see {@link #dispatch(Buffer)}. The service is
+     * never shut down by the subsystem since it is usually shared by several sessions
+     * @see ThreadUtils#newSingleThreadExecutor(String)
+     */
+    public SftpSubsystem(ExecutorService executorService, boolean shutdownOnExit, UnsupportedAttributePolicy policy,
+                         ExecutorService requestExecutorService) {
+        executors = executorService;
+        shutdownExecutor = (executorService != null) && shutdownOnExit;
+
         if ((unsupportedAttributePolicy=policy) == null) {
             throw new IllegalArgumentException("No policy provided");
         }
+
+        requestExecutor = (requestExecutorService == null) ? null : new KeyOrderedExecutor(requestExecutorService);
     }
 
     public final UnsupportedAttributePolicy getUnsupportedAttributePolicy() {
@@ -402,7 +521,16 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
     public void start(Environment env) throws IOException {
         this.env = env;
         try {
-            pendingFuture = executors.submit(this);
+            CommandExecutionService service = (executors == null) ? CommandExecutionService.resolve(session) : null;
+            if (service != null) {
+                pendingFuture = service.submit(session, this, callback);
+            } else {
+                if (executors == null) {
+                    executors = ThreadUtils.newSingleThreadExecutor(getClass().getSimpleName());
+                    shutdownExecutor = true;    // we always close the ad-hoc executor service
+                }
+                pendingFuture = executors.submit(this);
+            }
         } catch (RuntimeException e) {    // e.g., RejectedExecutionException
             log.error("Failed (" + e.getClass().getSimpleName() + ") to start command: " + e.toString(), e);
             throw new IOException(e);
@@ -414,6 +542,11 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
         DataInputStream dis = null;
         try {
             dis = new DataInputStream(in);
+            if (requestExecutor != null) {
+                int maxPending = FactoryManagerUtils.getIntProperty(session, MAX_PENDING_REQUESTS, DEFAULT_MAX_PENDING_REQUESTS);
+                pendingRequests = new Semaphore(Math.max(1, maxPending));
+            }
+
             while (true) {
                 int length = dis.readInt();
                 if (length < 5) {
@@ -430,7 +563,12 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
                     buffer.wpos(buffer.wpos() + l);
                     nb -= l;
                 }
-                process(buffer);
+
+                if (requestExecutor == null) {
+                    process(buffer);
+                } else {
+                    dispatch(buffer);
+                }
             }
         } catch (Throwable t) {
             if (!closed && !(t instanceof EOFException)) { // Ignore
@@ -445,6 +583,14 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
                 }
             }
 
+            if (requestExecutor != null) {
+                try {
+                    requestExecutor.awaitIdle();
+                } catch (InterruptedException e) {
+                    log.debug("Interrupted while waiting for pending requests");
+                }
+            }
+
             if (handles != null) {
                 for (Map.Entry<String, Handle> entry : handles.entrySet()) {
                     Handle handle = entry.getValue();
@@ -459,9 +605,119 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
         }
     }
 
+    /**
+     * Hands a request over to the request executor service. Requests that refer
+     * to the same handle are processed in the order they were received, except
+     * that reads (and {@code SSH_FXP_FSTAT}) of the same handle may overlap each
+     * other. Requests that only look up paths or open existing files without
+     * truncating them (e.g., stat, realpath, opendir) run without any ordering. All
+     * other requests (e.g., remove, rename, mkdir, or an open that may create or
+     * truncate a file) wait for the pending ones to complete and are then processed
+     * by the reading thread itself before any following request is read. At most
+     * {@link #MAX_PENDING_REQUESTS} requests are pending at any time - the reading
+     * thread blocks until one completes once that limit is reached.
+     *
+     * @param buffer The received request
+     * @throws IOException If a previously dispatched request failed or the
+     * processing of an inline request failed
+     * @throws InterruptedException If interrupted while waiting for the pending
+     * requests to complete
+     */
+    protected void dispatch(final Buffer buffer) throws IOException, InterruptedException {
+        checkRequestFailure();
+
+        int rpos = buffer.rpos();
+        buffer.getInt();    // skip length
+        int type = buffer.getByte() & 0xFF;
+        buffer.getInt();    // skip id
+        String handle = null;
+        boolean shared = false;
+        boolean ordered = true;
+        switch (type) {
+            case SSH_FXP_READ:
+            case SSH_FXP_FSTAT:
+                shared = true;
+                handle = buffer.getString();
+                break;
+            case SSH_FXP_WRITE:
+            case SSH_FXP_CLOSE:
+            case SSH_FXP_FSETSTAT:
+            case SSH_FXP_READDIR:
+            case SSH_FXP_BLOCK:
+            case SSH_FXP_UNBLOCK:
+                handle = buffer.getString();
+                break;
+            case SSH_FXP_OPEN:
+                ordered = isModifyingOpen(buffer);
+                break;
+            case SSH_FXP_OPENDIR:
+            case SSH_FXP_STAT:
+            case SSH_FXP_LSTAT:
+            case SSH_FXP_REALPATH:
+            case SSH_FXP_READLINK:
+                ordered = false;
+                break;
+            default:    // anything else acts as a barrier
+        }
+        buffer.rpos(rpos);
+
+        if (ordered && (handle == null)) {
+            requestExecutor.awaitIdle();
+            checkRequestFailure();
+            process(buffer);
+            return;
+        }
+
+        // block the reading thread while too many requests are pending
+        pendingRequests.acquire();
+        try {
+            requestExecutor.execute(handle, shared, new Runnable() {
+                @SuppressWarnings("synthetic-access")
+                @Override
+                public void run() {
+                    try {
+                        process(buffer);
+                    } catch (Throwable t) {
+                        if (requestFailure.compareAndSet(null, t) && (!closed)) {
+                            log.error("Exception caught while processing SFTP request", t);
+                        }
+                    } finally {
+                        pendingRequests.release();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {  // e.g., RejectedExecutionException
+            pendingRequests.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @param buffer An {@code SSH_FXP_OPEN} request positioned after its id
+     * @return {@code true} if the request may create or truncate the file
+     */
+    protected boolean isModifyingOpen(Buffer buffer) {
+        buffer.getString(); // skip path
+        if (version >= SFTP_V5) {
+            buffer.getInt();    // skip desired access
+            int disposition = buffer.getInt() & SSH_FXF_ACCESS_DISPOSITION;
+            return disposition != SSH_FXF_OPEN_EXISTING;
+        } else {
+            int pflags = buffer.getInt();
+            return (pflags & (SSH_FXF_CREAT | SSH_FXF_TRUNC)) != 0;
+        }
+    }
+
+    protected void checkRequestFailure() throws IOException {
+        Throwable t = requestFailure.get();
+        if (t != null) {
+            throw new IOException("Failed (" + t.getClass().getSimpleName() + ") to process a previous request: " + t.getMessage(), t);
+        }
+    }
+
     protected void process(Buffer buffer) throws IOException {
         int length = buffer.getInt();
-        int type = buffer.getByte();
+        int type = buffer.getByte() & 0xFF;
         int id = buffer.getInt();
         if (log.isDebugEnabled()) {
             log.debug("process(length={}, type={}, id={})",
@@ -553,6 +809,9 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
         case "version-select":
             doVersionSelect(buffer, id);
             break;
+        case LIMITS_EXTENSION:
+            doLimits(buffer, id);
+            break;
         default:
             log.info("Received unsupported SSH_FXP_EXTENDED({})", extension);
             sendStatus(id, SSH_FX_OP_UNSUPPORTED, "Command SSH_FXP_EXTENDED(" + extension + ") is unsupported or not implemented");
@@ -571,6 +830,20 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
         sendStatus(id, SSH_FX_OP_UNSUPPORTED, "Command SSH_FXP_EXTENDED(text-seek) is unsupported or not implemented");
     }
 
+    protected void doLimits(Buffer buffer, int id) throws IOException {
+        log.debug("Received SSH_FXP_EXTENDED({})", LIMITS_EXTENSION);
+
+        int maxHandleCount = FactoryManagerUtils.getIntProperty(session, MAX_OPEN_HANDLES_PER_SESSION, Integer.MAX_VALUE);
+        buffer.clear();
+        buffer.putByte((byte) SSH_FXP_EXTENDED_REPLY);
+        buffer.putInt(id);
+        buffer.putLong(maxPacketLength);
+        buffer.putLong(maxReadDataLength);
+        buffer.putLong(maxWriteDataLength);
+        buffer.putLong((maxHandleCount == Integer.MAX_VALUE) ? 0L : maxHandleCount);    // 0 means no limit
+        send(buffer);
+    }
+
     protected void doVersionSelect(Buffer buffer, int id) throws IOException {
         String ver = buffer.getString();
         if (log.isDebugEnabled()) {
@@ -1088,6 +1361,10 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
             log.debug("Received SSH_FXP_WRITE (handle={}, offset={}, data=byte[{}])",
                       new Object[] { handle, Long.valueOf(offset), Integer.valueOf(length) });
         }
+        if (length > maxWriteDataLength) {
+            sendStatus(id, SSH_FX_FAILURE, "Write data length (" + length + ") exceeds max. (" + maxWriteDataLength + ")");
+            return;
+        }
         try {
             Handle p = handles.get(handle);
             if (!(p instanceof FileHandle)) {
@@ -1114,21 +1391,32 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
             Handle p = handles.get(handle);
             if (!(p instanceof FileHandle)) {
                 sendStatus(id, SSH_FX_INVALID_HANDLE, handle);
+            } else if (len < 0) {
+                sendStatus(id, SSH_FX_FAILURE, "Bad read length: " + len);
             } else {
+                // the protocol allows returning less data than requested
+                len = Math.min(len, maxReadDataLength);
                 FileHandle fh = (FileHandle) p;
-                Buffer buf = new ByteArrayBuffer(len + 9);
-                buf.putByte((byte) SSH_FXP_DATA);
-                buf.putInt(id);
-                int pos = buf.wpos();
-                buf.putInt(0);
-                len = fh.read(buf.array(), buf.wpos(), len, offset);
-                if (len >= 0) {
-                    buf.wpos(pos);
-                    buf.putInt(len);
-                    buf.wpos(pos + 4 + len);
-                    send(buf);
-                } else {
-                    sendStatus(id, SSH_FX_EOF, "");
+                long size = fh.size();
+                if ((size > 0L) && (len > 0)) {  // special files report a zero size
+                    // no need for a buffer larger than the remaining data - a single byte still detects EOF
+                    len = (int) Math.min(len, Math.max(size - offset, 1L));
+                }
+                // read the data right after the reply header so the whole packet is sent with a single write
+                byte[] data = acquireReadBuffer(DATA_HEADER_LENGTH + len);
+                try {
+                    len = fh.read(data, DATA_HEADER_LENGTH, len, offset);
+                    if (len >= 0) {
+                        BufferUtils.putInt(DATA_HEADER_LENGTH - 4 + len, data, 0);
+                        data[4] = (byte) SSH_FXP_DATA;
+                        BufferUtils.putInt(id, data, 5);
+                        BufferUtils.putInt(len, data, 9);
+                        send(data, 0, DATA_HEADER_LENGTH + len);
+                    } else {
+                        sendStatus(id, SSH_FX_EOF, "");
+                    }
+                } finally {
+                    releaseReadBuffer(data);
                 }
             }
         } catch (IOException e) {
@@ -1136,6 +1424,50 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
         }
     }
 
+    /**
+     * @param size Required buffer size - at most {@link #getReadBufferSize()}
+     * @return A buffer of at least the required size - preferably an idle one
+     * @see #releaseReadBuffer(byte[])
+     */
+    protected byte[] acquireReadBuffer(int size) {
+        int poolSize = getReadBufferSize();
+        if ((size > poolSize) || (poolSize > MAX_POOLED_READ_BUFFER_SIZE)) {
+            return new byte[size];
+        }
+
+        byte[] data = readBuffers.poll();
+        if (data == null) {
+            // pooled buffers all have the same size so that any of them fits any read
+            return new byte[poolSize];
+        }
+        pooledReadBuffers.decrementAndGet();
+        return data;
+    }
+
+    /**
+     * @param data A buffer obtained via {@link #acquireReadBuffer(int)} - it
+     * must not be used once released
+     */
+    protected void releaseReadBuffer(byte[] data) {
+        if (closed || (data.length != getReadBufferSize()) || (data.length > MAX_POOLED_READ_BUFFER_SIZE)) {
+            return;
+        }
+
+        if (pooledReadBuffers.incrementAndGet() > MAX_POOLED_READ_BUFFERS) {
+            pooledReadBuffers.decrementAndGet();
+        } else {
+            readBuffers.offer(data);
+        }
+    }
+
+    /**
+     * @return Size of the pooled read buffers - large enough for a reply
+     * carrying the maximum read length
+     */
+    protected int getReadBufferSize() {
+        return DATA_HEADER_LENGTH + maxReadDataLength;
+    }
+
     protected void doClose(Buffer buffer, int id) throws IOException {
         String handle = buffer.getString();
         log.debug("Received SSH_FXP_CLOSE (handle={})", handle);
@@ -1232,6 +1564,11 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
             extensions.put(name, data);
         }
 
+        maxPacketLength = FactoryManagerUtils.getIntProperty(session, MAX_SFTP_PACKET_LENGTH, DEFAULT_MAX_SFTP_PACKET_LENGTH);
+        maxReadDataLength = FactoryManagerUtils.getIntProperty(session, MAX_READDATA_LENGTH, DEFAULT_MAX_READDATA_LENGTH);
+        maxWriteDataLength = FactoryManagerUtils.getIntProperty(session, MAX_WRITEDATA_LENGTH, DEFAULT_MAX_WRITEDATA_LENGTH);
+        maxReaddirPacketLength = FactoryManagerUtils.getIntProperty(session, MAX_READDIR_PACKET_LENGTH, DEFAULT_MAX_READDIR_PACKET_LENGTH);
+
         buffer.clear();
         buffer.putByte((byte) SSH_FXP_VERSION);
         buffer.putInt(version);
@@ -1244,6 +1581,10 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
         buffer.putString("versions");
         buffer.putString(all);
 
+        // limits
+        buffer.putString(LIMITS_EXTENSION);
+        buffer.putString("1");
+
         // supported
         buffer.putString("supported");
         buffer.putInt(5 * 4); // length of 5 integers
@@ -1260,7 +1601,7 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
         // TODO: supported-access-mask
         buffer.putInt(0);
         // max-read-size
-        buffer.putInt(0);
+        buffer.putInt(maxReadDataLength);
 
         // supported2
         buffer.putString("supported2");
@@ -1277,7 +1618,7 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
         // TODO: supported-access-mask
         buffer.putInt(0);
         // max-read-size
-        buffer.putInt(0);
+        buffer.putInt(maxReadDataLength);
         // supported-open-block-vector
         buffer.putShort(0);
         // supported-block-vector
@@ -1360,12 +1701,14 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
         int wpos = buffer.wpos();
         buffer.putInt(0);
         int nb = 0;
-        while (files.hasNext() && (buffer.wpos() < MAX_PACKET_LENGTH)) {
+        while (files.hasNext() && (buffer.wpos() < maxReaddirPacketLength)) {
             Path    f = files.next();
             String  shortName = getShortName(f);
+            // fetch the attributes only once for both the long name and the attributes
+            Map<String, Object> attrs = resolveFileAttributes(f, SSH_FILEXFER_ATTR_ALL, false);
             buffer.putString(shortName, StandardCharsets.UTF_8);
             if (version == SFTP_V3) {
-                String  longName = getLongName(f);
+                String  longName = getLongName(f, attrs);
                 buffer.putString(longName, StandardCharsets.UTF_8); // Format specified in the specs
                 if (log.isTraceEnabled()) {
                     log.trace("sendName(id=" + id + ")[" + nb + "] - " + shortName + " [" + longName + "]");
@@ -1375,7 +1718,7 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
                     log.trace("sendName(id=" + id + ")[" + nb + "] - " + shortName);
                 }
             }
-            writeAttrs(buffer, f, SSH_FILEXFER_ATTR_ALL, false);
+            writeAttrs(buffer, attrs);
             nb++;
         }
 
@@ -1386,20 +1729,6 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
         send(buffer);
     }
 
-    private String getLongName(Path f) throws IOException {
-        return getLongName(f, true);
-    }
-
-    private String getLongName(Path f, boolean sendAttrs) throws IOException {
-        Map<String, Object> attributes;
-        if (sendAttrs) {
-            attributes = getAttributes(f, false);
-        } else {
-            attributes = Collections.emptyMap();
-        }
-        return getLongName(f, attributes);
-    }
-
     private String getLongName(Path f, Map<String, Object> attributes) throws IOException {
         String username;
         if (attributes.containsKey("owner")) {
@@ -1531,6 +1860,10 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
     }
 
     protected void writeAttrs(Buffer buffer, Path file, int flags, boolean followLinks) throws IOException {
+        writeAttrs(buffer, resolveFileAttributes(file, flags, followLinks));
+    }
+
+    protected Map<String, Object> resolveFileAttributes(Path file, int flags, boolean followLinks) throws IOException {
         LinkOption[]    options = IoUtils.getLinkOptions(followLinks);
         Boolean         status = IoUtils.checkFileExists(file, options);
         Map<String, Object> attributes;
@@ -1542,7 +1875,7 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
             attributes = getAttributes(file, flags, followLinks);
         }
 
-        writeAttrs(buffer, attributes);
+        return attributes;
     }
 
     protected void writeAttrs(Buffer buffer, Map<String, Object> attributes) throws IOException {
@@ -2113,10 +2446,27 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
     }
 
     protected void send(Buffer buffer) throws IOException {
-        DataOutputStream dos = new DataOutputStream(out);
-        dos.writeInt(buffer.available());
-        dos.write(buffer.array(), buffer.rpos(), buffer.available());
-        dos.flush();
+        synchronized (sendLock) {
+            DataOutputStream dos = new DataOutputStream(out);
+            dos.writeInt(buffer.available());
+            dos.write(buffer.array(), buffer.rpos(), buffer.available());
+            dos.flush();
+        }
+    }
+
+    /**
+     * Sends a packet that already contains its length prefix
+     *
+     * @param data The packet data
+     * @param off Offset of the length prefix
+     * @param len Total packet length - including the length prefix
+     * @throws IOException If failed to send the packet
+     */
+    protected void send(byte[] data, int off, int len) throws IOException {
+        synchronized (sendLock) {
+            out.write(data, off, len);
+            out.flush();
+        }
     }
 
     @Override
@@ -2148,6 +2498,9 @@ public class SftpSubsystem extends AbstractLoggingBean implements Command, Runna
 
             executors = null;
 
+            readBuffers.clear();
+            pooledReadBuffers.set(0);
+
             try {
                 fileSystem.close();
             } catch (UnsupportedOperationException e) {
@@ -51,6 +51,11 @@ public class SftpSubsystemFactory implements NamedFactory<Command>, Cloneable, E
             return this;
         }
 
+        public Builder withRequestExecutorService(ExecutorService service) {
+            factory.setRequestExecutorService(service);
+            return this;
+        }
+
         public Builder withUnsupportedAttributePolicy(UnsupportedAttributePolicy p) {
             factory.setUnsupportedAttributePolicy(p);
             return this;
@@ -65,6 +70,7 @@ public class SftpSubsystemFactory implements NamedFactory<Command>, Cloneable, E
 
     private ExecutorService executors;
     private boolean shutdownExecutor;
+    private ExecutorService requestExecutors;
     private UnsupportedAttributePolicy policy = DEFAULT_POLICY;
 
     public SftpSubsystemFactory() {
@@ -83,7 +89,9 @@ public class SftpSubsystemFactory implements NamedFactory<Command>, Cloneable, E
 
     /**
      * @param service The {@link ExecutorService} to be used by the {@link SftpSubsystem}
-     *                command when starting execution. If {@code null} then a single-threaded ad-hoc service is used.
+     *                command when starting execution. If {@code null} then the server's
+     *                {@link org.apache.sshd.server.command.CommandExecutionService} is used - or
+     *                a single-threaded ad-hoc service if the server has none.
      */
     @Override
     public void setExecutorService(ExecutorService service) {
@@ -105,6 +113,20 @@ public class SftpSubsystemFactory implements NamedFactory<Command>, Cloneable, E
         shutdownExecutor = shutdownOnExit;
     }
 
+    public ExecutorService getRequestExecutorService() {
+        return requestExecutors;
+    }
+
+    /**
+     * @param service The {@link ExecutorService} used to process the SFTP requests
+     *                concurrently. If {@code null} (default) then each session processes
+     *                its requests one at a time. The service is shared by all the sessions
+     *                and is never shut down by the subsystem
+     */
+    public void setRequestExecutorService(ExecutorService service) {
+        requestExecutors = service;
+    }
+
     public UnsupportedAttributePolicy getUnsupportedAttributePolicy() {
         return policy;
     }
@@ -123,7 +145,7 @@ public class SftpSubsystemFactory implements NamedFactory<Command>, Cloneable, E
 
     @Override
     public Command create() {
-        return new SftpSubsystem(getExecutorService(), isShutdownOnExit(), getUnsupportedAttributePolicy());
+        return new SftpSubsystem(getExecutorService(), isShutdownOnExit(), getUnsupportedAttributePolicy(), getRequestExecutorService());
     }
 
     @Override
@@ -23,9 +23,21 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.sshd.common.future.SshFutureListener;
+import org.apache.sshd.common.io.IoInputStream;
+import org.apache.sshd.common.io.IoOutputStream;
+import org.apache.sshd.common.io.IoReadFuture;
+import org.apache.sshd.common.io.IoWriteFuture;
+import org.apache.sshd.common.util.AbstractLoggingBean;
+import org.apache.sshd.common.util.IoUtils;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
 import org.apache.sshd.common.util.threads.ThreadUtils;
-import org.apache.sshd.server.Command;
+import org.apache.sshd.server.AsyncCommand;
 import org.apache.sshd.server.Environment;
 import org.apache.sshd.server.ExitCallback;
 import org.apache.sshd.server.SessionAware;
@@ -33,43 +45,64 @@ import org.apache.sshd.server.session.ServerSession;
 
 /**
  * A shell implementation that wraps an instance of {@link InvertedShell}
- * as a {@link Command}.  This is useful when using external
+ * as a {@link org.apache.sshd.server.Command}.  This is useful when using external
  * processes.
- * When starting the shell, this wrapper will also create a thread used
- * to pump the streams and also to check if the shell is alive. 
+ * When starting the shell, this wrapper submits one pump per shell stream to its
+ * executor. Each pump blocks on its stream and only wakes up when data is available,
+ * so an idle shell does not consume any CPU. When used as an {@link AsyncCommand},
+ * the output pumps hand their data to the channel and release their thread until the
+ * write completes, and the input is read asynchronously from the channel.
+ * Since the process streams can only be read by blocking, an idle shell still pins
+ * one executor thread per output stream - plus one for the input when used with
+ * blocking streams.
+ * The pumps run on their own executor and are not counted against the quotas of
+ * the server's {@link org.apache.sshd.server.command.CommandExecutionService}.
+ * The shell exits once both its output and error streams have reached EOF and have
+ * been drained, and the process has terminated. Therefore, a child process that
+ * keeps the shell output open delays the exit status until it closes it.
  *
  * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
  */
-public class InvertedShellWrapper implements Command, SessionAware {
+public class InvertedShellWrapper extends AbstractLoggingBean implements AsyncCommand, SessionAware {
 
     /** default buffer size for the IO pumps. */
     public static final int DEFAULT_BUFFER_SIZE = 8192;
 
+    /** interval (msec.) between two checks of the process state once its outputs are closed. */
+    public static final long EXIT_POLL_INTERVAL = 10L;
+
     private final InvertedShell shell;
     private final Executor executor;
     private final int bufferSize;
+    private final boolean shutdownExecutor;
+    private final AtomicInteger openOutputs = new AtomicInteger(2);
+    private final AtomicBoolean exited = new AtomicBoolean();
     private InputStream in;
     private OutputStream out;
     private OutputStream err;
+    private IoInputStream ioIn;
+    private IoOutputStream ioOut;
+    private IoOutputStream ioErr;
     private OutputStream shellIn;
     private InputStream shellOut;
     private InputStream shellErr;
     private ExitCallback callback;
-    private boolean shutdownExecutor;
 
     public InvertedShellWrapper(InvertedShell shell) {
         this(shell, DEFAULT_BUFFER_SIZE);
     }
 
+    /**
+     * @param shell The wrapped {@link InvertedShell}
+     * @param executor The {@link Executor} used to pump the streams - it must be able
+     *                 to run up to 3 tasks concurrently for each shell (input, output and error)
+     */
     public InvertedShellWrapper(InvertedShell shell, Executor executor) {
         this(shell, executor, DEFAULT_BUFFER_SIZE);
     }
 
     public InvertedShellWrapper(InvertedShell shell, int bufferSize) {
-        this(shell,
-             ThreadUtils.newSingleThreadExecutor("shell[" + Integer.toHexString(shell.hashCode()) + "]"),
-             true,
-             bufferSize);
+        this(shell, DefaultExecutorHolder.EXECUTOR, false, bufferSize);
     }
 
     public InvertedShellWrapper(InvertedShell shell, Executor executor, int bufferSize) {
@@ -78,9 +111,9 @@ public class InvertedShellWrapper implements Command, SessionAware {
 
     public InvertedShellWrapper(InvertedShell shell, Executor executor, boolean shutdownExecutor, int bufferSize) {
         this.shell = shell;
-        this.executor = executor;
+        this.executor = (executor == null) ? DefaultExecutorHolder.EXECUTOR : executor;
         this.bufferSize = bufferSize;
-        this.shutdownExecutor = shutdownExecutor;
+        this.shutdownExecutor = (executor != null) && shutdownExecutor;
     }
 
     @Override
@@ -98,6 +131,21 @@ public class InvertedShellWrapper implements Command, SessionAware {
         this.err = err;
     }
 
+    @Override
+    public void setIoInputStream(IoInputStream in) {
+        this.ioIn = in;
+    }
+
+    @Override
+    public void setIoOutputStream(IoOutputStream out) {
+        this.ioOut = out;
+    }
+
+    @Override
+    public void setIoErrorStream(IoOutputStream err) {
+        this.ioErr = err;
+    }
+
     @Override
     public void setExitCallback(ExitCallback callback) {
         this.callback = callback;
@@ -117,12 +165,18 @@ public class InvertedShellWrapper implements Command, SessionAware {
         shellIn = shell.getInputStream();
         shellOut = shell.getOutputStream();
         shellErr = shell.getErrorStream();
-        executor.execute(new Runnable() {
-            @Override
-            public void run() {
-                pumpStreams();
+        try {
+            executor.execute(new OutputPump(shellOut, out, ioOut));
+            executor.execute(new OutputPump(shellErr, err, ioErr));
+            if (ioIn != null) {
+                readInput(new ByteArrayBuffer(bufferSize));
+            } else if (in != null) {
+                executor.execute(new InputPump());
             }
-        });
+        } catch (RejectedExecutionException e) {
+            shell.destroy();
+            throw new IOException("Cannot pump the shell streams: " + e.getMessage(), e);
+        }
     }
 
     @Override
@@ -133,50 +187,175 @@ public class InvertedShellWrapper implements Command, SessionAware {
         }
     }
 
-    protected void pumpStreams() {
+    protected void readInput(final Buffer buffer) {
+        buffer.clear();
+        ioIn.read(buffer).addListener(new SshFutureListener<IoReadFuture>() {
+            @Override
+            public void operationComplete(IoReadFuture future) {
+                if (future.getException() != null) {
+                    // the channel reached EOF or has been closed
+                    IoUtils.closeQuietly(shellIn);
+                    return;
+                }
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            shellIn.write(buffer.array(), buffer.rpos(), buffer.available());
+                            shellIn.flush();
+                        } catch (IOException e) {
+                            log.debug("Failed to write to the shell input: {}", e.getMessage());
+                            return;
+                        }
+                        readInput(buffer);
+                    }
+                });
+            }
+        });
+    }
+
+    protected void onOutputClosed() {
+        if (openOutputs.decrementAndGet() == 0) {
+            waitForExit();
+        }
+    }
+
+    protected void onPumpFailed(Throwable t) {
+        if (!exited.get()) {
+            log.debug("Failed to pump the shell streams: {}", t.getMessage());
+        }
+        shell.destroy();
+        waitForExit();
+    }
+
+    /**
+     * Blocks the calling pump until the process has terminated, since the outputs
+     * may reach EOF before it does, and then reports the exit
+     */
+    protected void waitForExit() {
         try {
-            // Use a single thread to correctly sequence the output and error streams.
-            // If any bytes are available from the output stream, send them first, then
-            // check the error stream, or wait until more data is available.
+            while (shell.isAlive()) {
+                Thread.sleep(EXIT_POLL_INTERVAL);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            shell.destroy();
+        }
+        onExit();
+    }
+
+    /**
+     * Invokes the exit callback exactly once - with -1 if the exit value cannot be retrieved
+     */
+    protected void onExit() {
+        if (exited.compareAndSet(false, true)) {
+            int exitValue = -1;
+            try {
+                exitValue = shell.exitValue();
+            } catch (RuntimeException e) {
+                log.debug("Failed to retrieve the shell exit value: {}", e.getMessage());
+            } finally {
+                callback.onExit(exitValue);
+            }
+        }
+    }
+
+    /**
+     * Copies the channel input to the shell input, blocking until data is available
+     */
+    protected class InputPump implements Runnable {
+        @Override
+        public void run() {
             byte[] buffer = new byte[bufferSize];
-            for (;;) {
-                if (pumpStream(in, shellIn, buffer)) {
-                    continue;
-                }
-                if (pumpStream(shellOut, out, buffer)) {
-                    continue;
+            try {
+                for (int len = in.read(buffer); len >= 0; len = in.read(buffer)) {
+                    if (len > 0) {
+                        shellIn.write(buffer, 0, len);
+                        shellIn.flush();
+                    }
                 }
-                if (pumpStream(shellErr, err, buffer)) {
-                    continue;
+                shellIn.close();
+            } catch (IOException e) {
+                // the input is not needed anymore once the shell has exited
+                if (!exited.get()) {
+                    log.debug("Failed to pump the shell input: {}", e.getMessage());
                 }
-                if (!shell.isAlive()) {
-                    callback.onExit(shell.exitValue());
-                    return;
-                }
-                // Sleep a bit.  This is not very good, as it consumes CPU, but the
-                // input streams are not selectable for nio, and any other blocking
-                // method would consume at least two threads
-                Thread.sleep(1);
             }
-        } catch (Exception e) {
-            shell.destroy();
-            callback.onExit(shell.exitValue());
         }
     }
 
-    private boolean pumpStream(InputStream in, OutputStream out, byte[] buffer) throws IOException {
-        int available = in.available();
-        if (available > 0) {
-            int len = in.read(buffer);
-            if (len > 0) {
-                out.write(buffer, 0, len);
-                out.flush();
-                return true;
+    /**
+     * Copies a shell output stream to the channel, blocking until data is available.
+     * When writing to an {@link IoOutputStream}, the pump releases its thread until
+     * the write completes and is then re-submitted to the executor.
+     */
+    protected class OutputPump implements Runnable, SshFutureListener<IoWriteFuture> {
+        private final InputStream source;
+        private final OutputStream target;
+        private final IoOutputStream ioTarget;
+        private final byte[] buffer = new byte[bufferSize];
+
+        public OutputPump(InputStream source, OutputStream target, IoOutputStream ioTarget) {
+            this.source = source;
+            this.target = target;
+            this.ioTarget = ioTarget;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (;;) {
+                    int len = source.read(buffer);
+                    if (len < 0) {
+                        onOutputClosed();
+                        return;
+                    }
+                    if (len == 0) {
+                        continue;
+                    }
+                    if (ioTarget != null) {
+                        // the buffer is not read into again until the write completes
+                        ioTarget.write(new ByteArrayBuffer(buffer, 0, len)).addListener(this);
+                        return;
+                    }
+                    target.write(buffer, 0, len);
+                    target.flush();
+                }
+            } catch (Throwable t) {
+                onPumpFailed(t);
+            }
+        }
+
+        @Override
+        public void operationComplete(IoWriteFuture future) {
+            if (!future.isWritten()) {
+                onPumpFailed(future.getException());
+                return;
             }
-        } else if (available == -1) {
-            out.close();
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                onPumpFailed(e);
+            }
+        }
+    }
+
+    /**
+     * @return The lazily created pool shared by the shells that were not given an executor
+     */
+    static Executor getDefaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Lazily created pool shared by all the shells that were not given an executor
+     */
+    private static final class DefaultExecutorHolder {
+        private static final ExecutorService EXECUTOR = ThreadUtils.newCachedThreadPool("InvertedShellWrapper");
+
+        private DefaultExecutorHolder() {
+            throw new UnsupportedOperationException("No instance");
         }
-        return false;
     }
 
 }
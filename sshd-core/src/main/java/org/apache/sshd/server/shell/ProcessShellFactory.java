@@ -22,14 +22,19 @@ import java.io.FilterInputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.util.EnumSet;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.sshd.common.Factory;
 import org.apache.sshd.common.util.AbstractLoggingBean;
 import org.apache.sshd.common.util.buffer.Buffer;
 import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+import org.apache.sshd.common.util.threads.ExecutorServiceConfigurer;
 import org.apache.sshd.server.Command;
 
 /**
@@ -38,7 +43,7 @@ import org.apache.sshd.server.Command;
  *
  * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
  */
-public class ProcessShellFactory extends AbstractLoggingBean implements Factory<Command> {
+public class ProcessShellFactory extends AbstractLoggingBean implements Factory<Command>, ExecutorServiceConfigurer {
 
     public enum TtyOptions {
         Echo,
@@ -50,6 +55,8 @@ public class ProcessShellFactory extends AbstractLoggingBean implements Factory<
 
     private String[] command;
     private EnumSet<TtyOptions> ttyOptions;
+    private ExecutorService executors;
+    private boolean shutdownExecutor;
 
     public ProcessShellFactory() {
     }
@@ -71,9 +78,42 @@ public class ProcessShellFactory extends AbstractLoggingBean implements Factory<
         this.command = command;
     }
 
+    @Override
+    public ExecutorService getExecutorService() {
+        return executors;
+    }
+
+    /**
+     * @param service The {@link ExecutorService} shared by the created shells to pump
+     *                their streams. Each running shell uses up to 3 of its threads - 4 with
+     *                {@link TtyOptions#Echo} - so a bounded service caps the number of
+     *                concurrent shells - a shell fails
+     *                to start when the service rejects its pumps. If {@code null} then a
+     *                default cached pool shared by all the shells is used
+     */
+    @Override
+    public void setExecutorService(ExecutorService service) {
+        executors = service;
+    }
+
+    @Override
+    public boolean isShutdownOnExit() {
+        return shutdownExecutor;
+    }
+
+    /**
+     * @param shutdownOnExit If {@code true} the {@link ExecutorService#shutdown()}
+     *                       will be called when a shell is destroyed - the default
+     *                       shared pool is never shut down
+     */
+    @Override
+    public void setShutdownOnExit(boolean shutdownOnExit) {
+        shutdownExecutor = shutdownOnExit;
+    }
+
     @Override
     public Command create() {
-        return new InvertedShellWrapper(new ProcessShell());
+        return new InvertedShellWrapper(new ProcessShell(), getExecutorService(), isShutdownOnExit(), InvertedShellWrapper.DEFAULT_BUFFER_SIZE);
     }
 
     public class ProcessShell implements InvertedShell {
@@ -108,9 +148,18 @@ public class ProcessShellFactory extends AbstractLoggingBean implements Factory<
             }
             log.info("Starting shell with command: '{}' and env: {}", builder.command(), builder.environment());
             process = builder.start();
-            out = new TtyFilterInputStream(process.getInputStream());
-            err = new TtyFilterInputStream(process.getErrorStream());
+            out = new TtyFilterInputStream(process.getInputStream(), false);
+            err = new TtyFilterInputStream(process.getErrorStream(), ttyOptions.contains(TtyOptions.Echo));
             in = new TtyFilterOutputStream(process.getOutputStream(), err);
+            if (ttyOptions.contains(TtyOptions.Echo)) {
+                Executor feeder = (executors == null) ? InvertedShellWrapper.getDefaultExecutor() : executors;
+                try {
+                    feeder.execute(err.new Feeder());
+                } catch (RejectedExecutionException e) {
+                    process.destroy();
+                    throw new IOException("Cannot feed the shell error stream: " + e.getMessage(), e);
+                }
+            }
         }
 
         @Override
@@ -154,18 +203,30 @@ public class ProcessShellFactory extends AbstractLoggingBean implements Factory<
             }
         }
 
+        /**
+         * Applies the TTY options to a process output stream. When {@code echo} is set,
+         * the stream also receives the echoed input: a {@link Feeder} then moves the
+         * process data into the same buffer, so that a reader waits for either of them
+         * without polling.
+         */
         protected class TtyFilterInputStream extends FilterInputStream {
+            private final boolean echo;
             private Buffer buffer;
             private int lastChar;
-            public TtyFilterInputStream(InputStream in) {
+            private boolean eof;
+            private IOException failure;
+            public TtyFilterInputStream(InputStream in, boolean echo) {
                 super(in);
+                this.echo = echo;
                 buffer = new ByteArrayBuffer(32);
             }
             synchronized void write(int c) {
                 buffer.putByte((byte) c);
+                notifyAll();
             }
             synchronized void write(byte[] buf, int off, int len) {
                 buffer.putBytes(buf, off, len);
+                notifyAll();
             }
             @Override
             public int available() throws IOException {
@@ -174,6 +235,9 @@ public class ProcessShellFactory extends AbstractLoggingBean implements Factory<
             @SuppressWarnings("synthetic-access")
             @Override
             public synchronized int read() throws IOException {
+                if (echo && (!awaitData())) {
+                    return -1;
+                }
                 int c;
                 if (buffer.available() > 0) {
                     c = buffer.getByte();
@@ -195,8 +259,14 @@ public class ProcessShellFactory extends AbstractLoggingBean implements Factory<
             }
             @Override
             public synchronized int read(byte[] b, int off, int len) throws IOException {
+                if (echo && (!awaitData())) {
+                    return -1;
+                }
                 if (buffer.available() == 0) {
                     int nb = super.read(b, off, len);
+                    if (nb <= 0) {
+                        return nb;
+                    }
                     buffer.putRawBytes(b, off, nb);
                 }
                 int nb = 0;
@@ -205,6 +275,55 @@ public class ProcessShellFactory extends AbstractLoggingBean implements Factory<
                 }
                 return nb;
             }
+            /*
+             * Waits until either an echo or the feeder provides some data
+             * @return false if the process stream reached EOF and all the data was read
+             */
+            private boolean awaitData() throws IOException {
+                try {
+                    while (buffer.available() == 0 && (!eof) && (failure == null)) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException("Interrupted while waiting for the shell output");
+                }
+                if (buffer.available() > 0) {
+                    return true;
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                return false;
+            }
+
+            /**
+             * Blocks on the process stream and appends its data to the echo buffer
+             */
+            protected class Feeder implements Runnable {
+                @SuppressWarnings("synthetic-access")
+                @Override
+                public void run() {
+                    TtyFilterInputStream stream = TtyFilterInputStream.this;
+                    byte[] data = new byte[InvertedShellWrapper.DEFAULT_BUFFER_SIZE];
+                    try {
+                        for (int len = in.read(data); len >= 0; len = in.read(data)) {
+                            synchronized (stream) {
+                                buffer.putRawBytes(data, 0, len);
+                                stream.notifyAll();
+                            }
+                        }
+                        synchronized (stream) {
+                            eof = true;
+                            stream.notifyAll();
+                        }
+                    } catch (IOException e) {
+                        synchronized (stream) {
+                            failure = e;
+                            stream.notifyAll();
+                        }
+                    }
+                }
+            }
         }
 
         protected class TtyFilterOutputStream extends FilterOutputStream {
@@ -19,6 +19,9 @@
 package org.apache.sshd;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.sshd.common.session.AbstractSession;
 import org.apache.sshd.common.util.buffer.Buffer;
@@ -107,13 +110,52 @@ public class AbstractSessionTest extends BaseTestSupport {
         fail("Unexpected success: " + ident);
     }
 
+    @Test
+    public void testDecodeBatchedPackets() throws Exception {
+        Buffer input = new ByteArrayBuffer();
+        List<String> expected = new ArrayList<String>();
+        for (int index = 0; index < 4; index++) {
+            String payload = getCurrentTestName() + "-" + index;
+            expected.add(payload);
+            appendPacket(input, payload.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // split the last packet between 2 reads
+        int wpos = input.wpos();
+        input.wpos(wpos - (Integer.SIZE / Byte.SIZE));
+        session.doDecode(input);
+        assertEquals("Mismatched packets handled in 1st batch", expected.subList(0, 3), session.received);
+        assertTrue("Partial packet not preserved", input.available() > 0);
+
+        input.wpos(wpos);
+        session.doDecode(input);
+        assertEquals("Mismatched packets handled after 2nd batch", expected, session.received);
+        assertEquals("Unexpected leftover data", 0, input.available());
+    }
+
+    private static void appendPacket(Buffer buffer, byte[] payload) {
+        int pad = 8 - ((5 + payload.length) % 8);
+        if (pad < 4) {
+            pad += 8;
+        }
+        buffer.putInt(1 + payload.length + pad);
+        buffer.putByte((byte) pad);
+        buffer.putRawBytes(payload);
+        buffer.putRawBytes(new byte[pad]);
+    }
+
     public static class MySession extends AbstractSession {
+        protected final List<String> received = new ArrayList<String>();
+
         public MySession() {
             super(true, SshServer.setUpDefaultServer(), null);
         }
         @Override
         protected void handleMessage(Buffer buffer) throws Exception {
-            // ignored
+            received.add(new String(buffer.array(), buffer.rpos(), buffer.available(), StandardCharsets.UTF_8));
+        }
+        public void doDecode(Buffer buffer) throws Exception {
+            decode(buffer);
         }
         @Override
         protected boolean readIdentification(Buffer buffer) {
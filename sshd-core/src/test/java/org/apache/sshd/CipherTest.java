@@ -21,6 +21,7 @@ package org.apache.sshd;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.Collections;
 
 import org.apache.sshd.common.Cipher;
 import org.apache.sshd.common.NamedFactory;
@@ -96,6 +97,28 @@ public class CipherTest extends BaseTestSupport {
         }
     }
 
+    @Test
+    public void testAES128GCM() throws Exception {
+        if (BuiltinCiphers.aes128gcm.isSupported()) {
+            setUp(BuiltinCiphers.aes128gcm);
+            runClientTest(BuiltinCiphers.aes128gcm);
+        }
+    }
+
+    @Test
+    public void testAES256GCM() throws Exception {
+        if (BuiltinCiphers.aes256gcm.isSupported()) {
+            setUp(BuiltinCiphers.aes256gcm);
+            runClientTest(BuiltinCiphers.aes256gcm);
+        }
+    }
+
+    @Test
+    public void testChaCha20Poly1305() throws Exception {
+        setUp(BuiltinCiphers.chacha20poly1305);
+        runClientTest(BuiltinCiphers.chacha20poly1305);
+    }
+
     @Test
     public void loadTest() throws Exception {
         Random random = new BouncyCastleRandom();
@@ -164,6 +187,15 @@ public class CipherTest extends BaseTestSupport {
         s.disconnect();
     }
 
+    /**
+     * JSch does not support the AEAD ciphers, so use our own client
+     */
+    protected void runClientTest(NamedFactory<Cipher> cipher) throws Exception {
+        SshClient client = SshClient.setUpDefaultClient();
+        client.setCipherFactories(Collections.singletonList(cipher));
+        assertEchoShellSession(cipher.getName(), client, port);
+    }
+
     static boolean checkCipher(String cipher){
         try{
             Class<?> c=Class.forName(cipher);
@@ -532,6 +532,55 @@ public class ClientTest extends BaseTestSupport {
         }
     }
 
+    @Test
+    public void testClientWithSmallWriteBatches() throws Exception {
+        // force the NIO2 sessions to split their queued packets into many small gathering writes
+        FactoryManagerUtils.updateProperty(sshd, FactoryManager.NIO2_WRITE_BATCH_MAX_BUFFERS, 3);
+        FactoryManagerUtils.updateProperty(sshd, FactoryManager.NIO2_WRITE_BATCH_MAX_SIZE, 1024);
+        FactoryManagerUtils.updateProperty(client, FactoryManager.NIO2_WRITE_BATCH_MAX_BUFFERS, 3);
+        FactoryManagerUtils.updateProperty(client, FactoryManager.NIO2_WRITE_BATCH_MAX_SIZE, 1024);
+        FactoryManagerUtils.updateProperty(client, FactoryManager.NIO2_WRITE_BUFFER_MAX_SIZE, 512);
+        client.start();
+
+        try(ClientSession session = client.connect(getCurrentTestName(), "localhost", port).await().getSession()) {
+            session.addPasswordIdentity(getCurrentTestName());
+            session.auth().verify(5L, TimeUnit.SECONDS);
+
+            try(ClientChannel channel = session.createChannel(ClientChannel.CHANNEL_SHELL);
+                ByteArrayOutputStream sent = new ByteArrayOutputStream();
+                PipedOutputStream pipedIn = new PipedOutputStream();
+                InputStream inPipe = new PipedInputStream(pipedIn);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ByteArrayOutputStream err = new ByteArrayOutputStream()) {
+
+                channel.setIn(inPipe);
+                channel.setOut(out);
+                channel.setErr(err);
+                channel.open().await();
+
+                try(OutputStream teeOut = new TeeOutputStream(sent, pipedIn)) {
+                    for (int i = 0; i < 1000; i++) {
+                        // mix small packets with ones that exceed the pooled buffer size
+                        int len = ((i % 10) == 0) ? 2000 : 20 + (i % 50);
+                        StringBuilder sb = new StringBuilder(len + 1);
+                        for (int j = 0; j < len; j++) {
+                            sb.append((char) ('a' + ((i + j) % 26)));
+                        }
+                        teeOut.write(sb.append('\n').toString().getBytes());
+                        teeOut.flush();
+                    }
+                    teeOut.write("exit\n".getBytes());
+                    teeOut.flush();
+                }
+
+                channel.waitFor(ClientChannel.CLOSED, 0);
+                assertArrayEquals(sent.toByteArray(), out.toByteArray());
+            }
+        } finally {
+            client.stop();
+        }
+    }
+
     @Test(expected = SshException.class)
     public void testOpenChannelOnClosedSession() throws Exception {
         client.start();
@@ -21,6 +21,7 @@ package org.apache.sshd;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.Collections;
 
 import org.apache.sshd.common.Cipher;
 import org.apache.sshd.common.Mac;
@@ -91,6 +92,24 @@ public class MacTest extends BaseTestSupport {
         runTest();
     }
 
+    @Test
+    public void testHMACSHA1ETM() throws Exception {
+        setUp(BuiltinMacs.hmacsha1etm);
+        runClientTest(BuiltinMacs.hmacsha1etm);
+    }
+
+    @Test
+    public void testHMACSHA256ETM() throws Exception {
+        setUp(BuiltinMacs.hmacsha256etm);
+        runClientTest(BuiltinMacs.hmacsha256etm);
+    }
+
+    @Test
+    public void testHMACSHA512ETM() throws Exception {
+        setUp(BuiltinMacs.hmacsha512etm);
+        runClientTest(BuiltinMacs.hmacsha512etm);
+    }
+
     @Test
     public void loadTest() throws Exception {
         Random random = new BouncyCastleRandom();
@@ -171,6 +190,17 @@ public class MacTest extends BaseTestSupport {
         }
     }
 
+    /**
+     * JSch does not support the encrypt-then-MAC variants, so use our own client
+     */
+    protected void runClientTest(NamedFactory<Mac> mac) throws Exception {
+        SshClient client = SshClient.setUpDefaultClient();
+        // AEAD ciphers do not use a MAC, so make sure a "classic" cipher is negotiated
+        client.setCipherFactories(Collections.<NamedFactory<Cipher>>singletonList(BuiltinCiphers.aes128ctr));
+        client.setMacFactories(Collections.singletonList(mac));
+        assertEchoShellSession(mac.getName(), client, port);
+    }
+
     static boolean checkCipher(String cipher){
         try{
             Class<?> c=Class.forName(cipher);
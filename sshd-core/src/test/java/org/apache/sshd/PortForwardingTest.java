@@ -20,7 +20,12 @@ package org.apache.sshd;
 
 import static org.apache.sshd.util.Utils.getFreePort;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.net.ConnectException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.HashSet;
@@ -318,6 +323,71 @@ public class PortForwardingTest extends BaseTestSupport {
         }
     }
 
+    @Test
+    public void testDynamicForwardingSocks4() throws Exception {
+        try(ClientSession session = createNativeSession()) {
+            SshdSocketAddress bound = session.startDynamicPortForwarding(new SshdSocketAddress("localhost", 0));
+
+            try(Socket s = new Socket(bound.getHostName(), bound.getPort())) {
+                s.setSoTimeout((int) TimeUnit.SECONDS.toMillis(10L));
+
+                // the connect request and the payload in a single write
+                byte[]  payload = getCurrentTestName().getBytes();
+                ByteArrayOutputStream request = new ByteArrayOutputStream();
+                request.write(new byte[] { 0x04, 0x01, (byte) (echoPort >> 8), (byte) echoPort, 127, 0, 0, 1 });
+                request.write(getCurrentTestName().getBytes());
+                request.write(0);   // user-id terminator
+                request.write(payload);
+                s.getOutputStream().write(request.toByteArray());
+                s.getOutputStream().flush();
+
+                byte[]  reply = readFully(s.getInputStream(), 8);
+                assertEquals("Mismatched reply version", 0x00, reply[0]);
+                assertEquals("Request not granted", 0x5a, reply[1]);
+                assertEquals("Mismatched data", getCurrentTestName(), new String(readFully(s.getInputStream(), payload.length)));
+            }
+
+            session.stopDynamicPortForwarding(bound);
+            assertListenerClosed(bound);
+            session.close(false).await();
+        }
+    }
+
+    @Test
+    public void testDynamicForwardingSocks5() throws Exception {
+        try(ClientSession session = createNativeSession()) {
+            SshdSocketAddress bound = session.startDynamicPortForwarding(new SshdSocketAddress("localhost", 0));
+
+            try(Socket s = new Socket(bound.getHostName(), bound.getPort())) {
+                s.setSoTimeout((int) TimeUnit.SECONDS.toMillis(10L));
+
+                s.getOutputStream().write(new byte[] { 0x05, 0x01, 0x00 });  // greeting - NoAuth only
+                s.getOutputStream().flush();
+                byte[]  greeting = readFully(s.getInputStream(), 2);
+                assertEquals("Mismatched greeting version", 0x05, greeting[0]);
+                assertEquals("NoAuth not selected", 0x00, greeting[1]);
+
+                // the connect request and the payload in a single write
+                byte[]  payload = getCurrentTestName().getBytes();
+                byte[]  connect = { 0x05, 0x01, 0x00, 0x01, 127, 0, 0, 1, (byte) (echoPort >> 8), (byte) echoPort };
+                ByteArrayOutputStream request = new ByteArrayOutputStream();
+                request.write(connect);
+                request.write(payload);
+                s.getOutputStream().write(request.toByteArray());
+                s.getOutputStream().flush();
+
+                byte[]  reply = readFully(s.getInputStream(), connect.length);
+                assertEquals("Mismatched reply version", 0x05, reply[0]);
+                assertEquals("Request not granted", 0x00, reply[1]);
+                assertEquals("Mismatched data", getCurrentTestName(), new String(readFully(s.getInputStream(), payload.length)));
+            }
+
+            session.stopDynamicPortForwarding(bound);
+            assertListenerClosed(bound);
+            session.close(false).await();
+        }
+    }
+
     @Test(timeout = 20000)
     public void testRemoteForwardingWithDisconnect() throws Exception {
         Session session = createSession();
@@ -439,6 +509,26 @@ public class PortForwardingTest extends BaseTestSupport {
         return false;
     }
 
+    private static byte[] readFully(InputStream in, int len) throws IOException {
+        byte[]  data = new byte[len];
+        for (int offset = 0; offset < len; ) {
+            int n = in.read(data, offset, len - offset);
+            if (n < 0) {
+                throw new EOFException("Premature EOF after " + offset + " out of " + len + " bytes");
+            }
+            offset += n;
+        }
+        return data;
+    }
+
+    private static void assertListenerClosed(SshdSocketAddress bound) throws IOException {
+        try(Socket s = new Socket(bound.getHostName(), bound.getPort())) {
+            fail("Unexpected connection to stopped dynamic forwarding at " + bound);
+        } catch(ConnectException e) {
+            // expected
+        }
+    }
+
     protected Session createSession() throws JSchException {
         JSchLogger.init();
         JSch sch = new JSch();
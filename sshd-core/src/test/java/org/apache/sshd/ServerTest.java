@@ -184,6 +184,29 @@ public class ServerTest extends BaseTestSupport {
         }
     }
 
+    @Test
+    public void testMaxConcurrentSessionsPerAddress() throws Exception {
+        FactoryManagerUtils.updateProperty(sshd, ServerFactoryManager.MAX_CONCURRENT_SESSIONS_PER_ADDRESS, 1);
+
+        client = SshClient.setUpDefaultClient();
+        client.start();
+        try(ClientSession s = client.connect(getCurrentTestName(), "localhost", port).await().getSession()) {
+            s.addPasswordIdentity(getCurrentTestName());
+            s.auth().verify(5L, TimeUnit.SECONDS);
+
+            try(ClientSession other = client.connect(getCurrentTestName(), "localhost", port).await().getSession()) {
+                // the excess session is disconnected before any key exchange
+                int res = other.waitFor(ClientSession.CLOSED, TimeUnit.SECONDS.toMillis(5L));
+                assertTrue("Excess session not closed", (res & ClientSession.CLOSED) != 0);
+                assertFalse("Excess session exchanged keys", (res & ClientSession.WAIT_AUTH) != 0);
+            }
+
+            assertFalse("First session closed", s.isClosing());
+        } finally {
+            client.stop();
+        }
+    }
+
     @Test
     public void testIdleTimeout() throws Exception {
         final CountDownLatch latch = new CountDownLatch(1);
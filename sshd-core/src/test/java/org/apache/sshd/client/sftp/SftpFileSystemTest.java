@@ -20,9 +20,11 @@ package org.apache.sshd.client.sftp;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.Pipe;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileSystem;
@@ -32,6 +34,7 @@ import java.nio.file.LinkOption;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.GroupPrincipal;
 import java.nio.file.attribute.PosixFilePermissions;
@@ -271,6 +274,48 @@ public class SftpFileSystemTest extends BaseTestSupport {
         }
     }
 
+    @Test
+    public void testTransferNonBlockingChannels() throws IOException {
+        Path targetPath = detectTargetFolder().toPath();
+        Path lclSftp = Utils.resolve(targetPath, SftpConstants.SFTP_SUBSYSTEM_NAME, getClass().getSimpleName());
+        Utils.deleteRecursive(lclSftp);
+
+        try(FileSystem fs = FileSystems.newFileSystem(
+                URI.create("sftp://" + getCurrentTestName() + ":" + getCurrentTestName() + "@localhost:" + port + "/"),
+                Collections.<String,Object>emptyMap())) {
+
+            Path parentPath = targetPath.getParent();
+            Path clientFolder = lclSftp.resolve("client");
+            String remFilePath = Utils.resolveRelativeRemotePath(parentPath, clientFolder.resolve(getCurrentTestName() + ".txt"));
+            Path file = fs.getPath(remFilePath);
+            Files.createDirectories(file.getParent());
+            byte[] expected = (getCurrentTestName() + "\n").getBytes();
+
+            Pipe pipe = Pipe.open();
+            try (Pipe.SinkChannel sink = pipe.sink(); Pipe.SourceChannel source = pipe.source()) {
+                sink.configureBlocking(false);
+                source.configureBlocking(false);
+
+                sink.write(ByteBuffer.wrap(expected));
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    assertEquals("Mismatched transferred from size", expected.length, channel.transferFrom(source, 0L, Long.MAX_VALUE));
+                }
+                assertArrayEquals("Mismatched transferred from data", expected, Files.readAllBytes(file));
+
+                try (FileChannel channel = FileChannel.open(file)) {
+                    assertEquals("Mismatched transferred to size", expected.length, channel.transferTo(0L, Long.MAX_VALUE, sink));
+                }
+                ByteBuffer actual = ByteBuffer.allocate(expected.length);
+                while (actual.hasRemaining() && (source.read(actual) > 0)) {
+                    continue;
+                }
+                assertArrayEquals("Mismatched transferred to data", expected, actual.array());
+            }
+
+            Files.delete(file);
+        }
+    }
+
     @Test
     public void testRootFileSystem() throws IOException {
         Path targetPath = detectTargetFolder().toPath();
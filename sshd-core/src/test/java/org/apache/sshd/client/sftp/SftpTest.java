@@ -30,29 +30,40 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Random;
 import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.sshd.ClientSession;
 import org.apache.sshd.SshClient;
 import org.apache.sshd.SshServer;
+import org.apache.sshd.common.FactoryManagerUtils;
 import org.apache.sshd.common.NamedFactory;
 import org.apache.sshd.common.Session;
 import org.apache.sshd.common.file.FileSystemFactory;
 import org.apache.sshd.common.file.root.RootedFileSystemProvider;
+import org.apache.sshd.common.future.SshFutureListener;
 import org.apache.sshd.common.sftp.SftpConstants;
 import org.apache.sshd.common.util.IoUtils;
 import org.apache.sshd.common.util.OsUtils;
+import org.apache.sshd.common.util.buffer.Buffer;
 import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
 import org.apache.sshd.server.Command;
 import org.apache.sshd.server.command.ScpCommandFactory;
+import org.apache.sshd.server.sftp.SftpSubsystem;
 import org.apache.sshd.server.sftp.SftpSubsystemFactory;
 import org.apache.sshd.util.BaseTestSupport;
 import org.apache.sshd.util.BogusPasswordAuthenticator;
@@ -355,6 +366,409 @@ public class SftpTest extends BaseTestSupport {
         }
     }
 
+    @Test
+    public void testPipelinedTransfer() throws Exception {
+        try(SshClient client = SshClient.setUpDefaultClient()) {
+            client.start();
+
+            try (ClientSession session = client.connect(getCurrentTestName(), "localhost", port).await().getSession()) {
+                session.addPasswordIdentity(getCurrentTestName());
+                session.auth().verify(5L, TimeUnit.SECONDS);
+
+                Path targetPath = detectTargetFolder().toPath();
+                Path lclSftp = Utils.resolve(targetPath, SftpConstants.SFTP_SUBSYSTEM_NAME, getClass().getSimpleName());
+                Utils.deleteRecursive(lclSftp);
+                Files.createDirectories(lclSftp);
+
+                Path localPath = lclSftp.resolve(getCurrentTestName() + ".bin");
+                String remotePath = Utils.resolveRelativeRemotePath(targetPath.getParent(), localPath);
+                byte[] expected = new byte[10 * SftpClient.IO_BUFFER_SIZE + 1234];
+                new Random(System.currentTimeMillis()).nextBytes(expected);
+
+                try(AbstractSftpClient sftp = (AbstractSftpClient) session.createSftpClient()) {
+                    assertEquals("Mismatched uploaded size", expected.length, sftp.upload(remotePath, new ByteArrayInputStream(expected)));
+                    assertArrayEquals("Mismatched uploaded data", expected, Files.readAllBytes(localPath));
+
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(expected.length);
+                    assertEquals("Mismatched downloaded size", expected.length, sftp.download(remotePath, out));
+                    assertArrayEquals("Mismatched downloaded data", expected, out.toByteArray());
+
+                    // partial range ending in the middle of a chunk
+                    long offset = SftpClient.IO_BUFFER_SIZE + 17L;
+                    int count = 3 * SftpClient.IO_BUFFER_SIZE + 5;
+                    out.reset();
+                    try(SftpClient.CloseableHandle handle = sftp.open(remotePath, EnumSet.of(SftpClient.OpenMode.Read))) {
+                        assertEquals("Mismatched range size", count, sftp.download(handle, offset, count, out));
+                    }
+                    assertArrayEquals("Mismatched range data", Arrays.copyOfRange(expected, (int) offset, (int) offset + count), out.toByteArray());
+
+                    try(InputStream input = sftp.read(remotePath)) {
+                        out.reset();
+                        IoUtils.copy(input, out);
+                    }
+                    assertArrayEquals("Mismatched stream data", expected, out.toByteArray());
+                }
+
+                Files.delete(localPath);
+            } finally {
+                client.stop();
+            }
+        }
+    }
+
+    @Test
+    public void testUploadReportsSourceFailure() throws Exception {
+        try(SshClient client = SshClient.setUpDefaultClient()) {
+            client.start();
+
+            try (ClientSession session = client.connect(getCurrentTestName(), "localhost", port).await().getSession()) {
+                session.addPasswordIdentity(getCurrentTestName());
+                session.auth().verify(5L, TimeUnit.SECONDS);
+
+                Path targetPath = detectTargetFolder().toPath();
+                Path lclSftp = Utils.resolve(targetPath, SftpConstants.SFTP_SUBSYSTEM_NAME, getClass().getSimpleName());
+                Utils.deleteRecursive(lclSftp);
+                Files.createDirectories(lclSftp);
+
+                Path localPath = lclSftp.resolve(getCurrentTestName() + ".bin");
+                String remotePath = Utils.resolveRelativeRemotePath(targetPath.getParent(), localPath);
+                final IOException failure = new IOException(getCurrentTestName());
+                InputStream source = new InputStream() {
+                    private boolean sent;
+
+                    @Override
+                    public int read() throws IOException {
+                        throw failure;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        if (sent) {
+                            throw failure;
+                        }
+                        sent = true;
+                        return len;
+                    }
+                };
+
+                try(AbstractSftpClient sftp = (AbstractSftpClient) session.createSftpClient()) {
+                    SftpClient.CloseableHandle handle = sftp.open(remotePath, EnumSet.of(SftpClient.OpenMode.Write, SftpClient.OpenMode.Create));
+                    handle.close();
+
+                    // the write to the closed handle fails as well, but must not hide the source failure
+                    try {
+                        sftp.upload(handle, 0L, -1L, source);
+                        fail("Unexpected upload success");
+                    } catch (IOException e) {
+                        assertSame("Mismatched upload failure", failure, e);
+                        assertEquals("Mismatched suppressed failures", 1, e.getSuppressed().length);
+                    }
+                }
+
+                Files.deleteIfExists(localPath);
+            } finally {
+                client.stop();
+            }
+        }
+    }
+
+    @Test
+    public void testPipelinedFailureReleasesPendingRequests() throws Exception {
+        try(SshClient client = SshClient.setUpDefaultClient()) {
+            client.start();
+
+            try (ClientSession session = client.connect(getCurrentTestName(), "localhost", port).await().getSession()) {
+                session.addPasswordIdentity(getCurrentTestName());
+                session.auth().verify(5L, TimeUnit.SECONDS);
+
+                Path targetPath = detectTargetFolder().toPath();
+                Path lclSftp = Utils.resolve(targetPath, SftpConstants.SFTP_SUBSYSTEM_NAME, getClass().getSimpleName());
+                Utils.deleteRecursive(lclSftp);
+                Files.createDirectories(lclSftp);
+
+                Path localPath = lclSftp.resolve(getCurrentTestName() + ".bin");
+                String remotePath = Utils.resolveRelativeRemotePath(targetPath.getParent(), localPath);
+                int chunkSize = 1024;
+                int maxInFlight = 4;
+                byte[] data = new byte[4 * maxInFlight * chunkSize];
+                new Random(System.nanoTime()).nextBytes(data);
+                Files.write(localPath, data);
+
+                final List<Integer> ids = new ArrayList<>();
+                final AtomicInteger replies = new AtomicInteger();
+                final IOException failure = new IOException(getCurrentTestName());
+                try(DefaultSftpClient sftp = new DefaultSftpClient(session) {
+                        @Override
+                        protected int sendRead(Handle handle, long fileOffset, int len) throws IOException {
+                            int id = super.sendRead(handle, fileOffset, len);
+                            ids.add(Integer.valueOf(id));
+                            return id;
+                        }
+
+                        @Override
+                        protected int sendWrite(Handle handle, long fileOffset, byte[] src, int srcoff, int len) throws IOException {
+                            int id = super.sendWrite(handle, fileOffset, src, srcoff, len);
+                            ids.add(Integer.valueOf(id));
+                            return id;
+                        }
+
+                        @Override
+                        protected Buffer receive(int id) throws IOException {
+                            Buffer buffer = super.receive(id);
+                            // the first reply of each transfer succeeds, the following ones fail
+                            if (ids.contains(Integer.valueOf(id)) && (replies.getAndIncrement() > 0)) {
+                                throw failure;
+                            }
+                            return buffer;
+                        }
+                    }) {
+
+                    try(SftpClient.CloseableHandle h = sftp.open(remotePath, EnumSet.of(SftpClient.OpenMode.Read))) {
+                        SftpPipelinedReader reader = new SftpPipelinedReader(sftp, h, 0L, -1L, chunkSize, maxInFlight);
+                        byte[] buf = new byte[chunkSize];
+                        assertEquals("Mismatched first chunk length", chunkSize, reader.read(buf, 0));
+                        try {
+                            reader.read(buf, 0);
+                            fail("Unexpected read success");
+                        } catch (IOException e) {
+                            assertSame("Mismatched read failure", failure, e);
+                        }
+                    }
+                    assertPendingRequestsReleased(sftp, ids);
+
+                    ids.clear();
+                    replies.set(0);
+                    try(SftpClient.CloseableHandle h = sftp.open(remotePath, EnumSet.of(SftpClient.OpenMode.Write))) {
+                        SftpPipelinedWriter writer = new SftpPipelinedWriter(sftp, h, 0L, chunkSize, maxInFlight);
+                        try {
+                            writer.write(data, 0, data.length);
+                            writer.flush();
+                            fail("Unexpected write success");
+                        } catch (IOException e) {
+                            assertSame("Mismatched write failure", failure, e);
+                        }
+                    }
+                    assertPendingRequestsReleased(sftp, ids);
+                }
+
+                Files.delete(localPath);
+            } finally {
+                client.stop();
+            }
+        }
+    }
+
+    private static void assertPendingRequestsReleased(DefaultSftpClient sftp, List<Integer> ids) {
+        assertTrue("Not enough pipelined requests: " + ids, ids.size() > 2);
+        for (Integer id : ids) {
+            assertNull("Request still pending: " + id, sftp.unregister(id.intValue()));
+        }
+    }
+
+    @Test
+    public void testAsyncRequests() throws Exception {
+        try(SshClient client = SshClient.setUpDefaultClient()) {
+            client.start();
+
+            try (ClientSession session = client.connect(getCurrentTestName(), "localhost", port).await().getSession()) {
+                session.addPasswordIdentity(getCurrentTestName());
+                session.auth().verify(5L, TimeUnit.SECONDS);
+
+                Path targetPath = detectTargetFolder().toPath();
+                Path lclSftp = Utils.resolve(targetPath, SftpConstants.SFTP_SUBSYSTEM_NAME, getClass().getSimpleName());
+                Utils.deleteRecursive(lclSftp);
+                Files.createDirectories(lclSftp);
+
+                Path localPath = lclSftp.resolve(getCurrentTestName() + ".txt");
+                byte[] expected = getCurrentTestName().getBytes(StandardCharsets.UTF_8);
+                Files.write(localPath, expected);
+                String remotePath = Utils.resolveRelativeRemotePath(targetPath.getParent(), localPath);
+
+                try(AsyncSftpClient sftp = new DefaultSftpClient(session)) {
+                    List<SftpFuture<SftpClient.Attributes>> stats = new ArrayList<>();
+                    for (int index = 0; index < Byte.MAX_VALUE; index++) {
+                        stats.add(sftp.statAsync(remotePath));
+                    }
+                    SftpFuture<SftpClient.Attributes> missing = sftp.statAsync(remotePath + "-missing");
+
+                    for (SftpFuture<SftpClient.Attributes> f : stats) {
+                        assertEquals("Mismatched size for request id=" + f.getId(), expected.length, f.verify(5L, TimeUnit.SECONDS).size);
+                    }
+
+                    try {
+                        missing.verify(5L, TimeUnit.SECONDS);
+                        fail("Unexpected success for missing file");
+                    } catch (org.apache.sshd.client.SftpException e) {
+                        assertEquals("Mismatched status", SSH_FX_NO_SUCH_FILE, e.getStatus());
+                    }
+
+                    final CountDownLatch latch = new CountDownLatch(1);
+                    byte[] actual = new byte[expected.length];
+                    try(SftpClient.CloseableHandle handle = sftp.openAsync(remotePath, EnumSet.of(SftpClient.OpenMode.Read)).verify(5L, TimeUnit.SECONDS)) {
+                        SftpFuture<Integer> read = sftp.readAsync(handle, 0L, actual, 0, actual.length);
+                        read.addListener(new SshFutureListener<SftpFuture<Integer>>() {
+                            @Override
+                            public void operationComplete(SftpFuture<Integer> future) {
+                                latch.countDown();
+                            }
+                        });
+                        assertTrue("Read listener not invoked", latch.await(5L, TimeUnit.SECONDS));
+                        assertEquals("Mismatched read length", expected.length, read.verify().intValue());
+                    }
+                    assertArrayEquals("Mismatched read data", expected, actual);
+                }
+
+                Files.delete(localPath);
+            } finally {
+                client.stop();
+            }
+        }
+    }
+
+    @Test
+    public void testPooledReads() throws Exception {
+        int maxReadDataLength = SftpClient.IO_BUFFER_SIZE;
+        FactoryManagerUtils.updateProperty(sshd, SftpSubsystem.MAX_READDATA_LENGTH, maxReadDataLength);
+        // process the reads concurrently so that more buffers are needed than pooled
+        ExecutorService requestExecutor = Executors.newFixedThreadPool(2 * SftpSubsystem.MAX_POOLED_READ_BUFFERS);
+        ((SftpSubsystemFactory) sshd.getSubsystemFactories().get(0)).setRequestExecutorService(requestExecutor);
+
+        try(SshClient client = SshClient.setUpDefaultClient()) {
+            client.start();
+
+            try (ClientSession session = client.connect(getCurrentTestName(), "localhost", port).await().getSession()) {
+                session.addPasswordIdentity(getCurrentTestName());
+                session.auth().verify(5L, TimeUnit.SECONDS);
+
+                Path targetPath = detectTargetFolder().toPath();
+                Path lclSftp = Utils.resolve(targetPath, SftpConstants.SFTP_SUBSYSTEM_NAME, getClass().getSimpleName(), getCurrentTestName());
+                Utils.deleteRecursive(lclSftp);
+                Files.createDirectories(lclSftp);
+
+                Path file = lclSftp.resolve(getCurrentTestName() + ".bin");
+                byte[] expected = new byte[4 * SftpSubsystem.MAX_POOLED_READ_BUFFERS * maxReadDataLength + Byte.MAX_VALUE];
+                new Random(System.nanoTime()).nextBytes(expected);
+                Files.write(file, expected);
+
+                String remotePath = Utils.resolveRelativeRemotePath(targetPath.getParent(), file);
+                try(DefaultSftpClient sftp = new DefaultSftpClient(session);
+                    SftpClient.CloseableHandle h = sftp.open(remotePath, EnumSet.of(SftpClient.OpenMode.Read))) {
+                    byte[] actual = new byte[2 * maxReadDataLength];
+                    assertEquals("Mismatched zero-length read", 0, sftp.read(h, 0L, actual, 0, 0));
+
+                    int len = sftp.read(h, 0L, actual, 0, actual.length);
+                    assertEquals("Read not limited", maxReadDataLength, len);
+                    assertArrayEquals("Mismatched limited read data", Arrays.copyOf(expected, len), Arrays.copyOf(actual, len));
+
+                    long offset = expected.length - Byte.MAX_VALUE;
+                    len = sftp.read(h, offset, actual, 0, maxReadDataLength);
+                    assertEquals("Mismatched short read length", Byte.MAX_VALUE, len);
+                    assertArrayEquals("Mismatched short read data", Arrays.copyOfRange(expected, (int) offset, expected.length), Arrays.copyOf(actual, len));
+
+                    assertEquals("Mismatched read at EOF", -1, sftp.read(h, expected.length, actual, 0, maxReadDataLength));
+                    assertEquals("Mismatched read beyond EOF", -1, sftp.read(h, 2L * expected.length, actual, 0, maxReadDataLength));
+
+                    byte[] data = new byte[expected.length];
+                    List<SftpFuture<Integer>> reads = new ArrayList<>();
+                    for (int pos = 0; pos < data.length; pos += maxReadDataLength) {
+                        reads.add(sftp.readAsync(h, pos, data, pos, Math.min(maxReadDataLength, data.length - pos)));
+                    }
+                    assertTrue("Not enough concurrent reads", reads.size() > SftpSubsystem.MAX_POOLED_READ_BUFFERS);
+
+                    int total = 0;
+                    for (SftpFuture<Integer> read : reads) {
+                        total += read.verify(5L, TimeUnit.SECONDS).intValue();
+                    }
+                    assertEquals("Mismatched concurrent reads length", expected.length, total);
+                    assertArrayEquals("Mismatched concurrent reads data", expected, data);
+                }
+            } finally {
+                client.stop();
+            }
+        } finally {
+            requestExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testServerLimits() throws Exception {
+        int maxReadDataLength = 2 * SftpClient.IO_BUFFER_SIZE;
+        FactoryManagerUtils.updateProperty(sshd, SftpSubsystem.MAX_READDATA_LENGTH, maxReadDataLength);
+        FactoryManagerUtils.updateProperty(sshd, SftpSubsystem.MAX_READDIR_PACKET_LENGTH, 4 * SftpSubsystem.DEFAULT_MAX_READDIR_PACKET_LENGTH);
+
+        try(SshClient client = SshClient.setUpDefaultClient()) {
+            client.start();
+
+            try (ClientSession session = client.connect(getCurrentTestName(), "localhost", port).await().getSession()) {
+                session.addPasswordIdentity(getCurrentTestName());
+                session.auth().verify(5L, TimeUnit.SECONDS);
+
+                Path targetPath = detectTargetFolder().toPath();
+                Path lclSftp = Utils.resolve(targetPath, SftpConstants.SFTP_SUBSYSTEM_NAME, getClass().getSimpleName(), getCurrentTestName());
+                Utils.deleteRecursive(lclSftp);
+                Files.createDirectories(lclSftp);
+
+                int numFiles = Byte.MAX_VALUE;
+                for (int index = 0; index < numFiles; index++) {
+                    Files.write(lclSftp.resolve(getCurrentTestName() + "-" + index + ".txt"), getCurrentTestName().getBytes(StandardCharsets.UTF_8));
+                }
+
+                String remotePath = Utils.resolveRelativeRemotePath(targetPath.getParent(), lclSftp);
+                try(DefaultSftpClient sftp = new DefaultSftpClient(session)) {
+                    assertEquals("Mismatched max. read length", maxReadDataLength, sftp.getMaxReadLength());
+                    assertEquals("Mismatched max. write length", SftpSubsystem.DEFAULT_MAX_WRITEDATA_LENGTH, sftp.getMaxWriteLength());
+
+                    int numEntries = 0;
+                    for (SftpClient.DirEntry entry : sftp.readDir(remotePath)) {
+                        if (entry.filename.startsWith(getCurrentTestName())) {
+                            numEntries++;
+                        }
+                    }
+                    assertEquals("Mismatched listed entries count", numFiles, numEntries);
+                }
+            } finally {
+                client.stop();
+            }
+        }
+    }
+
+    @Test
+    public void testWriteAboveServerLimit() throws Exception {
+        int maxWriteDataLength = SftpClient.IO_BUFFER_SIZE;
+        FactoryManagerUtils.updateProperty(sshd, SftpSubsystem.MAX_WRITEDATA_LENGTH, maxWriteDataLength);
+
+        try(SshClient client = SshClient.setUpDefaultClient()) {
+            client.start();
+
+            try (ClientSession session = client.connect(getCurrentTestName(), "localhost", port).await().getSession()) {
+                session.addPasswordIdentity(getCurrentTestName());
+                session.auth().verify(5L, TimeUnit.SECONDS);
+
+                Path targetPath = detectTargetFolder().toPath();
+                Path lclSftp = Utils.resolve(targetPath, SftpConstants.SFTP_SUBSYSTEM_NAME, getClass().getSimpleName(), getCurrentTestName());
+                Utils.deleteRecursive(lclSftp);
+                Files.createDirectories(lclSftp);
+
+                Path file = lclSftp.resolve(getCurrentTestName() + ".bin");
+                String remotePath = Utils.resolveRelativeRemotePath(targetPath.getParent(), file);
+                byte[] data = new byte[2 * maxWriteDataLength];
+                try(SftpClient sftp = session.createSftpClient();
+                    SftpClient.CloseableHandle h = sftp.open(remotePath, EnumSet.of(SftpClient.OpenMode.Write, SftpClient.OpenMode.Create))) {
+                    sftp.write(h, 0L, data, 0, maxWriteDataLength);
+                    try {
+                        sftp.write(h, 0L, data, 0, data.length);
+                        fail("Unexpected success to write above the limit");
+                    } catch (org.apache.sshd.client.SftpException e) {
+                        assertEquals("Mismatched status", SftpConstants.SSH_FX_FAILURE, e.getStatus());
+                    }
+                }
+                assertEquals("Mismatched file size", maxWriteDataLength, Files.size(file));
+            } finally {
+                client.stop();
+            }
+        }
+    }
+
     private void testInvalidParams(SftpClient sftp, Path file, String filePath) throws Exception {
         // generate random file and upload it
         String randomData = randomString(5);
@@ -35,7 +35,7 @@ public class ChannelPipedInputStreamTest extends BaseTestSupport {
 
     @Test
     public void testAvailable() throws IOException {
-        Window window = new Window(new BogusChannel(), null, true, true);
+        Window window = new Window(new BogusChannel(), true, true);
         try(ChannelPipedInputStream stream = new ChannelPipedInputStream(window)) {
             byte[] b = getCurrentTestName().getBytes();
             stream.receive(b, 0, b.length);
@@ -53,7 +53,7 @@ public class ChannelPipedInputStreamTest extends BaseTestSupport {
 
     @Test
     public void testIdempotentClose() throws IOException {
-        Window window = new Window(new BogusChannel(), null, true, true);
+        Window window = new Window(new BogusChannel(), true, true);
         try(ChannelPipedInputStream stream = new ChannelPipedInputStream(window)) {
             byte[] b = getCurrentTestName().getBytes();
             stream.receive(b, 0, b.length);
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.channel;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.sshd.common.future.SshFutureListener;
+import org.apache.sshd.util.BaseTestSupport;
+import org.apache.sshd.util.BogusChannel;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class WindowSpaceFutureTest extends BaseTestSupport {
+    public WindowSpaceFutureTest() {
+        super();
+    }
+
+    @Test
+    public void testTryConsume() throws Exception {
+        Window window = createWindow(100);
+        assertTrue("Failed to consume available space", window.tryConsume(60));
+        assertFalse("Unexpected consumption beyond available space", window.tryConsume(60));
+        assertEquals("Mismatched size after consumption", 40, window.getSize());
+        assertEquals("Mismatched partial consumption", 40, window.consumeUpTo(60));
+        assertEquals("Unexpected consumption from exhausted window", 0, window.consumeUpTo(60));
+    }
+
+    @Test
+    public void testSpaceAvailableNotification() throws Exception {
+        Window window = createWindow(10);
+        window.consume(10);
+
+        final AtomicInteger notified = new AtomicInteger();
+        WindowSpaceFuture future = window.whenSpaceAvailable(5);
+        future.addListener(new SshFutureListener<WindowSpaceFuture>() {
+            @Override
+            public void operationComplete(WindowSpaceFuture f) {
+                notified.incrementAndGet();
+            }
+        });
+        assertFalse("Premature notification", future.isDone());
+
+        window.expand(3);
+        assertFalse("Notified before enough space", future.isDone());
+
+        window.expand(3);
+        assertTrue("Space not signalled", future.await(5L, TimeUnit.SECONDS));
+        assertTrue("Space not available", future.isAvailable());
+        assertEquals("Mismatched notifications count", 1, notified.get());
+        assertEquals("Notification must not consume space", 6, window.getSize());
+    }
+
+    @Test
+    public void testImmediateAvailability() throws Exception {
+        Window window = createWindow(10);
+        WindowSpaceFuture future = window.whenSpaceAvailable(10);
+        assertTrue("Space not immediately available", future.isAvailable());
+    }
+
+    @Test
+    public void testCloseFailsWaiters() throws Exception {
+        Window window = createWindow(0);
+        WindowSpaceFuture future = window.whenSpaceAvailable(1);
+        window.notifyClosed();
+        assertTrue("Close not signalled", future.await(5L, TimeUnit.SECONDS));
+        assertFalse("Unexpected availability", future.isAvailable());
+        assertTrue("Unexpected failure type: " + future.getException(), future.getException() instanceof WindowClosedException);
+
+        try {
+            window.waitForSpace();
+            fail("Unexpected wait success on closed window");
+        } catch (WindowClosedException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBlockingWaitAndConsume() throws Exception {
+        final Window window = createWindow(0);
+        Thread expander = new Thread(getCurrentTestName()) {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100L);
+                } catch (InterruptedException e) {
+                    // ignored
+                }
+                window.expand(32);
+            }
+        };
+        expander.start();
+        window.waitAndConsume(16);
+        expander.join(TimeUnit.SECONDS.toMillis(5L));
+        assertEquals("Mismatched size after wait and consume", 16, window.getSize());
+    }
+
+    @Test
+    public void testInterruptedWaitRemovesWaiter() throws Exception {
+        final Window window = createWindow(0);
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        Thread waiter = new Thread(getCurrentTestName()) {
+            @Override
+            public void run() {
+                try {
+                    window.waitAndConsume(16);
+                } catch (Exception e) {
+                    failure.set(e);
+                }
+            }
+        };
+        waiter.start();
+        for (int index = 0; (index < 50) && (window.getWaitersCount() == 0); index++) {
+            Thread.sleep(10L);
+        }
+        assertEquals("Waiter not registered", 1, window.getWaitersCount());
+
+        waiter.interrupt();
+        waiter.join(TimeUnit.SECONDS.toMillis(5L));
+        assertTrue("Unexpected wait failure: " + failure.get(), failure.get() instanceof InterruptedException);
+        assertEquals("Interrupted waiter still queued", 0, window.getWaitersCount());
+    }
+
+    @Test
+    public void testCancelRemovesWaiter() throws Exception {
+        Window window = createWindow(0);
+        WindowSpaceFuture future = window.whenSpaceAvailable(1);
+        assertEquals("Waiter not registered", 1, window.getWaitersCount());
+
+        future.cancel();
+        assertEquals("Cancelled waiter still queued", 0, window.getWaitersCount());
+        window.expand(1);
+        assertFalse("Cancelled waiter signalled", future.isAvailable());
+    }
+
+    private static Window createWindow(int size) {
+        Window window = new Window(new BogusChannel(), true, false);
+        window.init(size, 32768, Collections.<String,Object>emptyMap());
+        return window;
+    }
+}
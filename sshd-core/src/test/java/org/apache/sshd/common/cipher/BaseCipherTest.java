@@ -28,7 +28,10 @@ import javax.crypto.spec.SecretKeySpec;
 import org.apache.sshd.common.Cipher;
 import org.apache.sshd.common.Cipher.Mode;
 import org.apache.sshd.common.NamedFactory;
+import org.apache.sshd.common.SshConstants;
+import org.apache.sshd.common.SshException;
 import org.apache.sshd.common.util.SecurityUtils;
+import org.apache.sshd.common.util.buffer.BufferUtils;
 import org.apache.sshd.util.BaseTestSupport;
 import org.junit.Assume;
 
@@ -87,4 +90,42 @@ public abstract class BaseCipherTest extends BaseTestSupport {
 
 		assertArrayEquals(facName, expected, actual);
 	}
+
+	protected void testAuthenticatedEncryptDecrypt(NamedFactory<Cipher> factory) throws Exception {
+		String				facName=factory.getName();
+		AuthenticatedCipher	enc=(AuthenticatedCipher) factory.create();
+		int					keySize=enc.getKeySize(), ivSize=enc.getIVSize(), tagSize=enc.getAuthenticationTagSize();
+		byte[]				key=new byte[keySize], iv=new byte[ivSize];
+		enc.init(Mode.Encrypt, key, iv);
+
+		AuthenticatedCipher	dec=(AuthenticatedCipher) factory.create();
+		dec.init(Mode.Decrypt, key, iv);
+
+		byte[]	payload=facName.getBytes();
+		int		packetLength=payload.length;
+		byte[]	expected=new byte[4 + packetLength + tagSize];
+		BufferUtils.putInt(packetLength, expected, 0);
+		System.arraycopy(payload, 0, expected, 4, packetLength);
+
+		// use several packets to make sure the nonce is updated in the same way on both sides
+		for (long seqNum=0L; seqNum < Byte.SIZE; seqNum++) {
+			byte[]	workBuf=expected.clone();	// need to clone since the cipher works in-line
+			enc.updatePacket(workBuf, 0, packetLength, seqNum);
+			assertFalse(facName + "[" + seqNum + "] data not encrypted", BufferUtils.equals(expected, 4, workBuf, 4, packetLength));
+			assertEquals(facName + "[" + seqNum + "] mismatched length", packetLength, dec.getPacketLength(workBuf, 0, seqNum));
+
+			dec.updatePacket(workBuf, 0, packetLength, seqNum);
+			assertTrue(facName + "[" + seqNum + "] mismatched data", BufferUtils.equals(expected, 0, workBuf, 0, 4 + packetLength));
+		}
+
+		byte[]	workBuf=expected.clone();
+		enc.updatePacket(workBuf, 0, packetLength, Byte.SIZE);
+		workBuf[4 + packetLength / 2] ^= 0x01;
+		try {
+			dec.updatePacket(workBuf, 0, packetLength, Byte.SIZE);
+			fail(facName + " tampered data not detected");
+		} catch(SshException e) {
+			assertEquals(facName + " mismatched disconnect code", SshConstants.SSH2_DISCONNECT_MAC_ERROR, e.getDisconnectCode());
+		}
+	}
 }
@@ -112,7 +112,7 @@ public class BuiltinCiphersTest extends BaseTestSupport {
                 continue;
             }
             Cipher cipher = expected.create();
-            byte[] key = new byte[cipher.getBlockSize()];
+            byte[] key = new byte[Cipher.Utils.getKeySize(cipher)];
             byte[] iv = new byte[cipher.getIVSize()];
             cipher.init(Cipher.Mode.Encrypt, key, iv);
         }
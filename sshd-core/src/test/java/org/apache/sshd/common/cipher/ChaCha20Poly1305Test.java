@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.cipher;
+
+import org.apache.sshd.common.Cipher;
+import org.apache.sshd.common.cipher.ChaCha20Cipher.ChaChaEngine;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+/**
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ChaCha20Poly1305Test extends BaseCipherTest {
+	public ChaCha20Poly1305Test() {
+		super();
+	}
+
+	@Test
+	public void testEncryptDecrypt() throws Exception {
+		testAuthenticatedEncryptDecrypt(BuiltinCiphers.chacha20poly1305);
+	}
+
+	@Test
+	public void testKeyAndBlockSizes() {
+		ChaCha20Cipher	cipher=new ChaCha20Cipher();
+		assertEquals("Mismatched block size", ChaCha20Cipher.BLOCK_SIZE, cipher.getBlockSize());
+		assertEquals("Mismatched key size", ChaCha20Cipher.KEY_SIZE, Cipher.Utils.getKeySize(cipher));
+	}
+
+	/**
+	 * Uses the block function test vector of RFC 7539 section 2.3.2 - the
+	 * RFC variant 32-bit counter and 96-bit nonce are mapped to the original
+	 * 64-bit counter and 64-bit nonce
+	 */
+	@Test
+	public void testChaChaEngineKeyStream() {
+		byte[]	key=new byte[32];
+		for (int i=0; i < key.length; i++) {
+			key[i] = (byte) i;
+		}
+
+		ChaChaEngine	engine=new ChaChaEngine();
+		engine.setKey(key, 0);
+		engine.setNonce(0x0000004a00000000L, 0x0900000000000001L);
+
+		byte[]	actual=new byte[ChaChaEngine.BLOCK_SIZE];
+		engine.crypt(actual, 0, actual.length);
+
+		byte[]	expected={
+			(byte) 0x10, (byte) 0xf1, (byte) 0xe7, (byte) 0xe4, (byte) 0xd1, (byte) 0x3b, (byte) 0x59, (byte) 0x15,
+			(byte) 0x50, (byte) 0x0f, (byte) 0xdd, (byte) 0x1f, (byte) 0xa3, (byte) 0x20, (byte) 0x71, (byte) 0xc4,
+			(byte) 0xc7, (byte) 0xd1, (byte) 0xf4, (byte) 0xc7, (byte) 0x33, (byte) 0xc0, (byte) 0x68, (byte) 0x03,
+			(byte) 0x04, (byte) 0x22, (byte) 0xaa, (byte) 0x9a, (byte) 0xc3, (byte) 0xd4, (byte) 0x6c, (byte) 0x4e,
+			(byte) 0xd2, (byte) 0x82, (byte) 0x64, (byte) 0x46, (byte) 0x07, (byte) 0x9f, (byte) 0xaa, (byte) 0x09,
+			(byte) 0x14, (byte) 0xc2, (byte) 0xd7, (byte) 0x05, (byte) 0xd9, (byte) 0x8b, (byte) 0x02, (byte) 0xa2,
+			(byte) 0xb5, (byte) 0x12, (byte) 0x9c, (byte) 0xd1, (byte) 0xde, (byte) 0x16, (byte) 0x4e, (byte) 0xb9,
+			(byte) 0xcb, (byte) 0xd0, (byte) 0x83, (byte) 0xe8, (byte) 0xa2, (byte) 0x50, (byte) 0x3c, (byte) 0x4e
+		};
+		assertArrayEquals("Mismatched key stream", expected, actual);
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.cipher;
+
+import java.math.BigInteger;
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+import java.util.Random;
+
+import org.apache.sshd.util.BaseTestSupport;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Uses the test vectors of RFC 7748 (X25519) and RFC 8032 (Ed25519)
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class Curve25519Test extends BaseTestSupport {
+    public Curve25519Test() {
+        super();
+    }
+
+    @Test
+    public void testX25519KeyAgreement() throws Exception {    // RFC 7748 section 6.1
+        byte[] alicePrivate = decodeHex("77076d0a7318a57d3c16c17251b26645df4c2f87ebc0992ab177fba51db92c2a");
+        byte[] bobPrivate = decodeHex("5dab087e624a8a4b79e17f8b83800ee66f3bb1292618b6fd1c2f8b27ff88e0eb");
+        byte[] alicePublic = X25519.publicKey(alicePrivate);
+        byte[] bobPublic = X25519.publicKey(bobPrivate);
+        assertArrayEquals("Mismatched Alice public key", decodeHex("8520f0098930a754748b7ddcb43ef75a0dbf3a0d26381af4eba4a98eaa9b4e6a"), alicePublic);
+        assertArrayEquals("Mismatched Bob public key", decodeHex("de9edb7d7b7dc1b4d35b61c2ece435373f8343c85b78674dadfc7e146f882b4f"), bobPublic);
+
+        byte[] expected = decodeHex("4a5d9d5ba4ce2de1728e3bf480350f25e07e21c947d19e3376f09b3c1e161742");
+        assertArrayEquals("Mismatched Alice shared secret", expected, X25519.computeSharedSecret(alicePrivate, bobPublic));
+        assertArrayEquals("Mismatched Bob shared secret", expected, X25519.computeSharedSecret(bobPrivate, alicePublic));
+    }
+
+    @Test
+    public void testX25519ScalarMult() throws Exception {   // RFC 7748 section 5.2
+        byte[] scalar = decodeHex("a546e36bf0527c9d3b16154b82465edd62144c0ac1fc5a18506a2244ba449ac4");
+        byte[] u = decodeHex("e6db6867583030db3594c1a424b15f7c726624ec26b3353b10a903a6d0ab1c4c");
+        assertArrayEquals("Mismatched result", decodeHex("c3da55379de9c6908e94ea4df28d084f32eccf03491c71f754b4075577a28552"), X25519.scalarMult(scalar, u));
+    }
+
+    @Test(expected = InvalidKeyException.class)
+    public void testX25519RejectsLowOrderPoint() throws Exception {
+        X25519.computeSharedSecret(X25519.generatePrivateKey(new SecureRandom()), new byte[X25519.KEY_SIZE]);
+    }
+
+    @Test
+    public void testEd25519EmptyMessage() throws Exception {   // RFC 8032 section 7.1 - test 1
+        testEd25519Vector("9d61b19deffd5a60ba844af492ec2cc44449c5697b326919703bac031cae7f60",
+                          "d75a980182b10ab7d54bfed3c964073a0ee172f3daa62325af021a68f707511a",
+                          "",
+                          "e5564300c360ac729086e2cc806e828a84877f1eb8e5d974d873e065224901555fb8821590a33bacc61e39701cf9b46bd25bf5f0595bbe24655141438e7a100b");
+    }
+
+    @Test
+    public void testEd25519OneByteMessage() throws Exception {   // RFC 8032 section 7.1 - test 2
+        testEd25519Vector("4ccd089b28ff96da9db6c346ec114e0f5b8a319f35aba624da8cf6ed4fb8a6fb",
+                          "3d4017c3e843895a92b70aa74d1b7ebc9c982ccf2ec4968cc0cd55f12af4660c",
+                          "72",
+                          "92a009a9f0d4cab8720e820b5f642540a2b27b5416503f8fb3762223ebdb69da085ac1e43e15996e458f3613d0f11d8c387b2eaeb4302aeeb00d291612bb0c00");
+    }
+
+    @Test
+    public void testEd25519TamperedSignature() throws Exception {
+        Random rnd = new Random(System.nanoTime());
+        byte[] seed = new byte[Ed25519.KEY_SIZE];
+        rnd.nextBytes(seed);
+        byte[] publicKey = Ed25519.publicKey(seed);
+        byte[] msg = getCurrentTestName().getBytes("UTF-8");
+        byte[] sig = Ed25519.sign(seed, publicKey, msg, 0, msg.length);
+        assertTrue("Valid signature not verified", Ed25519.verify(publicKey, msg, 0, msg.length, sig));
+
+        for (int index = 0; index < sig.length; index++) {
+            byte[] tampered = sig.clone();
+            tampered[index] ^= 1 << rnd.nextInt(Byte.SIZE);
+            assertFalse("Tampered signature verified at index=" + index, Ed25519.verify(publicKey, msg, 0, msg.length, tampered));
+        }
+
+        msg[0] ^= 0x01;
+        assertFalse("Tampered message verified", Ed25519.verify(publicKey, msg, 0, msg.length, sig));
+    }
+
+    @Test
+    public void testEd25519ScalarOperations() throws Exception {
+        Random rnd = new Random(System.nanoTime());
+        for (int index = 0; index < Short.MAX_VALUE; index++) {
+            byte[] wide = new byte[2 * Ed25519.KEY_SIZE];
+            rnd.nextBytes(wide);
+            byte[] reduced = Ed25519.reduceScalar(wide);
+            assertEquals("Mismatched reduction at index=" + index, toBigInteger(wide).mod(Ed25519.L), toBigInteger(reduced));
+
+            byte[] a = new byte[Ed25519.KEY_SIZE];
+            byte[] b = new byte[Ed25519.KEY_SIZE];
+            rnd.nextBytes(a);
+            rnd.nextBytes(b);
+            a[a.length - 1] &= 0x7F;   // like a clamped secret scalar
+            BigInteger expected = toBigInteger(a).multiply(toBigInteger(b)).add(toBigInteger(reduced)).mod(Ed25519.L);
+            assertEquals("Mismatched multiply-add at index=" + index, expected, toBigInteger(Ed25519.mulAddScalar(a, b, reduced)));
+        }
+    }
+
+    private static BigInteger toBigInteger(byte[] le) {
+        byte[] be = new byte[le.length];
+        for (int i = 0; i < le.length; i++) {
+            be[i] = le[le.length - 1 - i];
+        }
+        return new BigInteger(1, be);
+    }
+
+    private static void testEd25519Vector(String seed, String publicKey, String msg, String sig) throws Exception {
+        byte[] seedBytes = decodeHex(seed);
+        byte[] pubBytes = Ed25519.publicKey(seedBytes);
+        assertArrayEquals("Mismatched public key", decodeHex(publicKey), pubBytes);
+
+        byte[] msgBytes = decodeHex(msg);
+        byte[] sigBytes = Ed25519.sign(seedBytes, pubBytes, msgBytes, 0, msgBytes.length);
+        assertArrayEquals("Mismatched signature", decodeHex(sig), sigBytes);
+        assertTrue("Signature not verified", Ed25519.verify(pubBytes, msgBytes, 0, msgBytes.length, sigBytes));
+    }
+
+    private static byte[] decodeHex(String s) {
+        byte[] data = new byte[s.length() / 2];
+        for (int index = 0; index < data.length; index++) {
+            data[index] = (byte) Integer.parseInt(s.substring(2 * index, 2 * index + 2), 16);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.compression;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+import org.apache.sshd.util.BaseTestSupport;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+/**
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class CompressionZlibTest extends BaseTestSupport {
+    public CompressionZlibTest() {
+        super();
+    }
+
+    @Test
+    public void testCompressibleRoundTrip() throws Exception {
+        byte[] line = (getCurrentTestName() + ": some repetitive log line\n").getBytes(StandardCharsets.UTF_8);
+        byte[] data = new byte[Short.MAX_VALUE];
+        for (int index = 0; index < data.length; index++) {
+            data[index] = line[index % line.length];
+        }
+
+        for (int level : new int[] { Deflater.DEFAULT_COMPRESSION, Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION }) {
+            CompressionZlib deflater = new CompressionZlib();
+            deflater.init(Compression.Type.Deflater, level);
+            CompressionZlib inflater = new CompressionZlib();
+            inflater.init(Compression.Type.Inflater, -1);
+
+            Buffer packet = createPacket(data);
+            deflater.compress(packet);
+            assertTrue("Data not compressed for level=" + level, packet.available() < (data.length / 10));
+            assertEquals("Mismatched payload start for level=" + level, 5, packet.rpos());
+
+            Buffer result = new ByteArrayBuffer(Byte.SIZE);
+            inflater.uncompress(packet, result);
+            assertArrayEquals("Mismatched data for level=" + level, data, result.getCompactData());
+        }
+    }
+
+    @Test
+    public void testAdaptiveSkipsIncompressibleData() throws Exception {
+        CompressionZlib deflater = new CompressionZlib(Deflater.BEST_SPEED, Deflater.DEFAULT_STRATEGY, true);
+        deflater.init(Compression.Type.Deflater, -1);
+        CompressionZlib inflater = new CompressionZlib();
+        inflater.init(Compression.Type.Inflater, -1);
+
+        Random rnd = new Random(System.nanoTime());
+        byte[] text = (getCurrentTestName() + ": some text").getBytes(StandardCharsets.UTF_8);
+        Buffer result = new ByteArrayBuffer();
+        for (int index = 0; index < 3 * CompressionZlib.ADAPTIVE_SKIP_PACKETS; index++) {
+            boolean incompressible = index < (2 * CompressionZlib.ADAPTIVE_SKIP_PACKETS);
+            byte[] data = new byte[CompressionZlib.ADAPTIVE_MIN_SAMPLE_SIZE + rnd.nextInt(Short.MAX_VALUE)];
+            if (incompressible) {
+                rnd.nextBytes(data);
+            } else {
+                for (int pos = 0; pos < data.length; pos++) {
+                    data[pos] = text[pos % text.length];
+                }
+            }
+
+            Buffer packet = createPacket(data);
+            deflater.compress(packet);
+            result.clear();
+            inflater.uncompress(packet, result);
+            assertArrayEquals("Mismatched data at packet #" + index, data, result.getCompactData());
+        }
+    }
+
+    private static Buffer createPacket(byte[] data) {
+        Buffer packet = new ByteArrayBuffer(Byte.SIZE);
+        packet.wpos(5);
+        packet.rpos(5);
+        packet.putRawBytes(data);
+        return packet;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.forward;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.sshd.common.channel.ChannelAsyncOutputStream.IoWriteFutureImpl;
+import org.apache.sshd.common.future.CloseFuture;
+import org.apache.sshd.common.io.IoOutputStream;
+import org.apache.sshd.common.io.IoSession;
+import org.apache.sshd.common.io.IoWriteFuture;
+import org.apache.sshd.common.io.SuspendableIoSession;
+import org.apache.sshd.common.util.CloseableUtils;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+import org.apache.sshd.util.BaseTestSupport;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.mockito.Mockito;
+
+/**
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class SocketDataPumpTest extends BaseTestSupport {
+    public SocketDataPumpTest() {
+        super();
+    }
+
+    @Test
+    public void testQueueUntilOutputStreamSet() throws Exception {
+        SuspendableIoSession socket = Mockito.mock(SuspendableIoSession.class);
+        SocketDataPump pump = new SocketDataPump(socket);
+        pump.forward(new ByteArrayBuffer("Hello ".getBytes()));
+        pump.forward(new ByteArrayBuffer(getCurrentTestName().getBytes()));
+        Mockito.verify(socket, Mockito.times(2)).suspendRead();
+
+        RecordingOutputStream out = new RecordingOutputStream();
+        pump.setOutputStream(out);
+        assertEquals("Mismatched writes count", 1, out.buffers.size());
+        assertEquals("Mismatched queued data", "Hello " + getCurrentTestName(), new String(out.buffers.get(0).getCompactData()));
+
+        out.complete(0);
+        Mockito.verify(socket).resumeRead();
+    }
+
+    @Test
+    public void testForwardReadBufferAsIs() throws Exception {
+        SuspendableIoSession socket = Mockito.mock(SuspendableIoSession.class);
+        SocketDataPump pump = new SocketDataPump(socket);
+        RecordingOutputStream out = new RecordingOutputStream();
+        pump.setOutputStream(out);
+
+        Buffer buffer = new ByteArrayBuffer(getCurrentTestName().getBytes());
+        pump.forward(buffer);
+        assertSame("Read buffer not used as-is", buffer, out.buffers.get(0));
+        Mockito.verify(socket).suspendRead();
+        Mockito.verify(socket, Mockito.never()).resumeRead();
+
+        out.complete(0);
+        Mockito.verify(socket).resumeRead();
+    }
+
+    @Test
+    public void testQueueWhileWriting() throws Exception {
+        SuspendableIoSession socket = Mockito.mock(SuspendableIoSession.class);
+        SocketDataPump pump = new SocketDataPump(socket);
+        RecordingOutputStream out = new RecordingOutputStream();
+        pump.setOutputStream(out);
+
+        pump.forward(new ByteArrayBuffer("first".getBytes()));
+        pump.forward(new ByteArrayBuffer("second".getBytes()));
+        pump.forward(new ByteArrayBuffer("third".getBytes()));
+        assertEquals("Unexpected write while another is in progress", 1, out.buffers.size());
+
+        out.complete(0);
+        assertEquals("Queued data not written", 2, out.buffers.size());
+        assertEquals("Mismatched queued data", "secondthird", new String(out.buffers.get(1).getCompactData()));
+        Mockito.verify(socket, Mockito.never()).resumeRead();
+
+        out.complete(1);
+        Mockito.verify(socket).resumeRead();
+    }
+
+    @Test
+    public void testGracefulCloseWaitsForPendingWrite() throws Exception {
+        SuspendableIoSession socket = Mockito.mock(SuspendableIoSession.class);
+        SocketDataPump pump = new SocketDataPump(socket);
+        RecordingOutputStream out = new RecordingOutputStream();
+        pump.setOutputStream(out);
+
+        pump.forward(new ByteArrayBuffer(getCurrentTestName().getBytes()));
+        CloseFuture future = pump.close(false);
+        assertFalse("Closed before pending write completed", future.isClosed());
+
+        pump.forward(new ByteArrayBuffer("ignored".getBytes()));
+        out.complete(0);
+        assertTrue("Not closed after pending write completed", future.isClosed());
+        assertEquals("Unexpected write after close", 1, out.buffers.size());
+    }
+
+    @Test
+    public void testFailedWriteClosesSocket() throws Exception {
+        SuspendableIoSession socket = Mockito.mock(SuspendableIoSession.class);
+        SocketDataPump pump = new SocketDataPump(socket);
+        RecordingOutputStream out = new RecordingOutputStream();
+        pump.setOutputStream(out);
+
+        pump.forward(new ByteArrayBuffer(getCurrentTestName().getBytes()));
+        out.futures.get(0).setValue(new IOException(getCurrentTestName()));
+        Mockito.verify(socket).close(true);
+        Mockito.verify(socket, Mockito.never()).resumeRead();
+    }
+
+    @Test
+    public void testQueueWithoutSuspendableSession() throws Exception {
+        IoSession socket = Mockito.mock(IoSession.class);
+        SocketDataPump pump = new SocketDataPump(socket);
+        RecordingOutputStream out = new RecordingOutputStream();
+        pump.setOutputStream(out);
+
+        pump.forward(new ByteArrayBuffer("first".getBytes()));
+        pump.forward(new ByteArrayBuffer("second".getBytes()));
+        assertEquals("Unexpected write while another is in progress", 1, out.buffers.size());
+
+        out.complete(0);
+        assertEquals("Queued data not written", 2, out.buffers.size());
+        assertEquals("Mismatched queued data", "second", new String(out.buffers.get(1).getCompactData()));
+    }
+
+    private static class RecordingOutputStream extends CloseableUtils.AbstractCloseable implements IoOutputStream {
+        private final List<Buffer> buffers = new ArrayList<Buffer>();
+        private final List<IoWriteFutureImpl> futures = new ArrayList<IoWriteFutureImpl>();
+
+        RecordingOutputStream() {
+            super();
+        }
+
+        @Override
+        public IoWriteFuture write(Buffer buffer) {
+            IoWriteFutureImpl future = new IoWriteFutureImpl(buffer);
+            buffers.add(buffer);
+            futures.add(future);
+            return future;
+        }
+
+        void complete(int index) {
+            futures.get(index).setValue(Boolean.TRUE);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sshd.common.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.sshd.SshServer;
+import org.apache.sshd.common.io.mina.MinaServiceFactory;
+import org.apache.sshd.common.io.nio2.Nio2ServiceFactory;
+import org.apache.sshd.common.util.Readable;
+import org.apache.sshd.util.BaseTestSupport;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Makes sure that no data is read while reading is suspended and that once
+ * resumed all the data is delivered - neither lost nor duplicated
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class IoSessionReadSuspensionTest extends BaseTestSupport {
+    private static final long QUIET_PERIOD = TimeUnit.SECONDS.toMillis(1L);
+
+    public IoSessionReadSuspensionTest() {
+        super();
+    }
+
+    @Test
+    public void testNio2SuspendResumeRead() throws Exception {
+        SshServer manager = SshServer.setUpDefaultServer();
+        testSuspendResumeRead(new Nio2ServiceFactory(manager, null, true));
+    }
+
+    @Test
+    public void testMinaSuspendResumeRead() throws Exception {
+        SshServer manager = SshServer.setUpDefaultServer();
+        testSuspendResumeRead(new MinaServiceFactory(manager, null, true));
+    }
+
+    private void testSuspendResumeRead(IoServiceFactory factory) throws Exception {
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final AtomicReference<SuspendableIoSession> sessionHolder = new AtomicReference<SuspendableIoSession>();
+        final CountDownLatch created = new CountDownLatch(1);
+        final AtomicBoolean suspendOnMessage = new AtomicBoolean(false);
+        final CountDownLatch suspended = new CountDownLatch(1);
+        final AtomicReference<Throwable> sessionFailure = new AtomicReference<Throwable>();
+        IoHandler handler = new IoHandler() {
+            @Override
+            public void sessionCreated(IoSession session) throws Exception {
+                // suspend before the first read is issued
+                SuspendableIoSession suspendable = (SuspendableIoSession) session;
+                suspendable.suspendRead();
+                sessionHolder.set(suspendable);
+                created.countDown();
+            }
+
+            @Override
+            public void sessionClosed(IoSession session) throws Exception {
+                // ignored
+            }
+
+            @Override
+            public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+                sessionFailure.compareAndSet(null, cause);
+            }
+
+            @Override
+            public void messageReceived(IoSession session, Readable message) throws Exception {
+                byte[] data = new byte[message.available()];
+                message.getRawBytes(data, 0, data.length);
+                synchronized (received) {
+                    received.write(data);
+                    received.notifyAll();
+                }
+
+                if (suspendOnMessage.getAndSet(false)) {
+                    ((SuspendableIoSession) session).suspendRead();
+                    suspended.countDown();
+                }
+            }
+        };
+
+        IoAcceptor acceptor = factory.createAcceptor(handler);
+        try {
+            acceptor.bind(new InetSocketAddress("localhost", 0));
+            int port = ((InetSocketAddress) acceptor.getBoundAddresses().iterator().next()).getPort();
+            try (Socket socket = new Socket("localhost", port)) {
+                assertTrue("Session not created", created.await(5L, TimeUnit.SECONDS));
+                SuspendableIoSession session = sessionHolder.get();
+                final OutputStream out = socket.getOutputStream();
+
+                // suspended from the start
+                Random rnd = new Random(System.nanoTime());
+                byte[] first = new byte[Short.MAX_VALUE];
+                rnd.nextBytes(first);
+                out.write(first);
+                out.flush();
+                assertReceivedSize("Data read while suspended from start", received, 0);
+
+                session.resumeRead();
+                waitForReceivedSize(received, first.length);
+
+                // suspended while data is streaming in
+                final byte[] second = new byte[1024 * 1024];
+                rnd.nextBytes(second);
+                suspendOnMessage.set(true);
+                final AtomicReference<IOException> writeFailure = new AtomicReference<IOException>();
+                Thread writer = new Thread(getCurrentTestName()) {
+                    @Override
+                    public void run() {
+                        try {
+                            out.write(second);
+                            out.flush();
+                        } catch (IOException e) {
+                            writeFailure.set(e);
+                        }
+                    }
+                };
+                writer.setDaemon(true);
+                writer.start();
+
+                assertTrue("Reading not suspended", suspended.await(5L, TimeUnit.SECONDS));
+                int suspendedSize;
+                synchronized (received) {
+                    suspendedSize = received.size();
+                }
+                assertTrue("All data read in a single message", suspendedSize < (first.length + second.length));
+                assertReceivedSize("Data read while suspended", received, suspendedSize);
+
+                session.resumeRead();
+                waitForReceivedSize(received, first.length + second.length);
+                writer.join(TimeUnit.SECONDS.toMillis(5L));
+                assertNull("Write failed", writeFailure.get());
+
+                byte[] expected = Arrays.copyOf(first, first.length + second.length);
+                System.arraycopy(second, 0, expected, first.length, second.length);
+                synchronized (received) {
+                    assertArrayEquals("Mismatched received data", expected, received.toByteArray());
+                }
+                assertNull("Unexpected session exception", sessionFailure.get());
+            }
+        } finally {
+            acceptor.close(true);
+            factory.close(true);
+        }
+    }
+
+    private static void assertReceivedSize(String message, ByteArrayOutputStream received, int expected) throws InterruptedException {
+        Thread.sleep(QUIET_PERIOD);
+        synchronized (received) {
+            assertEquals(message, expected, received.size());
+        }
+    }
+
+    private static void waitForReceivedSize(ByteArrayOutputStream received, int expected) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10L);
+        synchronized (received) {
+            for (long remaining = timeout - System.currentTimeMillis(); (received.size() < expected) && (remaining > 0L); remaining = timeout - System.currentTimeMillis()) {
+                received.wait(remaining);
+            }
+            assertEquals("Mismatched received data size", expected, received.size());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.keyprovider;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.KeyPair;
+import java.util.Collection;
+
+import org.apache.sshd.common.util.SecurityUtils;
+import org.apache.sshd.util.BaseTestSupport;
+import org.junit.Assume;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+/**
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class CachingFileKeyPairProviderTest extends BaseTestSupport {
+    public CachingFileKeyPairProviderTest() {
+        super();
+    }
+
+    @Test
+    public void testKeysCachedUntilFileChanges() throws Exception {
+        Assume.assumeTrue("BouncyCastle not registered", SecurityUtils.isBouncyCastleRegistered());
+
+        File dir = new File(detectTargetFolder(), "keys");
+        if (!dir.exists()) {
+            assertTrue("Failed to create hierarchy of " + dir.getAbsolutePath(), dir.mkdirs());
+        }
+
+        File file = new File(dir, getCurrentTestName() + ".pem");
+        copyResource("hostkey.pem", file);
+
+        CachingFileKeyPairProvider provider = new CachingFileKeyPairProvider(file.getAbsolutePath());
+        KeyPair rsa = provider.loadKey(KeyPairProvider.SSH_RSA);
+        assertNotNull("No RSA key loaded", rsa);
+        assertSame("RSA key not cached", rsa, provider.loadKey(KeyPairProvider.SSH_RSA));
+        assertSame("Iterated key not cached", rsa, ((Collection<KeyPair>) provider.loadKeys()).iterator().next());
+        assertNull("Unexpected DSS key", provider.loadKey(KeyPairProvider.SSH_DSS));
+
+        copyResource("dsaprivkey.pem", file);
+        // make sure the change is detected even on file systems with a coarse modification time
+        assertTrue("Failed to update modification time", file.setLastModified(file.lastModified() + 10000L));
+
+        assertNotNull("DSS key not reloaded", provider.loadKey(KeyPairProvider.SSH_DSS));
+        assertNull("RSA key still cached", provider.loadKey(KeyPairProvider.SSH_RSA));
+        assertEquals("Mismatched key types", KeyPairProvider.SSH_DSS, provider.getKeyTypes().get(0));
+    }
+
+    private void copyResource(String name, File target) throws Exception {
+        try (InputStream input = getClass().getResourceAsStream("/" + name)) {
+            assertNotNull("Missing resource " + name, input);
+            Files.copy(input, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
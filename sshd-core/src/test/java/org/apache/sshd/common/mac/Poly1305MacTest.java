@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.mac;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.sshd.util.BaseTestSupport;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+/**
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class Poly1305MacTest extends BaseTestSupport {
+    // RFC 7539 section 2.5.2
+    private static final byte[] KEY = {
+        (byte) 0x85, (byte) 0xd6, (byte) 0xbe, (byte) 0x78, (byte) 0x57, (byte) 0x55, (byte) 0x6d, (byte) 0x33,
+        (byte) 0x7f, (byte) 0x44, (byte) 0x52, (byte) 0xfe, (byte) 0x42, (byte) 0xd5, (byte) 0x06, (byte) 0xa8,
+        (byte) 0x01, (byte) 0x03, (byte) 0x80, (byte) 0x8a, (byte) 0xfb, (byte) 0x0d, (byte) 0xb2, (byte) 0xfd,
+        (byte) 0x4a, (byte) 0xbf, (byte) 0xf6, (byte) 0xaf, (byte) 0x41, (byte) 0x49, (byte) 0xf5, (byte) 0x1b
+    };
+    private static final byte[] MESSAGE = "Cryptographic Forum Research Group".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TAG = {
+        (byte) 0xa8, (byte) 0x06, (byte) 0x1d, (byte) 0xc1, (byte) 0x30, (byte) 0x51, (byte) 0x36, (byte) 0xc6,
+        (byte) 0xc2, (byte) 0x2b, (byte) 0x8b, (byte) 0xaf, (byte) 0x0c, (byte) 0x01, (byte) 0x27, (byte) 0xa9
+    };
+
+    public Poly1305MacTest() {
+        super();
+    }
+
+    @Test
+    public void testRFC7539TestVector() throws Exception {
+        Poly1305Mac mac = new Poly1305Mac();
+        mac.init(KEY);
+        mac.update(MESSAGE, 0, MESSAGE.length);
+
+        byte[] actual = new byte[mac.getBlockSize()];
+        mac.doFinal(actual, 0);
+        assertArrayEquals(TAG, actual);
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws Exception {
+        Poly1305Mac mac = new Poly1305Mac();
+        mac.init(KEY);
+        for (byte b : MESSAGE) {
+            mac.update(new byte[] { b }, 0, 1);
+        }
+
+        byte[] actual = new byte[mac.getBlockSize()];
+        mac.doFinal(actual, 0);
+        assertArrayEquals(TAG, actual);
+    }
+}
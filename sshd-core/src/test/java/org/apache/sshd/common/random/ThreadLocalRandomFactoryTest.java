@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.random;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sshd.common.NamedFactory;
+import org.apache.sshd.common.Random;
+import org.apache.sshd.util.BaseTestSupport;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+/**
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ThreadLocalRandomFactoryTest extends BaseTestSupport {
+    public ThreadLocalRandomFactoryTest() {
+        super();
+    }
+
+    @Test
+    public void testInstancePerThread() throws Exception {
+        final Set<Random> created = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<Random, Boolean>()));
+        final ThreadLocalRandomFactory factory = new ThreadLocalRandomFactory(new NamedFactory<Random>() {
+            @Override
+            public String getName() {
+                return getCurrentTestName();
+            }
+
+            @Override
+            public Random create() {
+                Random r = new JceRandom();
+                created.add(r);
+                return r;
+            }
+        });
+        assertSame("Factory not shared", factory, factory.create());
+
+        final int numThreads = 4;
+        final CountDownLatch done = new CountDownLatch(numThreads);
+        for (int index = 0; index < numThreads; index++) {
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        byte[] data = new byte[Long.SIZE];
+                        for (int i = 0; i < Byte.MAX_VALUE; i++) {
+                            factory.fill(data, 0, data.length);
+                            factory.random(Short.MAX_VALUE);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            t.start();
+        }
+
+        done.await();
+        assertEquals("Mismatched number of instances", numThreads, created.size());
+    }
+
+    @Test
+    public void testPooledRandomServesFromPool() {
+        final AtomicInteger calls = new AtomicInteger();
+        Random counting = new JceRandom() {
+            @Override
+            public synchronized void fill(byte[] foo, int start, int len) {
+                calls.incrementAndGet();
+                super.fill(foo, start, len);
+            }
+        };
+
+        int poolSize = 256;
+        PooledRandom random = new PooledRandom(counting, poolSize);
+        byte[] data = new byte[poolSize];
+        int len = 16;
+        for (int offset = 0; offset < data.length; offset += len) {
+            random.fill(data, offset, len);
+        }
+        assertEquals("Mismatched pool refill calls", 1, calls.get());
+
+        random.fill(data, 0, len);
+        assertEquals("Pool not refilled when exhausted", 2, calls.get());
+
+        random.fill(new byte[poolSize + 1], 0, poolSize + 1);
+        assertEquals("Large request not delegated", 3, calls.get());
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sshd.common.session;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sshd.util.BaseTestSupport;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Drives the timer wheel with an explicit clock and a small tick
+ *
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class SessionTimeoutListenerTest extends BaseTestSupport {
+    private static final int WHEEL_SIZE = 8;
+    private static final long TICK = 10L;
+
+    private SessionTimeoutListener listener;
+    private AtomicLong clock;
+    private long base;
+
+    public SessionTimeoutListenerTest() {
+        super();
+    }
+
+    @Before
+    public void setUp() {
+        listener = new SessionTimeoutListener(WHEEL_SIZE, TICK);
+        // start on a tick boundary ahead of the wall clock the listener was created with
+        base = (System.currentTimeMillis() / TICK + 2L * WHEEL_SIZE) * TICK;
+        clock = new AtomicLong(base);
+        listener.checkTimeouts(base);
+    }
+
+    @Test
+    public void testSessionExpiresInItsSlot() throws Exception {
+        MockSession session = new MockSession(base + 25L);
+        listener.schedule(session.session, base);
+        assertEquals("Session not monitored", 1, listener.getMonitoredSessionsCount());
+
+        advance(base + 20L);
+        assertEquals("Session checked before its slot", 0, session.checks.get());
+
+        advance(base + 30L);
+        assertEquals("Session not checked in its slot", 1, session.checks.get());
+        assertTrue("Session not timed out", session.closed.get());
+        assertEquals("Timed out session still monitored", 0, listener.getMonitoredSessionsCount());
+    }
+
+    @Test
+    public void testCatchUpAfterDelayedTicks() throws Exception {
+        MockSession session = new MockSession(base + 25L);
+        listener.schedule(session.session, base);
+
+        advance(base + 6L * TICK);
+        assertEquals("Session not checked while catching up", 1, session.checks.get());
+        assertTrue("Session not timed out", session.closed.get());
+        assertEquals("Timed out session still monitored", 0, listener.getMonitoredSessionsCount());
+    }
+
+    @Test
+    public void testReinsertionAfterIdleTimeoutReset() throws Exception {
+        MockSession session = new MockSession(base + 25L);
+        listener.schedule(session.session, base);
+
+        // activity moved the deadline after the session was scheduled
+        session.deadline.set(base + 55L);
+        advance(base + 30L);
+        assertEquals("Session not checked in its original slot", 1, session.checks.get());
+        assertFalse("Session timed out before its new deadline", session.closed.get());
+        assertEquals("Session no longer monitored", 1, listener.getMonitoredSessionsCount());
+
+        advance(base + 50L);
+        assertEquals("Session checked before its new slot", 1, session.checks.get());
+
+        advance(base + 60L);
+        assertEquals("Session not checked in its new slot", 2, session.checks.get());
+        assertTrue("Session not timed out", session.closed.get());
+        assertEquals("Timed out session still monitored", 0, listener.getMonitoredSessionsCount());
+    }
+
+    @Test
+    public void testDeadlineBeyondWheelSize() throws Exception {
+        long deadline = base + 2L * WHEEL_SIZE * TICK + 5L;
+        MockSession session = new MockSession(deadline);
+        listener.schedule(session.session, base);
+
+        for (long now = base + TICK; now < deadline; now += TICK) {
+            advance(now);
+            assertFalse("Session timed out at " + (now - base) + " before its deadline", session.closed.get());
+            assertEquals("Session no longer monitored at " + (now - base), 1, listener.getMonitoredSessionsCount());
+        }
+
+        advance(deadline + TICK);
+        assertTrue("Session not timed out", session.closed.get());
+        assertEquals("Timed out session still monitored", 0, listener.getMonitoredSessionsCount());
+    }
+
+    @Test
+    public void testClockGoingBackwards() throws Exception {
+        advance(base + 10L * TICK);
+        MockSession session = new MockSession(base + 25L);
+        listener.schedule(session.session, clock.get());
+
+        // the wheel resumes from the earlier time instead of waiting for the old one to come back
+        advance(base + 20L);
+        assertFalse("Session timed out before its deadline", session.closed.get());
+
+        advance(base + 40L);
+        assertTrue("Session not timed out after clock went backwards", session.closed.get());
+        assertEquals("Timed out session still monitored", 0, listener.getMonitoredSessionsCount());
+    }
+
+    @Test
+    public void testSessionClosedWhileScheduled() throws Exception {
+        final MockSession session = new MockSession(base + 25L);
+        // the session is closed - and the listener notified - while its deadline is computed
+        Mockito.when(session.session.getTimeoutDeadline(Mockito.anyLong())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                session.closed.set(true);
+                listener.sessionClosed(session.session);
+                return Long.valueOf(session.deadline.get());
+            }
+        });
+
+        listener.schedule(session.session, base);
+        assertEquals("Closed session still monitored", 0, listener.getMonitoredSessionsCount());
+    }
+
+    private void advance(long now) {
+        clock.set(now);
+        listener.checkTimeouts(now);
+    }
+
+    private class MockSession {
+        private final AbstractSession session = Mockito.mock(AbstractSession.class);
+        private final AtomicLong deadline;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private final AtomicInteger checks = new AtomicInteger(0);
+
+        MockSession(long initialDeadline) throws Exception {
+            deadline = new AtomicLong(initialDeadline);
+
+            Answer<Boolean> closedAnswer = new Answer<Boolean>() {
+                @Override
+                public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                    return Boolean.valueOf(closed.get());
+                }
+            };
+            Mockito.when(session.isClosing()).thenAnswer(closedAnswer);
+            Mockito.when(session.isClosed()).thenAnswer(closedAnswer);
+            Mockito.when(session.getTimeoutDeadline(Mockito.anyLong())).thenAnswer(new Answer<Long>() {
+                @Override
+                public Long answer(InvocationOnMock invocation) throws Throwable {
+                    return Long.valueOf(deadline.get());
+                }
+            });
+            // like AbstractSession#checkForTimeouts - only fires once the deadline has been passed
+            Mockito.doAnswer(new Answer<Void>() {
+                @Override
+                public Void answer(InvocationOnMock invocation) throws Throwable {
+                    checks.incrementAndGet();
+                    if (clock.get() > deadline.get()) {
+                        closed.set(true);
+                    }
+                    return null;
+                }
+            }).when(session).checkForTimeouts();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sshd.common.util.threads.KeyOrderedExecutor;
+import org.apache.sshd.util.BaseTestSupport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+/**
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class KeyOrderedExecutorTest extends BaseTestSupport {
+    private ExecutorService service;
+
+    public KeyOrderedExecutorTest() {
+        super();
+    }
+
+    @Before
+    public void setUp() {
+        service = Executors.newFixedThreadPool(8);
+    }
+
+    @After
+    public void tearDown() {
+        if (service != null) {
+            service.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExclusiveTasksKeepOrder() throws Exception {
+        KeyOrderedExecutor executor = new KeyOrderedExecutor(service);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final int numTasks = Byte.MAX_VALUE;
+        for (int index = 0; index < numTasks; index++) {
+            final Integer value = Integer.valueOf(index);
+            executor.execute(getCurrentTestName(), false, new Runnable() {
+                @Override
+                public void run() {
+                    order.add(value);
+                }
+            });
+        }
+
+        executor.awaitIdle();
+        assertEquals("Mismatched active count", 0, executor.getActiveCount());
+        assertEquals("Mismatched executed tasks count", numTasks, order.size());
+        for (int index = 0; index < numTasks; index++) {
+            assertEquals("Mismatched order at index=" + index, index, order.get(index).intValue());
+        }
+    }
+
+    @Test
+    public void testSharedTasksOverlap() throws Exception {
+        KeyOrderedExecutor executor = new KeyOrderedExecutor(service);
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger exclusiveOverlap = new AtomicInteger();
+        for (int index = 0; index < 2; index++) {
+            executor.execute(getCurrentTestName(), true, new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        release.await(5L, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+
+        executor.execute(getCurrentTestName(), false, new Runnable() {
+            @Override
+            public void run() {
+                if (release.getCount() > 0L) {
+                    exclusiveOverlap.incrementAndGet();
+                }
+            }
+        });
+
+        assertTrue("Shared tasks not running concurrently", started.await(5L, TimeUnit.SECONDS));
+        assertEquals("Mismatched active count", 3, executor.getActiveCount());
+        release.countDown();
+        executor.awaitIdle();
+        assertEquals("Exclusive task overlapped shared ones", 0, exclusiveOverlap.get());
+    }
+
+    @Test
+    public void testDifferentKeysRunConcurrently() throws Exception {
+        KeyOrderedExecutor executor = new KeyOrderedExecutor(service);
+        final CountDownLatch started = new CountDownLatch(2);
+        for (final String key : new String[] { getCurrentTestName(), getClass().getSimpleName() }) {
+            executor.execute(key, false, new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        started.await(5L, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+
+        assertTrue("Different keys not running concurrently", started.await(5L, TimeUnit.SECONDS));
+        executor.awaitIdle();
+    }
+
+    @Test
+    public void testRejectedQueuedTaskRunsInline() throws Exception {
+        final AtomicInteger submitted = new AtomicInteger();
+        KeyOrderedExecutor executor = new KeyOrderedExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (submitted.incrementAndGet() > 1) {
+                    throw new RejectedExecutionException("Only first task accepted");
+                }
+                service.execute(command);
+            }
+        });
+
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(getCurrentTestName(), false, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await(5L, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        final AtomicInteger executed = new AtomicInteger();
+        executor.execute(getCurrentTestName(), false, new Runnable() {
+            @Override
+            public void run() {
+                executed.incrementAndGet();
+            }
+        });
+
+        release.countDown();
+        executor.awaitIdle();
+        assertEquals("Queued task not executed", 1, executed.get());
+        assertEquals("Queued task not submitted", 2, submitted.get());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.common.util.buffer;
+
+import java.nio.ByteBuffer;
+
+import org.apache.sshd.common.util.buffer.DirectBufferPool.PooledBuffer;
+import org.apache.sshd.util.BaseTestSupport;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+/**
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class DirectBufferPoolTest extends BaseTestSupport {
+    public DirectBufferPoolTest() {
+        super();
+    }
+
+    @Test
+    public void testAcquiredBufferIsDirectAndLimited() {
+        DirectBufferPool pool = new DirectBufferPool(4096, 2);
+        PooledBuffer pooled = pool.acquire(1000);
+        ByteBuffer buf = pooled.getBuffer();
+        assertTrue("Not a direct buffer", buf.isDirect());
+        assertEquals("Mismatched position", 0, buf.position());
+        assertEquals("Mismatched limit", 1000, buf.limit());
+        assertEquals("Mismatched capacity", 1024, buf.capacity());
+    }
+
+    @Test
+    public void testBufferRecycledOnLastRelease() {
+        DirectBufferPool pool = new DirectBufferPool(4096, 2);
+        PooledBuffer pooled = pool.acquire(100);
+        ByteBuffer buf = pooled.getBuffer();
+        pooled.retain();
+
+        assertFalse("Recycled while still referenced", pooled.release());
+        assertEquals("Unexpected idle buffers", 0, pool.getPooledCount());
+        assertTrue("Not recycled on last release", pooled.release());
+        assertEquals("Mismatched idle buffers", 1, pool.getPooledCount());
+        assertFalse("Retained after release", pooled.tryRetain());
+
+        PooledBuffer other = pool.acquire(200);
+        assertSame("Buffer not re-used", buf, other.getBuffer());
+        assertEquals("Mismatched re-used limit", 200, other.getBuffer().limit());
+        assertEquals("Unexpected idle buffers after re-use", 0, pool.getPooledCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDoubleReleaseRejected() {
+        DirectBufferPool pool = new DirectBufferPool(4096, 2);
+        PooledBuffer pooled = pool.acquire(100);
+        pooled.release();
+        pooled.release();
+    }
+
+    @Test
+    public void testIdleBuffersBounded() {
+        DirectBufferPool pool = new DirectBufferPool(4096, 2);
+        PooledBuffer[] leases = new PooledBuffer[5];
+        for (int index = 0; index < leases.length; index++) {
+            leases[index] = pool.acquire(512);
+        }
+        for (PooledBuffer pooled : leases) {
+            pooled.release();
+        }
+        assertEquals("Mismatched idle buffers", pool.getMaxPooledBuffers(), pool.getPooledCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOversizedBufferRejected() {
+        DirectBufferPool pool = new DirectBufferPool(4096, 2);
+        pool.acquire(pool.getMaxBufferSize() + 1);
+    }
+}
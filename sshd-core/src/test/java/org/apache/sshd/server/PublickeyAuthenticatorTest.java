@@ -20,12 +20,21 @@
 package org.apache.sshd.server;
 
 import java.lang.reflect.Method;
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
 import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.sshd.common.config.keys.KeyUtils;
 import org.apache.sshd.common.util.GenericUtils;
 import org.apache.sshd.server.PublickeyAuthenticator.StaticPublickeyAuthenticator;
+import org.apache.sshd.server.auth.SharedCachingPublicKeyAuthenticator;
 import org.apache.sshd.server.session.ServerSession;
 import org.apache.sshd.util.BaseTestSupport;
 import org.junit.FixMethodOrder;
@@ -52,6 +61,82 @@ public class PublickeyAuthenticatorTest extends BaseTestSupport {
         testStaticPublickeyAuthenticator(PublickeyAuthenticator.RejectAllPublickeyAuthenticator.INSTANCE);
     }
 
+    @Test
+    public void testIndexedKeySetPublickeyAuthenticator() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(512);
+        List<PublicKey> keys = new ArrayList<PublicKey>();
+        for (int index = 0; index < Byte.SIZE; index++) {
+            keys.add(generator.generateKeyPair().getPublic());
+        }
+
+        PublicKey unknown = generator.generateKeyPair().getPublic();
+        PublickeyAuthenticator authenticator = new PublickeyAuthenticator.IndexedKeySetPublickeyAuthenticator(keys);
+        for (PublicKey k : keys) {
+            // use a re-generated instance to make sure the match is by value
+            PublicKey copy = KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(k.getEncoded()));
+            assertTrue("Key not found: " + KeyUtils.getFingerPrint(k), authenticator.authenticate(getCurrentTestName(), copy, null));
+        }
+        assertFalse("Unexpected match for unknown key", authenticator.authenticate(getCurrentTestName(), unknown, null));
+    }
+
+    @Test
+    public void testSharedCachingPublicKeyAuthenticator() throws Exception {
+        final AtomicInteger invocations = new AtomicInteger();
+        final PublicKey accepted = KeyPairGenerator.getInstance("RSA").generateKeyPair().getPublic();
+        PublickeyAuthenticator delegate = new PublickeyAuthenticator() {
+            @Override
+            public boolean authenticate(String username, PublicKey key, ServerSession session) {
+                invocations.incrementAndGet();
+                return KeyUtils.compareKeys(accepted, key);
+            }
+        };
+
+        SharedCachingPublicKeyAuthenticator authenticator = new SharedCachingPublicKeyAuthenticator(delegate, 2, TimeUnit.MINUTES.toMillis(1L));
+        for (int index = 0; index < Byte.SIZE; index++) {
+            assertTrue("Key not accepted", authenticator.authenticate(getCurrentTestName(), accepted, null));
+        }
+        assertEquals("Delegate not cached", 1, invocations.get());
+
+        // different user must not share the result
+        assertTrue("Key not accepted for other user", authenticator.authenticate(getClass().getSimpleName(), accepted, null));
+        assertEquals("Mismatched invocations for other user", 2, invocations.get());
+
+        PublicKey rejected = KeyPairGenerator.getInstance("RSA").generateKeyPair().getPublic();
+        assertFalse("Unexpected acceptance", authenticator.authenticate(getCurrentTestName(), rejected, null));
+        assertFalse("Unexpected re-acceptance", authenticator.authenticate(getCurrentTestName(), rejected, null));
+        assertEquals("Rejection cached by default", 4, invocations.get());
+        assertEquals("Mismatched cache size", 2, authenticator.size());
+
+        assertTrue("Key not accepted for third user", authenticator.authenticate(getCurrentTestName() + "-" + getClass().getSimpleName(), accepted, null));
+        assertEquals("Mismatched cache size after eviction", 2, authenticator.size());
+
+        authenticator.clear();
+        assertTrue("Key not accepted after clear", authenticator.authenticate(getCurrentTestName(), accepted, null));
+        assertEquals("Delegate not re-invoked after clear", 6, invocations.get());
+    }
+
+    @Test
+    public void testSharedCachingPublicKeyAuthenticatorNegativeResults() throws Exception {
+        final AtomicInteger invocations = new AtomicInteger();
+        PublickeyAuthenticator delegate = new PublickeyAuthenticator() {
+            @Override
+            public boolean authenticate(String username, PublicKey key, ServerSession session) {
+                invocations.incrementAndGet();
+                return false;
+            }
+        };
+
+        SharedCachingPublicKeyAuthenticator authenticator =
+                new SharedCachingPublicKeyAuthenticator(delegate, Byte.SIZE, TimeUnit.MINUTES.toMillis(1L), TimeUnit.MINUTES.toMillis(1L));
+        PublicKey rejected = KeyPairGenerator.getInstance("RSA").generateKeyPair().getPublic();
+        for (int index = 0; index < Byte.SIZE; index++) {
+            assertFalse("Unexpected acceptance", authenticator.authenticate(getCurrentTestName(), rejected, null));
+        }
+        assertEquals("Rejection not cached", 1, invocations.get());
+        assertEquals("Mismatched cache size", 1, authenticator.size());
+    }
+
     private void testStaticPublickeyAuthenticator(StaticPublickeyAuthenticator authenticator) throws Exception {
         Method      method = PublickeyAuthenticator.class.getMethod("authenticate", String.class, PublicKey.class, ServerSession.class);
         PublicKey   key = Mockito.mock(PublicKey.class);
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.server.command;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.session.ServerSession;
+import org.apache.sshd.util.BaseTestSupport;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.mockito.Mockito;
+
+/**
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class CommandExecutionServiceTest extends BaseTestSupport {
+    public CommandExecutionServiceTest() {
+        super();
+    }
+
+    @Test
+    public void testQueueCommandsAbovePerSessionLimit() throws Exception {
+        CommandExecutionService service = new CommandExecutionService(CommandExecutionService.UNLIMITED, 1, CommandExecutionService.UNLIMITED);
+        try {
+            ServerSession session = newSession(getCurrentTestName());
+            BlockingCommand first = new BlockingCommand();
+            BlockingCommand second = new BlockingCommand();
+            service.submit(session, first);
+            Future<?> future = service.submit(session, second);
+            assertTrue("First command not started", first.awaitStarted());
+            assertEquals("Mismatched queued commands", 1, service.getQueuedCommandsCount());
+
+            // another session is not affected by the limit
+            BlockingCommand other = new BlockingCommand();
+            service.submit(newSession(getCurrentTestName()), other);
+            assertTrue("Other session command not started", other.awaitStarted());
+            assertEquals("Mismatched running commands", 2, service.getRunningCommandsCount());
+
+            first.release();
+            assertTrue("Queued command not started", second.awaitStarted());
+            second.release();
+            future.get(5L, TimeUnit.SECONDS);
+            other.release();
+            assertEquals("Mismatched queued commands total", 1L, service.getTotalQueuedCommandsCount());
+            assertEquals("Mismatched submitted commands", 3L, service.getSubmittedCommandsCount());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testQueueCommandsAbovePerUserLimit() throws Exception {
+        CommandExecutionService service = new CommandExecutionService(CommandExecutionService.UNLIMITED, CommandExecutionService.UNLIMITED, 1);
+        try {
+            BlockingCommand first = new BlockingCommand();
+            BlockingCommand second = new BlockingCommand();
+            service.submit(newSession(getCurrentTestName()), first);
+            Future<?> future = service.submit(newSession(getCurrentTestName()), second);
+            assertTrue("First command not started", first.awaitStarted());
+            assertEquals("Mismatched user running commands", 1, service.getRunningCommandsCountForUser(getCurrentTestName()));
+            assertEquals("Mismatched queued commands", 1, service.getQueuedCommandsCount());
+
+            first.release();
+            assertTrue("Queued command not started", second.awaitStarted());
+            second.release();
+            future.get(5L, TimeUnit.SECONDS);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testCancelQueuedCommand() throws Exception {
+        CommandExecutionService service = new CommandExecutionService(1, CommandExecutionService.UNLIMITED, CommandExecutionService.UNLIMITED);
+        try {
+            ServerSession session = newSession(getCurrentTestName());
+            BlockingCommand first = new BlockingCommand();
+            BlockingCommand second = new BlockingCommand();
+            service.submit(session, first);
+            Future<?> future = service.submit(session, second);
+            assertTrue("First command not started", first.awaitStarted());
+            assertTrue("Queued command not cancelled", future.cancel(false));
+            assertEquals("Mismatched queued commands", 0, service.getQueuedCommandsCount());
+
+            first.release();
+            assertFalse("Cancelled command started", second.started.await(100L, TimeUnit.MILLISECONDS));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailQueuedCommandOnTimeout() throws Exception {
+        CommandExecutionService service = new CommandExecutionService(1, CommandExecutionService.UNLIMITED, CommandExecutionService.UNLIMITED, 100L);
+        try {
+            ServerSession session = newSession(getCurrentTestName());
+            BlockingCommand first = new BlockingCommand();
+            BlockingCommand second = new BlockingCommand();
+            ExitCallback callback = Mockito.mock(ExitCallback.class);
+            service.submit(session, first);
+            Future<?> future = service.submit(session, second, callback);
+            assertTrue("First command not started", first.awaitStarted());
+
+            try {
+                future.get(5L, TimeUnit.SECONDS);
+                fail("Queued command not failed");
+            } catch (ExecutionException e) {
+                assertTrue("Unexpected failure: " + e.getCause(), e.getCause() instanceof RejectedExecutionException);
+            }
+            Mockito.verify(callback, Mockito.timeout(5000)).onExit(Mockito.eq(-1), Mockito.anyString());
+            assertEquals("Mismatched queued commands", 0, service.getQueuedCommandsCount());
+            assertEquals("Mismatched rejected commands", 1L, service.getRejectedCommandsCount());
+
+            first.release();
+            assertFalse("Expired command started", second.started.await(100L, TimeUnit.MILLISECONDS));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testExpireQueuedCommandOnProvidedScheduler() throws Exception {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+        CommandExecutionService service = new CommandExecutionService(Executors.newCachedThreadPool(), true, scheduler,
+                1, CommandExecutionService.UNLIMITED, CommandExecutionService.UNLIMITED, 100L);
+        try {
+            ServerSession session = newSession(getCurrentTestName());
+            BlockingCommand first = new BlockingCommand();
+            service.submit(session, first);
+            Future<?> future = service.submit(session, new BlockingCommand());
+            assertTrue("First command not started", first.awaitStarted());
+
+            try {
+                future.get(5L, TimeUnit.SECONDS);
+                fail("Queued command not failed");
+            } catch (ExecutionException e) {
+                assertTrue("Unexpected failure: " + e.getCause(), e.getCause() instanceof RejectedExecutionException);
+            }
+            // the task is counted as completed only once the expiry returns
+            for (long timeout = TimeUnit.SECONDS.toMillis(5L); (scheduler.getCompletedTaskCount() == 0L) && (timeout > 0L); timeout -= 10L) {
+                Thread.sleep(10L);
+            }
+            assertEquals("Expiry not run by the provided scheduler", 1L, scheduler.getCompletedTaskCount());
+
+            first.release();
+            service.shutdown();
+            assertFalse("Provided scheduler shut down", scheduler.isShutdown());
+        } finally {
+            service.shutdown();
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectCommandWhenQueueingDisabled() throws Exception {
+        CommandExecutionService service = new CommandExecutionService(1, CommandExecutionService.UNLIMITED, CommandExecutionService.UNLIMITED, 0L);
+        try {
+            BlockingCommand first = new BlockingCommand();
+            service.submit(newSession(getCurrentTestName()), first);
+            assertTrue("First command not started", first.awaitStarted());
+
+            try {
+                service.submit(newSession(getCurrentTestName()), new BlockingCommand());
+                fail("Command above limit not rejected");
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+            assertEquals("Mismatched queued commands", 0, service.getQueuedCommandsCount());
+            first.release();
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static ServerSession newSession(String username) {
+        ServerSession session = Mockito.mock(ServerSession.class);
+        Mockito.when(session.getUsername()).thenReturn(username);
+        return session;
+    }
+
+    private static class BlockingCommand implements Runnable {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        BlockingCommand() {
+            super();
+        }
+
+        @Override
+        public void run() {
+            started.countDown();
+            try {
+                released.await(5L, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        boolean awaitStarted() throws InterruptedException {
+            return started.await(5L, TimeUnit.SECONDS);
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.server.kex;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+
+import org.apache.sshd.util.BaseTestSupport;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+/**
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ModuliCacheTest extends BaseTestSupport {
+    public ModuliCacheTest() {
+        super();
+    }
+
+    @Test
+    public void testSharedInstance() throws Exception {
+        URL url = getInternalModuli();
+        ModuliCache cache = ModuliCache.getInstance(url);
+        assertSame("Cache instance not shared", cache, ModuliCache.getInstance(url));
+        assertSame("Groups not cached", cache.getGroups(), cache.getGroups());
+    }
+
+    @Test
+    public void testSelectionMatchesLinearScan() throws Exception {
+        URL url = getInternalModuli();
+        List<Moduli.DhGroup> groups = Moduli.parseModuli(url);
+        NavigableMap<Integer, List<Moduli.DhGroup>> index = ModuliCache.getInstance(url).getGroups();
+        int[] sizes = { 1024, 1536, 2000, 2048, 3072, 4096, 6144, 7000, 8192 };
+        for (int min : sizes) {
+            for (int prf : sizes) {
+                for (int max : sizes) {
+                    List<Moduli.DhGroup> expected = linearSelect(groups, min, prf, max);
+                    List<Moduli.DhGroup> actual = ModuliCache.selectGroups(index, min, prf, max);
+                    assertEquals("Mismatched count for min=" + min + ", prf=" + prf + ", max=" + max, expected.size(), actual.size());
+                    for (int i = 0; i < expected.size(); i++) {
+                        assertEquals("Mismatched prime for min=" + min + ", prf=" + prf + ", max=" + max, expected.get(i).p, actual.get(i).p);
+                    }
+                }
+            }
+        }
+    }
+
+    private URL getInternalModuli() {
+        URL url = getClass().getResource("/org/apache/sshd/moduli");
+        assertNotNull("Missing internal moduli", url);
+        return url;
+    }
+
+    // the selection algorithm originally used by DHGEXServer
+    private static List<Moduli.DhGroup> linearSelect(List<Moduli.DhGroup> groups, int min, int prf, int max) {
+        int bestSize = 0;
+        List<Moduli.DhGroup> selected = new ArrayList<>();
+        for (Moduli.DhGroup group : groups) {
+            if (group.size < min || group.size > max) {
+                continue;
+            }
+            if ((group.size > prf && group.size < bestSize) || (group.size > bestSize && bestSize < prf)) {
+                bestSize = group.size;
+                selected.clear();
+            }
+            if (group.size == bestSize) {
+                selected.add(group);
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sshd.server.session;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.sshd.common.Session;
+import org.apache.sshd.common.SessionListener;
+import org.apache.sshd.common.io.IoSession;
+import org.apache.sshd.util.BaseTestSupport;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ConcurrentSessionCounterTest extends BaseTestSupport {
+    public ConcurrentSessionCounterTest() {
+        super();
+    }
+
+    @Test
+    public void testCountsPerUserAndAddress() {
+        ConcurrentSessionCounter counter = new ConcurrentSessionCounter();
+        Session s1 = mockSession("user1", "10.0.0.1");
+        Session s2 = mockSession("user1", "10.0.0.2");
+        Session s3 = mockSession("user2", "10.0.0.1");
+        for (Session s : new Session[] { s1, s2, s3 }) {
+            counter.sessionCreated(s);
+        }
+
+        assertEquals("Mismatched total count", 3, counter.getActiveSessionCount());
+        assertEquals("Mismatched count before authentication", 0, counter.getActiveSessionCountForUser("user1"));
+        assertEquals("Mismatched address count", 2, counter.getActiveSessionCountForAddress("10.0.0.1"));
+
+        for (Session s : new Session[] { s1, s2, s3 }) {
+            counter.sessionEvent(s, SessionListener.Event.Authenticated);
+        }
+        // duplicate events must not be counted twice
+        counter.sessionEvent(s1, SessionListener.Event.Authenticated);
+        counter.sessionEvent(s1, SessionListener.Event.KexCompleted);
+        assertEquals("Mismatched user1 count", 2, counter.getActiveSessionCountForUser("user1"));
+        assertEquals("Mismatched user2 count", 1, counter.getActiveSessionCountForUser("user2"));
+
+        counter.sessionClosed(s1);
+        assertEquals("Mismatched user1 count after close", 1, counter.getActiveSessionCountForUser("user1"));
+        assertEquals("Mismatched address count after close", 1, counter.getActiveSessionCountForAddress("10.0.0.1"));
+
+        counter.sessionClosed(s2);
+        counter.sessionClosed(s3);
+        assertEquals("Mismatched total count after close", 0, counter.getActiveSessionCount());
+        assertTrue("Users not cleaned up: " + counter.getActiveSessionCountsPerUser(), counter.getActiveSessionCountsPerUser().isEmpty());
+        assertTrue("Addresses not cleaned up: " + counter.getActiveSessionCountsPerAddress(), counter.getActiveSessionCountsPerAddress().isEmpty());
+    }
+
+    @Test
+    public void testUnauthenticatedSessionClose() {
+        ConcurrentSessionCounter counter = new ConcurrentSessionCounter();
+        Session session = mockSession(null, "10.0.0.1");
+        counter.sessionCreated(session);
+        counter.sessionEvent(session, SessionListener.Event.Authenticated);
+        counter.sessionClosed(session);
+        assertTrue("Users unexpectedly counted: " + counter.getActiveSessionCountsPerUser(), counter.getActiveSessionCountsPerUser().isEmpty());
+        assertEquals("Mismatched address count", 0, counter.getActiveSessionCountForAddress("10.0.0.1"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Session mockSession(String username, String address) {
+        final Map<Object, Object> attributes = new HashMap<Object, Object>();
+        IoSession ioSession = Mockito.mock(IoSession.class);
+        Mockito.when(ioSession.getRemoteAddress()).thenReturn(new InetSocketAddress(address, 22));
+
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(session.getUsername()).thenReturn(username);
+        Mockito.when(session.getIoSession()).thenReturn(ioSession);
+        Mockito.when(session.getAttribute(Matchers.any(Session.AttributeKey.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return attributes.get(invocation.getArguments()[0]);
+            }
+        });
+        Mockito.when(session.setAttribute(Matchers.any(Session.AttributeKey.class), Matchers.any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Object[] args = invocation.getArguments();
+                return attributes.put(args[0], args[1]);
+            }
+        });
+        return session;
+    }
+}
@@ -45,6 +45,7 @@ public class SftpSubsystemFactoryTest extends BaseTestSupport {
         SftpSubsystemFactory factory = new SftpSubsystemFactory.Builder().build();
         assertNull("Mismatched executor", factory.getExecutorService());
         assertFalse("Mismatched shutdown state", factory.isShutdownOnExit());
+        assertNull("Mismatched request executor", factory.getRequestExecutorService());
         assertSame("Mismatched unsupported attribute policy", SftpSubsystemFactory.DEFAULT_POLICY, factory.getUnsupportedAttributePolicy());
     }
 
@@ -61,6 +62,10 @@ public class SftpSubsystemFactoryTest extends BaseTestSupport {
         assertSame("Mismatched executor", service, factory.getExecutorService());
         assertTrue("Mismatched shutdown state", factory.isShutdownOnExit());
 
+        ExecutorService requestService = dummyExecutor();
+        factory = builder.withRequestExecutorService(requestService).build();
+        assertSame("Mismatched request executor", requestService, factory.getRequestExecutorService());
+
         for (UnsupportedAttributePolicy policy : UnsupportedAttributePolicy.VALUES) {
             SftpSubsystemFactory actual = builder.withUnsupportedAttributePolicy(policy).build();
             assertSame("Mismatched unsupported attribute policy", policy, actual.getUnsupportedAttributePolicy());
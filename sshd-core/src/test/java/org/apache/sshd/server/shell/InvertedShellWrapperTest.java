@@ -20,7 +20,11 @@ package org.apache.sshd.server.shell;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.sshd.common.channel.ChannelAsyncOutputStream.IoWriteFutureImpl;
+import org.apache.sshd.common.io.IoOutputStream;
+import org.apache.sshd.common.util.buffer.Buffer;
 import org.apache.sshd.util.BaseTestSupport;
 import org.apache.sshd.util.BogusEnvironment;
 import org.apache.sshd.util.BogusExitCallback;
@@ -28,6 +32,9 @@ import org.apache.sshd.util.BogusInvertedShell;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class InvertedShellWrapperTest extends BaseTestSupport {
@@ -44,18 +51,124 @@ public class InvertedShellWrapperTest extends BaseTestSupport {
             wrapper.setInputStream(in);
             wrapper.setOutputStream(out);
             wrapper.setErrorStream(err);
-            wrapper.setExitCallback(new BogusExitCallback());
+            BogusExitCallback callback = new BogusExitCallback();
+            wrapper.setExitCallback(callback);
             wrapper.start(new BogusEnvironment());
-    
-            wrapper.pumpStreams();
-    
+
+            waitForExit(callback);
+
             // check the streams were flushed before exiting
-            assertEquals("in", shell.getInputStream().toString());
             assertEquals("out", out.toString());
             assertEquals("err", err.toString());
+            waitForContent(shell.getInputStream(), "in");
         }
     }
 
+    @Test
+    public void testAsyncStreamsAreFlushedBeforeClosing() throws Exception {
+        BogusInvertedShell shell = newShell("out", "err");
+        shell.setAlive(false);
+        try(ByteArrayOutputStream out = new ByteArrayOutputStream(50);
+            ByteArrayOutputStream err = new ByteArrayOutputStream()) {
+
+            InvertedShellWrapper wrapper = new InvertedShellWrapper(shell);
+            wrapper.setIoOutputStream(newIoOutputStream(out));
+            wrapper.setIoErrorStream(newIoOutputStream(err));
+            BogusExitCallback callback = new BogusExitCallback();
+            wrapper.setExitCallback(callback);
+            wrapper.start(new BogusEnvironment());
+
+            waitForExit(callback);
+
+            // check the writes completed before exiting
+            assertEquals("out", out.toString());
+            assertEquals("err", err.toString());
+        }
+    }
+
+    @Test
+    public void testExitIsDelayedUntilTheProcessTerminates() throws Exception {
+        BogusInvertedShell shell = newShell("out", "err");
+        try(ByteArrayOutputStream out = new ByteArrayOutputStream(50);
+            ByteArrayOutputStream err = new ByteArrayOutputStream()) {
+
+            InvertedShellWrapper wrapper = new InvertedShellWrapper(shell);
+            wrapper.setOutputStream(out);
+            wrapper.setErrorStream(err);
+            BogusExitCallback callback = new BogusExitCallback();
+            wrapper.setExitCallback(callback);
+            wrapper.start(new BogusEnvironment());
+
+            // the outputs reach EOF while the process is still running
+            waitForContent(out, "out");
+            waitForContent(err, "err");
+            Thread.sleep(10L * InvertedShellWrapper.EXIT_POLL_INTERVAL);
+            assertFalse("Shell exited while still alive", callback.isExited());
+
+            shell.setAlive(false);
+            waitForExit(callback);
+            assertEquals("Mismatched exit value", 0, callback.getExitValue());
+            assertEquals("Mismatched exit notifications", 1, callback.getExitCount());
+        }
+    }
+
+    @Test
+    public void testExitIsReportedWhenExitValueFails() throws Exception {
+        BogusInvertedShell shell = new BogusInvertedShell(new ByteArrayOutputStream(20),
+                new ByteArrayInputStream("out".getBytes()), new ByteArrayInputStream("err".getBytes())) {
+            @Override
+            public int exitValue() {
+                throw new IllegalThreadStateException("process has not exited");
+            }
+        };
+        shell.setAlive(false);
+        try(ByteArrayOutputStream out = new ByteArrayOutputStream(50);
+            ByteArrayOutputStream err = new ByteArrayOutputStream()) {
+
+            InvertedShellWrapper wrapper = new InvertedShellWrapper(shell);
+            wrapper.setOutputStream(out);
+            wrapper.setErrorStream(err);
+            BogusExitCallback callback = new BogusExitCallback();
+            wrapper.setExitCallback(callback);
+            wrapper.start(new BogusEnvironment());
+
+            waitForExit(callback);
+            assertEquals("Mismatched exit value", -1, callback.getExitValue());
+            assertEquals("Mismatched exit notifications", 1, callback.getExitCount());
+        }
+    }
+
+    private static void waitForExit(BogusExitCallback callback) throws InterruptedException {
+        for (long timeout = TimeUnit.SECONDS.toMillis(5L); !callback.isExited() && timeout > 0L; timeout -= 10L) {
+            Thread.sleep(10L);
+        }
+        assertTrue("Shell not exited", callback.isExited());
+    }
+
+    private static void waitForContent(Object stream, String expected) throws InterruptedException {
+        for (long timeout = TimeUnit.SECONDS.toMillis(5L); !expected.equals(stream.toString()) && timeout > 0L; timeout -= 10L) {
+            Thread.sleep(10L);
+        }
+        assertEquals(expected, stream.toString());
+    }
+
+    private static IoOutputStream newIoOutputStream(final ByteArrayOutputStream target) throws Exception {
+        IoOutputStream out = Mockito.mock(IoOutputStream.class);
+        Mockito.when(out.write(Mockito.any(Buffer.class))).thenAnswer(new Answer<IoWriteFutureImpl>() {
+            @Override
+            public IoWriteFutureImpl answer(InvocationOnMock invocation) throws Throwable {
+                Buffer buffer = (Buffer) invocation.getArguments()[0];
+                synchronized (target) {
+                    target.write(buffer.array(), buffer.rpos(), buffer.available());
+                }
+                IoWriteFutureImpl future = new IoWriteFutureImpl(buffer);
+                future.setValue(Boolean.TRUE);
+                return future;
+            }
+        });
+        return out;
+    }
+
     private BogusInvertedShell newShell(String contentOut, String contentErr) {
         ByteArrayOutputStream in = new ByteArrayOutputStream(20);
         ByteArrayInputStream out = new ByteArrayInputStream(contentOut.getBytes());
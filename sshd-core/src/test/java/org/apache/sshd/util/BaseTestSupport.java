@@ -18,8 +18,13 @@
  */
 package org.apache.sshd.util;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
@@ -39,7 +44,11 @@ import java.security.spec.ECPoint;
 import java.security.spec.EllipticCurve;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.sshd.ClientChannel;
+import org.apache.sshd.ClientSession;
+import org.apache.sshd.SshClient;
 import org.apache.sshd.common.util.GenericUtils;
 import org.junit.Assert;
 import org.junit.Rule;
@@ -123,6 +132,56 @@ public abstract class BaseTestSupport extends Assert {
         return sb.toString();
     }
 
+    /**
+     * Sends a few commands to an echo shell through our own client and
+     * makes sure they are all echoed back before the shell exits
+     *
+     * @param message Assertion message
+     * @param client A configured - but not yet started - {@link SshClient},
+     * stopped when the method returns
+     * @param port The server port
+     * @throws Exception If failed to run the session
+     */
+    protected void assertEchoShellSession(String message, SshClient client, int port) throws Exception {
+        try(ByteArrayOutputStream sent = new ByteArrayOutputStream();
+            ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+
+            try {
+                client.start();
+
+                try(ClientSession session = client.connect(getCurrentTestName(), "localhost", port).await().getSession()) {
+                    session.addPasswordIdentity(getCurrentTestName());
+                    session.auth().verify(5L, TimeUnit.SECONDS);
+
+                    try(ClientChannel channel = session.createChannel(ClientChannel.CHANNEL_SHELL);
+                        PipedOutputStream pipedIn = new PipedOutputStream();
+                        InputStream inPipe = new PipedInputStream(pipedIn);
+                        ByteArrayOutputStream err = new ByteArrayOutputStream();
+                        OutputStream teeOut = new TeeOutputStream(sent, pipedIn)) {
+
+                        channel.setIn(inPipe);
+                        channel.setOut(out);
+                        channel.setErr(err);
+                        assertTrue("Channel not opened", channel.open().await().isOpened());
+
+                        for (int i = 0; i < 10; i++) {
+                            teeOut.write("this is my command\n".getBytes());
+                            teeOut.flush();
+                        }
+                        teeOut.write("exit\n".getBytes());
+                        teeOut.flush();
+
+                        channel.waitFor(ClientChannel.CLOSED, 0);
+                    }
+                }
+            } finally {
+                client.stop();
+            }
+
+            assertArrayEquals(message, sent.toByteArray(), out.toByteArray());
+        }
+    }
+
     /* ----------------------- Useful extra assertions --------------------- */
 
     public static void assertEquals(String message, boolean expected, boolean actual) {
@@ -18,19 +18,25 @@
  */
 package org.apache.sshd.util;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.sshd.server.ExitCallback;
 
 public class BogusExitCallback implements ExitCallback {
 
-    private boolean exited;
+    private final AtomicInteger exitCount = new AtomicInteger();
+    private volatile boolean exited;
+    private volatile int exitValue;
 
     @Override
     public void onExit(int exitValue) {
-        this.exited = true;
+        onExit(exitValue, null);
     }
 
     @Override
     public void onExit(int exitValue, String exitMessage) {
+        this.exitValue = exitValue;
+        this.exitCount.incrementAndGet();
         this.exited = true;
     }
 
@@ -38,4 +44,12 @@ public class BogusExitCallback implements ExitCallback {
         return exited;
     }
 
+    public int getExitValue() {
+        return exitValue;
+    }
+
+    public int getExitCount() {
+        return exitCount.get();
+    }
+
 }
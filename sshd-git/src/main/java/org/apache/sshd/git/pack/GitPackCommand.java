@@ -29,6 +29,9 @@ import org.apache.sshd.common.channel.ChannelOutputStream;
 import org.apache.sshd.server.Command;
 import org.apache.sshd.server.Environment;
 import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.SessionAware;
+import org.apache.sshd.server.command.CommandExecutionService;
+import org.apache.sshd.server.session.ServerSession;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryCache;
 import org.eclipse.jgit.transport.ReceivePack;
@@ -40,7 +43,7 @@ import org.eclipse.jgit.util.FS;
  *
  * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
  */
-public class GitPackCommand implements Command, Runnable {
+public class GitPackCommand implements Command, Runnable, SessionAware {
 
     private String rootDir;
     private String command;
@@ -48,6 +51,7 @@ public class GitPackCommand implements Command, Runnable {
     private OutputStream out;
     private OutputStream err;
     private ExitCallback callback;
+    private ServerSession session;
 
     public GitPackCommand(String rootDir, String command) {
         this.rootDir = rootDir;
@@ -80,11 +84,25 @@ public class GitPackCommand implements Command, Runnable {
         this.callback = callback;
     }
 
+    @Override
+    public void setSession(ServerSession session) {
+        this.session = session;
+    }
+
     @Override
     public void start(Environment env) throws IOException {
-        Thread  thread=new Thread(this);
-        thread.setDaemon(true);
-        thread.start();
+        CommandExecutionService service = CommandExecutionService.resolve(session);
+        if (service != null) {
+            try {
+                service.submit(session, this, callback);
+            } catch (RuntimeException e) {    // e.g., RejectedExecutionException
+                throw new IOException(e);
+            }
+        } else {
+            Thread  thread=new Thread(this);
+            thread.setDaemon(true);
+            thread.start();
+        }
     }
 
     @Override
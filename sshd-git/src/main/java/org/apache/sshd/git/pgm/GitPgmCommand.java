@@ -28,13 +28,16 @@ import org.apache.sshd.common.channel.ChannelOutputStream;
 import org.apache.sshd.server.Command;
 import org.apache.sshd.server.Environment;
 import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.SessionAware;
+import org.apache.sshd.server.command.CommandExecutionService;
+import org.apache.sshd.server.session.ServerSession;
 
 /**
  * TODO Add javadoc
  *
  * @author <a href="mailto:dev@mina.apache.org">Apache MINA SSHD Project</a>
  */
-public class GitPgmCommand implements Command, Runnable {
+public class GitPgmCommand implements Command, Runnable, SessionAware {
 
     private String rootDir;
     private String command;
@@ -42,6 +45,7 @@ public class GitPgmCommand implements Command, Runnable {
     private OutputStream out;
     private OutputStream err;
     private ExitCallback callback;
+    private ServerSession session;
 
     public GitPgmCommand(String rootDir, String command) {
         this.rootDir = rootDir;
@@ -74,11 +78,25 @@ public class GitPgmCommand implements Command, Runnable {
         this.callback = callback;
     }
 
+    @Override
+    public void setSession(ServerSession session) {
+        this.session = session;
+    }
+
     @Override
     public void start(Environment env) throws IOException {
-        Thread  thread=new Thread(this);
-        thread.setDaemon(true);
-        thread.start();
+        CommandExecutionService service = CommandExecutionService.resolve(session);
+        if (service != null) {
+            try {
+                service.submit(session, this, callback);
+            } catch (RuntimeException e) {    // e.g., RejectedExecutionException
+                throw new IOException(e);
+            }
+        } else {
+            Thread  thread=new Thread(this);
+            thread.setDaemon(true);
+            thread.start();
+        }
     }
 
     @Override